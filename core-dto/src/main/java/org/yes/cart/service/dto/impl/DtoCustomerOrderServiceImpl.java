@@ -23,12 +23,15 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.ListUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
+import org.hibernate.Criteria;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.MatchMode;
 import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.yes.cart.dao.CriteriaTuner;
+import org.yes.cart.dao.FetchProfiles;
 import org.yes.cart.domain.dto.CustomerOrderDTO;
 import org.yes.cart.domain.dto.CustomerOrderDeliveryDTO;
 import org.yes.cart.domain.dto.CustomerOrderDeliveryDetailDTO;
@@ -616,6 +619,18 @@ public class DtoCustomerOrderServiceImpl extends AbstractDtoServiceImpl<Customer
 
     private final static Order[] ORDERS_ORDER = new Order[] { Order.desc("orderTimestamp"), Order.desc("ordernum") };
 
+    private CriteriaTuner ordersPage(final int page, final int pageSize) {
+        return new CriteriaTuner() {
+            public void tune(final Criteria crit) {
+                for (final Order order : ORDERS_ORDER) {
+                    crit.addOrder(order);
+                }
+                crit.setFirstResult(page * pageSize);
+                crit.setMaxResults(pageSize);
+            }
+        };
+    }
+
     @Override
     public List<CustomerOrderDTO> findBy(final String filter, final int page, final int pageSize) throws UnmappedInterfaceException, UnableToCreateInstanceException {
 
@@ -714,7 +729,7 @@ public class DtoCustomerOrderServiceImpl extends AbstractDtoServiceImpl<Customer
 
         }
 
-        final List<CustomerOrder> entities = service.getGenericDao().findByCriteria(page * pageSize, pageSize, criteria.toArray(new Criterion[criteria.size()]), ORDERS_ORDER);
+        final List<CustomerOrder> entities = service.getGenericDao().findByCriteria(FetchProfiles.ORDER_EXPORT, ordersPage(page, pageSize), criteria.toArray(new Criterion[criteria.size()]));
 
         fillDTOs(entities, orders);
 
@@ -809,7 +824,7 @@ public class DtoCustomerOrderServiceImpl extends AbstractDtoServiceImpl<Customer
             criteria.add(Restrictions.in("orderStatus", statuses));
         }
 
-        final List<CustomerOrder> entities = service.getGenericDao().findByCriteria(page * pageSize, pageSize, criteria.toArray(new Criterion[criteria.size()]), ORDERS_ORDER);
+        final List<CustomerOrder> entities = service.getGenericDao().findByCriteria(FetchProfiles.ORDER_EXPORT, ordersPage(page, pageSize), criteria.toArray(new Criterion[criteria.size()]));
 
         fillDTOs(entities, orders);
 
@@ -29,6 +29,7 @@ import org.springframework.util.StringUtils;
 import org.yes.cart.constants.Constants;
 import org.yes.cart.dao.CriteriaTuner;
 import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.dto.InventoryDTO;
 import org.yes.cart.domain.dto.WarehouseDTO;
 import org.yes.cart.domain.dto.factory.DtoFactory;
@@ -183,6 +184,7 @@ public class DtoInventoryServiceImpl implements DtoInventoryService {
     }
 
     private final static Order[] INVENTORY_ORDER = new Order[] { Order.asc("skuCode") };
+    private final static Order[] INVENTORY_SCROLL_ORDER = new Order[] { Order.asc("skuCode"), Order.asc("quantity"), Order.asc("skuWarehouseId") };
 
     /** {@inheritDoc} */
     public List<InventoryDTO> findBy(final long warehouseId, final String filter, final int page, final int pageSize) throws UnmappedInterfaceException, UnableToCreateInstanceException {
@@ -192,116 +194,166 @@ public class DtoInventoryServiceImpl implements DtoInventoryService {
         if (warehouseId > 0L) {
             // only allow lists for warehouse inventory lists
 
-            final List<Criterion> criteria = new ArrayList<Criterion>();
-            criteria.add(Restrictions.eq("warehouse.warehouseId", warehouseId));
-            if (StringUtils.hasLength(filter)) {
+            final List<Criterion> criteria = createInventoryCriteria(warehouseId, filter);
 
-                final Pair<String, BigDecimal> lowOrReserved = ComplexSearchUtils.checkNumericSearch(filter, LOW_OR_RESERVED, Constants.INVENTORY_SCALE);
+            final List<SkuWarehouse> entities = skuWarehouseDAO.findByCriteria(page * pageSize, pageSize, criteria.toArray(new Criterion[criteria.size()]), INVENTORY_ORDER);
 
-                if (lowOrReserved != null) {
+            final Map<String, Object> adapters = adaptersRepository.getAll();
+            for (final SkuWarehouse entity : entities) {
+                final InventoryDTO dto = dtoFactory.getByIface(InventoryDTO.class);
+                skuWarehouseAsm.assembleDto(dto, entity, adapters, dtoFactory);
+                inventory.add(dto);
+            }
 
-                    if ("-".equals(lowOrReserved.getFirst())) {
-                        criteria.add(Restrictions.le("quantity", lowOrReserved.getSecond()));
-                    } else if ("+".equals(lowOrReserved.getFirst())) {
-                        criteria.add(Restrictions.ge("reserved", lowOrReserved.getSecond()));
-                    }
+        }
 
-                } else {
+        return inventory;
 
-                    final Pair<String, String> byCode = ComplexSearchUtils.checkSpecialSearch(filter, CODE);
+    }
 
-                    if (byCode != null) {
+    /** {@inheritDoc} */
+    public ResultsIterator<InventoryDTO> findByIterator(final long warehouseId, final String filter) {
 
+        if (warehouseId <= 0L) {
+            // only allow lists for warehouse inventory lists
+            throw new IllegalArgumentException("Warehouse must be specified");
+        }
 
-                        final List<ProductSku> skus = productSkuDAO.findByCriteria(new CriteriaTuner() {
-                            public void tune(final Criteria crit) {
-                                crit.createAlias("product", "prod");
-                                crit.setFetchMode("prod", FetchMode.JOIN);
-                            }
-                        }, Restrictions.or(
-                                Restrictions.or(
-                                        Restrictions.or(
-                                                Restrictions.ilike("prod.code", byCode.getSecond(), MatchMode.EXACT),
-                                                Restrictions.ilike("barCode", byCode.getSecond(), MatchMode.EXACT)
-                                        ),
-                                        Restrictions.or(
-                                                Restrictions.ilike("code", byCode.getSecond(), MatchMode.EXACT),
-                                                Restrictions.ilike("manufacturerCode", byCode.getSecond(), MatchMode.EXACT)
-                                        )
-
-                                ),
-                                Restrictions.or(
-                                        Restrictions.ilike("prod.manufacturerCode", byCode.getSecond(), MatchMode.EXACT),
-                                        Restrictions.ilike("prod.pimCode", byCode.getSecond(), MatchMode.EXACT)
-                                )
-                        ));
+        final List<Criterion> criteria = createInventoryCriteria(warehouseId, filter);
 
-                        final List<String> skuCodes = new ArrayList<String>();
-                        for (final ProductSku sku : skus) {
-                            skuCodes.add(sku.getCode()); // sku codes from product match
-                        }
+        final ResultsIterator<SkuWarehouse> entities = skuWarehouseDAO.findByCriteriaIterator(criteria.toArray(new Criterion[criteria.size()]), INVENTORY_SCROLL_ORDER);
+
+        final Map<String, Object> adapters = adaptersRepository.getAll();
+        return new ResultsIterator<InventoryDTO>() {
+
+            @Override
+            public boolean hasNext() {
+                return entities.hasNext();
+            }
+
+            @Override
+            public InventoryDTO next() {
+                final SkuWarehouse entity = entities.next();
+                final InventoryDTO dto = dtoFactory.getByIface(InventoryDTO.class);
+                skuWarehouseAsm.assembleDto(dto, entity, adapters, dtoFactory);
+                skuWarehouseDAO.evict(entity); // keep session small for large warehouses
+                return dto;
+            }
+
+            @Override
+            public void remove() {
+                entities.remove();
+            }
+
+            @Override
+            public void close() {
+                entities.close();
+            }
+        };
+
+    }
+
+    private List<Criterion> createInventoryCriteria(final long warehouseId, final String filter) {
+
+        final List<Criterion> criteria = new ArrayList<Criterion>();
+        criteria.add(Restrictions.eq("warehouse.warehouseId", warehouseId));
+        if (StringUtils.hasLength(filter)) {
+
+            final Pair<String, BigDecimal> lowOrReserved = ComplexSearchUtils.checkNumericSearch(filter, LOW_OR_RESERVED, Constants.INVENTORY_SCALE);
+
+            if (lowOrReserved != null) {
+
+                if ("-".equals(lowOrReserved.getFirst())) {
+                    criteria.add(Restrictions.le("quantity", lowOrReserved.getSecond()));
+                } else if ("+".equals(lowOrReserved.getFirst())) {
+                    criteria.add(Restrictions.ge("reserved", lowOrReserved.getSecond()));
+                }
+
+            } else {
 
-                        if (skuCodes.isEmpty()) {
-                            criteria.add(Restrictions.ilike("skuCode", byCode.getSecond(), MatchMode.EXACT));
-                        } else {
-                            criteria.add(
+                final Pair<String, String> byCode = ComplexSearchUtils.checkSpecialSearch(filter, CODE);
+
+                if (byCode != null) {
+
+
+                    final List<ProductSku> skus = productSkuDAO.findByCriteria(new CriteriaTuner() {
+                        public void tune(final Criteria crit) {
+                            crit.createAlias("product", "prod");
+                            crit.setFetchMode("prod", FetchMode.JOIN);
+                        }
+                    }, Restrictions.or(
+                            Restrictions.or(
                                     Restrictions.or(
-                                            Restrictions.ilike("skuCode", byCode.getSecond(), MatchMode.EXACT),
-                                            Restrictions.in("skuCode", skuCodes)
+                                            Restrictions.ilike("prod.code", byCode.getSecond(), MatchMode.EXACT),
+                                            Restrictions.ilike("barCode", byCode.getSecond(), MatchMode.EXACT)
+                                    ),
+                                    Restrictions.or(
+                                            Restrictions.ilike("code", byCode.getSecond(), MatchMode.EXACT),
+                                            Restrictions.ilike("manufacturerCode", byCode.getSecond(), MatchMode.EXACT)
                                     )
-                            );
-                        }
 
+                            ),
+                            Restrictions.or(
+                                    Restrictions.ilike("prod.manufacturerCode", byCode.getSecond(), MatchMode.EXACT),
+                                    Restrictions.ilike("prod.pimCode", byCode.getSecond(), MatchMode.EXACT)
+                            )
+                    ));
+
+                    final List<String> skuCodes = new ArrayList<String>();
+                    for (final ProductSku sku : skus) {
+                        skuCodes.add(sku.getCode()); // sku codes from product match
+                    }
 
+                    if (skuCodes.isEmpty()) {
+                        criteria.add(Restrictions.ilike("skuCode", byCode.getSecond(), MatchMode.EXACT));
                     } else {
-
-                        final List<ProductSku> skus = productSkuDAO.findByCriteria(new CriteriaTuner() {
-                            public void tune(final Criteria crit) {
-                                crit.createAlias("product", "prod");
-                                crit.setFetchMode("prod", FetchMode.JOIN);
-                            }
-                        }, Restrictions.or(
-                                Restrictions.or(
-                                        Restrictions.ilike("prod.code", filter, MatchMode.ANYWHERE),
-                                        Restrictions.ilike("code", filter, MatchMode.ANYWHERE)
-                                ),
+                        criteria.add(
                                 Restrictions.or(
-                                        Restrictions.ilike("prod.name", filter, MatchMode.ANYWHERE),
-                                        Restrictions.ilike("name", filter, MatchMode.ANYWHERE)
+                                        Restrictions.ilike("skuCode", byCode.getSecond(), MatchMode.EXACT),
+                                        Restrictions.in("skuCode", skuCodes)
                                 )
-                        ));
+                        );
+                    }
 
-                        final List<String> skuCodes = new ArrayList<String>();
-                        for (final ProductSku sku : skus) {
-                            skuCodes.add(sku.getCode()); // sku codes from product match
-                        }
 
-                        if (skuCodes.isEmpty()) {
-                            criteria.add(Restrictions.ilike("skuCode", filter, MatchMode.ANYWHERE));
-                        } else {
-                            criteria.add(
-                                    Restrictions.or(
-                                            Restrictions.ilike("skuCode", filter, MatchMode.ANYWHERE),
-                                            Restrictions.in("skuCode", skuCodes)
-                                    )
-                            );
+                } else {
+
+                    final List<ProductSku> skus = productSkuDAO.findByCriteria(new CriteriaTuner() {
+                        public void tune(final Criteria crit) {
+                            crit.createAlias("product", "prod");
+                            crit.setFetchMode("prod", FetchMode.JOIN);
                         }
-                    }
-                }
-            }
+                    }, Restrictions.or(
+                            Restrictions.or(
+                                    Restrictions.ilike("prod.code", filter, MatchMode.ANYWHERE),
+                                    Restrictions.ilike("code", filter, MatchMode.ANYWHERE)
+                            ),
+                            Restrictions.or(
+                                    Restrictions.ilike("prod.name", filter, MatchMode.ANYWHERE),
+                                    Restrictions.ilike("name", filter, MatchMode.ANYWHERE)
+                            )
+                    ));
 
-            final List<SkuWarehouse> entities = skuWarehouseDAO.findByCriteria(page * pageSize, pageSize, criteria.toArray(new Criterion[criteria.size()]), INVENTORY_ORDER);
+                    final List<String> skuCodes = new ArrayList<String>();
+                    for (final ProductSku sku : skus) {
+                        skuCodes.add(sku.getCode()); // sku codes from product match
+                    }
 
-            final Map<String, Object> adapters = adaptersRepository.getAll();
-            for (final SkuWarehouse entity : entities) {
-                final InventoryDTO dto = dtoFactory.getByIface(InventoryDTO.class);
-                skuWarehouseAsm.assembleDto(dto, entity, adapters, dtoFactory);
-                inventory.add(dto);
+                    if (skuCodes.isEmpty()) {
+                        criteria.add(Restrictions.ilike("skuCode", filter, MatchMode.ANYWHERE));
+                    } else {
+                        criteria.add(
+                                Restrictions.or(
+                                        Restrictions.ilike("skuCode", filter, MatchMode.ANYWHERE),
+                                        Restrictions.in("skuCode", skuCodes)
+                                )
+                        );
+                    }
+                }
             }
-
         }
 
-        return inventory;
+        return criteria;
 
     }
 
@@ -16,19 +16,25 @@
 
 package org.yes.cart.shoppingcart.support.impl;
 
-import org.apache.commons.codec.binary.Base64InputStream;
-import org.apache.commons.codec.binary.Base64OutputStream;
+import org.apache.commons.codec.binary.Base64;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.shoppingcart.ShoppingCart;
 import org.yes.cart.shoppingcart.support.CartDetuplizationException;
 import org.yes.cart.shoppingcart.support.CartTuplizationException;
+import org.yes.cart.shoppingcart.support.tokendriven.ShoppingCartStateSerializer;
+import org.yes.cart.shoppingcart.support.tokendriven.impl.ShoppingCartStateSerializerBinaryImpl;
 
 import javax.crypto.*;
 import javax.crypto.spec.DESKeySpec;
-import java.io.*;
-import java.security.InvalidKeyException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Serializable;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.text.MessageFormat;
+import java.util.Arrays;
 
 /**
  * Default implementation of cookie tuplizer.
@@ -38,6 +44,20 @@ import java.text.MessageFormat;
  * bytes per cookie, so it allow to store 1228800 bytes aprox 1 Mb.
  * Base64 representation will be splited to chunks.
  * <p/>
+ * Two modes are supported:
+ * <ul>
+ *     <li>AEAD (cipher with GCM mode, e.g. AES/GCM/NoPadding, and PBKDF2 secret key factory, e.g.
+ *     PBKDF2WithHmacSHA1). Token is URL safe base64 of [version][IV][cipher text + auth tag].
+ *     Tokens created by legacy DES mode with same password are only accepted if
+ *     {@link #setLegacyTokensAccepted(boolean)} is enabled (off by default).</li>
+ *     <li>legacy (e.g. DES/ECB/PKCS5Padding and DES secret key factory). Token is base64 of cipher text.</li>
+ * </ul>
+ * Cart is encoded in compact binary format (see {@link ShoppingCartStateSerializerBinaryImpl}) instead
+ * of java serialization. Tokens with java serialized carts issued by previous versions are still readable.
+ * <p/>
+ * Ciphers are not thread safe, so each thread uses its own cipher instances, which avoids
+ * contention between request threads.
+ * <p/>
  * User: dogma
  * Date: 2011-May-17
  * Time: 2:17:57 PM
@@ -48,10 +68,31 @@ public abstract class AbstractCryptedTuplizerImpl {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractCryptedTuplizerImpl.class);
 
-    private final Cipher desCipher;
-    private final Cipher desUnCipher;
+    private static final byte AEAD_TOKEN_VERSION = 1;
+    private static final int AEAD_IV_LENGTH = 12;
+    private static final int AEAD_TAG_LENGTH = 128;
+    private static final int PBKDF2_ITERATIONS = 10000;
+    private static final int PBKDF2_KEY_LENGTH = 128;
+    private static final byte[] PBKDF2_SALT = new byte[] { 'y', 'c', '-', 't', 'u', 'p', 'l', 'i', 'z', 'e', 'r' };
+
+    private static final String LEGACY_KEY_FACTORY = "DES";
+    private static final String LEGACY_CIPHER = "DES/ECB/PKCS5Padding";
 
-    private SecretKey secretKey;
+    private final boolean aead;
+    private final SecretKey secretKey;
+
+    private final ThreadLocal<Cipher> encryptCipher;
+    private final ThreadLocal<Cipher> decryptCipher;
+    private final ThreadLocal<Cipher> legacyDecryptCipher;
+    private boolean legacyTokensAccepted = false;
+
+    private final ShoppingCartStateSerializer stateSerializer = new ShoppingCartStateSerializerBinaryImpl();
+    private final ThreadLocal<SecureRandom> random = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
 
     /**
      * Default Constructor.
@@ -65,18 +106,24 @@ public abstract class AbstractCryptedTuplizerImpl {
                                        final String cipherName) {
 
         try {
-            final DESKeySpec desKeySpec = new DESKeySpec(keyRingPassword.getBytes());
 
-            SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(secretKeyFactoryName);
-            secretKey = keyFactory.generateSecret(desKeySpec);
+            aead = cipherName.toUpperCase().contains("/GCM/");
+            secretKey = createSecretKey(keyRingPassword, secretKeyFactoryName, cipherName);
+
+            // Check configuration eagerly
+            encryptCipher = new CipherThreadLocal(cipherName, aead ? -1 : Cipher.ENCRYPT_MODE, secretKey);
+            decryptCipher = new CipherThreadLocal(cipherName, aead ? -1 : Cipher.DECRYPT_MODE, secretKey);
+            encryptCipher.get();
+            decryptCipher.get();
 
-            // Create Cipher
-            desCipher = Cipher.getInstance(cipherName);
-            desCipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            if (aead) {
+                // Allows reading tokens created before switching to AEAD, see setLegacyTokensAccepted()
+                final SecretKey legacySecretKey = createLegacySecretKey(keyRingPassword);
+                legacyDecryptCipher = legacySecretKey != null ? new CipherThreadLocal(LEGACY_CIPHER, Cipher.DECRYPT_MODE, legacySecretKey) : null;
+            } else {
+                legacyDecryptCipher = null;
+            }
 
-            // create uncipher
-            desUnCipher = Cipher.getInstance(cipherName);
-            desUnCipher.init(Cipher.DECRYPT_MODE, secretKey);
         } catch (Exception ike) {
             LOG.error(ike.getMessage(), ike);
             throw new RuntimeException("Unable to load Cipher for CookieTuplizer", ike);
@@ -84,6 +131,33 @@ public abstract class AbstractCryptedTuplizerImpl {
 
     }
 
+    private static SecretKey createSecretKey(final String keyRingPassword,
+                                             final String secretKeyFactoryName,
+                                             final String cipherName) throws GeneralSecurityException {
+
+        final SecretKeyFactory keyFactory = SecretKeyFactory.getInstance(secretKeyFactoryName);
+        if (secretKeyFactoryName.toUpperCase().startsWith("PBKDF2")) {
+            final PBEKeySpec pbeKeySpec = new PBEKeySpec(keyRingPassword.toCharArray(), PBKDF2_SALT, PBKDF2_ITERATIONS, PBKDF2_KEY_LENGTH);
+            final byte[] key = keyFactory.generateSecret(pbeKeySpec).getEncoded();
+            final int algorithmEnd = cipherName.indexOf('/');
+            return new SecretKeySpec(key, algorithmEnd > 0 ? cipherName.substring(0, algorithmEnd) : cipherName);
+        }
+        final DESKeySpec desKeySpec = new DESKeySpec(keyRingPassword.getBytes());
+        return keyFactory.generateSecret(desKeySpec);
+
+    }
+
+    private static SecretKey createLegacySecretKey(final String keyRingPassword) {
+
+        try {
+            return createSecretKey(keyRingPassword, LEGACY_KEY_FACTORY, LEGACY_CIPHER);
+        } catch (Exception exp) {
+            LOG.warn("Legacy tokens will not be accepted, cause: {}", exp.getMessage());
+            return null;
+        }
+
+    }
+
     /**
      * Converts cart object into a String tuple.
      *
@@ -95,37 +169,48 @@ public abstract class AbstractCryptedTuplizerImpl {
      */
     protected String toToken(final Serializable serializable) throws CartTuplizationException {
 
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        synchronized (desCipher) {
-            Base64OutputStream base64EncoderStream = new Base64OutputStream(byteArrayOutputStream, true, Integer.MAX_VALUE, null); //will be split manually
-            CipherOutputStream cipherOutputStream = new CipherOutputStream(base64EncoderStream, desCipher);
-            ObjectOutputStream objectOutputStream = null;
-            try {
-                objectOutputStream = new ObjectOutputStream(cipherOutputStream);
-                objectOutputStream.writeObject(serializable);
-                objectOutputStream.flush();
-                objectOutputStream.close();
-            } catch (Throwable ioe) {
-                LOG.error(
-                        MessageFormat.format("Unable to serialize object {0}", serializable),
-                        ioe
-                );
-                throw new CartTuplizationException(ioe);
-            } finally {
-                try {
-                    if (objectOutputStream != null) {
-                        objectOutputStream.close();
-                    }
-                    cipherOutputStream.close();
-                    base64EncoderStream.close();
-                    byteArrayOutputStream.close();
-                } catch (IOException e) {
-                    LOG.error("Can not close stream", e);
+        if (!(serializable instanceof ShoppingCart)) {
+            throw new CartTuplizationException("Only shopping cart can be tuplized, but was: " + serializable);
+        }
+
+        final byte[] bytes = stateSerializer.saveState((ShoppingCart) serializable);
+        if (bytes == null) {
+            throw new CartTuplizationException(
+                    MessageFormat.format("Unable to serialize object {0}", serializable)
+            );
+        }
+
+        try {
+
+            final Cipher cipher = encryptCipher.get();
+
+            if (aead) {
+
+                final byte[] iv = new byte[AEAD_IV_LENGTH];
+                random.get().nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(AEAD_TAG_LENGTH, iv));
+
+                final byte[] token = new byte[1 + AEAD_IV_LENGTH + cipher.getOutputSize(bytes.length)];
+                token[0] = AEAD_TOKEN_VERSION;
+                System.arraycopy(iv, 0, token, 1, AEAD_IV_LENGTH);
+                final int len = cipher.doFinal(bytes, 0, bytes.length, token, 1 + AEAD_IV_LENGTH);
+                if (len + 1 + AEAD_IV_LENGTH < token.length) {
+                    return Base64.encodeBase64URLSafeString(Arrays.copyOf(token, len + 1 + AEAD_IV_LENGTH));
                 }
+                return Base64.encodeBase64URLSafeString(token);
+
             }
-        }
 
-        return byteArrayOutputStream.toString();
+            return Base64.encodeBase64String(cipher.doFinal(bytes)); // will be split manually
+
+        } catch (Throwable gse) {
+            encryptCipher.remove(); // cipher may be in inconsistent state
+            LOG.error(
+                    MessageFormat.format("Unable to encrypt object {0}", serializable),
+                    gse
+            );
+            throw new CartTuplizationException(gse);
+        }
 
     }
 
@@ -143,35 +228,105 @@ public abstract class AbstractCryptedTuplizerImpl {
         if (tuple == null || tuple.length() == 0) {
             return null;
         }
-        final ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(tuple.getBytes());
-        final Base64InputStream base64DecoderStream = new Base64InputStream(byteArrayInputStream);
-        final CipherInputStream cipherInputStream = new CipherInputStream(base64DecoderStream, desUnCipher);
-        ObjectInputStream objectInputStream = null;
+
         try {
-            objectInputStream = new ObjectInputStream(cipherInputStream);
-            return (ShoppingCart) objectInputStream.readObject();
 
-        } catch (Exception exception) {
-            try {
-                desUnCipher.init(Cipher.DECRYPT_MODE, secretKey); //reinit
-            } catch (InvalidKeyException e) {
-                LOG.error("Cant reinit desUnCipher", exception);
+            final byte[] token = Base64.decodeBase64(tuple);
+            final byte[] bytes;
+            if (aead) {
+                bytes = decryptAead(token);
+            } else {
+                bytes = decrypt(decryptCipher, token);
+            }
+
+            final ShoppingCart cart = stateSerializer.restoreState(bytes);
+            if (cart == null) {
+                throw new IllegalStateException("Unable to restore cart from decrypted token");
             }
+            return cart;
+
+        } catch (Exception exception) {
             final String errMsg = "Unable to convert bytes assembled from tuple into object";
             LOG.error(errMsg, exception);
             throw new CartDetuplizationException(errMsg, exception);
-        } finally {
+        }
+    }
+
+    private byte[] decryptAead(final byte[] token) throws GeneralSecurityException {
+
+        if (token.length > 1 + AEAD_IV_LENGTH && token[0] == AEAD_TOKEN_VERSION) {
             try {
-                if (objectInputStream != null) {
-                    objectInputStream.close();
+                final Cipher cipher = decryptCipher.get();
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(AEAD_TAG_LENGTH, token, 1, AEAD_IV_LENGTH));
+                return cipher.doFinal(token, 1 + AEAD_IV_LENGTH, token.length - 1 - AEAD_IV_LENGTH);
+            } catch (GeneralSecurityException gse) {
+                if (!isLegacyTokenReadable()) {
+                    throw gse;
                 }
-                cipherInputStream.close();
-                base64DecoderStream.close();
-                byteArrayInputStream.close();
-            } catch (IOException ioe) { // leave this one silent as we have the object.
-                LOG.error("Unable to close object stream", ioe);
+                // legacy token that happens to start with version byte
             }
+        }
+        if (!isLegacyTokenReadable()) {
+            throw new GeneralSecurityException("Unsupported token format");
+        }
+        return decrypt(legacyDecryptCipher, token);
 
+    }
+
+    private boolean isLegacyTokenReadable() {
+        return legacyTokensAccepted && legacyDecryptCipher != null;
+    }
+
+    /**
+     * Enable reading of tokens created by legacy DES/ECB configuration with the same password
+     * in AEAD mode. Legacy tokens are not authenticated, so this should only be enabled for the
+     * migration period (i.e. cookie max age) after switching from DES to AES/GCM and disabled
+     * afterwards. Has no effect in legacy mode.
+     *
+     * @param legacyTokensAccepted true to accept legacy tokens (default is false)
+     */
+    public void setLegacyTokensAccepted(final boolean legacyTokensAccepted) {
+        this.legacyTokensAccepted = legacyTokensAccepted;
+    }
+
+    private byte[] decrypt(final ThreadLocal<Cipher> cipher, final byte[] token) throws GeneralSecurityException {
+
+        try {
+            return cipher.get().doFinal(token);
+        } catch (GeneralSecurityException gse) {
+            cipher.remove(); // reinit
+            throw gse;
+        }
+
+    }
+
+    /**
+     * Thread bound cipher. For AEAD ciphers mode is -1 since they are initialised on each
+     * use with fresh IV.
+     */
+    private static class CipherThreadLocal extends ThreadLocal<Cipher> {
+
+        private final String cipherName;
+        private final int mode;
+        private final SecretKey secretKey;
+
+        private CipherThreadLocal(final String cipherName, final int mode, final SecretKey secretKey) {
+            this.cipherName = cipherName;
+            this.mode = mode;
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        protected Cipher initialValue() {
+            try {
+                final Cipher cipher = Cipher.getInstance(cipherName);
+                if (mode != -1) {
+                    cipher.init(mode, secretKey);
+                }
+                return cipher;
+            } catch (GeneralSecurityException gse) {
+                throw new IllegalStateException("Unable to create cipher " + cipherName, gse);
+            }
         }
     }
 
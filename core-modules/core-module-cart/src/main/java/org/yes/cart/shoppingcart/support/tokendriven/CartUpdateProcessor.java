@@ -18,6 +18,8 @@ package org.yes.cart.shoppingcart.support.tokendriven;
 
 import org.yes.cart.shoppingcart.ShoppingCart;
 
+import java.util.Collection;
+
 /**
  * User: denispavlov
  * Date: 22/08/2014
@@ -37,6 +39,15 @@ public interface CartUpdateProcessor {
      */
     void updateShoppingCart(ShoppingCart shoppingCart);
 
+    /**
+     * Persist the latest valid state of several carts in single transaction, so that
+     * state updates can be written in JDBC batches. Each cart is processed the same way
+     * as in {@link #updateShoppingCart(ShoppingCart)}.
+     *
+     * @param shoppingCarts carts to merge (if required) and persist
+     */
+    void updateShoppingCarts(Collection<ShoppingCart> shoppingCarts);
+
     /**
      * Invalidate given cart by removing all customer auth related information
      *
@@ -53,6 +53,29 @@ public class CartUpdateProcessorImpl implements CartUpdateProcessor {
     @Override
     public void updateShoppingCart(final ShoppingCart shoppingCart) {
 
+        updateState(shoppingCart, loadState(shoppingCart));
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void updateShoppingCarts(final Collection<ShoppingCart> shoppingCarts) {
+
+        // Load all states first, so that queries do not flush pending updates and updates are batched on commit
+        final List<ShoppingCartState> dbStates = new ArrayList<ShoppingCartState>(shoppingCarts.size());
+        for (final ShoppingCart shoppingCart : shoppingCarts) {
+            dbStates.add(loadState(shoppingCart));
+        }
+
+        final Iterator<ShoppingCartState> dbStatesIt = dbStates.iterator();
+        for (final ShoppingCart shoppingCart : shoppingCarts) {
+            updateState(shoppingCart, dbStatesIt.next());
+        }
+
+    }
+
+    private ShoppingCartState loadState(final ShoppingCart shoppingCart) {
+
         // 1. Need to find this cart by guid in db
         ShoppingCartState dbState = shoppingCartStateService.findByGuid(shoppingCart.getGuid());
         if (dbState == null) {
@@ -60,6 +83,11 @@ public class CartUpdateProcessorImpl implements CartUpdateProcessor {
             dbState.setGuid(shoppingCart.getGuid());
             dbState.setOrdernum(shoppingCart.getOrdernum());
         }
+        return dbState;
+
+    }
+
+    private void updateState(final ShoppingCart shoppingCart, final ShoppingCartState dbState) {
 
         // 2. If this is for logged in cart now but was anonymous we have just logged in
         if (shoppingCart.getLogonState() == ShoppingCart.LOGGED_IN && StringUtils.isBlank(dbState.getCustomerEmail())) {
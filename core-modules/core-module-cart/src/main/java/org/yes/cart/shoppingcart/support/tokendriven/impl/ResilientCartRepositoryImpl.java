@@ -18,6 +18,10 @@ package org.yes.cart.shoppingcart.support.tokendriven.impl;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.core.task.TaskExecutor;
@@ -32,12 +36,30 @@ import org.yes.cart.util.ShopCodeContext;
 import org.yes.cart.shoppingcart.support.tokendriven.CartRepository;
 import org.yes.cart.shoppingcart.support.tokendriven.CartUpdateProcessor;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
+ * Cart repository backed by cache and cart state table.
+ *
+ * Optionally cart states can be persisted using write-behind queue (see {@link #setWriteBehindDelayMs(long)}).
+ * In this mode all saves of the same cart within the delay window are coalesced into single write
+ * and pending carts are written in batches in single transaction. The queue is bounded, once the
+ * limit is reached the caller thread flushes the queue synchronously (which throttles the callers
+ * until the database catches up). Pending carts are flushed synchronously on shutdown.
+ *
  * User: denispavlov
  * Date: 21/08/2014
  * Time: 20:11
  */
-public class ResilientCartRepositoryImpl implements CartRepository {
+public class ResilientCartRepositoryImpl implements CartRepository, InitializingBean, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResilientCartRepositoryImpl.class);
 
     private final Cache CART_CACHE;
 
@@ -47,6 +69,21 @@ public class ResilientCartRepositoryImpl implements CartRepository {
     private final CartUpdateProcessor cartUpdateProcessor;
     private final TaskExecutor taskExecutor;
 
+    private long writeBehindDelayMs = 0L;
+    private int writeBehindMaxPending = 1000;
+    private int writeBehindBatchSize = 50;
+
+    private final ConcurrentMap<String, ShoppingCart> pendingCarts = new ConcurrentHashMap<String, ShoppingCart>();
+    private final Object flushLock = new Object();
+    private volatile ScheduledExecutorService writeBehindScheduler;
+
+    private final AtomicLong queuedCount = new AtomicLong(0L);
+    private final AtomicLong coalescedCount = new AtomicLong(0L);
+    private final AtomicLong writtenCount = new AtomicLong(0L);
+    private final AtomicLong batchCount = new AtomicLong(0L);
+    private final AtomicLong overflowCount = new AtomicLong(0L);
+    private final AtomicLong failedCount = new AtomicLong(0L);
+
     public ResilientCartRepositoryImpl(final ShoppingCartStateService shoppingCartStateService,
                                        final ShopService shopService,
                                        final CartUpdateProcessor cartUpdateProcessor,
@@ -214,7 +251,9 @@ public class ResilientCartRepositoryImpl implements CartRepository {
 
     void storeAsynchronously(final ShoppingCart shoppingCart) {
 
-        if (taskExecutor == null) {
+        if (writeBehindScheduler != null) {
+            storeWriteBehind(shoppingCart);
+        } else if (taskExecutor == null) {
             createRunnable(shoppingCart, null, null).run();
         } else {
             taskExecutor.execute(createRunnable(shoppingCart,
@@ -250,10 +289,173 @@ public class ResilientCartRepositoryImpl implements CartRepository {
         };
     }
 
+    private void storeWriteBehind(final ShoppingCart shoppingCart) {
+
+        final String guid = shoppingCart.getGuid();
+        if (pendingCarts.size() >= writeBehindMaxPending && !pendingCarts.containsKey(guid)) {
+            // Queue is full, make the caller wait for the flush rather than grow the queue
+            overflowCount.incrementAndGet();
+            flushPendingCarts();
+        }
+        if (pendingCarts.put(guid, shoppingCart) == null) {
+            queuedCount.incrementAndGet();
+        } else {
+            coalescedCount.incrementAndGet();
+        }
+
+    }
+
+    /**
+     * Write all pending carts. Only one flush is running at a time, so that same cart is never
+     * written concurrently.
+     */
+    void flushPendingCarts() {
+
+        synchronized (flushLock) {
+
+            final Iterator<Map.Entry<String, ShoppingCart>> pendingIt = pendingCarts.entrySet().iterator();
+            while (pendingIt.hasNext()) {
+
+                final List<ShoppingCart> batch = new ArrayList<ShoppingCart>(writeBehindBatchSize);
+                while (pendingIt.hasNext() && batch.size() < writeBehindBatchSize) {
+                    final Map.Entry<String, ShoppingCart> pending = pendingIt.next();
+                    // Conditional remove, so that we do not lose cart that was modified after we got the entry
+                    if (pendingCarts.remove(pending.getKey(), pending.getValue())) {
+                        batch.add(pending.getValue());
+                    }
+                }
+
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+
+            }
+
+        }
+
+    }
+
+    private void writeBatch(final List<ShoppingCart> batch) {
+
+        // Carts may belong to different shops, so each shop is written with its own shop context
+        final Map<String, List<ShoppingCart>> batchByShop = new LinkedHashMap<String, List<ShoppingCart>>();
+        for (final ShoppingCart shoppingCart : batch) {
+            final String sccCode = shoppingCart.getShoppingContext().getShopCode();
+            List<ShoppingCart> shopBatch = batchByShop.get(sccCode);
+            if (shopBatch == null) {
+                shopBatch = new ArrayList<ShoppingCart>(batch.size());
+                batchByShop.put(sccCode, shopBatch);
+            }
+            shopBatch.add(shoppingCart);
+        }
+
+        for (final List<ShoppingCart> shopBatch : batchByShop.values()) {
+            final ShoppingCart first = shopBatch.get(0);
+            writeBatch(shopBatch,
+                    first.getShoppingContext().getShopCode(),
+                    first.getShoppingContext().getShopId());
+        }
+
+    }
+
+    private void writeBatch(final List<ShoppingCart> batch, final String sccCode, final Long sccId) {
+
+        if (sccCode != null) {
+            ShopCodeContext.setShopCode(sccCode);
+            ShopCodeContext.setShopId(sccId);
+        }
+
+        try {
+
+            // Update process potentially can merge the cart with other stored states (e.g. when user logs in)
+            cartUpdateProcessor.updateShoppingCarts(batch);
+            batchCount.incrementAndGet();
+            writtenCount.addAndGet(batch.size());
+            // So we re-save them in cache
+            for (final ShoppingCart shoppingCart : batch) {
+                CART_CACHE.put(shoppingCart.getGuid(), shoppingCart);
+            }
+
+        } catch (Exception bexp) {
+
+            LOG.warn("Unable to write batch of {} carts, cause: {}. Writing carts one by one", batch.size(), bexp.getMessage());
+
+            // Isolate failure, so that one bad cart does not prevent the rest of the batch being saved
+            for (final ShoppingCart shoppingCart : batch) {
+                try {
+                    createRunnable(shoppingCart,
+                            shoppingCart.getShoppingContext().getShopCode(),
+                            shoppingCart.getShoppingContext().getShopId()).run();
+                    writtenCount.incrementAndGet();
+                } catch (Exception exp) {
+                    failedCount.incrementAndGet();
+                    LOG.error("Unable to write cart " + shoppingCart.getGuid() + ", cause: " + exp.getMessage(), exp);
+                }
+            }
+
+        } finally {
+            if (sccCode != null) {
+                ShopCodeContext.clear();
+            }
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+
+        if (writeBehindDelayMs > 0L) {
+            writeBehindScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "CART-write-behind");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            writeBehindScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flushPendingCarts();
+                    } catch (Exception exp) {
+                        LOG.error("Unable to flush pending carts, cause: " + exp.getMessage(), exp);
+                    }
+                }
+            }, writeBehindDelayMs, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void destroy() throws Exception {
+
+        if (writeBehindScheduler != null) {
+            writeBehindScheduler.shutdown();
+            try {
+                writeBehindScheduler.awaitTermination(writeBehindDelayMs * 2L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            LOG.info("Flushing {} pending carts on shutdown", pendingCarts.size());
+            flushPendingCarts(); // flush pending carts synchronously
+            writeBehindScheduler = null;
+        }
+
+    }
+
     /** {@inheritDoc} */
     @Override
     public void evictShoppingCart(final ShoppingCart shoppingCart) {
 
+        if (writeBehindScheduler != null) {
+            synchronized (flushLock) {
+                pendingCarts.remove(shoppingCart.getGuid());
+            }
+        }
+
         CART_CACHE.evict(shoppingCart.getGuid());
         final ShoppingCartState state = shoppingCartStateService.findByGuid(shoppingCart.getGuid());
         if (state != null) {
@@ -262,4 +464,81 @@ public class ResilientCartRepositoryImpl implements CartRepository {
 
     }
 
+    /**
+     * @return number of carts waiting to be written
+     */
+    public int getPendingCount() {
+        return pendingCarts.size();
+    }
+
+    /**
+     * @return number of carts added to write-behind queue
+     */
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return number of saves that were coalesced with already pending save of the same cart
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return number of carts written by write-behind queue
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return number of batches written by write-behind queue
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return number of times the queue was full and caller had to flush synchronously
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * @return number of carts that could not be written
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Set coalescing window for write-behind queue. Zero (default) disables write-behind
+     * and carts are written on each save.
+     *
+     * @param writeBehindDelayMs delay in millis
+     */
+    public void setWriteBehindDelayMs(final long writeBehindDelayMs) {
+        this.writeBehindDelayMs = writeBehindDelayMs;
+    }
+
+    /**
+     * Set maximum number of carts in write-behind queue.
+     *
+     * @param writeBehindMaxPending max pending carts
+     */
+    public void setWriteBehindMaxPending(final int writeBehindMaxPending) {
+        this.writeBehindMaxPending = writeBehindMaxPending;
+    }
+
+    /**
+     * Set number of carts written in single transaction.
+     *
+     * @param writeBehindBatchSize batch size
+     */
+    public void setWriteBehindBatchSize(final int writeBehindBatchSize) {
+        this.writeBehindBatchSize = writeBehindBatchSize;
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.shoppingcart.support.tokendriven.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yes.cart.shoppingcart.ShoppingCart;
+import org.yes.cart.shoppingcart.impl.ShoppingCartBinaryCodec;
+import org.yes.cart.shoppingcart.support.tokendriven.ShoppingCartStateSerializer;
+
+import java.io.*;
+import java.text.MessageFormat;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary serializer that uses hand written field order of default cart implementation
+ * (see {@link ShoppingCartBinaryCodec}) instead of reflection.
+ * <p/>
+ * Format: two magic bytes 'Y' 'C', format version byte, flags byte (bit 0 - body is deflated)
+ * followed by the cart body. Bodies larger than compression threshold are deflated using fastest
+ * compression level, which is enough for repetitive SKU codes and promotion codes in big carts.
+ * <p/>
+ * States saved by {@link ShoppingCartStateSerializerSdkImpl} and {@link ShoppingCartStateSerializerJacksonImpl}
+ * are recognised and restored transparently, so this serializer can replace either of them without
+ * invalidating carts that are already persisted. Carts that cannot be represented in binary format
+ * (i.e. custom cart implementations) are saved using Jackson serializer.
+ * <p/>
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 12:05
+ */
+public class ShoppingCartStateSerializerBinaryImpl implements ShoppingCartStateSerializer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShoppingCartStateSerializerBinaryImpl.class);
+
+    private static final int MAGIC_0 = 'Y';
+    private static final int MAGIC_1 = 'C';
+    private static final int FLAG_DEFLATED = 1;
+
+    private static final int SDK_MAGIC_0 = 0xAC;
+    private static final int SDK_MAGIC_1 = 0xED;
+
+    private final ShoppingCartStateSerializer sdkSerializer = new ShoppingCartStateSerializerSdkImpl();
+    private final ShoppingCartStateSerializer jacksonSerializer = new ShoppingCartStateSerializerJacksonImpl();
+
+    private int compressionThreshold = 1024;
+
+    /** {@inheritDoc} */
+    @Override
+    public ShoppingCart restoreState(final byte[] bytes) {
+
+        if (bytes == null || bytes.length < 2) {
+            LOG.error("Unable to restore cart from empty state");
+            return null;
+        }
+
+        final int b0 = bytes[0] & 0xFF;
+        final int b1 = bytes[1] & 0xFF;
+        if (b0 == MAGIC_0 && b1 == MAGIC_1) {
+            return restoreBinaryState(bytes);
+        } else if (b0 == SDK_MAGIC_0 && b1 == SDK_MAGIC_1) {
+            return sdkSerializer.restoreState(bytes);
+        }
+        return jacksonSerializer.restoreState(bytes);
+
+    }
+
+    private ShoppingCart restoreBinaryState(final byte[] bytes) {
+
+        try {
+            if (bytes.length < 4) {
+                throw new EOFException("Truncated cart state header");
+            }
+            final int version = bytes[2] & 0xFF;
+            final int flags = bytes[3] & 0xFF;
+            InputStream body = new ByteArrayInputStream(bytes, 4, bytes.length - 4);
+            if ((flags & FLAG_DEFLATED) != 0) {
+                body = new InflaterInputStream(body);
+            }
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(body));
+            try {
+                return ShoppingCartBinaryCodec.read(in, version);
+            } finally {
+                in.close();
+            }
+        } catch (IOException exception) {
+            final String errMsg = "Unable to convert bytes assembled from tuple into object";
+            LOG.error(errMsg, exception);
+            return null;
+        }
+
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte[] saveState(final ShoppingCart shoppingCart) {
+
+        final byte[] body;
+        try {
+            final ByteArrayOutputStream raw = new ByteArrayOutputStream(1024);
+            final DataOutputStream out = new DataOutputStream(raw);
+            ShoppingCartBinaryCodec.write(shoppingCart, out);
+            out.flush();
+            body = raw.toByteArray();
+        } catch (IOException ioe) {
+            LOG.warn(
+                    MessageFormat.format("Unable to serialize object {0} in binary format, using JSON: {1}", shoppingCart, ioe.getMessage())
+            );
+            return jacksonSerializer.saveState(shoppingCart);
+        }
+
+        try {
+            final boolean deflate = compressionThreshold >= 0 && body.length > compressionThreshold;
+            final ByteArrayOutputStream state = new ByteArrayOutputStream(deflate ? body.length / 2 : body.length + 4);
+            state.write(MAGIC_0);
+            state.write(MAGIC_1);
+            state.write(ShoppingCartBinaryCodec.VERSION);
+            state.write(deflate ? FLAG_DEFLATED : 0);
+            if (deflate) {
+                final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try {
+                    final DeflaterOutputStream out = new DeflaterOutputStream(state, deflater, 512);
+                    out.write(body);
+                    out.finish();
+                } finally {
+                    deflater.end();
+                }
+            } else {
+                state.write(body);
+            }
+            return state.toByteArray();
+        } catch (IOException ioe) {
+            LOG.error(
+                    MessageFormat.format("Unable to serialize object {0}", shoppingCart),
+                    ioe
+            );
+        }
+
+        return null;
+    }
+
+    /**
+     * @param compressionThreshold size of binary cart body in bytes above which body is deflated,
+     *                             negative value disables compression
+     */
+    public void setCompressionThreshold(final int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+}
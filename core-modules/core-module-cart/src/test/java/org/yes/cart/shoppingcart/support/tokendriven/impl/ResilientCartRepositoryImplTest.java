@@ -18,7 +18,9 @@ package org.yes.cart.shoppingcart.support.tokendriven.impl;
 
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
 import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
 import org.junit.Test;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
@@ -34,10 +36,14 @@ import org.yes.cart.shoppingcart.ShoppingContext;
 import org.yes.cart.shoppingcart.impl.ShoppingCartImpl;
 import org.yes.cart.shoppingcart.support.tokendriven.CartUpdateProcessor;
 import org.yes.cart.shoppingcart.support.tokendriven.impl.ResilientCartRepositoryImpl;
+import org.yes.cart.util.ShopCodeContext;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -966,4 +972,150 @@ public class ResilientCartRepositoryImplTest {
 
     }
 
+    @Test
+    public void testStoreShoppingCartWriteBehindCoalesced() throws Exception {
+
+        final ShoppingCartStateService shoppingCartStateService = context.mock(ShoppingCartStateService.class, "shoppingCartStateService");
+        final ShopService shopService = context.mock(ShopService.class, "shopService");
+        final CartUpdateProcessor cartUpdateProcessor = context.mock(CartUpdateProcessor.class, "cartUpdateProcessor");
+        final CacheManager cacheManager = context.mock(CacheManager.class, "cacheManager");
+        final Cache cartCache = context.mock(Cache.class, "cartCache");
+
+        final MutableShoppingCart cart1 = new ShoppingCartImpl();
+        final MutableShoppingCart cart2 = new ShoppingCartImpl();
+
+        context.checking(new Expectations() {{
+            one(cacheManager).getCache("web.shoppingCart"); will(returnValue(cartCache));
+            exactly(3).of(cartCache).put(with(equal(cart1.getGuid())), with(any(ShoppingCart.class)));
+            exactly(2).of(cartCache).put(with(equal(cart2.getGuid())), with(any(ShoppingCart.class)));
+            one(cartUpdateProcessor).updateShoppingCarts(with(any(Collection.class)));
+        }});
+
+        final ResilientCartRepositoryImpl repo = new ResilientCartRepositoryImpl(shoppingCartStateService, shopService, cartUpdateProcessor, 60, cacheManager);
+        repo.setWriteBehindDelayMs(60000L);
+        repo.afterPropertiesSet();
+
+        cart1.markDirty();
+        repo.storeShoppingCart(cart1);
+        cart1.markDirty();
+        repo.storeShoppingCart(cart1);
+        cart2.markDirty();
+        repo.storeShoppingCart(cart2);
+
+        assertEquals(2, repo.getPendingCount());
+        assertEquals(2L, repo.getQueuedCount());
+        assertEquals(1L, repo.getCoalescedCount());
+        assertEquals(0L, repo.getWrittenCount());
+
+        // shutdown flushes pending carts in single batch
+        repo.destroy();
+
+        assertEquals(0, repo.getPendingCount());
+        assertEquals(2L, repo.getWrittenCount());
+        assertEquals(1L, repo.getBatchCount());
+
+        context.assertIsSatisfied();
+
+    }
+
+    @Test
+    public void testStoreShoppingCartWriteBehindOverflow() throws Exception {
+
+        final ShoppingCartStateService shoppingCartStateService = context.mock(ShoppingCartStateService.class, "shoppingCartStateService");
+        final ShopService shopService = context.mock(ShopService.class, "shopService");
+        final CartUpdateProcessor cartUpdateProcessor = context.mock(CartUpdateProcessor.class, "cartUpdateProcessor");
+        final CacheManager cacheManager = context.mock(CacheManager.class, "cacheManager");
+        final Cache cartCache = context.mock(Cache.class, "cartCache");
+
+        final MutableShoppingCart cart1 = new ShoppingCartImpl();
+        final MutableShoppingCart cart2 = new ShoppingCartImpl();
+
+        context.checking(new Expectations() {{
+            one(cacheManager).getCache("web.shoppingCart"); will(returnValue(cartCache));
+            exactly(2).of(cartCache).put(with(equal(cart1.getGuid())), with(any(ShoppingCart.class)));
+            exactly(2).of(cartCache).put(with(equal(cart2.getGuid())), with(any(ShoppingCart.class)));
+            exactly(2).of(cartUpdateProcessor).updateShoppingCarts(with(any(Collection.class)));
+        }});
+
+        final ResilientCartRepositoryImpl repo = new ResilientCartRepositoryImpl(shoppingCartStateService, shopService, cartUpdateProcessor, 60, cacheManager);
+        repo.setWriteBehindDelayMs(60000L);
+        repo.setWriteBehindMaxPending(1);
+        repo.afterPropertiesSet();
+
+        cart1.markDirty();
+        repo.storeShoppingCart(cart1);
+        assertEquals(1, repo.getPendingCount());
+
+        // queue is full, so caller flushes cart1 before cart2 is queued
+        cart2.markDirty();
+        repo.storeShoppingCart(cart2);
+        assertEquals(1, repo.getPendingCount());
+        assertEquals(1L, repo.getOverflowCount());
+        assertEquals(1L, repo.getWrittenCount());
+
+        repo.destroy();
+
+        assertEquals(0, repo.getPendingCount());
+        assertEquals(2L, repo.getWrittenCount());
+
+        context.assertIsSatisfied();
+
+    }
+
+    @Test
+    public void testStoreShoppingCartWriteBehindShopContext() throws Exception {
+
+        final ShoppingCartStateService shoppingCartStateService = context.mock(ShoppingCartStateService.class, "shoppingCartStateService");
+        final ShopService shopService = context.mock(ShopService.class, "shopService");
+        final CartUpdateProcessor cartUpdateProcessor = context.mock(CartUpdateProcessor.class, "cartUpdateProcessor");
+        final CacheManager cacheManager = context.mock(CacheManager.class, "cacheManager");
+        final Cache cartCache = context.mock(Cache.class, "cartCache");
+
+        final MutableShoppingCart cart1 = new ShoppingCartImpl();
+        cart1.getShoppingContext().setShopCode("SHOP10");
+        cart1.getShoppingContext().setShopId(10L);
+        final MutableShoppingCart cart2 = new ShoppingCartImpl();
+        cart2.getShoppingContext().setShopCode("SHOP20");
+        cart2.getShoppingContext().setShopId(20L);
+
+        final List<String> writtenInContext = new ArrayList<String>();
+
+        context.checking(new Expectations() {{
+            one(cacheManager).getCache("web.shoppingCart"); will(returnValue(cartCache));
+            exactly(2).of(cartCache).put(with(equal(cart1.getGuid())), with(any(ShoppingCart.class)));
+            exactly(2).of(cartCache).put(with(equal(cart2.getGuid())), with(any(ShoppingCart.class)));
+            exactly(2).of(cartUpdateProcessor).updateShoppingCarts(with(any(Collection.class)));
+            will(new CustomAction("record shop context") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    for (final ShoppingCart cart : (Collection<ShoppingCart>) invocation.getParameter(0)) {
+                        assertEquals(cart.getShoppingContext().getShopCode(), ShopCodeContext.getShopCode());
+                        assertEquals(cart.getShoppingContext().getShopId(), ShopCodeContext.getShopId().longValue());
+                        writtenInContext.add(ShopCodeContext.getShopCode());
+                    }
+                    return null;
+                }
+            });
+        }});
+
+        final ResilientCartRepositoryImpl repo = new ResilientCartRepositoryImpl(shoppingCartStateService, shopService, cartUpdateProcessor, 60, cacheManager);
+        repo.setWriteBehindDelayMs(60000L);
+        repo.afterPropertiesSet();
+
+        cart1.markDirty();
+        repo.storeShoppingCart(cart1);
+        cart2.markDirty();
+        repo.storeShoppingCart(cart2);
+
+        repo.destroy();
+
+        assertEquals(2, writtenInContext.size());
+        assertTrue(writtenInContext.containsAll(Arrays.asList("SHOP10", "SHOP20")));
+        assertEquals("Shop context is cleared after write", "DEFAULT", ShopCodeContext.getShopCode());
+        assertEquals(2L, repo.getWrittenCount());
+
+        context.assertIsSatisfied();
+
+    }
+
 }
@@ -19,6 +19,7 @@ package org.yes.cart.orderexport.impl;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.yes.cart.dao.FetchProfiles;
 import org.yes.cart.domain.entity.CustomerOrder;
 import org.yes.cart.domain.entity.CustomerOrderDelivery;
 import org.yes.cart.orderexport.ExportProcessorException;
@@ -80,7 +81,7 @@ public class OrderAutoExportProcessorImpl implements OrderAutoExportProcessor {
     @Override
     public void processSingleOrder(final Long customerOrderId) throws ExportProcessorException {
 
-        final CustomerOrder customerOrder = customerOrderService.findById(customerOrderId);
+        final CustomerOrder customerOrder = customerOrderService.getGenericDao().findById(customerOrderId, FetchProfiles.ORDER_EXPORT);
 
         final Collection<CustomerOrderDelivery> eligibleDeliveries = new ArrayList<CustomerOrderDelivery>();
         if (StringUtils.isNotBlank(customerOrder.getEligibleForExport())) {
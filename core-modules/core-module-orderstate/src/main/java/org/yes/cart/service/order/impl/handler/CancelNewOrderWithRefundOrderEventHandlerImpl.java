@@ -71,7 +71,7 @@ public class CancelNewOrderWithRefundOrderEventHandlerImpl extends CancelOrderEv
      */
     @Override
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
 
@@ -19,6 +19,7 @@ package org.yes.cart.service.order.impl.handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.domain.entity.*;
+import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.domain.ProductService;
 import org.yes.cart.service.domain.WarehouseService;
 import org.yes.cart.service.order.OrderEvent;
@@ -29,8 +30,7 @@ import org.yes.cart.util.MoneyUtils;
 import org.yes.cart.util.log.Markers;
 
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Map;
+import java.util.*;
 
 /**
  * User: Igor Azarny iazarny@yahoo.com
@@ -63,7 +63,7 @@ public class CancelOrderEventHandlerImpl extends AbstractOrderEventHandlerImpl i
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException  {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             creditQuantity(orderEvent.getCustomerOrder());
             handleInternal(orderEvent);
             return true;
@@ -78,89 +78,113 @@ public class CancelOrderEventHandlerImpl extends AbstractOrderEventHandlerImpl i
     }
 
 
+    /**
+     * Return quantity of all deliveries that are not yet cancelled back to warehouses. Inventory changes
+     * of all deliveries are made in {@link InventoryLockOrderComparator} order, so that concurrent
+     * transitions of other orders lock the same inventory rows in the same order.
+     *
+     * @param order order to cancel
+     *
+     * @throws OrderException if delivery cannot be cancelled
+     */
     protected void creditQuantity(final CustomerOrder order) throws OrderException  {
-        final Collection<CustomerOrderDelivery> deliveries = order.getDelivery();
-        for (CustomerOrderDelivery delivery : deliveries) {
+
+        final List<Pair<CustomerOrderDelivery, String>> newStatuses = new ArrayList<Pair<CustomerOrderDelivery, String>>();
+        final List<CustomerOrderDeliveryDet> deliveryDetails = new ArrayList<CustomerOrderDeliveryDet>();
+
+        for (CustomerOrderDelivery delivery : order.getDelivery()) {
             if (!this.isAlreadyCancelled(delivery.getDeliveryStatus())) {
-                creditQuantity(delivery);
+                newStatuses.add(new Pair<CustomerOrderDelivery, String>(delivery, getCancelledStatus(delivery)));
+                if (isNeedVoidReservation(delivery.getDeliveryStatus()) || isNeedCredit(delivery.getDeliveryStatus())) {
+                    deliveryDetails.addAll(delivery.getDetail());
+                }
             }
         }
-    }
 
-    private void creditQuantity(final CustomerOrderDelivery delivery) throws OrderException {
+        if (!deliveryDetails.isEmpty()) {
+
+            final Map<String, Warehouse> warehouseByCode = warehouseService.getByShopIdMapped(
+                    order.getShop().getShopId(), false);
 
-        final String newStatus;
+            Collections.sort(deliveryDetails, new InventoryLockOrderComparator(warehouseByCode));
 
-        final boolean voidReservation = isNeedVoidReservation(delivery.getDeliveryStatus());
-        final boolean voidCredit = isNeedCredit(delivery.getDeliveryStatus());
+            for (CustomerOrderDeliveryDet det : deliveryDetails) {
+                creditQuantity(det, warehouseByCode);
+            }
+        }
+
+        for (final Pair<CustomerOrderDelivery, String> newStatus : newStatuses) {
+            newStatus.getFirst().setDeliveryStatus(newStatus.getSecond());
+        }
 
-        if (voidReservation) {
+    }
+
+    private String getCancelledStatus(final CustomerOrderDelivery delivery) throws OrderException {
+
+        if (isNeedVoidReservation(delivery.getDeliveryStatus())) {
             // Voiding reservation, so that we do not prevent customers from ordering available stock
-            newStatus = CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_VOID_RESERVATION;
-        } else if (voidCredit) {
+            return CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_VOID_RESERVATION;
+        } else if (isNeedCredit(delivery.getDeliveryStatus())) {
             // Allocation already happened so we deallocate back (items not yet left warehouse)
-            newStatus = CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_DEALLOCATED;
+            return CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_DEALLOCATED;
         } else if (isFulfillment(delivery.getDeliveryStatus())) {
             // No reservation yet was made so just setting the status
-            newStatus = CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_VOID_WAIT;
+            return CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_VOID_WAIT;
         } else if (isNeedReturn(delivery.getDeliveryStatus())) {
             // Returned items from customers. No deallocation here since we cannot blindly put the
             // quantity back. Item could have been returned due to being faulty and may not be sellable
             // anymore. Updating stock in this case should be manual after the returned items are checked
-            newStatus = CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_RETURNED;
-        } else {
-            throw new OrderException("Unable to handle cancellation for delivery " + delivery.getDeliveryNum() + " with status " + delivery.getDeliveryStatus());
+            return CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_RETURNED;
         }
+        throw new OrderException("Unable to handle cancellation for delivery " + delivery.getDeliveryNum() + " with status " + delivery.getDeliveryStatus());
 
-        if (voidCredit || voidReservation) {
+    }
 
-            final Map<String, Warehouse> warehouseByCode = warehouseService.getByShopIdMapped(
-                    delivery.getCustomerOrder().getShop().getShopId(), false);
+    private void creditQuantity(final CustomerOrderDeliveryDet det, final Map<String, Warehouse> warehouseByCode) {
 
-            for (CustomerOrderDeliveryDet det : delivery.getDetail()) {
+        final CustomerOrderDelivery delivery = det.getDelivery();
+        final boolean voidReservation = isNeedVoidReservation(delivery.getDeliveryStatus());
+        final boolean voidCredit = isNeedCredit(delivery.getDeliveryStatus());
 
-                final String skuCode = det.getProductSkuCode();
-                final BigDecimal toCredit = det.getQty();
+        final String skuCode = det.getProductSkuCode();
+        final BigDecimal toCredit = det.getQty();
 
-                final Product product = productService.getProductBySkuCode(det.getProductSkuCode());
+        final Product product = productService.getProductBySkuCode(det.getProductSkuCode());
 
-                if (product == null || Product.AVAILABILITY_ALWAYS != product.getAvailability()) {
+        if (product == null || Product.AVAILABILITY_ALWAYS != product.getAvailability()) {
 
-                    final Warehouse selected = warehouseByCode.get(det.getSupplierCode());
+            final Warehouse selected = warehouseByCode.get(det.getSupplierCode());
 
-                    if (selected == null) {
-                        LOG.warn(Markers.alert(),
-                                "Warehouse is not found for delivery detail {}:{}",
+            if (selected == null) {
+                LOG.warn(Markers.alert(),
+                        "Warehouse is not found for delivery detail {}:{}",
+                        delivery.getDeliveryNum(), det.getProductSkuCode()
+                );
+            } else {
+
+                if (voidReservation) {
+                    // this delivery was not completed, so can just void reservation
+                    final BigDecimal rem = inventoryResolver.voidReservation(selected, skuCode, toCredit);
+                    if (MoneyUtils.isFirstBiggerThanSecond(rem, BigDecimal.ZERO)) {
+                        LOG.warn(
+                                "Could not void all reservation {}:{}",
+                                delivery.getDeliveryNum(), det.getProductSkuCode()
+                        );
+                    }
+                } else if (voidCredit) {
+                    // this delivery is completed, so need to credit qty
+                    final BigDecimal rem = inventoryResolver.credit(selected, skuCode, toCredit);
+                    if (MoneyUtils.isFirstBiggerThanSecond(rem, BigDecimal.ZERO)) {
+                        LOG.warn(
+                                "Could not credit all reservation {}:{}",
                                 delivery.getDeliveryNum(), det.getProductSkuCode()
                         );
-                    } else {
-
-                        if (voidReservation) {
-                            // this delivery was not completed, so can just void reservation
-                            final BigDecimal rem = inventoryResolver.voidReservation(selected, skuCode, toCredit);
-                            if (MoneyUtils.isFirstBiggerThanSecond(rem, BigDecimal.ZERO)) {
-                                LOG.warn(
-                                        "Could not void all reservation {}:{}",
-                                        delivery.getDeliveryNum(), det.getProductSkuCode()
-                                );
-                            }
-                        } else if (voidCredit) {
-                            // this delivery is completed, so need to credit qty
-                            final BigDecimal rem = inventoryResolver.credit(selected, skuCode, toCredit);
-                            if (MoneyUtils.isFirstBiggerThanSecond(rem, BigDecimal.ZERO)) {
-                                LOG.warn(
-                                        "Could not credit all reservation {}:{}",
-                                        delivery.getDeliveryNum(), det.getProductSkuCode()
-                                );
-                            }
-                        }
-
                     }
                 }
 
             }
         }
-        delivery.setDeliveryStatus(newStatus);
+
     }
 
     protected boolean isAlreadyCancelled(final String deliveryStatus) {
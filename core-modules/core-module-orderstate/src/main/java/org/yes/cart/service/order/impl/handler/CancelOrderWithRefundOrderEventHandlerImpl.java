@@ -81,7 +81,7 @@ public class CancelOrderWithRefundOrderEventHandlerImpl extends CancelOrderEvent
      */
     @Override
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             final CustomerOrder order = orderEvent.getCustomerOrder();
 
             final Shop pgShop = order.getShop().getMaster() != null ? order.getShop().getMaster() : order.getShop();
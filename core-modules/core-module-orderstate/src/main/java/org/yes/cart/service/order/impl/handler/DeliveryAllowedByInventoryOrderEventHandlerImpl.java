@@ -58,7 +58,7 @@ public class DeliveryAllowedByInventoryOrderEventHandlerImpl extends ProcessAllo
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderItemAllocationException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrderDelivery orderDelivery = orderEvent.getCustomerOrderDelivery();
 
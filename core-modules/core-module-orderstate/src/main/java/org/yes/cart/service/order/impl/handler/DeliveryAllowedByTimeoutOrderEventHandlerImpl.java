@@ -54,7 +54,7 @@ public class DeliveryAllowedByTimeoutOrderEventHandlerImpl implements OrderEvent
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent)  throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             final Date now = getCurrentDate();
 
             final Collection<CustomerOrderDeliveryDet> deliveryDetails = orderEvent.getCustomerOrderDelivery().getDetail();
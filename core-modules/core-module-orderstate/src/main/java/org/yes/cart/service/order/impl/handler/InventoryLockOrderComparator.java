@@ -0,0 +1,82 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.service.order.impl.handler;
+
+import org.yes.cart.domain.entity.CustomerOrderDeliveryDet;
+import org.yes.cart.domain.entity.Warehouse;
+
+import java.util.Comparator;
+import java.util.Map;
+
+/**
+ * Orders delivery details by warehouse id and then by SKU code.
+ *
+ * Inventory changes lock SKU on warehouse rows in the order in which they are made. Transitions of
+ * different orders run in parallel, so each transition must change inventory in the same order,
+ * otherwise two orders with the same SKU (A,B and B,A) deadlock each other. Details with unknown
+ * warehouse come first, so that transitions that fail on them do so before any row is locked.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 14:40
+ */
+public class InventoryLockOrderComparator implements Comparator<CustomerOrderDeliveryDet> {
+
+    private final Map<String, Warehouse> warehouseByCode;
+
+    /**
+     * @param warehouseByCode warehouses of the order shop by code
+     */
+    public InventoryLockOrderComparator(final Map<String, Warehouse> warehouseByCode) {
+        this.warehouseByCode = warehouseByCode;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int compare(final CustomerOrderDeliveryDet det1, final CustomerOrderDeliveryDet det2) {
+
+        final long warehouse1 = warehouseId(det1);
+        final long warehouse2 = warehouseId(det2);
+        if (warehouse1 != warehouse2) {
+            return warehouse1 < warehouse2 ? -1 : 1;
+        }
+        final int sku = compare(det1.getProductSkuCode(), det2.getProductSkuCode());
+        if (sku != 0) {
+            return sku;
+        }
+        return compare(
+                det1.getDelivery() != null ? det1.getDelivery().getDeliveryNum() : null,
+                det2.getDelivery() != null ? det2.getDelivery().getDeliveryNum() : null
+        );
+
+    }
+
+    private long warehouseId(final CustomerOrderDeliveryDet det) {
+        final Warehouse warehouse = warehouseByCode.get(det.getSupplierCode());
+        return warehouse != null ? warehouse.getWarehouseId() : Long.MIN_VALUE;
+    }
+
+    private static int compare(final String value1, final String value2) {
+        if (value1 == null) {
+            return value2 == null ? 0 : -1;
+        } else if (value2 == null) {
+            return 1;
+        }
+        return value1.compareTo(value2);
+    }
+
+}
@@ -31,7 +31,7 @@ public class PackCompleteOrderEventHandlerImpl implements OrderEventHandler {
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             orderEvent.getCustomerOrderDelivery().setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_SHIPMENT_READY);
             return true;
         }
@@ -31,7 +31,7 @@ public class PaymentOfflineOrderEventHandlerImpl extends AbstractOrderEventHandl
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             handleInternal(orderEvent);
             return true;
         }
@@ -77,7 +77,7 @@ public class PaymentOkOrderEventHandlerImpl extends AbstractOrderEventHandlerImp
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             handleInternal(orderEvent);
             CustomerOrder order = orderEvent.getCustomerOrder();
 
@@ -67,7 +67,7 @@ public class PaymentProcessedOrderEventHandlerImpl extends AbstractOrderEventHan
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
 
@@ -29,7 +29,7 @@ public class PaymentProcessingOrderEventHandlerImpl extends AbstractOrderEventHa
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             handleInternal(orderEvent);
             return true;
         }
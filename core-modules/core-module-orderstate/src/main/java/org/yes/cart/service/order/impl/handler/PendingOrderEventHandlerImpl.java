@@ -32,9 +32,7 @@ import org.yes.cart.util.DomainApiUtils;
 import org.yes.cart.util.MoneyUtils;
 
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Date;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Initial {@link CustomerOrder#ORDER_STATUS_PENDING} state.
@@ -88,11 +86,9 @@ public class PendingOrderEventHandlerImpl extends AbstractOrderEventHandlerImpl
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
-            for (CustomerOrderDelivery customerOrderDelivery : orderEvent.getCustomerOrder().getDelivery()) {
-                reserveQuantity(customerOrderDelivery);
-            }
+            reserveQuantity(orderEvent.getCustomerOrder());
             handleInternal(orderEvent);
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
@@ -131,22 +127,34 @@ public class PendingOrderEventHandlerImpl extends AbstractOrderEventHandlerImpl
     /**
      * Allocate sku quantity on warehouses, that belong to shop, where order was made.
      *
-     * @param orderDelivery reserve for this delivery
+     * Quantity for all deliveries is reserved in {@link InventoryLockOrderComparator} order, so that
+     * concurrent transitions of other orders lock the same inventory rows in the same order.
+     *
+     * @param order reserve for all deliveries of this order
      * @throws OrderItemAllocationException in case if can not allocate quantity for each sku
      */
-    void reserveQuantity(final CustomerOrderDelivery orderDelivery) throws OrderItemAllocationException {
+    void reserveQuantity(final CustomerOrder order) throws OrderItemAllocationException {
 
-        if (!CustomerOrderDelivery.ELECTRONIC_DELIVERY_GROUP.equals(orderDelivery.getDeliveryGroup())) {
+        final List<CustomerOrderDeliveryDet> deliveryDetails = new ArrayList<CustomerOrderDeliveryDet>();
+        for (final CustomerOrderDelivery orderDelivery : order.getDelivery()) {
+            if (!CustomerOrderDelivery.ELECTRONIC_DELIVERY_GROUP.equals(orderDelivery.getDeliveryGroup())) {
+                deliveryDetails.addAll(orderDelivery.getDetail());
+            }
+        }
 
-            final Collection<CustomerOrderDeliveryDet> deliveryDetails = orderDelivery.getDetail();
+        if (!deliveryDetails.isEmpty()) {
 
             final Map<String, Warehouse> warehouseByCode = warehouseService.getByShopIdMapped(
-                    orderDelivery.getCustomerOrder().getShop().getShopId(), false);
+                    order.getShop().getShopId(), false);
+
+            Collections.sort(deliveryDetails, new InventoryLockOrderComparator(warehouseByCode));
 
             final Date now = now();
 
             for (CustomerOrderDeliveryDet det : deliveryDetails) {
 
+                final CustomerOrderDelivery orderDelivery = det.getDelivery();
+
                 final Product product = productService.getProductBySkuCode(det.getProductSkuCode());
                 // there may not be this product anymore potentially, so it can be null
                 // Null products are treated as AVAILABILITY_STANDARD
@@ -199,7 +207,10 @@ public class PendingOrderEventHandlerImpl extends AbstractOrderEventHandlerImpl
                 }
             }
         }
-        orderDelivery.setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_RESERVED);
+
+        for (final CustomerOrderDelivery orderDelivery : order.getDelivery()) {
+            orderDelivery.setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_RESERVED);
+        }
 
     }
 
@@ -32,7 +32,9 @@ import org.yes.cart.shoppingcart.InventoryResolver;
 import org.yes.cart.util.MoneyUtils;
 
 import java.math.BigDecimal;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -69,7 +71,7 @@ public class ProcessAllocationOrderEventHandlerImpl implements OrderEventHandler
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderItemAllocationException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             allocateQuantity(orderEvent.getCustomerOrderDelivery());
             return true;
         }
@@ -106,11 +108,13 @@ public class ProcessAllocationOrderEventHandlerImpl implements OrderEventHandler
 
         if (!CustomerOrderDelivery.ELECTRONIC_DELIVERY_GROUP.equals(orderDelivery.getDeliveryGroup())) {
 
-            final Collection<CustomerOrderDeliveryDet> deliveryDetails = orderDelivery.getDetail();
-
             final Map<String, Warehouse> warehouseByCode = warehouseService.getByShopIdMapped(
                     orderDelivery.getCustomerOrder().getShop().getShopId(), false);
 
+            // same order of inventory changes as in other transitions, see InventoryLockOrderComparator
+            final List<CustomerOrderDeliveryDet> deliveryDetails = new ArrayList<CustomerOrderDeliveryDet>(orderDelivery.getDetail());
+            Collections.sort(deliveryDetails, new InventoryLockOrderComparator(warehouseByCode));
+
             for (CustomerOrderDeliveryDet det : deliveryDetails) {
 
                 final Product product = productService.getProductBySkuCode(det.getProductSkuCode());
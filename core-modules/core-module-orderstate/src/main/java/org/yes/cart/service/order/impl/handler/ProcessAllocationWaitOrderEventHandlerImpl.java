@@ -31,7 +31,7 @@ public class ProcessAllocationWaitOrderEventHandlerImpl implements OrderEventHan
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             orderEvent.getCustomerOrderDelivery().setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_ALLOCATION_WAIT);
             return true;
         }
@@ -31,7 +31,7 @@ public class ProcessInventoryWaitOrderEventHandlerImpl implements OrderEventHand
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             orderEvent.getCustomerOrderDelivery().setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_INVENTORY_WAIT);
             return true;
         }
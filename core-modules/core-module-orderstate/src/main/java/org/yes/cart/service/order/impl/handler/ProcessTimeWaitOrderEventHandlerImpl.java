@@ -31,7 +31,7 @@ public class ProcessTimeWaitOrderEventHandlerImpl implements OrderEventHandler {
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
             orderEvent.getCustomerOrderDelivery().setDeliveryStatus(CustomerOrderDelivery.DELIVERY_STATUS_DATE_WAIT);
             return true;
         }
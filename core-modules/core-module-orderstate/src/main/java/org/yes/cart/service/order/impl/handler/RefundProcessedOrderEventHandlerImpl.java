@@ -50,7 +50,7 @@ public class RefundProcessedOrderEventHandlerImpl extends AbstractOrderEventHand
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
 
@@ -50,7 +50,7 @@ public class ReleaseToShipmentOrderEventHandlerImpl implements OrderEventHandler
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
             final CustomerOrderDelivery delivery = orderEvent.getCustomerOrderDelivery();
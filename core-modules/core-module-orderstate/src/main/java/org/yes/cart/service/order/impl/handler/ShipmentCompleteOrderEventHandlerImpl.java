@@ -53,7 +53,7 @@ public class ShipmentCompleteOrderEventHandlerImpl implements OrderEventHandler
      * {@inheritDoc}
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder order = orderEvent.getCustomerOrder();
             final CustomerOrderDelivery thisDelivery = orderEvent.getCustomerOrderDelivery();
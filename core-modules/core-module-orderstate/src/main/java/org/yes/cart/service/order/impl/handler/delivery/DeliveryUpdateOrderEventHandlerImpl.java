@@ -28,14 +28,12 @@ import org.yes.cart.service.domain.ProductService;
 import org.yes.cart.service.domain.WarehouseService;
 import org.yes.cart.service.order.*;
 import org.yes.cart.service.order.impl.OrderEventImpl;
+import org.yes.cart.service.order.impl.handler.InventoryLockOrderComparator;
 import org.yes.cart.shoppingcart.InventoryResolver;
 import org.yes.cart.util.log.Markers;
 
 import java.math.BigDecimal;
-import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * User: denispavlov
@@ -91,7 +89,7 @@ public class DeliveryUpdateOrderEventHandlerImpl implements OrderEventHandler, A
      */
     public boolean handle(final OrderEvent orderEvent) throws OrderException {
 
-        synchronized (OrderEventHandler.syncMonitor) {
+        synchronized (OrderEventHandler.syncMonitor.forEvent(orderEvent)) {
 
             final CustomerOrder customerOrder = orderEvent.getCustomerOrder();
             final OrderDeliveryStatusUpdate update = (OrderDeliveryStatusUpdate) orderEvent.getParams().get("update");
@@ -361,11 +359,13 @@ public class DeliveryUpdateOrderEventHandlerImpl implements OrderEventHandler, A
 
         if (!CustomerOrderDelivery.ELECTRONIC_DELIVERY_GROUP.equals(orderDelivery.getDeliveryGroup())) {
 
-            final Collection<CustomerOrderDeliveryDet> deliveryDetails = orderDelivery.getDetail();
-
             final Map<String, Warehouse> warehouseByCode = warehouseService.getByShopIdMapped(
                     orderDelivery.getCustomerOrder().getShop().getShopId(), false);
 
+            // same order of inventory changes as in other transitions, see InventoryLockOrderComparator
+            final List<CustomerOrderDeliveryDet> deliveryDetails = new ArrayList<CustomerOrderDeliveryDet>(orderDelivery.getDetail());
+            Collections.sort(deliveryDetails, new InventoryLockOrderComparator(warehouseByCode));
+
             for (CustomerOrderDeliveryDet det : deliveryDetails) {
 
                 final Product product = productService.getProductBySkuCode(det.getProductSkuCode());
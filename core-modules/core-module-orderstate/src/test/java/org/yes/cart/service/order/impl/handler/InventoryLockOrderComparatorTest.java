@@ -0,0 +1,97 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.service.order.impl.handler;
+
+import org.junit.Test;
+import org.yes.cart.domain.entity.CustomerOrderDelivery;
+import org.yes.cart.domain.entity.CustomerOrderDeliveryDet;
+import org.yes.cart.domain.entity.Warehouse;
+import org.yes.cart.domain.entity.impl.CustomerOrderDeliveryDetEntity;
+import org.yes.cart.domain.entity.impl.CustomerOrderDeliveryEntity;
+import org.yes.cart.domain.entity.impl.WarehouseEntity;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:10
+ */
+public class InventoryLockOrderComparatorTest {
+
+    @Test
+    public void testSameOrderForAnyDeliveryLayout() throws Exception {
+
+        final Map<String, Warehouse> warehouseByCode = new HashMap<String, Warehouse>();
+        warehouseByCode.put("WH2", warehouse(20L, "WH2"));
+        warehouseByCode.put("WH1", warehouse(10L, "WH1"));
+
+        final CustomerOrderDelivery delivery1 = delivery("D1");
+        final CustomerOrderDelivery delivery2 = delivery("D2");
+
+        // order A: WH2/A, WH1/B in first delivery and WH1/A in second
+        final List<CustomerOrderDeliveryDet> orderA = Arrays.asList(
+                det(delivery1, "WH2", "A"), det(delivery1, "WH1", "B"), det(delivery2, "WH1", "A"));
+        // order B: same lines in reverse and with unknown warehouse
+        final List<CustomerOrderDeliveryDet> orderB = Arrays.asList(
+                det(delivery2, "WH1", "B"), det(delivery2, "WH1", "A"), det(delivery1, "WH2", "A"), det(delivery1, "WH3", "Z"));
+
+        final InventoryLockOrderComparator comparator = new InventoryLockOrderComparator(warehouseByCode);
+
+        final List<CustomerOrderDeliveryDet> sortedA = new ArrayList<CustomerOrderDeliveryDet>(orderA);
+        Collections.sort(sortedA, comparator);
+        final List<CustomerOrderDeliveryDet> sortedB = new ArrayList<CustomerOrderDeliveryDet>(orderB);
+        Collections.sort(sortedB, comparator);
+
+        assertEquals(Arrays.asList("WH1/A", "WH1/B", "WH2/A"), keys(sortedA));
+        // unknown warehouse first, so that failure happens before any inventory is locked
+        assertEquals(Arrays.asList("WH3/Z", "WH1/A", "WH1/B", "WH2/A"), keys(sortedB));
+
+    }
+
+    private List<String> keys(final List<CustomerOrderDeliveryDet> dets) {
+        final List<String> keys = new ArrayList<String>();
+        for (final CustomerOrderDeliveryDet det : dets) {
+            keys.add(det.getSupplierCode() + "/" + det.getProductSkuCode());
+        }
+        return keys;
+    }
+
+    private Warehouse warehouse(final long id, final String code) {
+        final WarehouseEntity warehouse = new WarehouseEntity();
+        warehouse.setWarehouseId(id);
+        warehouse.setCode(code);
+        return warehouse;
+    }
+
+    private CustomerOrderDelivery delivery(final String deliveryNum) {
+        final CustomerOrderDeliveryEntity delivery = new CustomerOrderDeliveryEntity();
+        delivery.setDeliveryNum(deliveryNum);
+        return delivery;
+    }
+
+    private CustomerOrderDeliveryDet det(final CustomerOrderDelivery delivery, final String warehouse, final String sku) {
+        final CustomerOrderDeliveryDetEntity det = new CustomerOrderDeliveryDetEntity();
+        det.setDelivery(delivery);
+        det.setSupplierCode(warehouse);
+        det.setProductSkuCode(sku);
+        return det;
+    }
+
+}
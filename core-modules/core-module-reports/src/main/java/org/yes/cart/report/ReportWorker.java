@@ -38,14 +38,16 @@ public interface ReportWorker {
     List<ReportPair> getParameterValues(String lang, String param, Map<String, Object> currentSelection);
 
     /**
-     * Get results for given report criteria
+     * Get results for given report criteria. Workers for potentially large reports should return
+     * {@link org.yes.cart.dao.ResultsIterator} so that rows are loaded while report is generated
+     * rather than held in memory. Iterator is closed by the caller.
      *
      * @param lang language
      * @param currentSelection  optional param value map for complex selectors
      *
-     * @return list of result object
+     * @return list of result objects or {@link org.yes.cart.dao.ResultsIterator}
      */
-    List<Object> getResult(String lang, Map<String, Object> currentSelection);
+    Object getResult(String lang, Map<String, Object> currentSelection);
 
 
     /**
@@ -53,12 +55,12 @@ public interface ReportWorker {
      *
      * E.g. delivery objects can provide shopCode reference
      *
-     * @param result result from {@link #getResult(String, Map)}
+     * @param result result from {@link #getResult(String, Map)} (iterators must not be consumed)
      * @param currentSelection original parameters selected
      *
      * @return enhanced parameters
      */
-    Map<String, Object> getEnhancedParameterValues(List<Object> result, Map<String, Object> currentSelection);
+    Map<String, Object> getEnhancedParameterValues(Object result, Map<String, Object> currentSelection);
 
 
 }
@@ -6,11 +6,14 @@ import org.apache.xmlgraphics.io.ResourceResolver;
 import org.apache.xmlgraphics.io.TempResourceResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.yes.cart.report.ReportDescriptor;
 import org.yes.cart.report.ReportGenerator;
 
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.sax.SAXResult;
@@ -30,6 +33,12 @@ public abstract class AbstractFopReportGenerator implements ReportGenerator {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractFopReportGenerator.class);
 
+    // Setup XSLT 2.0, factory is thread safe and is shared by all reports
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance("net.sf.saxon.TransformerFactoryImpl", null);
+
+    private Cache fopFactoryCache;
+    private Cache templatesCache;
+
     /**
      * {@inheritDoc}
      */
@@ -48,33 +57,18 @@ public abstract class AbstractFopReportGenerator implements ReportGenerator {
 
         try {
 
-            final InputStream config = getFopUserConfigInputStream(descriptor, parameters, data, lang);
-            if (config == null) {
-                LOG.error("FOP config file not  found, " +
-                        "please put the fop-userconfig.xml file into the classpath of the  server, UTF-8 characters won't be displayed correctly");
+            final String engineKey = getReportEngineCacheKey(descriptor, parameters, data, lang);
+
+            final FopFactory fopFactory = getFopFactory(engineKey, descriptor, parameters, data, lang);
+            if (fopFactory == null) {
                 return;
             }
 
-            final URI base = getBaseReportURI(descriptor, parameters, data, lang);
-
-            final ResourceResolver rr = ResourceResolverFactory.createTempAwareResourceResolver(
-                    getTempResourceResolver(descriptor, parameters, data, lang),
-                    getResourceResolver(descriptor, parameters, data, lang)
-            );
-            final FopFactoryBuilder confBuilder = new FopConfParser(
-                    config,
-                    EnvironmentalProfileFactory.createRestrictedIO(base, rr)
-            ).getFopFactoryBuilder();
-
-
-            final Source xsltfile = getXsltFile(descriptor, parameters, data, lang);
-            if (xsltfile == null) {
-                LOG.error("Unable to read XSLT-FO file for {} in {}", descriptor, lang);
+            final Templates templates = getTemplates(engineKey, descriptor, parameters, data, lang);
+            if (templates == null) {
                 return;
             }
 
-            // configure fopFactory as desired
-            final FopFactory fopFactory = confBuilder.build();
             final FOUserAgent foUserAgent = fopFactory.newFOUserAgent();
 
             final Source source = convertToSource(descriptor, parameters, data, lang);
@@ -83,9 +77,7 @@ public abstract class AbstractFopReportGenerator implements ReportGenerator {
             final String mime = getOutputMimeType(descriptor, parameters, data, lang);
             final Fop fop = fopFactory.newFop(mime, foUserAgent, outputStream);
 
-            // Setup XSLT 2.0
-            final TransformerFactory factory = TransformerFactory.newInstance("net.sf.saxon.TransformerFactoryImpl", null);
-            final Transformer transformer = factory.newTransformer(xsltfile);
+            final Transformer transformer = templates.newTransformer();
 
             // Set the value of a <param> in the stylesheet
             transformer.setParameter("versionParam", "2.0");
@@ -105,6 +97,137 @@ public abstract class AbstractFopReportGenerator implements ReportGenerator {
 
     }
 
+    /**
+     * Get FOP factory from cache or create a new one.
+     *
+     * @param engineKey  cache key (or null if caching is not possible)
+     * @param descriptor descriptor
+     * @param parameters passed in parameter values
+     * @param data data object for report
+     * @param lang language
+     *
+     * @return FOP factory (or null if configuration could not be read)
+     *
+     * @throws Exception configuration errors
+     */
+    private FopFactory getFopFactory(final String engineKey,
+                                     final ReportDescriptor descriptor,
+                                     final Map<String, Object> parameters,
+                                     final Object data,
+                                     final String lang) throws Exception {
+
+        if (engineKey != null && fopFactoryCache != null) {
+            final Cache.ValueWrapper cached = fopFactoryCache.get(engineKey);
+            if (cached != null) {
+                return (FopFactory) cached.get();
+            }
+        }
+
+        final InputStream config = getFopUserConfigInputStream(descriptor, parameters, data, lang);
+        if (config == null) {
+            LOG.error("FOP config file not  found, " +
+                    "please put the fop-userconfig.xml file into the classpath of the  server, UTF-8 characters won't be displayed correctly");
+            return null;
+        }
+
+        final URI base = getBaseReportURI(descriptor, parameters, data, lang);
+
+        final ResourceResolver rr = ResourceResolverFactory.createTempAwareResourceResolver(
+                getTempResourceResolver(descriptor, parameters, data, lang),
+                getResourceResolver(descriptor, parameters, data, lang)
+        );
+        final FopFactoryBuilder confBuilder = new FopConfParser(
+                config,
+                EnvironmentalProfileFactory.createRestrictedIO(base, rr)
+        ).getFopFactoryBuilder();
+
+        // configure fopFactory as desired
+        final FopFactory fopFactory = confBuilder.build();
+
+        if (engineKey != null && fopFactoryCache != null) {
+            fopFactoryCache.put(engineKey, fopFactory);
+        }
+
+        return fopFactory;
+
+    }
+
+    /**
+     * Get compiled XSLT-FO from cache or compile a new one.
+     *
+     * @param engineKey  cache key (or null if caching is not possible)
+     * @param descriptor descriptor
+     * @param parameters passed in parameter values
+     * @param data data object for report
+     * @param lang language
+     *
+     * @return compiled XSLT-FO (or null if file could not be read)
+     *
+     * @throws Exception compilation errors
+     */
+    private Templates getTemplates(final String engineKey,
+                                   final ReportDescriptor descriptor,
+                                   final Map<String, Object> parameters,
+                                   final Object data,
+                                   final String lang) throws Exception {
+
+        final String templatesKey = engineKey != null ? engineKey + "_" + descriptor.getReportId() + "_" + descriptor.getLangXslfo(lang) : null;
+
+        if (templatesKey != null && templatesCache != null) {
+            final Cache.ValueWrapper cached = templatesCache.get(templatesKey);
+            if (cached != null) {
+                return (Templates) cached.get();
+            }
+        }
+
+        final Source xsltfile = getXsltFile(descriptor, parameters, data, lang);
+        if (xsltfile == null) {
+            LOG.error("Unable to read XSLT-FO file for {} in {}", descriptor, lang);
+            return null;
+        }
+
+        final Templates templates = transformerFactory.newTemplates(xsltfile);
+
+        if (templatesKey != null && templatesCache != null) {
+            templatesCache.put(templatesKey, templates);
+        }
+
+        return templates;
+
+    }
+
+    /**
+     * Key that identifies report engine configuration, i.e. FOP configuration, resource resolvers and XSLT-FO
+     * templates available. Same key must always resolve to the same configuration, since FOP factory and compiled
+     * XSLT-FO are cached using this key.
+     *
+     * Default implementation returns null, which means that no caching is possible.
+     *
+     * @param descriptor descriptor
+     * @param parameters passed in parameter values
+     * @param data data object for report
+     * @param lang language
+     *
+     * @return cache key or null
+     */
+    protected String getReportEngineCacheKey(final ReportDescriptor descriptor,
+                                             final Map<String, Object> parameters,
+                                             final Object data,
+                                             final String lang) {
+        return null;
+    }
+
+    /**
+     * Set cache manager to enable caching of FOP factories ("reportGenerator-fopFactory")
+     * and compiled XSLT-FO templates ("reportGenerator-templates").
+     *
+     * @param cacheManager cache manager
+     */
+    public void setCacheManager(final CacheManager cacheManager) {
+        this.fopFactoryCache = cacheManager.getCache("reportGenerator-fopFactory");
+        this.templatesCache = cacheManager.getCache("reportGenerator-templates");
+    }
+
     /**
      * Create resource resolver.
      *
@@ -16,6 +16,7 @@ import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -86,6 +87,32 @@ public abstract class AbstractThemeAwareFopReportGenerator extends AbstractFopRe
 
     }
 
+    /**
+     * Shop specific templates may be provided in content (per language) and theme chain determines the files,
+     * so report engine configuration is unique for shop, language and reports theme chain.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getReportEngineCacheKey(final ReportDescriptor descriptor,
+                                             final Map<String, Object> parameters,
+                                             final Object data,
+                                             final String lang) {
+
+        final Shop shop = resolveShop(descriptor, parameters, data, lang);
+        final List<String> chain = themeService.getReportsTemplateChainByShopId(shop != null ? shop.getShopId() : null);
+
+        final StringBuilder key = new StringBuilder();
+        key.append(shop != null ? shop.getCode() : "-").append('_').append(lang);
+        if (chain != null) {
+            for (final String path : chain) {
+                key.append('_').append(path);
+            }
+        }
+        return key.toString();
+
+    }
+
     /**
      * Resolve shop instance from parameters.
      *
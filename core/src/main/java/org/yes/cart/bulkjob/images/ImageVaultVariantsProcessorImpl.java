@@ -0,0 +1,422 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.bulkjob.images;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yes.cart.service.domain.ImageService;
+import org.yes.cart.service.domain.SystemService;
+import org.yes.cart.service.media.MediaFileNameStrategy;
+import org.yes.cart.stream.io.FileSystemIOProvider;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-generates resized variants of images in local image vault for all allowed sizes, so that
+ * first request for a new image (or first request on a node after image vault sync) does not
+ * pay resize latency.
+ * <p/>
+ * Processing is incremental: originals are processed in order of last modified time and after each
+ * batch the last modified time of the batch is saved to {@link #STATE_FILE} in image vault root. On
+ * next run (or after restart) only originals modified since are evaluated. Originals for which some
+ * variants could not be generated (corrupt image, resize rejected by busy resize pool, etc.) are kept
+ * in retry list in the state file and are evaluated again on next run. Changing allowed sizes
+ * or removing state file triggers full pass, which only generates variants that are missing or older
+ * than original.
+ * <p/>
+ * Note that incremental pass relies on modification time, so originals copied into image vault with
+ * preserved older modification time (e.g. cp -p, rsync -t or unzip) are not picked up. Remove state
+ * file after such imports to force full pass.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 20:10
+ */
+public class ImageVaultVariantsProcessorImpl implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImageVaultVariantsProcessorImpl.class);
+
+    public static final String STATE_FILE = "variants.properties";
+
+    private static final char RETRY_SEPARATOR = '\n';
+
+    private final SystemService systemService;
+    private final FileSystemIOProvider ioProvider;
+    private final ImageService imageService;
+    private final MediaFileNameStrategy[] imageNameStrategies;
+
+    private int threads = 2;
+    private int batchSize = 100;
+
+    public ImageVaultVariantsProcessorImpl(final SystemService systemService,
+                                           final FileSystemIOProvider ioProvider,
+                                           final ImageService imageService,
+                                           final MediaFileNameStrategy[] imageNameStrategies) {
+        this.systemService = systemService;
+        this.ioProvider = ioProvider;
+        this.imageService = imageService;
+        this.imageNameStrategies = imageNameStrategies;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+
+        final String imgVault = systemService.getImageRepositoryDirectory();
+
+        LOG.info("Generating image variants in imagevault {}", imgVault);
+
+        final File imageVault = ioProvider.resolveFileFromUri(imgVault, Collections.EMPTY_MAP);
+        if (imageVault == null || !imageVault.exists()) {
+            LOG.info("Generating image variants in imagevault {} failed because either this is not a local file system path or directory does not exist", imgVault);
+            return;
+        }
+
+        final List<String> sizes = imageService.getAllowedSizes();
+        if (sizes.isEmpty()) {
+            LOG.info("No allowed sizes configured... skipping");
+            return;
+        }
+
+        final File stateFile = new File(imageVault, STATE_FILE);
+        final Properties state = loadState(stateFile);
+        final String sizesSignature = StringUtils.join(sizes, ',');
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+
+            final Set<String> scanned = new HashSet<String>();
+
+            for (final MediaFileNameStrategy strategy : imageNameStrategies) {
+
+                final String root = strategy.getRelativeInternalRootDirectory();
+                if (!scanned.add(root)) {
+                    continue; // skip duplicates (e.g. product + sku)
+                }
+
+                final File dir = new File(imageVault.getAbsolutePath() + File.separator + root);
+                if (!dir.exists()) {
+                    continue;
+                }
+
+                final long since;
+                final Set<String> retry = new LinkedHashSet<String>();
+                if (sizesSignature.equals(state.getProperty(root + ".sizes"))) {
+                    since = NumberUtils.toLong(state.getProperty(root + ".lastModified"), 0L);
+                    final String retryValue = state.getProperty(root + ".retry");
+                    if (StringUtils.isNotBlank(retryValue)) {
+                        retry.addAll(Arrays.asList(StringUtils.split(retryValue, RETRY_SEPARATOR)));
+                    }
+                } else {
+                    since = 0L; // sizes changed, so we need full pass
+                }
+
+                if (!generateVariants(executor, imgVault, dir, strategy, sizes, since, retry, state, stateFile, sizesSignature)) {
+                    LOG.info("Generating image variants in imagevault {} ... interrupted", imgVault);
+                    return;
+                }
+
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Generating image variants in imagevault {} ... completed", imgVault);
+
+    }
+
+    private boolean generateVariants(final ExecutorService executor,
+                                     final String imgVault,
+                                     final File dir,
+                                     final MediaFileNameStrategy strategy,
+                                     final List<String> sizes,
+                                     final long since,
+                                     final Set<String> retry,
+                                     final Properties state,
+                                     final File stateFile,
+                                     final String sizesSignature) {
+
+        final List<File> originals = new ArrayList<File>();
+        final Set<String> pendingRetry = new LinkedHashSet<String>();
+        // originals that failed previously go first, since they are older than the watermark
+        for (final String path : retry) {
+            final File original = new File(dir, path);
+            if (original.isFile()) {
+                pendingRetry.add(path); // removed originals are dropped
+                if (original.lastModified() < since) {
+                    originals.add(original);
+                }
+            }
+        }
+        originals.addAll(findOriginals(dir, since));
+        if (originals.isEmpty()) {
+            LOG.info("Generating image variants in imagevault directory {} ... no changes since {}", dir.getAbsolutePath(), new Date(since));
+            return true;
+        }
+
+        LOG.info("Generating image variants in imagevault directory {} for {} originals", dir.getAbsolutePath(), originals.size());
+
+        final String root = strategy.getRelativeInternalRootDirectory();
+        final AtomicInteger generated = new AtomicInteger(0);
+        final AtomicInteger failed = new AtomicInteger(0);
+        long watermark = since;
+
+        for (int start = 0; start < originals.size(); start += batchSize) {
+
+            final List<File> batch = originals.subList(start, Math.min(start + batchSize, originals.size()));
+            final List<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(batch.size());
+            for (final File original : batch) {
+                tasks.add(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return generateVariants(imgVault, original, strategy, sizes, generated, failed);
+                    }
+                });
+            }
+
+            final List<Future<Boolean>> results;
+            try {
+                results = executor.invokeAll(tasks);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false; // state is not updated, so this batch will be repeated on next run
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                final File original = batch.get(i);
+                final String path = toRelativePath(original);
+                if (isSuccessful(results.get(i), original)) {
+                    pendingRetry.remove(path);
+                } else {
+                    pendingRetry.add(path);
+                }
+                watermark = Math.max(watermark, original.lastModified());
+            }
+
+            // originals are sorted by modification time, so everything up to the last one in batch is
+            // evaluated, those that failed are kept in the retry list
+            state.setProperty(root + ".sizes", sizesSignature);
+            state.setProperty(root + ".lastModified", String.valueOf(watermark));
+            state.setProperty(root + ".retry", StringUtils.join(pendingRetry, RETRY_SEPARATOR));
+            saveState(stateFile, state);
+
+            LOG.info("Generating image variants in imagevault directory {} {}%, generated {}, failed {}",
+                    new Object[] { dir.getAbsolutePath(), (start + batch.size()) * 100 / originals.size(), generated.get(), failed.get() });
+
+        }
+
+        return true;
+
+    }
+
+    private boolean isSuccessful(final Future<Boolean> result, final File original) {
+
+        try {
+            return Boolean.TRUE.equals(result.get());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ee) {
+            LOG.warn("Unable to generate variants of " + original.getAbsolutePath(), ee.getCause());
+            return false;
+        }
+
+    }
+
+    private String toRelativePath(final File original) {
+        // [first letter of code]/[code]/[file]
+        final File code = original.getParentFile();
+        return code.getParentFile().getName() + '/' + code.getName() + '/' + original.getName();
+    }
+
+    private boolean generateVariants(final String imgVault,
+                                     final File original,
+                                     final MediaFileNameStrategy strategy,
+                                     final List<String> sizes,
+                                     final AtomicInteger generated,
+                                     final AtomicInteger failed) {
+
+        final String fileName = original.getName();
+        final String code = original.getParentFile().getName();
+        final String locale = strategy.resolveLocale(fileName);
+
+        final String originalPath = imgVault + strategy.resolveRelativeInternalFileNamePath(fileName, code, locale);
+
+        boolean complete = true;
+        for (final String size : sizes) {
+
+            final int pos = size.indexOf('x');
+            if (pos <= 0) {
+                continue;
+            }
+            final String width = size.substring(0, pos);
+            final String height = size.substring(pos + 1);
+
+            final String resizedPath = imgVault + strategy.resolveRelativeInternalFileNamePath(fileName, code, locale, width, height);
+
+            if (imageService.resolveImageFile(originalPath, resizedPath) != null) {
+                continue; // up to date
+            }
+
+            imageService.resizeImage(originalPath, resizedPath, width, height);
+
+            if (imageService.resolveImageFile(originalPath, resizedPath) != null) {
+                generated.incrementAndGet();
+            } else {
+                // corrupt image or resize rejected, ImageFilter will retry on demand
+                failed.incrementAndGet();
+                complete = false;
+                LOG.warn("Unable to generate {} variant of {}", size, originalPath);
+            }
+
+        }
+
+        return complete;
+
+    }
+
+    /**
+     * Find all originals in root directory that are modified at or after given time. Layout of
+     * root directory is [first letter of code]/[code]/[file], resized variants are in [WxH]
+     * directories at the same level as letters and thus are not included.
+     *
+     * @param dir   strategy root directory
+     * @param since last modified threshold
+     *
+     * @return originals sorted by last modified
+     */
+    List<File> findOriginals(final File dir, final long since) {
+
+        final List<File> originals = new ArrayList<File>();
+
+        final File[] letters = dir.listFiles();
+        if (letters == null) {
+            return originals;
+        }
+
+        for (final File letter : letters) {
+
+            // Only look at single letter directories at top level
+            if (letter.getName().length() != 1 || !letter.isDirectory()) {
+                continue;
+            }
+
+            final File[] codes = letter.listFiles();
+            if (codes == null) {
+                continue;
+            }
+
+            for (final File code : codes) {
+
+                final File[] images = code.listFiles();
+                if (images == null) {
+                    continue;
+                }
+
+                for (final File image : images) {
+                    // equal is included since state is saved as last modified of last processed file
+                    if (image.isFile() && image.lastModified() >= since) {
+                        originals.add(image);
+                    }
+                }
+
+            }
+
+        }
+
+        Collections.sort(originals, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                final long m1 = f1.lastModified();
+                final long m2 = f2.lastModified();
+                return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+            }
+        });
+
+        return originals;
+
+    }
+
+    private Properties loadState(final File stateFile) {
+
+        final Properties state = new Properties();
+        if (stateFile.exists()) {
+            InputStream is = null;
+            try {
+                is = new FileInputStream(stateFile);
+                state.load(is);
+            } catch (IOException ioe) {
+                LOG.warn("State file {} is corrupt, full pass will be performed", stateFile.getAbsolutePath());
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+        return state;
+
+    }
+
+    private void saveState(final File stateFile, final Properties state) {
+
+        // write to temp file and rename so that state file is never left half written
+        final File temp = new File(stateFile.getAbsolutePath() + ".tmp");
+        OutputStream os = null;
+        try {
+            os = new FileOutputStream(temp);
+            state.store(os, "Image variants generation state");
+            os.close();
+            os = null;
+            if (!temp.renameTo(stateFile)) {
+                stateFile.delete();
+                if (!temp.renameTo(stateFile)) {
+                    LOG.warn("Unable to save state file {}", stateFile.getAbsolutePath());
+                }
+            }
+        } catch (IOException ioe) {
+            LOG.warn("Unable to save state file " + stateFile.getAbsolutePath(), ioe);
+        } finally {
+            IOUtils.closeQuietly(os);
+        }
+
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param threads number of originals processed in parallel
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param batchSize number of originals processed between state saves
+     */
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+}
@@ -28,15 +28,25 @@ import org.yes.cart.service.domain.RuntimeAttributeService;
 import org.yes.cart.service.domain.SkuWarehouseService;
 import org.yes.cart.service.domain.SystemService;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Processor that scrolls though all modified inventory and re-indexes products so that
+ * Processor that consumes inventory change events and re-indexes products so that
  * all latest information is propagated to all nodes.
  *
- * Last time this job runs is stored in system preferences: JOB_PROD_INV_UPDATE_LAST_RUN_[NODEID]
- * So that next run we only scan orders that have changed since last job run.
+ * Events are recorded by {@link SkuWarehouseService} in the same transaction as inventory change,
+ * so this job coalesces them per SKU and re-indexes only affected SKU in batches. Bulk changes
+ * (e.g. inventory feeds) never trigger full reindex, they are simply processed in more batches.
+ * Inventory records updated without the service (e.g. direct imports) are picked up by last
+ * modification date of inventory.
+ *
+ * Last time this job runs is stored in system preferences: JOB_PRODINVUP_LR_[NODEID]
+ * So that next run we only consume events that were recorded since last job run (with small overlap
+ * to account for transactions that committed after the job started).
  *
  * User: denispavlov
  * Date: 27/04/2015
@@ -91,67 +101,50 @@ public class ProductInventoryChangedProcessorImpl extends AbstractLastRunDepende
 
         int batchSize = getBatchSize();
 
-        LOG.info("Check changed orders products to be reindexed on {}, batch {}", nodeId, batchSize);
-
-        List<String> productSkus = skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastRun);
-
-        if (productSkus != null && !productSkus.isEmpty()) {
-
-            // Check again to see if we do not have bulk updates
-            int count = productSkus.size();
-            try {
-                Thread.sleep(getDeltaCheckDelay());
-            } catch (InterruptedException e) {
-            }
-            productSkus = skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastRun);
-            int delta = productSkus.size() - count;
-            int maxDelta = getDeltaCheckSize();
-            if (delta > maxDelta) {
-                LOG.info("Detected bulking operation ... {} inventory records changed in past {} seconds (max: {}). Postponing check until next run.",
-                        new Object[]{delta, getDeltaCheckDelay() / 1000, maxDelta});
-                return false;
-            }
-
-            // Check whether we need batch or full
-            count = productSkus.size();
-            int full = getChangeMaxSize();
-
-            LOG.info("Inventory changed for {} since {}", new Object[]{productSkus.size(), lastRun});
+        LOG.info("Check inventory change events to be reindexed on {}, batch {}", nodeId, batchSize);
 
-            if (count < full) {
-                int fromIndex = 0;
-                int toIndex = 0;
-                while (fromIndex < productSkus.size()) {
+        final Date since = lastRun != null ? new Date(lastRun.getTime() - getEventOverlap()) : null;
 
-                    if (isFullIndexInProgress()) {
-                        LOG.info("Reindexing inventory updates on {}, reindexed ALL is already in progress", nodeId);
-                        return true;
-                    }
+        // coalesce events per SKU, so that frequently changing SKU is reindexed only once
+        final Set<String> changed = new LinkedHashSet<String>(skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(since));
+        if (lastRun != null) {
+            changed.addAll(skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(since));
+        }
 
-                    toIndex = fromIndex + batchSize > productSkus.size() ? productSkus.size() : fromIndex + batchSize;
-                    final List<String> skuBatch = productSkus.subList(fromIndex, toIndex);
-                    LOG.info("Reindexing SKU {}  ... so far reindexed {}", skuBatch, fromIndex);
+        if (!changed.isEmpty()) {
 
-                    self().reindexBatch(skuBatch);
+            final List<String> productSkus = new ArrayList<String>(changed);
 
-                    fromIndex = toIndex;
+            LOG.info("Inventory changed for {} since {}", productSkus.size(), since);
 
-                }
-                LOG.info("Reindexing inventory updates on {}, reindexed {}", nodeId, count);
-            } else {
+            int fromIndex = 0;
+            int toIndex = 0;
+            while (fromIndex < productSkus.size()) {
 
                 if (isFullIndexInProgress()) {
                     LOG.info("Reindexing inventory updates on {}, reindexed ALL is already in progress", nodeId);
                     return true;
                 }
 
-                self().reindexBatch(null);
-                LOG.info("Reindexing inventory updates on {}, reindexed ALL", nodeId);
+                toIndex = fromIndex + batchSize > productSkus.size() ? productSkus.size() : fromIndex + batchSize;
+                final List<String> skuBatch = productSkus.subList(fromIndex, toIndex);
+                LOG.info("Reindexing SKU {}  ... so far reindexed {}", skuBatch, fromIndex);
+
+                self().reindexBatch(skuBatch);
+
+                fromIndex = toIndex;
+
             }
+            LOG.info("Reindexing inventory updates on {}, reindexed {}", nodeId, productSkus.size());
 
             flushCaches();
         }
 
+        final int removed = skuWarehouseService.removeInventoryChangeEventsBefore(new Date(System.currentTimeMillis() - getEventRetention()));
+        if (removed > 0) {
+            LOG.info("Removed {} expired inventory change events", removed);
+        }
+
         LOG.info("Reindexing inventory updates on {} ... completed", nodeId);
 
         return true;
@@ -174,16 +167,8 @@ public class ProductInventoryChangedProcessorImpl extends AbstractLastRunDepende
     @Override
     public void reindexBatch(final List<String> skuCodes) {
 
-        if (skuCodes == null) {
-            // do full reindex
-            productService.reindexProducts(getBatchSize(), false);
-            productService.reindexProductsSku(getBatchSize(), false);
-
-        } else {
-            for (final String sku : skuCodes) {
-                // batch only
-                productService.reindexProductSku(sku);
-            }
+        for (final String sku : skuCodes) {
+            productService.reindexProductSku(sku);
         }
 
     }
@@ -200,16 +185,12 @@ public class ProductInventoryChangedProcessorImpl extends AbstractLastRunDepende
         return NumberUtils.toInt(getSystemService().getAttributeValue(AttributeNamesKeys.System.JOB_REINDEX_PRODUCT_BATCH_SIZE), 100);
     }
 
-    protected int getDeltaCheckSize() {
-        return NumberUtils.toInt(getSystemService().getAttributeValue(AttributeNamesKeys.System.JOB_PRODUCT_INVENTORY_UPDATE_DELTA), 100);
-    }
-
-    protected int getChangeMaxSize() {
-        return NumberUtils.toInt(getSystemService().getAttributeValue(AttributeNamesKeys.System.JOB_PRODUCT_INVENTORY_FULL_THRESHOLD), 1000);
+    protected long getEventRetention() {
+        return NumberUtils.toLong(getSystemService().getAttributeValue(AttributeNamesKeys.System.JOB_PRODUCT_INVENTORY_EVENT_RETENTION_HOURS), 24) * 3600000L;
     }
 
-    protected long getDeltaCheckDelay() {
-        return NumberUtils.toLong(getSystemService().getAttributeValue(AttributeNamesKeys.System.JOB_PRODUCT_INVENTORY_UPDATE_DELTA_DELAY_SECONDS), 15) * 1000L;
+    protected long getEventOverlap() {
+        return 60000L;
     }
 
 
@@ -16,6 +16,8 @@
 
 package org.yes.cart.cache;
 
+import java.util.Collection;
+
 /**
  * User: denispavlov
  * Date: 17/07/2016
@@ -28,4 +30,13 @@ public interface CacheBundleHelper {
      */
     void flushBundleCaches();
 
+    /**
+     * Flush only bundle cache entries that depend on given entities. Caches that do not
+     * keep entity tags are not flushed.
+     *
+     * @param entityName entity simple class name (e.g. ProductEntity)
+     * @param pks        entity primary keys
+     */
+    void flushBundleCaches(String entityName, Collection<Long> pks);
+
 }
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache;
+
+import org.yes.cart.domain.entity.Identifiable;
+import org.yes.cart.domain.misc.Pair;
+
+import java.util.*;
+
+/**
+ * Tracks entities that a cacheable value is computed from.
+ *
+ * {@link TaggedCache} opens a frame for the current thread on cache miss and collects the tags on put,
+ * so a cached value is tagged not only with entities that it contains but also with entities that
+ * were used to compute it (e.g. minimal price depends on all candidate prices). Services register
+ * such entities via {@link #dependsOn(Object)}, which is a no-op unless a tagged cache is being
+ * populated on current thread.
+ *
+ * Frames are closed on put. Cache misses that never reach put (e.g. cacheable method has thrown an
+ * exception or result is excluded by "unless") are unwound by
+ * {@link org.yes.cart.cache.impl.CacheDependenciesInterceptor}, which wraps every cacheable invocation
+ * (see {@link #depth()} and {@link #unwind(int)}). {@link #clear()} is a safety net for threads that
+ * are reused for independent units of work (e.g. request threads).
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 11:02
+ */
+public final class CacheDependencies {
+
+    private static final String PROXY_SUFFIX = "_$$_";
+
+    /*
+     * Frames of cache misses outside of intercepted cacheable invocations (e.g. programmatic cache
+     * access) are only removed by clear(), so we also limit depth to avoid unbounded growth.
+     */
+    private static final int MAX_DEPTH = 16;
+
+    private static final ThreadLocal<LinkedList<Frame>> FRAMES = new ThreadLocal<LinkedList<Frame>>();
+
+    private CacheDependencies() {
+        // no instance
+    }
+
+    /**
+     * Register entities used in computation of currently populated cached value.
+     *
+     * @param value entity, collection, array, map or pair containing entities
+     */
+    public static void dependsOn(final Object value) {
+        final LinkedList<Frame> frames = FRAMES.get();
+        if (frames != null && !frames.isEmpty()) {
+            collectTags(value, frames.getLast().tags, true);
+        }
+    }
+
+    /**
+     * Register tags of an already cached value used in computation of currently populated cached value.
+     *
+     * @param tags tags
+     */
+    public static void dependsOnTags(final Collection<String> tags) {
+        final LinkedList<Frame> frames = FRAMES.get();
+        if (frames != null && !frames.isEmpty() && tags != null) {
+            frames.getLast().tags.addAll(tags);
+        }
+    }
+
+    /**
+     * Open dependency frame for given cache entry.
+     *
+     * @param cache cache
+     * @param key   key
+     */
+    public static void begin(final Object cache, final Object key) {
+        LinkedList<Frame> frames = FRAMES.get();
+        if (frames == null) {
+            frames = new LinkedList<Frame>();
+            FRAMES.set(frames);
+        } else if (frames.size() >= MAX_DEPTH) {
+            frames.removeFirst();
+        }
+        frames.add(new Frame(cache, key));
+    }
+
+    /**
+     * Close dependency frame for given cache entry. Tags collected by the frame are also
+     * propagated to the enclosing frame since outer value depends on the inner one.
+     *
+     * @param cache cache
+     * @param key   key
+     *
+     * @return tags collected for given entry (empty set if there is no frame for this entry)
+     */
+    public static Set<String> end(final Object cache, final Object key) {
+        final LinkedList<Frame> frames = FRAMES.get();
+        if (frames == null) {
+            return Collections.emptySet();
+        }
+        final ListIterator<Frame> it = frames.listIterator(frames.size());
+        while (it.hasPrevious()) {
+            final Frame frame = it.previous();
+            if (frame.cache == cache && frame.key.equals(key)) {
+                // frames above this one belong to failed invocations
+                while (frames.size() > it.nextIndex()) {
+                    frames.removeLast();
+                }
+                if (frames.isEmpty()) {
+                    FRAMES.remove();
+                } else {
+                    frames.getLast().tags.addAll(frame.tags);
+                }
+                return frame.tags;
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    /**
+     * @return number of open dependency frames of the current thread
+     */
+    public static int depth() {
+        final LinkedList<Frame> frames = FRAMES.get();
+        return frames == null ? 0 : frames.size();
+    }
+
+    /**
+     * Close dependency frames opened above given depth, which belong to cache misses that were
+     * not put into cache. Tags collected by these frames are propagated to the enclosing frame,
+     * since enclosing value may still have been computed from the uncached one.
+     *
+     * @param depth depth as returned by {@link #depth()} before cacheable invocation
+     */
+    public static void unwind(final int depth) {
+        final LinkedList<Frame> frames = FRAMES.get();
+        if (frames == null) {
+            return;
+        }
+        while (frames.size() > depth) {
+            final Frame frame = frames.removeLast();
+            if (!frames.isEmpty()) {
+                frames.getLast().tags.addAll(frame.tags);
+            }
+        }
+        if (frames.isEmpty()) {
+            FRAMES.remove();
+        }
+    }
+
+    /**
+     * Discard all dependency frames of the current thread.
+     */
+    public static void clear() {
+        FRAMES.remove();
+    }
+
+    /**
+     * Collect entity tags from given value.
+     *
+     * @param value value
+     *
+     * @return tags
+     */
+    public static Set<String> tagsOf(final Object value) {
+        final Set<String> tags = new HashSet<String>();
+        collectTags(value, tags, true);
+        return tags;
+    }
+
+    /**
+     * @param entityName entity simple class name
+     * @param pk         primary key
+     *
+     * @return tag for given entity
+     */
+    public static String tag(final String entityName, final Long pk) {
+        return entityName + ':' + pk;
+    }
+
+    /*
+     * Only shallow inspection is done: entity graphs are not traversed to avoid initialising lazy associations.
+     */
+    private static void collectTags(final Object value, final Set<String> tags, final boolean inspectContainer) {
+
+        if (value instanceof Identifiable) {
+            tags.add(tag(entityName(value.getClass()), ((Identifiable) value).getId()));
+        } else if (value instanceof Pair) {
+            collectTags(((Pair) value).getFirst(), tags, inspectContainer);
+            collectTags(((Pair) value).getSecond(), tags, inspectContainer);
+        } else if (inspectContainer) {
+            if (value instanceof Collection) {
+                for (final Object item : (Collection) value) {
+                    collectTags(item, tags, false);
+                }
+            } else if (value instanceof Map) {
+                for (final Object item : ((Map) value).values()) {
+                    collectTags(item, tags, false);
+                }
+            } else if (value instanceof Object[]) {
+                for (final Object item : (Object[]) value) {
+                    collectTags(item, tags, false);
+                }
+            }
+        }
+
+    }
+
+    private static String entityName(final Class clazz) {
+        final String name = clazz.getSimpleName();
+        final int proxy = name.indexOf(PROXY_SUFFIX);
+        if (proxy > 0) {
+            return name.substring(0, proxy);
+        }
+        return name;
+    }
+
+    private static final class Frame {
+
+        private final Object cache;
+        private final Object key;
+        private final Set<String> tags = new HashSet<String>();
+
+        private Frame(final Object cache, final Object key) {
+            this.cache = cache;
+            this.key = key;
+        }
+    }
+
+}
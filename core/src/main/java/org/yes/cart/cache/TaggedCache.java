@@ -0,0 +1,44 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Cache that keeps track of entities that each cached value depends on, so that changes
+ * to a single entity can be evicted on key level rather than by clearing the whole cache.
+ *
+ * Tags are of the form "EntitySimpleName:pk" (e.g. "SkuPriceEntity:10"), which is the same
+ * entity name that {@link org.yes.cart.web.service.ws.CacheDirector#onCacheableChange} receives.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 10:05
+ */
+public interface TaggedCache extends Cache {
+
+    /**
+     * Evict all entries that depend on given entity.
+     *
+     * @param entityName entity simple class name (e.g. ProductEntity)
+     * @param pk         entity primary key
+     *
+     * @return number of evicted entries
+     */
+    int evictTagged(String entityName, Long pk);
+
+}
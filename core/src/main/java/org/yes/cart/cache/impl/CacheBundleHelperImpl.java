@@ -21,7 +21,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.yes.cart.cache.CacheBundleHelper;
+import org.yes.cart.cache.TaggedCache;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
 
@@ -48,6 +50,23 @@ public class CacheBundleHelperImpl implements CacheBundleHelper {
 
     }
 
+    @Override
+    public void flushBundleCaches(final String entityName, final Collection<Long> pks) {
+
+        for (final String cacheName : caches) {
+
+            final Cache cache = cacheManager.getCache(cacheName);
+
+            if (cache instanceof TaggedCache) {
+                for (final Long pk : pks) {
+                    ((TaggedCache) cache).evictTagged(entityName, pk);
+                }
+            } // caches without tags are left intact, they rely on TTL and entity change eviction
+
+        }
+
+    }
+
     private void safeFlushCache(final String cacheName) {
 
         final Cache cache = cacheManager.getCache(cacheName);
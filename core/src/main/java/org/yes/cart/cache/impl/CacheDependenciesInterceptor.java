@@ -0,0 +1,45 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache.impl;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.yes.cart.cache.CacheDependencies;
+
+/**
+ * Wraps cacheable invocations (outside of cache interceptor) so that dependency frame opened by
+ * {@link TaggedCacheDecorator} on cache miss is always closed, even if the value is never put
+ * into cache (exception or "unless" condition).
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 14:05
+ */
+public class CacheDependenciesInterceptor implements MethodInterceptor {
+
+    /** {@inheritDoc} */
+    @Override
+    public Object invoke(final MethodInvocation invocation) throws Throwable {
+        final int depth = CacheDependencies.depth();
+        try {
+            return invocation.proceed();
+        } finally {
+            CacheDependencies.unwind(depth);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache.impl;
+
+import net.sf.ehcache.CacheException;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+import org.springframework.cache.Cache;
+import org.yes.cart.cache.CacheDependencies;
+import org.yes.cart.cache.TaggedCache;
+
+import java.util.*;
+
+/**
+ * Decorator for spring cache that indexes cached keys by entities found in the cached value and
+ * by entities registered as dependencies while the value was computed (see {@link CacheDependencies}).
+ *
+ * If underlying native cache is ehcache the index is kept in sync with expired and evicted elements
+ * via cache event listener.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 10:12
+ */
+public class TaggedCacheDecorator implements TaggedCache {
+
+    private final Cache cache;
+
+    private final Map<String, Set<Object>> keysByTag = new HashMap<String, Set<Object>>();
+    private final Map<Object, Set<String>> tagsByKey = new HashMap<Object, Set<String>>();
+
+    public TaggedCacheDecorator(final Cache cache) {
+        this.cache = cache;
+        final Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof Ehcache) {
+            ((Ehcache) nativeCache).getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+                @Override
+                public void notifyElementRemoved(final Ehcache ehcache, final Element element) throws CacheException {
+                    untag(element.getObjectKey());
+                }
+
+                @Override
+                public void notifyElementExpired(final Ehcache ehcache, final Element element) {
+                    untag(element.getObjectKey());
+                }
+
+                @Override
+                public void notifyElementEvicted(final Ehcache ehcache, final Element element) {
+                    untag(element.getObjectKey());
+                }
+
+                @Override
+                public void notifyRemoveAll(final Ehcache ehcache) {
+                    untagAll();
+                }
+            });
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int evictTagged(final String entityName, final Long pk) {
+        final Set<Object> keys = removeTag(CacheDependencies.tag(entityName, pk));
+        int cnt = 0;
+        for (final Object key : keys) {
+            evict(key);
+            cnt++;
+        }
+        return cnt;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName() {
+        return cache.getName();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getNativeCache() {
+        return cache.getNativeCache();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ValueWrapper get(final Object key) {
+        final ValueWrapper wrapper = cache.get(key);
+        if (wrapper == null) {
+            CacheDependencies.begin(this, key);
+        } else {
+            CacheDependencies.dependsOnTags(getTags(key));
+        }
+        return wrapper;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void put(final Object key, final Object value) {
+        final Set<String> tags = CacheDependencies.tagsOf(value);
+        tags.addAll(CacheDependencies.end(this, key));
+        if (!tags.isEmpty()) {
+            tag(key, tags);
+        }
+        cache.put(key, value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void evict(final Object key) {
+        cache.evict(key);
+        untag(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        cache.clear();
+        untagAll();
+    }
+
+    /**
+     * @param tag entity tag
+     *
+     * @return number of keys currently tagged with given tag
+     */
+    synchronized int getTaggedCount(final String tag) {
+        final Set<Object> keys = keysByTag.get(tag);
+        return keys == null ? 0 : keys.size();
+    }
+
+    private synchronized Set<String> getTags(final Object key) {
+        // tag sets are not modified once indexed
+        return tagsByKey.get(key);
+    }
+
+    private synchronized void tag(final Object key, final Set<String> tags) {
+        untag(key);
+        tagsByKey.put(key, tags);
+        for (final String tag : tags) {
+            Set<Object> keys = keysByTag.get(tag);
+            if (keys == null) {
+                keys = new HashSet<Object>();
+                keysByTag.put(tag, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    private synchronized void untag(final Object key) {
+        final Set<String> tags = tagsByKey.remove(key);
+        if (tags != null) {
+            for (final String tag : tags) {
+                final Set<Object> keys = keysByTag.get(tag);
+                if (keys != null) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        keysByTag.remove(tag);
+                    }
+                }
+            }
+        }
+    }
+
+    private synchronized Set<Object> removeTag(final String tag) {
+        final Set<Object> keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return Collections.emptySet();
+        }
+        return keys;
+    }
+
+    private synchronized void untagAll() {
+        tagsByKey.clear();
+        keysByTag.clear();
+    }
+
+}
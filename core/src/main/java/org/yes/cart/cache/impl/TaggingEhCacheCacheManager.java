@@ -0,0 +1,56 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache.impl;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.ehcache.EhCacheCacheManager;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Ehcache cache manager that wraps configured caches into {@link TaggedCacheDecorator}, so that
+ * entries can be evicted by entity that they depend on.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 10:31
+ */
+public class TaggingEhCacheCacheManager extends EhCacheCacheManager {
+
+    private Set<String> taggedCaches = Collections.emptySet();
+
+    /** {@inheritDoc} */
+    @Override
+    protected Cache decorateCache(final Cache cache) {
+        final Cache decorated = super.decorateCache(cache);
+        if (taggedCaches.contains(decorated.getName())) {
+            return new TaggedCacheDecorator(decorated);
+        }
+        return decorated;
+    }
+
+    /**
+     * IoC. Set names of caches that should keep entity tags.
+     *
+     * @param taggedCaches cache names
+     */
+    public void setTaggedCaches(final Set<String> taggedCaches) {
+        this.taggedCaches = taggedCaches;
+    }
+
+}
@@ -225,6 +225,8 @@ public class ContentServiceCachedImpl implements ContentService {
             "breadCrumbBuilder-breadCrumbs",
             "contentService-contentTemplate",
             "contentService-contentBody" ,
+            "reportGenerator-fopFactory",
+            "reportGenerator-templates",
             "contentService-contentAttributeRecursive",
             "contentService-contentAttributesRecursive",
             "contentService-childContent",
@@ -247,6 +249,8 @@ public class ContentServiceCachedImpl implements ContentService {
             "breadCrumbBuilder-breadCrumbs",
             "contentService-contentTemplate",
             "contentService-contentBody" ,
+            "reportGenerator-fopFactory",
+            "reportGenerator-templates",
             "contentService-contentAttributeRecursive",
             "contentService-contentAttributesRecursive",
             "contentService-childContent",
@@ -16,10 +16,14 @@
 
 package org.yes.cart.service.domain.impl;
 
+import org.hibernate.Criteria;
+import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.constants.AttributeNamesKeys;
+import org.yes.cart.dao.CriteriaTuner;
+import org.yes.cart.dao.FetchProfiles;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.entity.Customer;
@@ -291,20 +295,36 @@ public class CustomerOrderServiceImpl extends BaseGenericServiceImpl<CustomerOrd
      * {@inheritDoc}
      */
     public CustomerOrder findByGuid(final String shoppingCartGuid) {
-        return getGenericDao().findSingleByCriteria(
-                Restrictions.eq("cartGuid", shoppingCartGuid)
-        );
+        return findSingleOrderDetail(Restrictions.eq("cartGuid", shoppingCartGuid));
     }
 
     /**
      * {@inheritDoc}
      */
     public CustomerOrder findByOrderNumber(final String orderNumber) {
-        return getGenericDao().findSingleByCriteria(
-                Restrictions.eq("ordernum", orderNumber)
+        return findSingleOrderDetail(Restrictions.eq("ordernum", orderNumber));
+    }
+
+    /*
+     * Lookups by reference are used to load order for state transitions, so deliveries are
+     * join fetched. Joined collection duplicates root rows, hence distinct root.
+     */
+    private CustomerOrder findSingleOrderDetail(final Criterion criterion) {
+        final List<CustomerOrder> orders = getGenericDao().findByCriteria(
+                FetchProfiles.ORDER_DETAIL, DISTINCT_ROOT, criterion
         );
+        if (orders.isEmpty()) {
+            return null;
+        }
+        return orders.get(0);
     }
 
+    private static final CriteriaTuner DISTINCT_ROOT = new CriteriaTuner() {
+        public void tune(final Criteria crit) {
+            crit.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+        }
+    };
+
     /**
      * {@inheritDoc}
      */
@@ -25,6 +25,7 @@ import org.yes.cart.domain.entity.SeoImage;
 import org.yes.cart.service.domain.ImageService;
 import org.yes.cart.service.media.MediaFileNameStrategy;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -83,6 +84,13 @@ public class ImageServiceCachedImpl implements ImageService {
         return imageService.isSizeAllowed(width, height);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getAllowedSizes() {
+        return imageService.getAllowedSizes();
+    }
+
     /** {@inheritDoc} */
     public MediaFileNameStrategy getImageNameStrategy(final String url) {
         return imageService.getImageNameStrategy(url);
@@ -93,6 +101,11 @@ public class ImageServiceCachedImpl implements ImageService {
         return imageService.resizeImage(original, resized, width, height, cropToFit);
     }
 
+    /** {@inheritDoc} */
+    public File resolveImageFile(final String original, final String resized) {
+        return imageService.resolveImageFile(original, resized);
+    }
+
 
     /** {@inheritDoc} */
     public boolean isImageInRepository(final String fullFileName,
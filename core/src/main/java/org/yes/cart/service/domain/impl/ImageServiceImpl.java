@@ -27,8 +27,12 @@ import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.domain.entity.SeoImage;
 import org.yes.cart.service.domain.ImageService;
 import org.yes.cart.service.domain.SystemService;
+import org.yes.cart.service.media.ImageResizeCoordinator;
+import org.yes.cart.service.media.ImageResizer;
 import org.yes.cart.service.media.MediaFileNameStrategy;
 import org.yes.cart.service.media.MediaFileNameStrategyResolver;
+import org.yes.cart.service.media.impl.ProgressiveImageResizerImpl;
+import org.yes.cart.stream.io.FileSystemIOProvider;
 import org.yes.cart.stream.io.IOProvider;
 
 import javax.imageio.ImageIO;
@@ -36,12 +40,16 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 /**
  * Image service to resize and store resized image.
@@ -54,6 +62,20 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
     private static final Logger LOG = LoggerFactory.getLogger(ImageServiceImpl.class);
 
+    static {
+        // we always decode from and encode to memory, so there is no need for ImageIO to use temp files
+        ImageIO.setUseCache(false);
+    }
+
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private static final ThreadLocal<EncodeBuffer> ENCODE_BUFFER = new ThreadLocal<EncodeBuffer>() {
+        @Override
+        protected EncodeBuffer initialValue() {
+            return new EncodeBuffer();
+        }
+    };
+
     private String allowedSizes;
 
     private boolean cropToFit;
@@ -70,6 +92,10 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
     private final IOProvider ioProvider;
 
+    private ImageResizer imageResizer = new ProgressiveImageResizerImpl();
+
+    private ImageResizeCoordinator resizeCoordinator;
+
 
     /**
      * Construct image service.
@@ -153,6 +179,26 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
                               final String height,
                               final boolean cropToFit) {
 
+        if (resizeCoordinator == null) {
+            return resizeImageInternal(filename, content, width, height, cropToFit);
+        }
+
+        // in memory content has no stable key, so it is only subject to concurrency limit
+        return resizeCoordinator.resize(null, new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                return resizeImageInternal(filename, content, width, height, cropToFit);
+            }
+        });
+
+    }
+
+    byte[] resizeImageInternal(final String filename,
+                               final byte[] content,
+                               final String width,
+                               final String height,
+                               final boolean cropToFit) {
+
         try {
 
             final InputStream bis = new ByteArrayInputStream(content);
@@ -169,10 +215,10 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
                 boolean doCropToFit = cropToFit || x < forceCropToFitOnSize || y < forceCropToFitOnSize;
 
-                final int imageType = originalImg.getType();
+                final int imageType = originalImg.getType() == BufferedImage.TYPE_CUSTOM ?
+                        (supportsAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB) : originalImg.getType();
 
-                final Image resizedImg;
-                //            final BufferedImage resizedImg;
+                final BufferedImage resizedImg;
                 final int padX, padY;
                 if (doCropToFit) {
                     // crop the original to best fit of target size
@@ -181,24 +227,15 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
                     padY = 0;
 
                     final BufferedImage croppedImg = originalImg.getSubimage(cropDims[0], cropDims[1], cropDims[2], cropDims[3]);
-                    resizedImg = croppedImg.getScaledInstance(x, y, Image.SCALE_SMOOTH);
+                    resizedImg = imageResizer.resize(croppedImg, x, y);
 
-                    //                final BufferedImage croppedImg = originalImg.getSubimage(cropDims[0], cropDims[1], cropDims[2], cropDims[3]);
-                    //                resizedImg = new BufferedImage(y, x, imageType);
-                    //                Graphics2D graphics = resizedImg.createGraphics();
-                    //                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                    //                graphics.drawImage(croppedImg, 0, 0, x, y, null);
                 } else {
                     int[] scaleDims = scaleImageToCenter(x, y, originalX, originalY);
                     padX = scaleDims[0];
                     padY = scaleDims[1];
 
-                    resizedImg = originalImg.getScaledInstance(scaleDims[2], scaleDims[3], Image.SCALE_SMOOTH);
+                    resizedImg = imageResizer.resize(originalImg, scaleDims[2], scaleDims[3]);
 
-                    //                resizedImg = new BufferedImage(scaleDims[3], scaleDims[2], imageType);
-                    //                Graphics2D graphics = resizedImg.createGraphics();
-                    //                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                    //                graphics.drawImage(originalImg, 0, 0, scaleDims[2], scaleDims[3], null);
                 }
 
                 // base canvas
@@ -211,12 +248,19 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
                 // insert scaled image
                 graphics.drawImage(resizedImg, padX, padY, null);
+                graphics.dispose();
 
-                final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                // encode buffer is reused by worker thread, so only the final copy is allocated
+                EncodeBuffer bos = ENCODE_BUFFER.get();
+                bos.reset();
 
                 ImageIO.write(resizedImgFinal, codec, bos);
 
-                return bos.toByteArray();
+                final byte[] resized = bos.toByteArray();
+                if (bos.capacity() > MAX_RETAINED_BUFFER) {
+                    ENCODE_BUFFER.remove(); // do not hold on to buffers of abnormally large images
+                }
+                return resized;
             } else {
                 LOG.warn("Image byte content could not be read {}, size is {} bytes", filename, content.length);
             }
@@ -229,6 +273,20 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
     }
 
+    /**
+     * Encoder output buffer that allows to check its capacity.
+     */
+    private static final class EncodeBuffer extends ByteArrayOutputStream {
+
+        private EncodeBuffer() {
+            super(64 * 1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
     /**
      * Get the image codec from filename's given extension
      * <p/>
@@ -324,6 +382,28 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
         return isSizeAllowed(width + "x" + height);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<String> getAllowedSizes() {
+
+        final SystemService systemService = getSystemService();
+        String allowedSizes = systemService.getAttributeValue(AttributeNamesKeys.System.SYSTEM_ALLOWED_IMAGE_SIZES);
+        if (StringUtils.isBlank(allowedSizes)) {
+            allowedSizes = this.allowedSizes;
+        }
+
+        final List<String> sizes = new ArrayList<String>();
+        if (StringUtils.isNotBlank(allowedSizes)) {
+            for (final String size : StringUtils.split(allowedSizes, ',')) {
+                if (StringUtils.isNotBlank(size)) {
+                    sizes.add(size.trim());
+                }
+            }
+        }
+        return sizes;
+    }
+
     /** {@inheritDoc} */
     public MediaFileNameStrategy getImageNameStrategy(final String url) {
         return mediaFileNameStrategyResolver.getMediaFileNameStrategy(url);
@@ -353,23 +433,29 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
 
                 if (!resizedIsNewer) {
 
-                    final byte[] originalContent = ioProvider.read(original, ctx);
-                    final byte[] resizedContent = resizeImage(original, originalContent, width, height);
-
-                    if (resizedContent.length > 0) {
-                        ioProvider.write(resized, resizedContent, ctx);
-                        return resizedContent;
+                    if (resizeCoordinator == null) {
+                        return resizeAndWrite(original, resized, width, height, cropToFit, ctx);
                     }
 
                     /*
-                         If we failed to resize this is probably due to invalid color metadata for the original image.
-                         JDK image API will fail if the metadata is incorrect. In order to fail gracefully we
-                         just pass back the original bytes so that the original image is used instead. There will be an
-                         ERROR log produced by catch block from #resizeImage(), so sys admins should provide regular
-                         feedback to business users to fix these images. Usually the fix is  simply erasing all meta
-                         from the image.
+                        Only one resize per resized path is executed, concurrent requests for the same image
+                        wait for its result. Empty result means that resize was rejected or timed out, in which
+                        case we serve original.
                      */
-                    return originalContent;
+                    final byte[] resizedContent = resizeCoordinator.resize(resized, new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws Exception {
+                            if (ioProvider.isNewerThan(resized, original, ctx)) {
+                                return ioProvider.read(resized, ctx); // completed by previous flight
+                            }
+                            return resizeAndWrite(original, resized, width, height, cropToFit, ctx);
+                        }
+                    });
+
+                    if (resizedContent.length > 0) {
+                        return resizedContent;
+                    }
+                    return ioProvider.read(original, ctx);
                 }
 
                 return ioProvider.read(resized, ctx);
@@ -382,6 +468,59 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
         }
     }
 
+    private byte[] resizeAndWrite(final String original,
+                                  final String resized,
+                                  final String width,
+                                  final String height,
+                                  final boolean cropToFit,
+                                  final Map<String, Object> ctx) throws IOException {
+
+        final byte[] originalContent = ioProvider.read(original, ctx);
+        final byte[] resizedContent = resizeImageInternal(original, originalContent, width, height, cropToFit);
+
+        if (resizedContent.length > 0) {
+            ioProvider.write(resized, resizedContent, ctx);
+            return resizedContent;
+        }
+
+        /*
+             If we failed to resize this is probably due to invalid color metadata for the original image.
+             JDK image API will fail if the metadata is incorrect. In order to fail gracefully we
+             just pass back the original bytes so that the original image is used instead. There will be an
+             ERROR log produced by catch block from #resizeImage(), so sys admins should provide regular
+             feedback to business users to fix these images. Usually the fix is  simply erasing all meta
+             from the image.
+         */
+        return originalContent;
+
+    }
+
+    /** {@inheritDoc} */
+    public File resolveImageFile(final String original, final String resized) {
+
+        if (!(ioProvider instanceof FileSystemIOProvider)) {
+            return null; // cannot stream, so always go through resizeImage()
+        }
+
+        final Map<String, Object> ctx = Collections.EMPTY_MAP;
+        final String uri;
+        if (resized != null) {
+            if (!ioProvider.isNewerThan(resized, original, ctx)) {
+                return null; // resize is required
+            }
+            uri = resized;
+        } else {
+            uri = original;
+        }
+
+        final File file = ((FileSystemIOProvider) ioProvider).resolveFileFromUri(uri, ctx);
+        if (file != null && file.isFile()) {
+            return file;
+        }
+        return null;
+
+    }
+
     /** {@inheritDoc} */
     public boolean isImageInRepository(final String fullFileName,
                                        final String code,
@@ -487,6 +626,25 @@ public class ImageServiceImpl extends BaseGenericServiceImpl<SeoImage> implement
         return seoImages.get(0);
     }
 
+    /**
+     * Spring IoC.
+     *
+     * @param imageResizer image scaling algorithm
+     */
+    public void setImageResizer(final ImageResizer imageResizer) {
+        this.imageResizer = imageResizer;
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param resizeCoordinator single flight and concurrency control for resize operations (if not set
+     *                          resize is performed in calling thread)
+     */
+    public void setResizeCoordinator(final ImageResizeCoordinator resizeCoordinator) {
+        this.resizeCoordinator = resizeCoordinator;
+    }
+
     /**
      * Spring IoC.
      *
@@ -18,6 +18,7 @@ package org.yes.cart.service.domain.impl;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
+import org.yes.cart.cache.CacheDependencies;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.domain.entity.Shop;
 import org.yes.cart.domain.entity.SkuPrice;
@@ -234,7 +235,9 @@ public class PriceServiceImpl extends BaseGenericServiceImpl<SkuPrice> implement
                                               final String currencyCode,
                                               final String pricingPolicy) {
 
-        return getSkuPriceFilteredByShopCurrency(skuCode, customerShopId, masterShopId, currencyCode, pricingPolicy);
+        final List<Pair<String, SkuPrice>> prices = getSkuPriceFilteredByShopCurrency(skuCode, customerShopId, masterShopId, currencyCode, pricingPolicy);
+        CacheDependencies.dependsOn(prices);
+        return prices;
 
     }
 
@@ -255,7 +258,9 @@ public class PriceServiceImpl extends BaseGenericServiceImpl<SkuPrice> implement
                                               final String currencyCode,
                                               final String pricingPolicy) {
 
-        return getSkuPriceFilteredByShopCurrency(productId, customerShopId, masterShopId, currencyCode, pricingPolicy);
+        final List<Pair<String, SkuPrice>> prices = getSkuPriceFilteredByShopCurrency(productId, customerShopId, masterShopId, currencyCode, pricingPolicy);
+        CacheDependencies.dependsOn(prices);
+        return prices;
 
     }
 
@@ -166,6 +166,14 @@ public class ProductServiceCachedImpl implements ProductService {
         return productService.getProductSearchResultDTOByQuery(navigationContext, firstResult, maxResults, sortFieldName, reverse);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ProductSearchResultPageDTO getProductSearchResultDTOByCursor(final NavigationContext navigationContext, final String cursor, final int maxResults, final String sortFieldName, final boolean reverse) {
+        // Cursor pages are mostly deep pages requested once, FTS query cache is sufficient
+        return productService.getProductSearchResultDTOByCursor(navigationContext, cursor, maxResults, sortFieldName, reverse);
+    }
+
 
     /**
      * {@inheritDoc}
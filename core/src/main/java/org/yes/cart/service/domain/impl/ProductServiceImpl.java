@@ -27,6 +27,7 @@ import org.yes.cart.constants.AttributeGroupNames;
 import org.yes.cart.constants.AttributeNamesKeys;
 import org.yes.cart.constants.Constants;
 import org.yes.cart.dao.CriteriaTuner;
+import org.yes.cart.dao.FetchProfiles;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.GenericFTSCapableDAO;
 import org.yes.cart.domain.dto.ProductSearchResultDTO;
@@ -48,6 +49,7 @@ import org.yes.cart.search.dao.support.ShopCategoryRelationshipSupport;
 import org.yes.cart.search.dto.FilteredNavigationRecord;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
 import org.yes.cart.search.dto.NavigationContext;
+import org.yes.cart.search.dto.SearchAfterPage;
 import org.yes.cart.search.dto.impl.FilteredNavigationRecordImpl;
 import org.yes.cart.search.query.impl.SearchUtil;
 import org.yes.cart.service.domain.AttributeService;
@@ -475,7 +477,7 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
      * {@inheritDoc}
      */
     public Product getProductById(final Long productId, final boolean withAttribute) {
-        final Product prod = productDao.findById(productId); // query with
+        final Product prod = productDao.findById(productId, FetchProfiles.PRODUCT_DETAIL);
         if (prod != null && withAttribute) {
             Hibernate.initialize(prod.getAttributes());
         }
@@ -491,6 +493,11 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
                                                                        final String sortFieldName,
                                                                        final boolean reverse) {
 
+        if (firstResult == 0 && maxResults > 0) {
+            // First page is the same for offset and cursor paging, but the latter also provides cursor for next page
+            return getProductSearchResultDTOByCursor(navigationContext, null, maxResults, sortFieldName, reverse);
+        }
+
         final Pair<List<Object[]>, Integer> searchRez = productDao.fullTextSearch(
                 navigationContext.getProductQuery(),
                 firstResult,
@@ -512,6 +519,36 @@ public class ProductServiceImpl extends BaseGenericServiceImpl<Product> implemen
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ProductSearchResultPageDTO getProductSearchResultDTOByCursor(final NavigationContext navigationContext,
+                                                                        final String cursor,
+                                                                        final int maxResults,
+                                                                        final String sortFieldName,
+                                                                        final boolean reverse) {
+
+        final SearchAfterPage searchRez = productDao.fullTextSearchAfter(
+                navigationContext.getProductQuery(),
+                cursor,
+                maxResults,
+                sortFieldName,
+                reverse,
+                LuceneDocumentAdapterUtils.FIELD_PK,
+                LuceneDocumentAdapterUtils.FIELD_CLASS,
+                LuceneDocumentAdapterUtils.FIELD_OBJECT
+        );
+
+        final List<ProductSearchResultDTO> rez = new ArrayList<ProductSearchResultDTO>(searchRez.getItems().size());
+        for (Object[] obj : searchRez.getItems()) {
+            final ProductSearchResultDTO dto = LuceneDocumentAdapterUtils.readObjectFieldValue((String) obj[2], ProductSearchResultDTOImpl.class);
+            rez.add(dto);
+        }
+
+        return new ProductSearchResultPageDTOImpl(rez, searchRez.getFirst(), maxResults, searchRez.getTotalHits(), sortFieldName, reverse, searchRez.getNextCursor());
+
+    }
+
     /**
      * {@inheritDoc}
      */
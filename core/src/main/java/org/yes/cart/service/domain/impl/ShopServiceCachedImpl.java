@@ -283,7 +283,9 @@ public class ShopServiceCachedImpl implements ShopService {
             "themeService-markupChainByShopId",
             "themeService-mailTemplateChainByShopId",
             "themeService-reportsTemplateChainByShopId",
-            "mailSenderBuilder-buildJavaMailSender"
+            "mailSenderBuilder-buildJavaMailSender",
+            "reportGenerator-fopFactory",
+            "reportGenerator-templates"
     }, allEntries = true)
     public Shop update(final Shop instance) {
         return shopService.update(instance);
@@ -309,7 +311,9 @@ public class ShopServiceCachedImpl implements ShopService {
             "themeService-markupChainByShopId",
             "themeService-mailTemplateChainByShopId",
             "themeService-reportsTemplateChainByShopId",
-            "mailSenderBuilder-buildJavaMailSender"
+            "mailSenderBuilder-buildJavaMailSender",
+            "reportGenerator-fopFactory",
+            "reportGenerator-templates"
     }, allEntries = true)
     public void delete(final Shop instance) {
         shopService.delete(instance);
@@ -5,6 +5,8 @@ import org.yes.cart.shoppingcart.*;
 import org.yes.cart.shoppingcart.impl.ShoppingCartImpl;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * User: denispavlov
@@ -83,18 +85,55 @@ public class ShoppingCartCalculatorImpl implements ShoppingCartCalculator {
         PriceModel model = null;
         for (final CartItem item : cart.getCartItemList()) {
             if (item.getProductSkuCode().equals(skuCode)) {
-                model = new DefaultPriceModel(
-                        item.getGrossPrice(),
-                        item.getNetPrice(),
-                        item.getTaxCode(),
-                        item.getTaxRate(),
-                        item.isTaxExclusiveOfPrice());
+                model = createPriceModel(item);
             }
         }
 
         return model;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, PriceModel> calculatePrices(final ShoppingCart currentCart,
+                                                   final Map<String, BigDecimal> minimalPrices) {
+
+        final Map<String, PriceModel> models = new LinkedHashMap<String, PriceModel>(minimalPrices.size() * 2);
+        if (minimalPrices.isEmpty()) {
+            return models;
+        }
+
+        // Promotions are disabled, so items do not affect each other and can be calculated in a single cart
+        final MutableShoppingCart cart = createNewCart(currentCart, true, false, true);
+
+        for (final Map.Entry<String, BigDecimal> minimalPrice : minimalPrices.entrySet()) {
+            cart.addProductSkuToCart(minimalPrice.getKey(), minimalPrice.getKey(), BigDecimal.ONE);
+            cart.setProductSkuPrice(minimalPrice.getKey(), minimalPrice.getValue(), minimalPrice.getValue());
+        }
+
+        cart.recalculate();
+
+        final Map<String, PriceModel> calculated = new LinkedHashMap<String, PriceModel>(minimalPrices.size() * 2);
+        for (final CartItem item : cart.getCartItemList()) {
+            calculated.put(item.getProductSkuCode(), createPriceModel(item));
+        }
+        for (final String skuCode : minimalPrices.keySet()) {
+            models.put(skuCode, calculated.get(skuCode));
+        }
+
+        return models;
+    }
+
+    private PriceModel createPriceModel(final CartItem item) {
+        return new DefaultPriceModel(
+                item.getGrossPrice(),
+                item.getNetPrice(),
+                item.getTaxCode(),
+                item.getTaxRate(),
+                item.isTaxExclusiveOfPrice());
+    }
+
     public static class DefaultPriceModel implements PriceModel {
 
         private final BigDecimal grossPrice;
@@ -165,6 +165,16 @@ public class SkuWarehouseServiceCachedImpl implements SkuWarehouseService {
         return skuWarehouseService.findProductSkuForWhichInventoryChangedAfter(lastUpdate);
     }
 
+    /** {@inheritDoc} */
+    public List<String> findProductSkuForWhichInventoryChangeEventsAfter(final Date lastUpdate) {
+        return skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(lastUpdate);
+    }
+
+    /** {@inheritDoc} */
+    public int removeInventoryChangeEventsBefore(final Date before) {
+        return skuWarehouseService.removeInventoryChangeEventsBefore(before);
+    }
+
     /** {@inheritDoc} */
     public boolean isSkuAvailabilityPreorderOrBackorder(final String productSkuCode, final boolean checkAvailabilityDates) {
         return skuWarehouseService.isSkuAvailabilityPreorderOrBackorder(productSkuCode, checkAvailabilityDates);
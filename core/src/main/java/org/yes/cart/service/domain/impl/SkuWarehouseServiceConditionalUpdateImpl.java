@@ -0,0 +1,154 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.impl;
+
+import org.yes.cart.constants.Constants;
+import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.domain.entity.SkuWarehouse;
+import org.yes.cart.domain.entity.Warehouse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Date;
+
+/**
+ * Inventory service that performs reservation, void reservation, credit and debit as conditional
+ * single statement updates (e.g. "reserved = reserved + qty where quantity - reserved >= qty") instead
+ * of select for update followed by update. The check is evaluated by database against the latest
+ * committed row, so concurrent checkouts of the same SKU do not need to acquire the lock upfront
+ * and do not lose updates. Only when condition is not met (insufficient stock, partial void or
+ * debit, missing inventory record) this service falls back to pessimistic locking to compute the
+ * remainder, which keeps the {@link org.yes.cart.service.domain.SkuWarehouseService} contract intact.
+ * <p/>
+ * Conditional updates increment version, so any inventory instance loaded in the same session
+ * prior to the update becomes stale and cannot overwrite the new values.
+ * <p/>
+ * Bulk updates bypass hibernate interceptors, hence audit fields are stamped by the query itself
+ * (see {@link #setUpdatedBy(String)}) and no entity change events are raised. Applications that rely
+ * on interceptors to broadcast cache eviction (e.g. admin app) must use {@link SkuWarehouseServiceImpl}.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 21:40
+ */
+public class SkuWarehouseServiceConditionalUpdateImpl extends SkuWarehouseServiceImpl {
+
+    private static final BigDecimal ZERO = BigDecimal.ZERO.setScale(Constants.DEFAULT_SCALE, RoundingMode.HALF_UP);
+
+    private String updatedBy = "anonymous";
+
+    /**
+     * Construct sku warehouse service.
+     *
+     * @param genericDao dao to use.
+     */
+    public SkuWarehouseServiceConditionalUpdateImpl(final GenericDAO<SkuWarehouse, Long> genericDao) {
+        super(genericDao);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BigDecimal reservation(final Warehouse warehouse, final String productSkuCode, final BigDecimal reserveQty, final boolean allowBackorder) {
+
+        final String query = allowBackorder ? "SKUWAREHOUSE.RESERVE" : "SKUWAREHOUSE.RESERVE.IF.AVAILABLE";
+        if (executeConditionalUpdate(query, warehouse, productSkuCode, reserveQty)) {
+            return ZERO;
+        }
+        return super.reservation(warehouse, productSkuCode, reserveQty, allowBackorder);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BigDecimal voidReservation(final Warehouse warehouse, final String productSkuCode, final BigDecimal voidQty) {
+
+        if (executeConditionalUpdate("SKUWAREHOUSE.VOID.RESERVATION.IF.RESERVED", warehouse, productSkuCode, voidQty)) {
+            return ZERO;
+        }
+        return super.voidReservation(warehouse, productSkuCode, voidQty);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BigDecimal credit(final Warehouse warehouse, final String productSkuCode, final BigDecimal addQty) {
+
+        if (executeConditionalUpdate("SKUWAREHOUSE.CREDIT", warehouse, productSkuCode, addQty)) {
+            return BigDecimal.ZERO;
+        }
+        return super.credit(warehouse, productSkuCode, addQty);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BigDecimal debit(final Warehouse warehouse, final String productSkuCode, final BigDecimal debitQty) {
+
+        if (executeConditionalUpdate("SKUWAREHOUSE.DEBIT.IF.AVAILABLE", warehouse, productSkuCode, debitQty)) {
+            return ZERO;
+        }
+        return super.debit(warehouse, productSkuCode, debitQty);
+
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected SkuWarehouse findByWarehouseSkuForUpdate(final Warehouse warehouse, final String productSkuCode) {
+        final SkuWarehouse inventory = findByWarehouseSku(warehouse, productSkuCode);
+        if (inventory != null) {
+            // session instance may predate conditional updates, so we need latest state before locking
+            getGenericDao().refresh(inventory);
+        }
+        return super.findByWarehouseSkuForUpdate(warehouse, productSkuCode);
+    }
+
+    private boolean executeConditionalUpdate(final String query,
+                                             final Warehouse warehouse,
+                                             final String productSkuCode,
+                                             final BigDecimal qty) {
+
+        getGenericDao().flush(); // make sure pending changes are not overwritten by or overwrite bulk update
+        if (getGenericDao().executeUpdate(query, qty, new Date(), productSkuCode, warehouse.getWarehouseId(), updatedBy) > 0) {
+            recordInventoryChange(productSkuCode);
+            return true;
+        }
+        return false;
+
+    }
+
+    /**
+     * Audit user name stamped by conditional updates. Storefront has no authenticated manager, so
+     * default is "anonymous", same as {@link org.yes.cart.domain.interceptor.AuditInterceptor}.
+     *
+     * @param updatedBy user name
+     */
+    public void setUpdatedBy(final String updatedBy) {
+        this.updatedBy = updatedBy;
+    }
+
+}
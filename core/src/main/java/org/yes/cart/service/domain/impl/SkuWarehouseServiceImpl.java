@@ -17,11 +17,13 @@
 package org.yes.cart.service.domain.impl;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.hibernate.LockOptions;
 import org.yes.cart.constants.Constants;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.domain.entity.Product;
 import org.yes.cart.domain.entity.ProductSku;
 import org.yes.cart.domain.entity.SkuWarehouse;
+import org.yes.cart.domain.entity.SkuWarehouseChange;
 import org.yes.cart.domain.entity.Warehouse;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.service.domain.ProductService;
@@ -44,6 +46,8 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
 
     private ProductService productService;
 
+    private GenericDAO<SkuWarehouseChange, Long> skuWarehouseChangeDao;
+
     /**
      * Construct sku warehouse service.
      *
@@ -292,6 +296,7 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
     /** {@inheritDoc}*/
     public SkuWarehouse create(SkuWarehouse instance) {
         final SkuWarehouse rez = super.create(instance);
+        recordInventoryChange(rez.getSkuCode());
         return rez;
     }
 
@@ -299,15 +304,52 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
     public SkuWarehouse update(SkuWarehouse instance) {
         final SkuWarehouse rez = super.update(instance);
         getGenericDao().flush(); // Need to make changes immediately available
+        recordInventoryChange(rez.getSkuCode());
         return rez;
     }
 
-    private SkuWarehouse findByWarehouseSkuForUpdate(final Warehouse warehouse, final String productSkuCode) {
-        final SkuWarehouse inventory = findByWarehouseSku(warehouse, productSkuCode);
-        if (inventory != null) {
-            return getGenericDao().findById(inventory.getSkuWarehouseId(), true);
+    /** {@inheritDoc}*/
+    public void delete(SkuWarehouse instance) {
+        final String skuCode = instance.getSkuCode();
+        super.delete(instance);
+        recordInventoryChange(skuCode);
+    }
+
+    /**
+     * Record inventory change event for given SKU, so that consumers can pick it up without
+     * scanning inventory. Event is written in current transaction, therefore it is only visible
+     * if inventory change is committed.
+     *
+     * @param productSkuCode SKU code
+     */
+    protected void recordInventoryChange(final String productSkuCode) {
+        if (skuWarehouseChangeDao != null) {
+            final SkuWarehouseChange change = skuWarehouseChangeDao.getEntityFactory().getByIface(SkuWarehouseChange.class);
+            change.setSkuCode(productSkuCode);
+            change.setCreatedTimestamp(new Date());
+            skuWarehouseChangeDao.create(change);
+        }
+    }
+
+    /**
+     * Find inventory record and lock it for update.
+     *
+     * @param warehouse      warehouse
+     * @param productSkuCode SKU code
+     *
+     * @return locked inventory record or null
+     */
+    protected SkuWarehouse findByWarehouseSkuForUpdate(final Warehouse warehouse, final String productSkuCode) {
+        // lock in the same statement as read, otherwise concurrent update between read and lock causes stale state
+        final List<SkuWarehouse> inventory = getGenericDao().findByNamedQueryForUpdate(
+                "SKUS.ON.WAREHOUSE.BY.SKUCODE.WAREHOUSEID",
+                LockOptions.WAIT_FOREVER,
+                productSkuCode,
+                warehouse.getWarehouseId());
+        if (inventory.isEmpty()) {
+            return null;
         }
-        return null;
+        return inventory.get(0);
     }
 
 
@@ -324,6 +366,22 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
         return (List) getGenericDao().findQueryObjectByNamedQuery("SKUCODE.FOR.SKUWAREHOUSE.CHANGED.SINCE", lastUpdate);
     }
 
+    /** {@inheritDoc} */
+    public List<String> findProductSkuForWhichInventoryChangeEventsAfter(final Date lastUpdate) {
+        if (skuWarehouseChangeDao == null) {
+            return Collections.emptyList();
+        }
+        return (List) skuWarehouseChangeDao.findQueryObjectByNamedQuery("SKUCODE.FOR.SKUWAREHOUSECHANGE.SINCE", lastUpdate);
+    }
+
+    /** {@inheritDoc} */
+    public int removeInventoryChangeEventsBefore(final Date before) {
+        if (skuWarehouseChangeDao == null) {
+            return 0;
+        }
+        return skuWarehouseChangeDao.executeUpdate("REMOVE.SKUWAREHOUSECHANGE.BEFORE", before);
+    }
+
     /** {@inheritDoc} */
     public boolean isSkuAvailabilityPreorderOrBackorder(final String productSkuCode, final boolean checkAvailabilityDates) {
         ProductSku sku = productService.getProductSkuByCode(productSkuCode);
@@ -345,4 +403,9 @@ public class SkuWarehouseServiceImpl extends BaseGenericServiceImpl<SkuWarehouse
         this.productService = productService;
     }
 
+    /** IoC.*/
+    public void setSkuWarehouseChangeDao(final GenericDAO<SkuWarehouseChange, Long> skuWarehouseChangeDao) {
+        this.skuWarehouseChangeDao = skuWarehouseChangeDao;
+    }
+
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Coordinates on-demand image resize operations so that expensive decode/resize/encode
+ * cycles are not duplicated and the number of concurrent resizes is bounded.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 19:05
+ */
+public interface ImageResizeCoordinator {
+
+    /**
+     * Execute resize operation. If resize with the same key is already in progress, current
+     * thread waits for its result instead of running resize again.
+     *
+     * @param key    unique key of the resize result (e.g. resized file path), null means that
+     *               operation cannot be shared and will only be subject to concurrency limit
+     * @param resize resize operation
+     *
+     * @return result of resize or empty array if operation was rejected, failed or timed out
+     */
+    byte[] resize(String key, Callable<byte[]> resize);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Image scaling algorithm used by image service to produce resized images. Implementations
+ * must be thread safe as single instance is used by all resize workers.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 18:05
+ */
+public interface ImageResizer {
+
+    /**
+     * Scale given image to exact target dimensions (no cropping or padding is done
+     * at this point, i.e. aspect ratio is already resolved by the caller).
+     *
+     * @param source  decoded original (or cropped original)
+     * @param width   target width
+     * @param height  target height
+     *
+     * @return scaled image of exactly width x height
+     */
+    BufferedImage resize(BufferedImage source, int width, int height);
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media.impl;
+
+import org.yes.cart.service.media.ImageResizer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Progressive resizer that downscales image in steps of at most 1/2 of the previous size using
+ * {@link Graphics2D} interpolation, which is accelerated by Java2D loops. Intermediate steps use
+ * bilinear and the final step uses configured (bicubic by default) interpolation. Halving keeps
+ * every source pixel contributing to the result so quality is comparable to area averaging while
+ * being an order of magnitude faster.
+ * <p/>
+ * Intermediate steps are drawn into two scratch buffers (allocated once per resize and reused
+ * via sub images), so memory footprint does not grow with the number of steps.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 18:15
+ */
+public class ProgressiveImageResizerImpl implements ImageResizer {
+
+    private Object finalInterpolation = RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedImage resize(final BufferedImage source, final int width, final int height) {
+
+        final int type = source.getTransparency() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        BufferedImage current = source;
+
+        BufferedImage[] scratch = null;
+        int step = 0;
+
+        while (true) {
+
+            final int nextWidth = nextStep(currentWidth, width);
+            final int nextHeight = nextStep(currentHeight, height);
+
+            if (nextWidth == width && nextHeight == height) {
+                // final step always goes into new image of exact size
+                final BufferedImage result = new BufferedImage(width, height, type);
+                draw(current, result, finalInterpolation);
+                return result;
+            }
+
+            if (scratch == null) {
+                // first step is the largest, so all subsequent steps fit into these
+                scratch = new BufferedImage[] {
+                        new BufferedImage(nextWidth, nextHeight, type),
+                        new BufferedImage(nextWidth, nextHeight, type)
+                };
+            }
+
+            final BufferedImage next = scratch[step++ % 2].getSubimage(0, 0, nextWidth, nextHeight);
+            draw(current, next, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+
+        }
+
+    }
+
+    private int nextStep(final int current, final int target) {
+        if (current > target) {
+            return Math.max(current / 2, target);
+        }
+        return target; // up scaling is done in one step
+    }
+
+    private void draw(final BufferedImage from, final BufferedImage to, final Object interpolation) {
+
+        final Graphics2D graphics = to.createGraphics();
+        try {
+            // scratch buffers are reused, so we must overwrite rather than blend
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(from, 0, 0, to.getWidth(), to.getHeight(), null);
+        } finally {
+            graphics.dispose();
+        }
+
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param bicubic true to use bicubic interpolation on final step (default), false for bilinear
+     */
+    public void setBicubic(final boolean bicubic) {
+        this.finalInterpolation = bicubic ? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+    }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media.impl;
+
+import org.yes.cart.service.media.ImageResizer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Legacy resizer that uses {@link Image#getScaledInstance(int, int, int)} with area averaging
+ * ({@link Image#SCALE_SMOOTH}). Gives good quality, but is the slowest resampling path in AWT,
+ * so it is only kept for those who prefer the previous output.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 18:10
+ */
+public class ScaledInstanceImageResizerImpl implements ImageResizer {
+
+    /** {@inheritDoc} */
+    @Override
+    public BufferedImage resize(final BufferedImage source, final int width, final int height) {
+
+        final Image scaled = source.getScaledInstance(width, height, Image.SCALE_SMOOTH);
+
+        final BufferedImage result = new BufferedImage(width, height,
+                source.getTransparency() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = result.createGraphics();
+        try {
+            graphics.drawImage(scaled, 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return result;
+
+    }
+
+}
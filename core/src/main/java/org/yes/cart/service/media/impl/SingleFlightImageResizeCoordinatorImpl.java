@@ -0,0 +1,277 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.yes.cart.service.media.ImageResizeCoordinator;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single flight resize coordinator. Resize operations are keyed by resized image path and only
+ * one operation per key is executed at any given time, concurrent requests for the same key wait
+ * for result of the first one. All operations are executed on bounded executor which provides
+ * global concurrency cap and queue, requests that do not fit into the queue are rejected.
+ * <p/>
+ * Waiting is limited by timeout so that request threads are not blocked indefinitely by a
+ * congested resize pool.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 19:10
+ */
+public class SingleFlightImageResizeCoordinatorImpl implements ImageResizeCoordinator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SingleFlightImageResizeCoordinatorImpl.class);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final TaskExecutor resizeExecutor;
+    private final ConcurrentMap<String, ResizeFlight> inFlight = new ConcurrentHashMap<String, ResizeFlight>();
+
+    private long waitTimeoutMs = 30000L;
+
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicInteger running = new AtomicInteger(0);
+
+    private final AtomicLong resizeCount = new AtomicLong(0L);
+    private final AtomicLong coalescedCount = new AtomicLong(0L);
+    private final AtomicLong rejectedCount = new AtomicLong(0L);
+    private final AtomicLong timeoutCount = new AtomicLong(0L);
+    private final AtomicLong failedCount = new AtomicLong(0L);
+    private final AtomicLong resizeTimeMs = new AtomicLong(0L);
+    private final AtomicLong maxResizeTimeMs = new AtomicLong(0L);
+    private final AtomicLong waitTimeMs = new AtomicLong(0L);
+
+    public SingleFlightImageResizeCoordinatorImpl(final TaskExecutor resizeExecutor) {
+        this.resizeExecutor = resizeExecutor;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte[] resize(final String key, final Callable<byte[]> resize) {
+
+        final long start = System.currentTimeMillis();
+
+        final ResizeFlight flight = new ResizeFlight(key, resize);
+
+        if (key != null) {
+            final ResizeFlight existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalescedCount.incrementAndGet();
+                return await(key, existing, start);
+            }
+        }
+
+        queued.incrementAndGet();
+        try {
+            resizeExecutor.execute(flight);
+        } catch (TaskRejectedException tre) {
+            queued.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            flight.cancel(false); // releases the key and all waiting threads
+            LOG.warn("Image resize queue is full, unable to resize {}", key);
+            return EMPTY;
+        }
+
+        return await(key, flight, start);
+
+    }
+
+    private byte[] await(final String key, final Future<byte[]> flight, final long start) {
+
+        try {
+            final byte[] result = flight.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            return result != null ? result : EMPTY;
+        } catch (TimeoutException te) {
+            timeoutCount.incrementAndGet();
+            LOG.warn("Image resize of {} did not complete in {}ms", key, waitTimeoutMs);
+        } catch (CancellationException ce) {
+            // rejected, already counted
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+            LOG.error("Unable to resize image " + key, ee.getCause());
+        } finally {
+            waitTimeMs.addAndGet(System.currentTimeMillis() - start);
+        }
+        return EMPTY;
+
+    }
+
+    /**
+     * Resize task that releases its key upon completion.
+     */
+    private final class ResizeFlight extends FutureTask<byte[]> {
+
+        private final String key;
+
+        private ResizeFlight(final String key, final Callable<byte[]> resize) {
+            super(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    queued.decrementAndGet();
+                    running.incrementAndGet();
+                    final long start = System.currentTimeMillis();
+                    boolean success = false;
+                    try {
+                        final byte[] result = resize.call();
+                        success = true;
+                        return result;
+                    } finally {
+                        final long time = System.currentTimeMillis() - start;
+                        running.decrementAndGet();
+                        resizeCount.incrementAndGet();
+                        resizeTimeMs.addAndGet(time);
+                        long max = maxResizeTimeMs.get();
+                        while (time > max && !maxResizeTimeMs.compareAndSet(max, time)) {
+                            max = maxResizeTimeMs.get();
+                        }
+                        if (!success) {
+                            failedCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            this.key = key;
+        }
+
+        private void release() {
+            if (key != null) {
+                inFlight.remove(key, this);
+            }
+        }
+
+        @Override
+        protected void set(final byte[] result) {
+            release(); // before waiting threads are woken up, so that they never see completed flight
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(final Throwable failure) {
+            release();
+            super.setException(failure);
+        }
+
+        @Override
+        protected void done() {
+            release(); // cancelled flights
+        }
+    }
+
+    /**
+     * @return number of resizes currently in progress or waiting in queue (unique keys)
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return number of resizes waiting in queue
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return number of resizes being executed
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /**
+     * @return number of executed resizes
+     */
+    public long getResizeCount() {
+        return resizeCount.get();
+    }
+
+    /**
+     * @return number of requests that waited for result of resize run by other thread
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return number of resizes rejected due to full queue
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return number of requests that stopped waiting for resize due to timeout
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * @return number of resizes that failed with exception
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return total time spent in resize operations (ms)
+     */
+    public long getResizeTimeMs() {
+        return resizeTimeMs.get();
+    }
+
+    /**
+     * @return average resize time (ms)
+     */
+    public long getAverageResizeTimeMs() {
+        final long count = resizeCount.get();
+        return count == 0L ? 0L : resizeTimeMs.get() / count;
+    }
+
+    /**
+     * @return longest resize time (ms)
+     */
+    public long getMaxResizeTimeMs() {
+        return maxResizeTimeMs.get();
+    }
+
+    /**
+     * @return total time request threads spent waiting for resize results, including queue time (ms)
+     */
+    public long getWaitTimeMs() {
+        return waitTimeMs.get();
+    }
+
+    /**
+     * Spring IoC.
+     *
+     * @param waitTimeoutMs max time request thread waits for resize result
+     */
+    public void setWaitTimeoutMs(final long waitTimeoutMs) {
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.order.impl;
+
+import org.hibernate.criterion.Restrictions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.domain.entity.CustomerOrder;
+import org.yes.cart.domain.entity.SequenceCounter;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster safe order number generator. Generates order numbers in the same format as
+ * {@link DefaultOrderNumberGeneratorImpl} (yymmddhhmmss-xxxxxx, where sequence restarts every month),
+ * however sequence numbers are reserved in blocks from monthly counter in database (hi/lo).
+ * <p/>
+ * Block is reserved in a separate transaction that increments the counter row (which locks it) and
+ * reads back the new high value, therefore blocks on different nodes never overlap. Within the block
+ * numbers are handed out lock free, so database is only accessed once per block. Unused numbers of
+ * the block are lost on node restart, which results in gaps in sequence.
+ * <p/>
+ * First block of the month continues from the count of orders already placed this month, so that
+ * numbers generated by previous generator are not reused.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 16:40
+ */
+public class HiLoOrderNumberGeneratorImpl extends DefaultOrderNumberGeneratorImpl {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HiLoOrderNumberGeneratorImpl.class);
+
+    private static final String COUNTER_PREFIX = "ORDERNUM_";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final GenericDAO<CustomerOrder, Long> customerOrderDao;
+    private final GenericDAO<SequenceCounter, Long> sequenceCounterDao;
+    private final TransactionTemplate txTemplate;
+
+    private int blockSize = 20;
+
+    private volatile Block block;
+
+    /**
+     * Construct order number generator service.
+     *
+     * @param customerOrderDao   order dao to use to determine start of the sequence for month
+     * @param sequenceCounterDao counter dao
+     * @param transactionManager transaction manager to reserve blocks in separate transaction
+     */
+    public HiLoOrderNumberGeneratorImpl(final GenericDAO<CustomerOrder, Long> customerOrderDao,
+                                        final GenericDAO<SequenceCounter, Long> sequenceCounterDao,
+                                        final PlatformTransactionManager transactionManager) {
+        super(customerOrderDao);
+        this.customerOrderDao = customerOrderDao;
+        this.sequenceCounterDao = sequenceCounterDao;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Generate Order number.
+     *
+     * @return Generated order number.
+     */
+    @Override
+    public String getNextOrderNumber() {
+
+        final Calendar now = now();
+        final String datePart = datePart(now);
+        final String sequencePart = String.valueOf(getOrderSequence(now));
+        return datePart + '-' + sequencePart;
+
+    }
+
+    private long getOrderSequence(final Calendar now) {
+
+        final String month = monthPart(now);
+
+        while (true) {
+
+            final Block current = this.block;
+            if (current != null && current.month.equals(month)) {
+                final long next = current.next.getAndIncrement();
+                if (next <= current.hi) {
+                    return next;
+                }
+            }
+
+            synchronized (this) {
+                if (this.block == current) {
+                    this.block = reserveBlock(month, now);
+                }
+            }
+
+        }
+
+    }
+
+    String monthPart(final Calendar calendar) {
+
+        final long year = calendar.get(Calendar.YEAR);
+        final long mth = calendar.get(Calendar.MONTH) + 1;
+
+        return String.valueOf((year % 100) * 100l + mth);
+
+    }
+
+    private Block reserveBlock(final String month, final Calendar now) {
+
+        final String code = COUNTER_PREFIX + month;
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+
+                final long hi = txTemplate.execute(new TransactionCallback<Long>() {
+                    @Override
+                    public Long doInTransaction(final TransactionStatus status) {
+                        return incrementCounter(code, now);
+                    }
+                });
+
+                LOG.debug("Reserved order numbers {} to {} for {}", new Object[] { hi - blockSize + 1, hi, month });
+
+                return new Block(month, hi - blockSize + 1, hi);
+
+            } catch (RuntimeException exp) {
+                // most likely other node created counter for this month at the same time
+                if (attempt == MAX_ATTEMPTS) {
+                    throw exp;
+                }
+                LOG.warn("Unable to reserve order numbers for {}, attempt {}: {}", new Object[] { month, attempt, exp.getMessage() });
+            }
+        }
+
+    }
+
+    private long incrementCounter(final String code, final Calendar now) {
+
+        if (sequenceCounterDao.executeUpdate("SEQUENCECOUNTER.INCREMENT", (long) blockSize, code) > 0) {
+            final List<Object> hi = sequenceCounterDao.findQueryObjectByNamedQuery("SEQUENCECOUNTER.VALUE", code);
+            return ((Number) hi.get(0)).longValue();
+        }
+
+        // First block this month
+        final Calendar monthStart = (Calendar) now.clone();
+        monthStart.set(Calendar.DAY_OF_MONTH, 1);
+        monthStart.set(Calendar.HOUR_OF_DAY, 0);
+        monthStart.set(Calendar.MINUTE, 0);
+        monthStart.set(Calendar.SECOND, 0);
+        monthStart.set(Calendar.MILLISECOND, 0);
+
+        final int placed = customerOrderDao.findCountByCriteria(
+                Restrictions.ge("orderTimestamp", monthStart.getTime()),
+                Restrictions.ne("orderStatus", CustomerOrder.ORDER_STATUS_NONE)
+        );
+
+        final SequenceCounter counter = sequenceCounterDao.getEntityFactory().getByIface(SequenceCounter.class);
+        counter.setCode(code);
+        counter.setCounter(placed + blockSize);
+        sequenceCounterDao.create(counter);
+        sequenceCounterDao.flush(); // unique code violation must happen within this attempt
+        return counter.getCounter();
+
+    }
+
+    /**
+     * Set number of order numbers to reserve per database round trip.
+     *
+     * @param blockSize block size
+     */
+    public void setBlockSize(final int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    private static final class Block {
+
+        private final String month;
+        private final long hi;
+        private final AtomicLong next;
+
+        private Block(final String month, final long lo, final long hi) {
+            this.month = month;
+            this.hi = hi;
+            this.next = new AtomicLong(lo);
+        }
+
+    }
+
+}
@@ -23,6 +23,9 @@ import org.yes.cart.service.order.DeliveryBucket;
 import org.yes.cart.shoppingcart.CartItem;
 import org.yes.cart.util.MoneyUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 
 /**
@@ -365,6 +368,59 @@ public class CartItemImpl implements CartItem {
         this.appliedPromo = appliedPromo;
     }
 
+    /**
+     * Write this item in binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param out output
+     *
+     * @throws IOException on write error
+     */
+    void writeBinary(final DataOutput out) throws IOException {
+        ShoppingCartBinaryCodec.writeString(out, productSkuCode);
+        ShoppingCartBinaryCodec.writeString(out, productName);
+        ShoppingCartBinaryCodec.writeDecimal(out, quantity);
+        ShoppingCartBinaryCodec.writeString(out, supplierCode);
+        ShoppingCartBinaryCodec.writeString(out, deliveryGroup);
+        ShoppingCartBinaryCodec.writeDecimal(out, price);
+        ShoppingCartBinaryCodec.writeDecimal(out, salePrice);
+        ShoppingCartBinaryCodec.writeDecimal(out, listPrice);
+        ShoppingCartBinaryCodec.writeDecimal(out, netPrice);
+        ShoppingCartBinaryCodec.writeDecimal(out, grossPrice);
+        ShoppingCartBinaryCodec.writeDecimal(out, taxRate);
+        ShoppingCartBinaryCodec.writeString(out, taxCode);
+        out.writeByte((taxExclusiveOfPrice ? 1 : 0) | (gift ? 2 : 0) | (promoApplied ? 4 : 0) | (fixedPrice ? 8 : 0));
+        ShoppingCartBinaryCodec.writeString(out, appliedPromo);
+    }
+
+    /**
+     * Read this item from binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param in      input
+     * @param version format version
+     *
+     * @throws IOException on read error
+     */
+    void readBinary(final DataInput in, final int version) throws IOException {
+        productSkuCode = ShoppingCartBinaryCodec.readString(in);
+        productName = ShoppingCartBinaryCodec.readString(in);
+        quantity = ShoppingCartBinaryCodec.readDecimal(in);
+        supplierCode = ShoppingCartBinaryCodec.readString(in);
+        deliveryGroup = ShoppingCartBinaryCodec.readString(in);
+        price = ShoppingCartBinaryCodec.readDecimal(in);
+        salePrice = ShoppingCartBinaryCodec.readDecimal(in);
+        listPrice = ShoppingCartBinaryCodec.readDecimal(in);
+        netPrice = ShoppingCartBinaryCodec.readDecimal(in);
+        grossPrice = ShoppingCartBinaryCodec.readDecimal(in);
+        taxRate = ShoppingCartBinaryCodec.readDecimal(in);
+        taxCode = ShoppingCartBinaryCodec.readString(in);
+        final int flags = in.readUnsignedByte();
+        taxExclusiveOfPrice = (flags & 1) != 0;
+        gift = (flags & 2) != 0;
+        promoApplied = (flags & 4) != 0;
+        fixedPrice = (flags & 8) != 0;
+        appliedPromo = ShoppingCartBinaryCodec.readString(in);
+    }
+
     @Override
     public String toString() {
         return "CartItemImpl{" +
@@ -20,6 +20,9 @@ import org.apache.commons.lang.StringUtils;
 import org.yes.cart.constants.AttributeNamesKeys;
 import org.yes.cart.shoppingcart.MutableOrderInfo;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -272,4 +275,47 @@ public class OrderInfoImpl implements MutableOrderInfo {
             }
         }
     }
+
+    /**
+     * Write this order info in binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param out output
+     *
+     * @throws IOException on write error
+     */
+    void writeBinary(final DataOutput out) throws IOException {
+        ShoppingCartBinaryCodec.writeString(out, paymentGatewayLabel);
+        out.writeByte((multipleDelivery ? 1 : 0) | (separateBillingAddress ? 2 : 0) | (separateBillingAddressEnabled ? 4 : 0)
+                | (billingAddressNotRequired ? 8 : 0) | (deliveryAddressNotRequired ? 16 : 0));
+        ShoppingCartBinaryCodec.writeBooleanMap(out, multipleDeliveryAvailable);
+        ShoppingCartBinaryCodec.writeLongMap(out, carrierSlaId);
+        ShoppingCartBinaryCodec.writeLong(out, billingAddressId);
+        ShoppingCartBinaryCodec.writeLong(out, deliveryAddressId);
+        ShoppingCartBinaryCodec.writeStringMap(out, details);
+        ShoppingCartBinaryCodec.writeString(out, orderMessage);
+    }
+
+    /**
+     * Read this order info from binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param in      input
+     * @param version format version
+     *
+     * @throws IOException on read error
+     */
+    void readBinary(final DataInput in, final int version) throws IOException {
+        paymentGatewayLabel = ShoppingCartBinaryCodec.readString(in);
+        final int flags = in.readUnsignedByte();
+        multipleDelivery = (flags & 1) != 0;
+        separateBillingAddress = (flags & 2) != 0;
+        separateBillingAddressEnabled = (flags & 4) != 0;
+        billingAddressNotRequired = (flags & 8) != 0;
+        deliveryAddressNotRequired = (flags & 16) != 0;
+        multipleDeliveryAvailable = ShoppingCartBinaryCodec.readBooleanMap(in);
+        carrierSlaId = ShoppingCartBinaryCodec.readLongMap(in);
+        billingAddressId = ShoppingCartBinaryCodec.readLong(in);
+        deliveryAddressId = ShoppingCartBinaryCodec.readLong(in);
+        details = ShoppingCartBinaryCodec.readStringMap(in);
+        orderMessage = ShoppingCartBinaryCodec.readString(in);
+    }
 }
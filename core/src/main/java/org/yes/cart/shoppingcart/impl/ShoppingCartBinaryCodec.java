@@ -0,0 +1,287 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.shoppingcart.impl;
+
+import org.yes.cart.shoppingcart.ShoppingCart;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Hand written binary codec for {@link ShoppingCartImpl} object graph.
+ * <p/>
+ * Each cart class writes its own fields in a fixed order (see {@code writeBinary}/{@code readBinary})
+ * and this class provides null safe primitives for strings, decimals, lists and maps. Lengths are
+ * written as unsigned var ints with zero reserved for null, so that empty carts take only a few bytes.
+ * <p/>
+ * Field order is part of the format - new fields must only be appended and guarded by
+ * {@link #VERSION} check on read so that older blobs can still be restored.
+ * <p/>
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 11:40
+ */
+public final class ShoppingCartBinaryCodec {
+
+    /**
+     * Current binary format version.
+     */
+    public static final int VERSION = 1;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private ShoppingCartBinaryCodec() {
+        // no instance
+    }
+
+    /**
+     * Write cart using current {@link #VERSION} format.
+     *
+     * @param cart cart to write
+     * @param out  output
+     *
+     * @throws IOException if cart contains parts not supported by binary format
+     */
+    public static void write(final ShoppingCart cart, final DataOutput out) throws IOException {
+        if (!(cart instanceof ShoppingCartImpl)) {
+            throw new IOException("Unsupported cart implementation: " + (cart == null ? null : cart.getClass().getName()));
+        }
+        ((ShoppingCartImpl) cart).writeBinary(out);
+    }
+
+    /**
+     * Read cart written by {@link #write(ShoppingCart, DataOutput)}.
+     *
+     * @param in      input
+     * @param version format version of the data
+     *
+     * @return restored cart
+     *
+     * @throws IOException if data is corrupt or version is not supported
+     */
+    public static ShoppingCartImpl read(final DataInput in, final int version) throws IOException {
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported cart binary version: " + version);
+        }
+        final ShoppingCartImpl cart = new ShoppingCartImpl();
+        cart.readBinary(in, version);
+        return cart;
+    }
+
+    static void writeVarInt(final DataOutput out, final int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            out.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        out.writeByte(remaining);
+    }
+
+    static int readVarInt(final DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed var int");
+    }
+
+    static void writeString(final DataOutput out, final String value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+        } else {
+            final byte[] bytes = value.getBytes(UTF8);
+            writeVarInt(out, bytes.length + 1);
+            out.write(bytes);
+        }
+    }
+
+    static String readString(final DataInput in) throws IOException {
+        final int len = readVarInt(in);
+        if (len == 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[len - 1];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    static void writeDecimal(final DataOutput out, final BigDecimal value) throws IOException {
+        if (value == null) {
+            writeVarInt(out, 0);
+        } else {
+            final byte[] unscaled = value.unscaledValue().toByteArray();
+            writeVarInt(out, unscaled.length + 1);
+            out.write(unscaled);
+            final int scale = value.scale();
+            writeVarInt(out, (scale << 1) ^ (scale >> 31)); // zig-zag, scale may be negative
+        }
+    }
+
+    static BigDecimal readDecimal(final DataInput in) throws IOException {
+        final int len = readVarInt(in);
+        if (len == 0) {
+            return null;
+        }
+        final byte[] unscaled = new byte[len - 1];
+        in.readFully(unscaled);
+        final int zigzag = readVarInt(in);
+        return new BigDecimal(new BigInteger(unscaled), (zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    static void writeLong(final DataOutput out, final Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    static Long readLong(final DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    static void writeStrings(final DataOutput out, final Collection<String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, values.size() + 1);
+            for (final String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    static <C extends Collection<String>> C readStrings(final DataInput in, final C target) throws IOException {
+        final int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        for (int i = 1; i < size; i++) {
+            target.add(readString(in));
+        }
+        return target;
+    }
+
+    static void writeItems(final DataOutput out, final List<CartItemImpl> items) throws IOException {
+        if (items == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, items.size() + 1);
+            for (final CartItemImpl item : items) {
+                item.writeBinary(out);
+            }
+        }
+    }
+
+    static List<CartItemImpl> readItems(final DataInput in, final int version) throws IOException {
+        final int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        final List<CartItemImpl> items = new ArrayList<CartItemImpl>(size - 1);
+        for (int i = 1; i < size; i++) {
+            final CartItemImpl item = new CartItemImpl();
+            item.readBinary(in, version);
+            items.add(item);
+        }
+        return items;
+    }
+
+    static void writeStringMap(final DataOutput out, final Map<String, String> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, values.size() + 1);
+            for (final Map.Entry<String, String> entry : values.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    static Map<String, String> readStringMap(final DataInput in) throws IOException {
+        final int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        final Map<String, String> values = new HashMap<String, String>(size * 2);
+        for (int i = 1; i < size; i++) {
+            values.put(readString(in), readString(in));
+        }
+        return values;
+    }
+
+    static void writeLongMap(final DataOutput out, final Map<String, Long> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, values.size() + 1);
+            for (final Map.Entry<String, Long> entry : values.entrySet()) {
+                writeString(out, entry.getKey());
+                writeLong(out, entry.getValue());
+            }
+        }
+    }
+
+    static Map<String, Long> readLongMap(final DataInput in) throws IOException {
+        final int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        final Map<String, Long> values = new HashMap<String, Long>(size * 2);
+        for (int i = 1; i < size; i++) {
+            values.put(readString(in), readLong(in));
+        }
+        return values;
+    }
+
+    static void writeBooleanMap(final DataOutput out, final Map<String, Boolean> values) throws IOException {
+        if (values == null) {
+            writeVarInt(out, 0);
+        } else {
+            writeVarInt(out, values.size() + 1);
+            for (final Map.Entry<String, Boolean> entry : values.entrySet()) {
+                writeString(out, entry.getKey());
+                final Boolean value = entry.getValue();
+                out.writeByte(value == null ? 0 : (value ? 1 : 2));
+            }
+        }
+    }
+
+    static Map<String, Boolean> readBooleanMap(final DataInput in) throws IOException {
+        final int size = readVarInt(in);
+        if (size == 0) {
+            return null;
+        }
+        final Map<String, Boolean> values = new HashMap<String, Boolean>(size * 2);
+        for (int i = 1; i < size; i++) {
+            final String key = readString(in);
+            final int value = in.readUnsignedByte();
+            values.put(key, value == 0 ? null : Boolean.valueOf(value == 1));
+        }
+        return values;
+    }
+
+}
@@ -25,6 +25,9 @@ import org.yes.cart.service.order.DeliveryBucket;
 import org.yes.cart.shoppingcart.*;
 import org.yes.cart.util.MoneyUtils;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.*;
 
@@ -815,4 +818,84 @@ public class ShoppingCartImpl implements MutableShoppingCart {
         }
         return total;
     }
+
+    /**
+     * Write this cart in binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param out output
+     *
+     * @throws IOException on write error or if cart parts are not default implementations
+     */
+    void writeBinary(final DataOutput out) throws IOException {
+        ShoppingCartBinaryCodec.writeString(out, guid);
+        ShoppingCartBinaryCodec.writeString(out, ordernum);
+        ShoppingCartBinaryCodec.writeString(out, currentLocale);
+        ShoppingCartBinaryCodec.writeString(out, currencyCode);
+        out.writeLong(modifiedTimestamp);
+        out.writeLong(processingStartTimestamp);
+        out.writeBoolean(promotionsDisabled);
+        ShoppingCartBinaryCodec.writeItems(out, items);
+        ShoppingCartBinaryCodec.writeItems(out, gifts);
+        ShoppingCartBinaryCodec.writeItems(out, shipping);
+        ShoppingCartBinaryCodec.writeStrings(out, coupons);
+
+        if (shoppingContext != null && !(shoppingContext instanceof ShoppingContextImpl)
+                || orderInfo != null && !(orderInfo instanceof OrderInfoImpl)
+                || total != null && !(total instanceof TotalImpl)) {
+            throw new IOException("Unsupported cart part implementation in cart " + guid);
+        }
+
+        out.writeByte((shoppingContext != null ? 1 : 0) | (orderInfo != null ? 2 : 0) | (total != null ? 4 : 0));
+        if (shoppingContext != null) {
+            ((ShoppingContextImpl) shoppingContext).writeBinary(out);
+        }
+        if (orderInfo != null) {
+            ((OrderInfoImpl) orderInfo).writeBinary(out);
+        }
+        if (total != null) {
+            ((TotalImpl) total).writeBinary(out);
+        }
+    }
+
+    /**
+     * Read this cart from binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param in      input
+     * @param version format version
+     *
+     * @throws IOException on read error
+     */
+    void readBinary(final DataInput in, final int version) throws IOException {
+        guid = ShoppingCartBinaryCodec.readString(in);
+        ordernum = ShoppingCartBinaryCodec.readString(in);
+        currentLocale = ShoppingCartBinaryCodec.readString(in);
+        currencyCode = ShoppingCartBinaryCodec.readString(in);
+        modifiedTimestamp = in.readLong();
+        processingStartTimestamp = in.readLong();
+        promotionsDisabled = in.readBoolean();
+        items = ShoppingCartBinaryCodec.readItems(in, version);
+        gifts = ShoppingCartBinaryCodec.readItems(in, version);
+        shipping = ShoppingCartBinaryCodec.readItems(in, version);
+        coupons = ShoppingCartBinaryCodec.readStrings(in, new TreeSet<String>());
+
+        final int parts = in.readUnsignedByte();
+        shoppingContext = null;
+        if ((parts & 1) != 0) {
+            final ShoppingContextImpl ctx = new ShoppingContextImpl();
+            ctx.readBinary(in, version);
+            shoppingContext = ctx;
+        }
+        orderInfo = null;
+        if ((parts & 2) != 0) {
+            final OrderInfoImpl info = new OrderInfoImpl();
+            info.readBinary(in, version);
+            orderInfo = info;
+        }
+        total = null;
+        if ((parts & 4) != 0) {
+            final TotalImpl tot = new TotalImpl();
+            tot.readBinary(in, version);
+            total = tot;
+        }
+    }
 }
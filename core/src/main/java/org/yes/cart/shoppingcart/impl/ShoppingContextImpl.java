@@ -18,6 +18,9 @@ package org.yes.cart.shoppingcart.impl;
 
 import org.yes.cart.shoppingcart.MutableShoppingContext;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -324,4 +327,57 @@ public class ShoppingContextImpl implements MutableShoppingContext {
     public void setHidePrices(final boolean hidePrices) {
         this.hidePrices = hidePrices;
     }
+
+    /**
+     * Write this context in binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param out output
+     *
+     * @throws IOException on write error
+     */
+    void writeBinary(final DataOutput out) throws IOException {
+        ShoppingCartBinaryCodec.writeString(out, customerName);
+        out.writeLong(shopId);
+        ShoppingCartBinaryCodec.writeString(out, shopCode);
+        out.writeLong(customerShopId);
+        ShoppingCartBinaryCodec.writeString(out, customerShopCode);
+        ShoppingCartBinaryCodec.writeString(out, countryCode);
+        ShoppingCartBinaryCodec.writeString(out, stateCode);
+        ShoppingCartBinaryCodec.writeString(out, customerEmail);
+        ShoppingCartBinaryCodec.writeStrings(out, customerShops);
+        out.writeByte((taxInfoChangeViewEnabled ? 1 : 0) | (taxInfoEnabled ? 2 : 0) | (taxInfoUseNet ? 4 : 0)
+                | (taxInfoShowAmount ? 8 : 0) | (hidePrices ? 16 : 0));
+        ShoppingCartBinaryCodec.writeStrings(out, latestViewedSkus);
+        ShoppingCartBinaryCodec.writeStrings(out, latestViewedCategories);
+        ShoppingCartBinaryCodec.writeString(out, resolvedIp);
+    }
+
+    /**
+     * Read this context from binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param in      input
+     * @param version format version
+     *
+     * @throws IOException on read error
+     */
+    void readBinary(final DataInput in, final int version) throws IOException {
+        customerName = ShoppingCartBinaryCodec.readString(in);
+        shopId = in.readLong();
+        shopCode = ShoppingCartBinaryCodec.readString(in);
+        customerShopId = in.readLong();
+        customerShopCode = ShoppingCartBinaryCodec.readString(in);
+        countryCode = ShoppingCartBinaryCodec.readString(in);
+        stateCode = ShoppingCartBinaryCodec.readString(in);
+        customerEmail = ShoppingCartBinaryCodec.readString(in);
+        customerShops = ShoppingCartBinaryCodec.readStrings(in, new ArrayList<String>());
+        final int flags = in.readUnsignedByte();
+        taxInfoChangeViewEnabled = (flags & 1) != 0;
+        taxInfoEnabled = (flags & 2) != 0;
+        taxInfoUseNet = (flags & 4) != 0;
+        taxInfoShowAmount = (flags & 8) != 0;
+        hidePrices = (flags & 16) != 0;
+        latestViewedSkus = ShoppingCartBinaryCodec.readStrings(in, new ArrayList<String>());
+        latestViewedCategories = ShoppingCartBinaryCodec.readStrings(in, new ArrayList<String>());
+        resolvedIp = ShoppingCartBinaryCodec.readString(in);
+    }
 }
@@ -20,6 +20,9 @@ import org.apache.commons.lang.StringUtils;
 import org.yes.cart.constants.Constants;
 import org.yes.cart.shoppingcart.Total;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
@@ -261,4 +264,63 @@ public class TotalImpl implements Total {
         }
         return StringUtils.join(unique, ',');
     }
+
+    /**
+     * Write this total in binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param out output
+     *
+     * @throws IOException on write error
+     */
+    void writeBinary(final DataOutput out) throws IOException {
+        ShoppingCartBinaryCodec.writeDecimal(out, listSubTotal);
+        ShoppingCartBinaryCodec.writeDecimal(out, saleSubTotal);
+        ShoppingCartBinaryCodec.writeDecimal(out, nonSaleSubTotal);
+        ShoppingCartBinaryCodec.writeDecimal(out, priceSubTotal);
+        out.writeBoolean(orderPromoApplied);
+        ShoppingCartBinaryCodec.writeString(out, appliedOrderPromo);
+        ShoppingCartBinaryCodec.writeDecimal(out, subTotal);
+        ShoppingCartBinaryCodec.writeDecimal(out, subTotalTax);
+        ShoppingCartBinaryCodec.writeDecimal(out, subTotalAmount);
+        ShoppingCartBinaryCodec.writeDecimal(out, deliveryListCost);
+        ShoppingCartBinaryCodec.writeDecimal(out, deliveryCost);
+        out.writeBoolean(deliveryPromoApplied);
+        ShoppingCartBinaryCodec.writeString(out, appliedDeliveryPromo);
+        ShoppingCartBinaryCodec.writeDecimal(out, deliveryTax);
+        ShoppingCartBinaryCodec.writeDecimal(out, deliveryCostAmount);
+        ShoppingCartBinaryCodec.writeDecimal(out, total);
+        ShoppingCartBinaryCodec.writeDecimal(out, totalTax);
+        ShoppingCartBinaryCodec.writeDecimal(out, listTotalAmount);
+        ShoppingCartBinaryCodec.writeDecimal(out, totalAmount);
+    }
+
+    /**
+     * Read this total from binary format (see {@link ShoppingCartBinaryCodec}).
+     *
+     * @param in      input
+     * @param version format version
+     *
+     * @throws IOException on read error
+     */
+    void readBinary(final DataInput in, final int version) throws IOException {
+        listSubTotal = ShoppingCartBinaryCodec.readDecimal(in);
+        saleSubTotal = ShoppingCartBinaryCodec.readDecimal(in);
+        nonSaleSubTotal = ShoppingCartBinaryCodec.readDecimal(in);
+        priceSubTotal = ShoppingCartBinaryCodec.readDecimal(in);
+        orderPromoApplied = in.readBoolean();
+        appliedOrderPromo = ShoppingCartBinaryCodec.readString(in);
+        subTotal = ShoppingCartBinaryCodec.readDecimal(in);
+        subTotalTax = ShoppingCartBinaryCodec.readDecimal(in);
+        subTotalAmount = ShoppingCartBinaryCodec.readDecimal(in);
+        deliveryListCost = ShoppingCartBinaryCodec.readDecimal(in);
+        deliveryCost = ShoppingCartBinaryCodec.readDecimal(in);
+        deliveryPromoApplied = in.readBoolean();
+        appliedDeliveryPromo = ShoppingCartBinaryCodec.readString(in);
+        deliveryTax = ShoppingCartBinaryCodec.readDecimal(in);
+        deliveryCostAmount = ShoppingCartBinaryCodec.readDecimal(in);
+        total = ShoppingCartBinaryCodec.readDecimal(in);
+        totalTax = ShoppingCartBinaryCodec.readDecimal(in);
+        listTotalAmount = ShoppingCartBinaryCodec.readDecimal(in);
+        totalAmount = ShoppingCartBinaryCodec.readDecimal(in);
+    }
 }
@@ -16,10 +16,12 @@
 package org.yes.cart.web.service.ws.impl;
 
 import net.sf.ehcache.statistics.LiveCacheStatistics;
+import org.hibernate.cache.spi.CacheKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.yes.cart.cache.TaggedCache;
 import org.yes.cart.domain.dto.impl.CacheInfoDTOImpl;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.web.service.ws.CacheDirector;
@@ -175,6 +177,23 @@ public class CacheDirectorImpl implements CacheDirector {
 
                         cnt ++;
 
+                    } else if("tag".equals(cacheStrategy.getSecond())) {
+
+                        if (cache instanceof TaggedCache) {
+                            ((TaggedCache) cache).evictTagged(entityName, pkValue);
+                        } else {
+                            // no entity index for this cache, so fallback to full eviction
+                            cache.clear();
+                        }
+
+                        cnt ++;
+
+                    } else if("entity".equals(cacheStrategy.getSecond())) {
+
+                        evictEntity(cache, entityName, pkValue);
+
+                        cnt ++;
+
                     } else {
 
                         LOG.warn("The [" + cacheStrategy.getSecond() + "] cache eviction strategy not supported");
@@ -190,6 +209,40 @@ public class CacheDirectorImpl implements CacheDirector {
         return cnt;
     }
 
+    /**
+     * Evict entry for given entity from hibernate second level cache region. Regions are
+     * keyed by {@link CacheKey}, so we scan keys and remove only those that belong to the
+     * changed entity (regions configured for this strategy only hold reference data, so
+     * scan is cheap). Entries of other entities that share eviction configuration are
+     * left intact.
+     *
+     * @param cache      region cache
+     * @param entityName simple entity name (e.g. ShopEntity)
+     * @param pkValue    primary key of changed entity
+     */
+    void evictEntity(final Cache cache, final String entityName, final Long pkValue) {
+
+        if (!(cache.getNativeCache() instanceof net.sf.ehcache.Ehcache)) {
+            // cannot inspect keys, so fallback to full eviction
+            cache.clear();
+            return;
+        }
+
+        final net.sf.ehcache.Ehcache nativeCache = (net.sf.ehcache.Ehcache) cache.getNativeCache();
+        final String qualifiedSuffix = "." + entityName;
+        for (final Object key : nativeCache.getKeys()) {
+            if (key instanceof CacheKey) {
+                final CacheKey cacheKey = (CacheKey) key;
+                final String name = cacheKey.getEntityOrRoleName();
+                if (name != null && (name.equals(entityName) || name.endsWith(qualifiedSuffix))
+                        && (pkValue == null || pkValue.equals(cacheKey.getKey()))) {
+                    nativeCache.remove(key);
+                }
+            }
+        }
+
+    }
+
     /**
      * Resolve caches names for invalidation for given entity and operation.
      * @param entityOperation given operation
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.bulkjob.images;
+
+import org.apache.commons.io.FileUtils;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.yes.cart.service.domain.ImageService;
+import org.yes.cart.service.domain.SystemService;
+import org.yes.cart.service.media.MediaFileNameStrategy;
+import org.yes.cart.service.media.impl.CategoryMediaFileNameStrategyImpl;
+import org.yes.cart.service.misc.LanguageService;
+import org.yes.cart.stream.io.FileSystemIOProvider;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 20:55
+ */
+public class ImageVaultVariantsProcessorImplTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    private File vault;
+
+    @Before
+    public void setUp() throws Exception {
+        vault = new File("target/test-imagevault-variants");
+        FileUtils.deleteDirectory(vault);
+        assertTrue(new File(vault, "category").mkdirs());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(vault);
+    }
+
+    @Test
+    public void testIncrementalGeneration() throws Exception {
+
+        final SystemService systemService = context.mock(SystemService.class, "systemService");
+        final FileSystemIOProvider ioProvider = context.mock(FileSystemIOProvider.class, "ioProvider");
+        final ImageService imageService = context.mock(ImageService.class, "imageService");
+        final LanguageService languageService = context.mock(LanguageService.class, "languageService");
+
+        final List<String> sizes = new ArrayList<String>(Arrays.asList("40x40", "80x80"));
+        final AtomicInteger resized = new AtomicInteger(0);
+
+        context.checking(new Expectations() {{
+            allowing(systemService).getImageRepositoryDirectory(); will(returnValue(vault.getAbsolutePath() + File.separator));
+            allowing(ioProvider).resolveFileFromUri(with(any(String.class)), with(any(Map.class))); will(returnValue(vault));
+            allowing(languageService).getSupportedLanguages(); will(returnValue(Arrays.asList("en")));
+            allowing(imageService).getAllowedSizes(); will(returnValue(sizes));
+            allowing(imageService).resolveImageFile(with(any(String.class)), with(any(String.class)));
+            will(new CustomAction("resolve if newer") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    final File original = new File((String) invocation.getParameter(0));
+                    final File resized = new File((String) invocation.getParameter(1));
+                    return resized.exists() && resized.lastModified() > original.lastModified() ? resized : null;
+                }
+            });
+            allowing(imageService).resizeImage(with(any(String.class)), with(any(String.class)), with(any(String.class)), with(any(String.class)));
+            will(new CustomAction("resize") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    final File original = new File((String) invocation.getParameter(0));
+                    final File file = new File((String) invocation.getParameter(1));
+                    final byte[] content = FileUtils.readFileToByteArray(original);
+                    FileUtils.writeByteArrayToFile(file, content);
+                    file.setLastModified(original.lastModified() + 1000L);
+                    resized.incrementAndGet();
+                    return content;
+                }
+            });
+        }});
+
+        final MediaFileNameStrategy strategy = new CategoryMediaFileNameStrategyImpl("/imagevault/category/", "category" + File.separator, null, languageService);
+
+        final ImageVaultVariantsProcessorImpl processor = new ImageVaultVariantsProcessorImpl(
+                systemService, ioProvider, imageService, new MediaFileNameStrategy[] { strategy, strategy });
+        processor.setBatchSize(1);
+
+        final File first = createOriginal("CAT1", "cat_CAT1_a.jpg", 1000000000L);
+
+        processor.run();
+
+        assertEquals(2, resized.get());
+        assertTrue(new File(vault, "category/40x40/C/CAT1/cat_CAT1_a.jpg").exists());
+        assertTrue(new File(vault, "category/80x80/C/CAT1/cat_CAT1_a.jpg").exists());
+        assertEquals(String.valueOf(first.lastModified()), loadState().getProperty(strategy.getRelativeInternalRootDirectory() + ".lastModified"));
+
+        // nothing changed
+        processor.run();
+        assertEquals(2, resized.get());
+
+        // only new originals are considered
+        final File second = createOriginal("CAT2", "cat_CAT2_a.jpg", 1000010000L);
+        assertEquals(Arrays.asList(second), processor.findOriginals(new File(vault, "category"), first.lastModified() + 1L));
+
+        processor.run();
+        assertEquals(4, resized.get());
+        assertEquals(String.valueOf(second.lastModified()), loadState().getProperty(strategy.getRelativeInternalRootDirectory() + ".lastModified"));
+
+        // changing sizes triggers full pass, but only missing variants are generated
+        sizes.add("120x120");
+        processor.run();
+        assertEquals(6, resized.get());
+        assertTrue(new File(vault, "category/120x120/C/CAT1/cat_CAT1_a.jpg").exists());
+        assertTrue(new File(vault, "category/120x120/C/CAT2/cat_CAT2_a.jpg").exists());
+
+        context.assertIsSatisfied();
+
+    }
+
+    @Test
+    public void testFailedOriginalsAreRetried() throws Exception {
+
+        final SystemService systemService = context.mock(SystemService.class, "systemService");
+        final FileSystemIOProvider ioProvider = context.mock(FileSystemIOProvider.class, "ioProvider");
+        final ImageService imageService = context.mock(ImageService.class, "imageService");
+        final LanguageService languageService = context.mock(LanguageService.class, "languageService");
+
+        final Set<String> rejected = new HashSet<String>();
+        final AtomicInteger resized = new AtomicInteger(0);
+
+        context.checking(new Expectations() {{
+            allowing(systemService).getImageRepositoryDirectory(); will(returnValue(vault.getAbsolutePath() + File.separator));
+            allowing(ioProvider).resolveFileFromUri(with(any(String.class)), with(any(Map.class))); will(returnValue(vault));
+            allowing(languageService).getSupportedLanguages(); will(returnValue(Arrays.asList("en")));
+            allowing(imageService).getAllowedSizes(); will(returnValue(Arrays.asList("40x40")));
+            allowing(imageService).resolveImageFile(with(any(String.class)), with(any(String.class)));
+            will(new CustomAction("resolve if exists") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    final File resized = new File((String) invocation.getParameter(1));
+                    return resized.exists() ? resized : null;
+                }
+            });
+            allowing(imageService).resizeImage(with(any(String.class)), with(any(String.class)), with(any(String.class)), with(any(String.class)));
+            will(new CustomAction("resize unless rejected") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    final File original = new File((String) invocation.getParameter(0));
+                    if (rejected.contains(original.getName())) {
+                        return new byte[0]; // e.g. resize pool is busy
+                    }
+                    final byte[] content = FileUtils.readFileToByteArray(original);
+                    FileUtils.writeByteArrayToFile(new File((String) invocation.getParameter(1)), content);
+                    resized.incrementAndGet();
+                    return content;
+                }
+            });
+        }});
+
+        final MediaFileNameStrategy strategy = new CategoryMediaFileNameStrategyImpl("/imagevault/category/", "category" + File.separator, null, languageService);
+
+        final ImageVaultVariantsProcessorImpl processor = new ImageVaultVariantsProcessorImpl(
+                systemService, ioProvider, imageService, new MediaFileNameStrategy[] { strategy });
+        processor.setBatchSize(1);
+
+        createOriginal("CAT1", "cat_CAT1_a.jpg", 1000000000L);
+        final File second = createOriginal("CAT2", "cat_CAT2_a.jpg", 1000010000L);
+        rejected.add("cat_CAT1_a.jpg");
+
+        processor.run();
+
+        assertEquals(1, resized.get());
+        assertFalse(new File(vault, "category/40x40/C/CAT1/cat_CAT1_a.jpg").exists());
+        final String root = strategy.getRelativeInternalRootDirectory();
+        assertEquals(String.valueOf(second.lastModified()), loadState().getProperty(root + ".lastModified"));
+        assertEquals("C/CAT1/cat_CAT1_a.jpg", loadState().getProperty(root + ".retry"));
+
+        // original older than watermark is retried
+        rejected.clear();
+        processor.run();
+
+        assertEquals(2, resized.get());
+        assertTrue(new File(vault, "category/40x40/C/CAT1/cat_CAT1_a.jpg").exists());
+        assertEquals("", loadState().getProperty(root + ".retry"));
+
+        context.assertIsSatisfied();
+
+    }
+
+    private File createOriginal(final String code, final String name, final long lastModified) throws Exception {
+        final File original = new File(vault, "category/" + code.charAt(0) + "/" + code + "/" + name);
+        FileUtils.writeByteArrayToFile(original, new byte[] { 1, 2, 3 });
+        assertTrue(original.setLastModified(lastModified));
+        return original;
+    }
+
+    private Properties loadState() throws Exception {
+        final Properties state = new Properties();
+        final FileInputStream is = new FileInputStream(new File(vault, ImageVaultVariantsProcessorImpl.STATE_FILE));
+        try {
+            state.load(is);
+        } finally {
+            is.close();
+        }
+        return state;
+    }
+
+}
@@ -117,18 +117,8 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
                     }
 
                     @Override
-                    protected long getDeltaCheckDelay() {
-                        return 100;
-                    }
-
-                    @Override
-                    protected int getDeltaCheckSize() {
-                        return 100;
-                    }
-
-                    @Override
-                    protected int getChangeMaxSize() {
-                        return 1000;
+                    protected long getEventRetention() {
+                        return 86400000L;
                     }
 
                     @Override
@@ -195,18 +185,8 @@ public class ProductInventoryChangedProcessorImplTest extends BaseCoreDBTestCase
                     }
 
                     @Override
-                    protected long getDeltaCheckDelay() {
-                        return 100;
-                    }
-
-                    @Override
-                    protected int getDeltaCheckSize() {
-                        return 100;
-                    }
-
-                    @Override
-                    protected int getChangeMaxSize() {
-                        return 1000;
+                    protected long getEventRetention() {
+                        return 86400000L;
                     }
 
                     @Override
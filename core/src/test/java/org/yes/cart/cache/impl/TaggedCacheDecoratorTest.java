@@ -0,0 +1,180 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.cache.impl;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.jmock.lib.action.CustomAction;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.yes.cart.cache.CacheDependencies;
+import org.yes.cart.domain.entity.SkuPrice;
+import org.yes.cart.domain.entity.impl.SkuPriceEntity;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 11:45
+ */
+public class TaggedCacheDecoratorTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    @Test
+    public void testEvictTaggedByValue() throws Exception {
+
+        final TaggedCacheDecorator cache = new TaggedCacheDecorator(new ConcurrentMapCache("prices"));
+
+        cache.put("A", Arrays.asList(price(1L), price(2L)));
+        cache.put("B", Arrays.asList(price(2L), price(3L)));
+        cache.put("C", price(4L));
+        cache.put("D", "no entities");
+
+        assertEquals(2, cache.getTaggedCount("SkuPriceEntity:2"));
+
+        assertEquals(1, cache.evictTagged("SkuPriceEntity", 1L));
+        assertNull(cache.get("A"));
+        assertNotNull(cache.get("B"));
+        assertNotNull(cache.get("C"));
+        assertNotNull(cache.get("D"));
+        assertEquals(1, cache.getTaggedCount("SkuPriceEntity:2"));
+
+        assertEquals(1, cache.evictTagged("SkuPriceEntity", 2L));
+        assertNull(cache.get("B"));
+        assertEquals(0, cache.getTaggedCount("SkuPriceEntity:3"));
+
+        assertEquals(0, cache.evictTagged("ProductEntity", 4L));
+        assertNotNull(cache.get("C"));
+
+        cache.clear();
+        assertEquals(0, cache.getTaggedCount("SkuPriceEntity:4"));
+        assertEquals(0, cache.evictTagged("SkuPriceEntity", 4L));
+
+    }
+
+    @Test
+    public void testEvictTaggedByDependency() throws Exception {
+
+        final TaggedCacheDecorator outer = new TaggedCacheDecorator(new ConcurrentMapCache("outer"));
+        final TaggedCacheDecorator inner = new TaggedCacheDecorator(new ConcurrentMapCache("inner"));
+
+        // miss on outer, inside computation miss on inner which depends on two prices
+        assertNull(outer.get("min"));
+        assertNull(inner.get("all"));
+        CacheDependencies.dependsOn(Arrays.asList(price(1L), price(2L)));
+        inner.put("all", "2 prices");
+        outer.put("min", price(1L));
+
+        // price 2 is not in the value, but was used to compute it
+        assertEquals(1, outer.evictTagged("SkuPriceEntity", 2L));
+
+        // cache hit on inner while outer is computed propagates inner tags to outer value
+        assertNull(outer.get("min"));
+        assertNotNull(inner.get("all"));
+        outer.put("min", "cached");
+        assertEquals(1, outer.evictTagged("SkuPriceEntity", 2L));
+
+        // dependencies registered outside of cache population are ignored
+        CacheDependencies.dependsOn(price(5L));
+        outer.put("other", "value");
+        assertEquals(0, outer.evictTagged("SkuPriceEntity", 5L));
+
+    }
+
+    @Test
+    public void testClearDropsFramesOfFailedMisses() throws Exception {
+
+        final TaggedCacheDecorator cache = new TaggedCacheDecorator(new ConcurrentMapCache("failed"));
+
+        // miss whose computation failed, so no put closed the frame
+        assertNull(cache.get("broken"));
+        CacheDependencies.dependsOn(price(7L));
+
+        CacheDependencies.clear();
+
+        // next unit of work on the same thread must not inherit stale tags
+        assertNull(cache.get("ok"));
+        CacheDependencies.dependsOn(price(8L));
+        cache.put("ok", "value");
+        assertEquals(0, cache.evictTagged("SkuPriceEntity", 7L));
+        assertEquals(1, cache.evictTagged("SkuPriceEntity", 8L));
+
+    }
+
+    @Test
+    public void testInterceptorUnwindsFramesOfFailedMisses() throws Throwable {
+
+        final TaggedCacheDecorator outer = new TaggedCacheDecorator(new ConcurrentMapCache("outer"));
+        final TaggedCacheDecorator inner = new TaggedCacheDecorator(new ConcurrentMapCache("inner"));
+        final CacheDependenciesInterceptor interceptor = new CacheDependenciesInterceptor();
+
+        final MethodInvocation failing = context.mock(MethodInvocation.class, "failing");
+        context.checking(new Expectations() {{
+            allowing(failing).proceed(); will(new CustomAction("miss and fail") {
+                @Override
+                public Object invoke(final Invocation invocation) throws Throwable {
+                    assertNull(inner.get("broken"));
+                    CacheDependencies.dependsOn(price(9L));
+                    throw new IllegalStateException("failed");
+                }
+            });
+        }});
+
+        // failed miss at top level leaves no frames
+        try {
+            interceptor.invoke(failing);
+            fail("Exception must be propagated");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+        assertEquals(0, CacheDependencies.depth());
+
+        // failed inner miss closes its own frame only, outer value still depends on what inner has used
+        assertNull(outer.get("min"));
+        try {
+            interceptor.invoke(failing);
+            fail("Exception must be propagated");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+        assertEquals(1, CacheDependencies.depth());
+        CacheDependencies.dependsOn(price(10L));
+        outer.put("min", "fallback");
+        assertEquals(0, CacheDependencies.depth());
+
+        assertEquals(1, outer.getTaggedCount("SkuPriceEntity:9"));
+        assertEquals(1, outer.getTaggedCount("SkuPriceEntity:10"));
+        assertEquals(0, inner.getTaggedCount("SkuPriceEntity:9"));
+
+        context.assertIsSatisfied();
+
+    }
+
+    private SkuPrice price(final long id) {
+        final SkuPriceEntity price = new SkuPriceEntity();
+        price.setSkuPriceId(id);
+        return price;
+    }
+
+}
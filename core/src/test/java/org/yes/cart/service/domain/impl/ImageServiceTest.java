@@ -34,6 +34,7 @@ import org.yes.cart.service.media.MediaFileNameStrategyResolver;
 import org.yes.cart.service.media.impl.ProductMediaFileNameStrategyImpl;
 import org.yes.cart.service.misc.LanguageService;
 import org.yes.cart.stream.io.IOProvider;
+import org.yes.cart.stream.io.impl.LocalFileSystemIOProviderImpl;
 
 import java.io.File;
 import java.io.IOException;
@@ -43,6 +44,7 @@ import java.util.Map;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -117,6 +119,39 @@ public class ImageServiceTest {
         FileUtils.writeByteArrayToFile(new File(destinationFileName), resized);
     }
 
+    @Test
+    public void testResolveImageFile() throws Exception {
+
+        imageService = new ImageServiceImpl(seoImageDao, mediaFileNameStrategyResolver, "50x150", 255, 255, 255, false, 50, true, new LocalFileSystemIOProviderImpl());
+
+        final File original = new File("target/test/resources/imgrepo/stream/a/aron/aron_a.png");
+        final File resized = new File("target/test/resources/imgrepo/stream/50x150/a/aron/aron_a.png");
+        FileUtils.copyFile(new File("src/test/resources/imgrepo/a/aron/aron_a.png"), original);
+        resized.delete();
+        original.setLastModified(System.currentTimeMillis() - 60000L);
+
+        final String originalPath = original.getAbsolutePath();
+        final String resizedPath = resized.getAbsolutePath();
+
+        // original is always streamed as is
+        assertEquals(original.getAbsoluteFile(), imageService.resolveImageFile(originalPath, null));
+        // resized does not exist, so it has to go through resize
+        assertNull(imageService.resolveImageFile(originalPath, resizedPath));
+
+        final byte[] bytes = imageService.resizeImage(originalPath, resizedPath, "50", "150");
+        assertTrue(bytes.length > 0);
+        assertEquals(resized.getAbsoluteFile(), imageService.resolveImageFile(originalPath, resizedPath));
+
+        // original has been updated, so resized is stale
+        original.setLastModified(System.currentTimeMillis() + 60000L);
+        assertNull(imageService.resolveImageFile(originalPath, resizedPath));
+
+        // non file system IO cannot be streamed
+        imageService = new ImageServiceImpl(seoImageDao, mediaFileNameStrategyResolver, "50x150", 255, 255, 255, false, 50, true, ioProvider);
+        assertNull(imageService.resolveImageFile(originalPath, null));
+
+    }
+
     @Test
     public void testAddImageToRepository() throws Exception {
 
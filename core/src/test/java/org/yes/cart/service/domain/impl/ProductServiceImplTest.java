@@ -289,6 +289,56 @@ public class ProductServiceImplTest extends BaseCoreDBTestCase {
 
     }
 
+    @Test
+    public void testGetProductSearchResultDTOByCursor() {
+
+        getTxReadOnly().execute(new TransactionCallbackWithoutResult() {
+            public void doInTransactionWithoutResult(TransactionStatus status) {
+
+                ((GenericFTSCapableDAO) productService.getGenericDao()).fullTextSearchReindex(false, 1000);
+
+                NavigationContext context = searchQueryFactory.getFilteredNavigationQueryChain(10L, 10L, Arrays.asList(101L), true, null);
+                final ProductSearchResultPageDTO all = productService.getProductSearchResultDTOByQuery(
+                        context, 0, 100, ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false
+                );
+                assertTrue(all.getResults().size() > 2);
+                assertNull(all.getNextCursor());
+
+                final List<String> expected = new ArrayList<String>();
+                for (final ProductSearchResultDTO item : all.getResults()) {
+                    expected.add(item.getCode());
+                }
+
+                // First page of offset paging provides cursor for the next page
+                final ProductSearchResultPageDTO first = productService.getProductSearchResultDTOByQuery(
+                        context, 0, 2, ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false
+                );
+                assertNotNull(first.getNextCursor());
+
+                final List<String> actual = new ArrayList<String>();
+                for (final ProductSearchResultDTO item : first.getResults()) {
+                    actual.add(item.getCode());
+                }
+                String cursor = first.getNextCursor();
+                while (cursor != null) {
+                    final ProductSearchResultPageDTO page = productService.getProductSearchResultDTOByCursor(
+                            context, cursor, 2, ProductSearchQueryBuilder.PRODUCT_NAME_SORT_FIELD, false
+                    );
+                    assertEquals(actual.size(), page.getFirst());
+                    assertEquals(all.getTotalHits(), page.getTotalHits());
+                    for (final ProductSearchResultDTO item : page.getResults()) {
+                        actual.add(item.getCode());
+                    }
+                    cursor = page.getNextCursor();
+                }
+
+                assertEquals(expected, actual);
+
+            }
+        });
+
+    }
+
     @Test
     public void testFindProductIdsByManufacturerCode() throws Exception {
 
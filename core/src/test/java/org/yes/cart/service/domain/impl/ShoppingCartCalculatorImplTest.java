@@ -16,8 +16,11 @@ import org.yes.cart.shoppingcart.impl.DefaultAmountCalculationStrategy;
 import org.yes.cart.shoppingcart.impl.TotalImpl;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -494,4 +497,98 @@ public class ShoppingCartCalculatorImplTest {
         context.assertIsSatisfied();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCalculatePricesAnonymousMixedTaxes() throws Exception {
+
+        final TaxProvider taxProvider = context.mock(TaxProvider.class, "taxProvider");
+        final DeliveryCostCalculationStrategy deliveryCostCalculationStrategy = context.mock(DeliveryCostCalculationStrategy.class, "deliveryCostCalculationStrategy");
+        final PromotionContextFactory promotionContextFactory = context.mock(PromotionContextFactory.class, "promotionContextFactory");
+        final CustomerService customerService = context.mock(CustomerService.class, "customerService");
+        final ShopService shopService = context.mock(ShopService.class, "shopService");
+
+        final ShoppingCart currentCart = context.mock(ShoppingCart.class, "currentCart");
+        final ShoppingContext currentCartCtx = context.mock(ShoppingContext.class, "currentCartCtx");
+
+        final PromotionContext promotionContext = context.mock(PromotionContext.class, "promotionContext");
+
+        final TaxProvider.Tax tax1 = context.mock(TaxProvider.Tax.class, "tax1");
+        final TaxProvider.Tax tax2 = context.mock(TaxProvider.Tax.class, "tax2");
+
+        // ZERO total for cart.getCarrierSlaId() == null
+        final Total deliveryCost = new TotalImpl();
+        // Ignore this as it is not used in calculations
+        final Total itemsTotal = new TotalImpl();
+
+        context.checking(new Expectations() {{
+
+            allowing(currentCart).getCurrentLocale(); will(returnValue("en"));
+            allowing(currentCart).getCurrencyCode(); will(returnValue("EUR"));
+            allowing(currentCart).getShoppingContext(); will(returnValue(currentCartCtx));
+            allowing(currentCartCtx).getCustomerName(); will(returnValue(null));
+            allowing(currentCartCtx).getShopId(); will(returnValue(123L));
+            allowing(currentCartCtx).getShopCode(); will(returnValue("SHOP10"));
+            allowing(currentCartCtx).getCustomerShopId(); will(returnValue(123L));
+            allowing(currentCartCtx).getCustomerShopCode(); will(returnValue("SHOP10"));
+            allowing(currentCartCtx).getCountryCode(); will(returnValue(null));
+            allowing(currentCartCtx).getStateCode(); will(returnValue(null));
+            allowing(currentCartCtx).getCustomerEmail(); will(returnValue(null));
+            allowing(currentCartCtx).getCustomerShops(); will(returnValue(Collections.emptyList()));
+            allowing(currentCartCtx).getLatestViewedSkus(); will(returnValue(null));
+            allowing(currentCartCtx).getLatestViewedCategories(); will(returnValue(null));
+            allowing(currentCartCtx).getResolvedIp(); will(returnValue("127.0.0.1"));
+
+            allowing(promotionContextFactory).getInstance("SHOP10", "EUR"); will(returnValue(promotionContext));
+
+            allowing(promotionContext).applyItemPromo(with((Customer) null), with(any(MutableShoppingCart.class)));
+
+            oneOf(taxProvider).determineTax("SHOP10", "EUR", null, null, "SKU0001"); will(returnValue(tax1));
+            allowing(tax1).getCode(); will(returnValue("VAT"));
+            allowing(tax1).getRate(); will(returnValue(new BigDecimal("20")));
+            allowing(tax1).isExcluded(); will(returnValue(false));
+            oneOf(taxProvider).determineTax("SHOP10", "EUR", null, null, "SKU0002"); will(returnValue(tax2));
+            allowing(tax2).getCode(); will(returnValue("GST"));
+            allowing(tax2).getRate(); will(returnValue(new BigDecimal("10")));
+            allowing(tax2).isExcluded(); will(returnValue(true));
+
+            // single cart recalculation for all SKU
+            oneOf(deliveryCostCalculationStrategy).calculate(with(any(MutableShoppingCart.class))); will(returnValue(deliveryCost));
+
+            allowing(promotionContext).applyOrderPromo(with((Customer) null), with(any(MutableShoppingCart.class)), with(any(Total.class))); will(returnValue(itemsTotal));
+
+            allowing(promotionContext).applyShippingPromo(with((Customer) null), with(any(MutableShoppingCart.class)), with(any(Total.class)));
+
+        }});
+
+        // Need to use real one to "see" how each dependency behaves
+        final AmountCalculationStrategy strategy = new DefaultAmountCalculationStrategy(taxProvider, deliveryCostCalculationStrategy, promotionContextFactory, customerService, shopService);
+        final ShoppingCartCalculator calculator = new ShoppingCartCalculatorImpl(strategy);
+
+        final Map<String, BigDecimal> prices = new LinkedHashMap<String, BigDecimal>();
+        prices.put("SKU0002", new BigDecimal("9.99"));
+        prices.put("SKU0001", new BigDecimal("9.99"));
+
+        final Map<String, ShoppingCartCalculator.PriceModel> models = calculator.calculatePrices(currentCart, prices);
+
+        assertNotNull(models);
+        assertEquals(Arrays.asList("SKU0002", "SKU0001"), new ArrayList<String>(models.keySet()));
+
+        final ShoppingCartCalculator.PriceModel model1 = models.get("SKU0001");
+        assertEquals("9.99", model1.getGrossPrice().toPlainString());
+        assertEquals("8.32", model1.getNetPrice().toPlainString());
+        assertEquals("1.67", model1.getTaxAmount().toPlainString());
+        assertEquals("VAT", model1.getTaxCode());
+        assertEquals("20", model1.getTaxRate().toPlainString());
+        assertFalse(model1.isTaxExclusive());
+
+        final ShoppingCartCalculator.PriceModel model2 = models.get("SKU0002");
+        assertEquals("10.99", model2.getGrossPrice().toPlainString());
+        assertEquals("9.99", model2.getNetPrice().toPlainString());
+        assertEquals("1.00", model2.getTaxAmount().toPlainString());
+        assertEquals("GST", model2.getTaxCode());
+        assertEquals("10", model2.getTaxRate().toPlainString());
+        assertTrue(model2.isTaxExclusive());
+
+        context.assertIsSatisfied();
+    }
+
+}
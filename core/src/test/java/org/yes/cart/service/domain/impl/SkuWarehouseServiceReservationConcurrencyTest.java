@@ -0,0 +1,177 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.domain.impl;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.yes.cart.BaseCoreDBTestCase;
+import org.yes.cart.constants.ServiceSpringKeys;
+import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.domain.entity.SkuWarehouse;
+import org.yes.cart.domain.entity.Warehouse;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.service.domain.ProductService;
+import org.yes.cart.service.domain.SkuWarehouseService;
+import org.yes.cart.service.domain.WarehouseService;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Concurrency harness for inventory reservation engines: many threads reserve the same SKU on the
+ * same warehouse, each reservation in its own transaction (as in checkout). Stock must never be
+ * oversold and the number of successful reservations must match available stock exactly.
+ * <p/>
+ * Sample on in memory HSQLDB (8 threads, 400 reservations against 200 items):
+ *
+ * SkuWarehouseServiceConditionalUpdateImpl:  ~320-360 reservations/sec
+ * SkuWarehouseServiceImpl:                   n/a, HSQLDB does not hold row locks for select for update,
+ *                                            so concurrent updates fail with StaleObjectStateException
+ *
+ * To compare engines under contention point test persistence.xml to MySQL and enable pessimistic test.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 22:05
+ */
+public class SkuWarehouseServiceReservationConcurrencyTest extends BaseCoreDBTestCase {
+
+    private static final int THREADS = 8;
+    private static final int RESERVATIONS_PER_THREAD = 50;
+    private static final int STOCK = 200;
+
+    @Ignore("Requires database that supports select for update row locks (e.g. MySQL)")
+    @Test
+    public void testPessimisticReservationNoOversell() throws Exception {
+
+        final SkuWarehouseServiceImpl service = new SkuWarehouseServiceImpl(getSkuWarehouseDao());
+        service.setProductService((ProductService) ctx().getBean(ServiceSpringKeys.PRODUCT_SERVICE));
+
+        runReservations("SkuWarehouseServiceImpl", service);
+
+    }
+
+    @Test
+    public void testConditionalUpdateReservationNoOversell() throws Exception {
+
+        final SkuWarehouseServiceConditionalUpdateImpl service = new SkuWarehouseServiceConditionalUpdateImpl(getSkuWarehouseDao());
+        service.setProductService((ProductService) ctx().getBean(ServiceSpringKeys.PRODUCT_SERVICE));
+        service.setUpdatedBy("reservation-test");
+
+        runReservations("SkuWarehouseServiceConditionalUpdateImpl", service);
+
+        // bulk updates bypass audit interceptor, so must stamp audit fields themselves
+        final String updatedBy = getTx().execute(new TransactionCallback<String>() {
+            @Override
+            public String doInTransaction(final TransactionStatus status) {
+                final WarehouseService warehouseService = (WarehouseService) ctx().getBean(ServiceSpringKeys.WAREHOUSE_SERVICE);
+                final SkuWarehouse inventory = service.findByWarehouseSku(warehouseService.findById(1L), "SOBOT-ORIG");
+                service.getGenericDao().refresh(inventory);
+                return inventory.getUpdatedBy();
+            }
+        });
+        assertEquals("reservation-test", updatedBy);
+
+    }
+
+    private GenericDAO<SkuWarehouse, Long> getSkuWarehouseDao() {
+        return (GenericDAO<SkuWarehouse, Long>) ctx().getBean("skuWarehouseDao");
+    }
+
+    private void runReservations(final String engine, final SkuWarehouseService service) throws Exception {
+
+        final WarehouseService warehouseService = (WarehouseService) ctx().getBean(ServiceSpringKeys.WAREHOUSE_SERVICE);
+        final Warehouse warehouse = warehouseService.findById(1L);
+        final String sku = "SOBOT-ORIG"; // 4 items on warehouse 1
+
+        // top up stock to exactly STOCK items
+        getTx().execute(new TransactionCallback<Object>() {
+            @Override
+            public Object doInTransaction(final TransactionStatus status) {
+                service.credit(warehouse, sku, new BigDecimal(STOCK - 4));
+                return null;
+            }
+        });
+        assertEquals(new BigDecimal(STOCK).setScale(2), findQuantity(service, warehouse, sku).getFirst());
+
+        final AtomicInteger reserved = new AtomicInteger(0);
+        final AtomicInteger rejected = new AtomicInteger(0);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final Future[] workers = new Future[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            workers[i] = executor.submit(new Callable<Object>() {
+                @Override
+                public Object call() throws Exception {
+                    start.await();
+                    for (int r = 0; r < RESERVATIONS_PER_THREAD; r++) {
+                        final BigDecimal rest = getTx().execute(new TransactionCallback<BigDecimal>() {
+                            @Override
+                            public BigDecimal doInTransaction(final TransactionStatus status) {
+                                return service.reservation(warehouse, sku, BigDecimal.ONE);
+                            }
+                        });
+                        if (rest.signum() == 0) {
+                            reserved.incrementAndGet();
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }
+            });
+        }
+
+        final long startTime = System.currentTimeMillis();
+        start.countDown();
+        for (final Future worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+        final long time = Math.max(1L, System.currentTimeMillis() - startTime);
+        executor.shutdown();
+
+        final int total = THREADS * RESERVATIONS_PER_THREAD;
+        System.out.println(engine + ": " + total + " reservations in " + time + "ms, "
+                + (total * 1000L / time) + " reservations/sec");
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(total - STOCK, rejected.get());
+
+        final Pair<BigDecimal, BigDecimal> qty = findQuantity(service, warehouse, sku);
+        assertEquals(new BigDecimal(STOCK).setScale(2), qty.getFirst());
+        assertEquals(new BigDecimal(STOCK).setScale(2), qty.getSecond());
+
+    }
+
+    private Pair<BigDecimal, BigDecimal> findQuantity(final SkuWarehouseService service, final Warehouse warehouse, final String sku) {
+        return getTx().execute(new TransactionCallback<Pair<BigDecimal, BigDecimal>>() {
+            @Override
+            public Pair<BigDecimal, BigDecimal> doInTransaction(final TransactionStatus status) {
+                return service.findQuantity(Collections.singletonList(warehouse), sku);
+            }
+        });
+    }
+
+}
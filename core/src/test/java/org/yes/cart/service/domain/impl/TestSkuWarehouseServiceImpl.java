@@ -31,6 +31,8 @@ import org.yes.cart.service.domain.WarehouseService;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -307,6 +309,28 @@ public class TestSkuWarehouseServiceImpl extends BaseCoreDBTestCase {
         assertEquals(new BigDecimal("0.00"), rez.getSecond());
     }
 
+    @Test
+    public void testInventoryChangeEvents() {
+        final Warehouse warehouse = warehouseService.findById(1L);
+        ProductSku productSku = productSkuService.findById(10004L); // 4 items on 1 warehouse
+        final Date start = new Date(System.currentTimeMillis() - 1000L);
+        skuWarehouseService.removeInventoryChangeEventsBefore(new Date(System.currentTimeMillis() + 60000L));
+        assertTrue(skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(start).isEmpty());
+
+        skuWarehouseService.credit(warehouse, productSku.getCode(), new BigDecimal("2.00"));
+        skuWarehouseService.reservation(warehouse, productSku.getCode(), new BigDecimal("1.00"));
+        skuWarehouseService.voidReservation(warehouse, productSku.getCode(), new BigDecimal("1.00"));
+        skuWarehouseService.debit(warehouse, productSku.getCode(), new BigDecimal("2.00"));
+
+        // four events are coalesced into one SKU
+        assertEquals(Collections.singletonList(productSku.getCode()), skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(start));
+        assertTrue(skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(new Date(System.currentTimeMillis() + 60000L)).isEmpty());
+
+        assertEquals(0, skuWarehouseService.removeInventoryChangeEventsBefore(start));
+        assertEquals(4, skuWarehouseService.removeInventoryChangeEventsBefore(new Date(System.currentTimeMillis() + 60000L)));
+        assertTrue(skuWarehouseService.findProductSkuForWhichInventoryChangeEventsAfter(start).isEmpty());
+    }
+
     @Test
     public void testFindProductSkusOnWarehouse() {
         //10000 product id - sobot has 4 skus on 1 warehouse
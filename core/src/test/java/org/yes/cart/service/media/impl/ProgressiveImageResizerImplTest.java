@@ -0,0 +1,107 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media.impl;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.yes.cart.service.media.ImageResizer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:02
+ */
+public class ProgressiveImageResizerImplTest {
+
+    private static final String SOURCE = "src/test/resources/imgresize/Fabric_0565-81206_a.jpg";
+
+    @Test
+    public void testResizeDown() throws Exception {
+
+        final BufferedImage source = ImageIO.read(new File(SOURCE));
+
+        final BufferedImage resized = new ProgressiveImageResizerImpl().resize(source, 40, 33);
+
+        assertEquals(40, resized.getWidth());
+        assertEquals(33, resized.getHeight());
+        assertEquals(BufferedImage.TYPE_INT_RGB, resized.getType());
+
+    }
+
+    @Test
+    public void testResizeUpAndDownWithAlpha() throws Exception {
+
+        final BufferedImage source = new BufferedImage(50, 400, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = source.createGraphics();
+        graphics.setPaint(new Color(255, 0, 0, 128));
+        graphics.fillRect(0, 0, 50, 400);
+        graphics.dispose();
+
+        final BufferedImage resized = new ProgressiveImageResizerImpl().resize(source, 120, 60);
+
+        assertEquals(120, resized.getWidth());
+        assertEquals(60, resized.getHeight());
+        // transparency must be preserved and not composed over previous scratch content
+        assertEquals(128, new Color(resized.getRGB(60, 30), true).getAlpha());
+
+    }
+
+    /**
+     * Progressive vs. getScaledInstance on 300KB jpeg, all allowed sizes 40..360, 50 iterations per size,
+     * single thread (JDK 8):
+     *
+     * ScaledInstanceImageResizerImpl: ~32-39ms per resize
+     * ProgressiveImageResizerImpl:    ~7-8ms per resize
+     */
+    @Ignore("Performance sampling only")
+    @Test
+    public void testResizePerformance() throws Exception {
+
+        final BufferedImage source = ImageIO.read(new File(SOURCE));
+        final int[] sizes = new int[] { 40, 50, 60, 80, 120, 160, 200, 240, 280, 360 };
+        final int iterations = 50;
+
+        for (final ImageResizer resizer : new ImageResizer[] { new ScaledInstanceImageResizerImpl(), new ProgressiveImageResizerImpl() }) {
+
+            // warm up
+            for (final int size : sizes) {
+                resizer.resize(source, size, size);
+            }
+
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                for (final int size : sizes) {
+                    resizer.resize(source, size, size);
+                }
+            }
+            final long time = System.currentTimeMillis() - start;
+            System.out.println(resizer.getClass().getSimpleName() + ", average resize (ms): "
+                    + ((double) time / (iterations * sizes.length)));
+
+        }
+
+    }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.media.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 19:40
+ */
+public class SingleFlightImageResizeCoordinatorImplTest {
+
+    private ThreadPoolTaskExecutor executor;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSameKeyResizedOnce() throws Exception {
+
+        final SingleFlightImageResizeCoordinatorImpl coordinator = new SingleFlightImageResizeCoordinatorImpl(executor);
+
+        final int requests = 10;
+        final AtomicInteger resizes = new AtomicInteger(0);
+        final CountDownLatch allWaiting = new CountDownLatch(1);
+        final byte[] image = new byte[] { 1, 2, 3 };
+
+        final Callable<byte[]> resize = new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                resizes.incrementAndGet();
+                allWaiting.await(5, TimeUnit.SECONDS);
+                return image;
+            }
+        };
+
+        final ExecutorService clients = Executors.newFixedThreadPool(requests);
+        final CompletionService<byte[]> results = new ExecutorCompletionService<byte[]>(clients);
+        for (int i = 0; i < requests; i++) {
+            results.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    return coordinator.resize("/imagevault/product/40x40/a.jpg", resize);
+                }
+            });
+        }
+
+        // once everyone joined the flight allow resize to complete
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (coordinator.getCoalescedCount() < requests - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        allWaiting.countDown();
+
+        for (int i = 0; i < requests; i++) {
+            assertArrayEquals(image, results.take().get());
+        }
+        clients.shutdown();
+
+        assertEquals(1, resizes.get());
+        assertEquals(1L, coordinator.getResizeCount());
+        assertEquals(requests - 1, coordinator.getCoalescedCount());
+        assertEquals(0, coordinator.getInFlightCount());
+        assertEquals(0, coordinator.getQueuedCount());
+        assertEquals(0, coordinator.getRunningCount());
+
+        // key is released after completion, so subsequent request resizes again
+        assertArrayEquals(image, coordinator.resize("/imagevault/product/40x40/a.jpg", resize));
+        assertEquals(2, resizes.get());
+
+    }
+
+    @Test
+    public void testRejectedWhenQueueIsFull() throws Exception {
+
+        final SingleFlightImageResizeCoordinatorImpl coordinator = new SingleFlightImageResizeCoordinatorImpl(executor);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Thread slow = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                coordinator.resize("a", new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws Exception {
+                        started.countDown();
+                        release.await(5, TimeUnit.SECONDS);
+                        return new byte[] { 1 };
+                    }
+                });
+            }
+        });
+        slow.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        final byte[] rejected = coordinator.resize("b", new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                fail("Must be rejected");
+                return null;
+            }
+        });
+
+        assertEquals(0, rejected.length);
+        assertEquals(1L, coordinator.getRejectedCount());
+        assertEquals(1, coordinator.getInFlightCount()); // only "a"
+
+        release.countDown();
+        slow.join(5000L);
+
+        assertEquals(0, coordinator.getInFlightCount());
+        assertEquals(0, coordinator.getQueuedCount());
+
+    }
+
+    @Test
+    public void testWaitTimeoutAndFailure() throws Exception {
+
+        final SingleFlightImageResizeCoordinatorImpl coordinator = new SingleFlightImageResizeCoordinatorImpl(executor);
+        coordinator.setWaitTimeoutMs(50L);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final byte[] timedOut = coordinator.resize("a", new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                release.await(5, TimeUnit.SECONDS);
+                throw new IllegalStateException("bad image");
+            }
+        });
+
+        assertEquals(0, timedOut.length);
+        assertEquals(1L, coordinator.getTimeoutCount());
+
+        release.countDown();
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (coordinator.getInFlightCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+
+        assertEquals(0, coordinator.getInFlightCount());
+        assertEquals(1L, coordinator.getFailedCount());
+        assertEquals(1L, coordinator.getResizeCount());
+
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.web.service.ws.impl;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.config.Configuration;
+import org.hibernate.cache.spi.CacheKey;
+import org.hibernate.type.LongType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.ehcache.EhCacheCacheManager;
+import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.web.service.ws.CacheDirector;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 14:20
+ */
+public class CacheDirectorImplTest {
+
+    private static final String SHOP = "org.yes.cart.domain.entity.impl.ShopEntity";
+    private static final String SHOP_URL = "org.yes.cart.domain.entity.impl.ShopUrlEntity";
+    private static final String SHOP_URLS = "org.yes.cart.domain.entity.impl.ShopEntity.shopUrl";
+
+    private CacheManager ehcache;
+    private CacheDirectorImpl cacheDirector;
+
+    @Before
+    public void setUp() throws Exception {
+
+        final Configuration configuration = new Configuration();
+        configuration.setName("cacheDirectorImplTest");
+        configuration.setUpdateCheck(false);
+        for (final String region : new String[] { SHOP, SHOP_URL, SHOP_URLS, "query.shop" }) {
+            configuration.addCache(new CacheConfiguration(region, 100));
+        }
+        ehcache = CacheManager.create(configuration);
+
+        final EhCacheCacheManager cacheManager = new EhCacheCacheManager(ehcache);
+        cacheManager.afterPropertiesSet();
+
+        final Set<Pair<String, String>> shopAll = new HashSet<Pair<String, String>>(Arrays.asList(
+                new Pair<String, String>(SHOP, "entity"),
+                new Pair<String, String>(SHOP_URL, "entity"),
+                new Pair<String, String>(SHOP_URLS, "all"),
+                new Pair<String, String>("query.shop", "all")
+        ));
+        final Map<String, Set<Pair<String, String>>> shopCUD = new HashMap<String, Set<Pair<String, String>>>();
+        shopCUD.put(CacheDirector.EntityOperation.UPDATE, shopAll);
+        final Map<String, Map<String, Set<Pair<String, String>>>> config = new HashMap<String, Map<String, Set<Pair<String, String>>>>();
+        config.put("ShopEntity", shopCUD);
+        config.put("ShopUrlEntity", shopCUD);
+
+        cacheDirector = new CacheDirectorImpl();
+        cacheDirector.setCacheManager(cacheManager);
+        cacheDirector.setEntityOperationCache(config);
+
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ehcache.shutdown();
+    }
+
+    @Test
+    public void testOnCacheableChangeEntityEvictsOnlyChangedEntity() throws Exception {
+
+        final Cache shops = cacheDirector.getCacheManager().getCache(SHOP);
+        final Cache urls = cacheDirector.getCacheManager().getCache(SHOP_URL);
+        final Cache shopUrls = cacheDirector.getCacheManager().getCache(SHOP_URLS);
+        final Cache query = cacheDirector.getCacheManager().getCache("query.shop");
+
+        shops.put(key(10L, SHOP), "shop10");
+        shops.put(key(20L, SHOP), "shop20");
+        urls.put(key(10L, SHOP_URL), "url10");
+        shopUrls.put(key(10L, SHOP_URLS), "urls of shop10");
+        query.put("SHOP.BY.URL", "shop10");
+
+        assertEquals(4, cacheDirector.onCacheableChange(CacheDirector.EntityOperation.UPDATE, "ShopEntity", 10L));
+
+        assertNull(shops.get(key(10L, SHOP)));
+        assertNotNull(shops.get(key(20L, SHOP)));
+        // same pk, but different entity, so must stay
+        assertNotNull(urls.get(key(10L, SHOP_URL)));
+        assertNull(shopUrls.get(key(10L, SHOP_URLS)));
+        assertNull(query.get("SHOP.BY.URL"));
+
+        assertEquals(4, cacheDirector.onCacheableChange(CacheDirector.EntityOperation.UPDATE, "ShopUrlEntity", 10L));
+
+        assertNull(urls.get(key(10L, SHOP_URL)));
+        assertNotNull(shops.get(key(20L, SHOP)));
+
+        assertEquals(0, cacheDirector.onCacheableChange(CacheDirector.EntityOperation.DELETE, "ShopUrlEntity", 10L));
+
+    }
+
+    private CacheKey key(final Long pk, final String entityOrRole) {
+        return new CacheKey(pk, LongType.INSTANCE, entityOrRole, null, null);
+    }
+
+}
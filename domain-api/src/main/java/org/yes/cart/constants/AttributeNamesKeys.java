@@ -66,17 +66,9 @@ public interface AttributeNamesKeys {
          */
         String JOB_REINDEX_PRODUCT_BATCH_SIZE = "JOB_REINDEX_PRODUCT_BATCH_SIZE";
         /**
-         * Delta check size for inventory changed processor.
+         * Retention of inventory change events (in hours) for inventory changed processor.
          */
-        String JOB_PRODUCT_INVENTORY_UPDATE_DELTA = "JOB_PRODINVUP_DELTA";
-        /**
-         * Delta check delay for inventory changed processor.
-         */
-        String JOB_PRODUCT_INVENTORY_UPDATE_DELTA_DELAY_SECONDS = "JOB_PRODINVUP_DELTA_S";
-        /**
-         * Full reindex size for inventory changed processor.
-         */
-        String JOB_PRODUCT_INVENTORY_FULL_THRESHOLD = "JOB_PRODINVUP_FULL";
+        String JOB_PRODUCT_INVENTORY_EVENT_RETENTION_HOURS = "JOB_PRODINVUP_RETENTION_H";
         /**
          * Timeout for backdoor WS call.
          */
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.dao;
+
+/**
+ * Names of fetch profiles defined in hibernate mapping. Profile defines which associations
+ * are join fetched for a particular use case (see {@link GenericDAO#findById(java.io.Serializable, String)}
+ * and {@link GenericDAO#findByCriteria(String, CriteriaTuner, org.hibernate.criterion.Criterion...)}).
+ * <p/>
+ * Export profile only joins single valued associations and is safe for paged criteria, detail
+ * profiles join fetch one collection and are intended for load by primary key or for single result
+ * criteria with distinct root entity transformer.
+ * <p/>
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:40
+ */
+public interface FetchProfiles {
+
+    /**
+     * Product with type, brand and SKU (product page, see ProductService#getProductById).
+     */
+    String PRODUCT_DETAIL = "product-detail";
+
+    /**
+     * Order with shop, customer and deliveries (order lookup by reference for state transitions,
+     * see CustomerOrderService#findByGuid and CustomerOrderService#findByOrderNumber).
+     */
+    String ORDER_DETAIL = "order-detail";
+
+    /**
+     * Order with shop, customer and addresses (order auto export and admin order lists),
+     * lines and deliveries are loaded by subselect.
+     */
+    String ORDER_EXPORT = "order-export";
+
+}
@@ -18,6 +18,7 @@ package org.yes.cart.dao;
 
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Order;
+import org.yes.cart.domain.misc.Pair;
 
 import java.io.Serializable;
 import java.util.List;
@@ -68,6 +69,17 @@ public interface GenericDAO<T, PK extends Serializable> {
      */
     T findById(PK id);
 
+    /**
+     * Find entity by Id using named fetch profile, which defines associations
+     * that are join fetched for particular use case.
+     *
+     * @param id           primary key
+     * @param fetchProfile fetch profile name (see {@link FetchProfiles})
+     *
+     * @return instance of T or null if not found
+     */
+    T findById(PK id, String fetchProfile);
+
     /**
      * Get all entities.
      *
@@ -82,6 +94,24 @@ public interface GenericDAO<T, PK extends Serializable> {
      */
     ResultsIterator<T> findAllIterator();
 
+    /**
+     * Get min and max primary key of all entities. This is used to split the data
+     * into primary key ranges (e.g. for partitioned processing).
+     *
+     * @return min and max primary key, or null if there are no entities
+     */
+    Pair<PK, PK> findPrimaryKeyRange();
+
+    /**
+     * Get entities iterator for given primary key range (scroll results as opposed to load all)
+     *
+     * @param fromId primary key from (inclusive)
+     * @param toId   primary key to (inclusive)
+     *
+     * @return scrollable results iterator
+     */
+    ResultsIterator<T> findAllIterator(PK fromId, PK toId);
+
     /**
      * Find entities, that mach given example.
      *
@@ -319,6 +349,18 @@ public interface GenericDAO<T, PK extends Serializable> {
                            Criterion[] criterion,
                            Order[] order);
 
+    /**
+     * Scroll entities by criteria. Iterator must be used within transaction and closed
+     * if it is not fully consumed.
+     *
+     * @param criterion given criteria
+     * @param order sorting
+     *
+     * @return iterator of found entities.
+     */
+    ResultsIterator<T> findByCriteriaIterator(Criterion[] criterion,
+                                              Order[] order);
+
     /**
      * Find count by criteria.
      *
@@ -371,6 +413,19 @@ public interface GenericDAO<T, PK extends Serializable> {
                            Criterion[] criterion,
                            Order[] order);
 
+    /**
+     * Find entities by criteria using named fetch profile. Profiles that join fetch collections
+     * produce duplicate root entities, so these should only be used with distinct root entity
+     * result transformer set by criteria tuner and without paging (see {@link FetchProfiles}).
+     *
+     * @param fetchProfile  fetch profile name
+     * @param criteriaTuner optional criteria tuner.
+     * @param criterion     given criterias
+     *
+     * @return list of found entities.
+     */
+    List<T> findByCriteria(String fetchProfile, CriteriaTuner criteriaTuner, Criterion... criterion);
+
     /**
      * Find entities by criteria.
      *
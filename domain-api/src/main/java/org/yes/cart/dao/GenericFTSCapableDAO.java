@@ -19,6 +19,7 @@ package org.yes.cart.dao;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.SearchAfterPage;
 
 import java.io.Serializable;
 import java.util.List;
@@ -107,6 +108,27 @@ public interface GenericFTSCapableDAO<T, PK extends Serializable, FTQ> extends G
                                                  boolean reverse,
                                                  String ... fields);
 
+    /**
+     * Get the full text search result page that follows the given cursor ("search after" paging).
+     * Unlike offset paging the cost of retrieving a page does not depend on how deep the page is.
+     *
+     * @param query         lucene search query
+     * @param cursor        opaque cursor from previous page (see {@link SearchAfterPage#getNextCursor()}),
+     *                      null for first page. Cursor that does not match the query is treated as offset
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param fields        list of fields for projections
+     *
+     * @return page of found entities
+     */
+    SearchAfterPage fullTextSearchAfter(FTQ query,
+                                        String cursor,
+                                        int maxResults,
+                                        String sortFieldName,
+                                        boolean reverse,
+                                        String ... fields);
+
     /**
      * Get the full text search result. The map returned by this method should be a single use only.
      * i.e. DO NOT CACHE this method. There are no benefits to this as final FilterNavigationRecord's are already
@@ -68,6 +68,13 @@ public interface ProductSearchResultPageDTO extends Serializable {
      */
     boolean isSortDesc();
 
+    /**
+     * Opaque cursor for the next page (see {@link org.yes.cart.search.dto.SearchAfterPage#getNextCursor()}).
+     *
+     * @return cursor or null if this is the last page or page was not retrieved using cursor paging
+     */
+    String getNextCursor();
+
     /**
      * Creates copy of this object
      *
@@ -35,6 +35,7 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
     private final int totalHits;
     private final String sortField;
     private final boolean sortDesc;
+    private final String nextCursor;
 
     public ProductSearchResultPageDTOImpl(final List<ProductSearchResultDTO> results,
                                           final int first,
@@ -42,12 +43,23 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
                                           final int totalHits,
                                           final String sortField,
                                           final boolean sortDesc) {
+        this(results, first, pageSize, totalHits, sortField, sortDesc, null);
+    }
+
+    public ProductSearchResultPageDTOImpl(final List<ProductSearchResultDTO> results,
+                                          final int first,
+                                          final int pageSize,
+                                          final int totalHits,
+                                          final String sortField,
+                                          final boolean sortDesc,
+                                          final String nextCursor) {
         this.results = results;
         this.first = first;
         this.pageSize = pageSize;
         this.totalHits = totalHits;
         this.sortField = sortField;
         this.sortDesc = sortDesc;
+        this.nextCursor = nextCursor;
     }
 
     /** {@inheritDoc} */
@@ -80,12 +92,17 @@ public class ProductSearchResultPageDTOImpl implements ProductSearchResultPageDT
         return sortDesc;
     }
 
+    /** {@inheritDoc} */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     /** {@inheritDoc} */
     public ProductSearchResultPageDTO copy() {
         final List<ProductSearchResultDTO> copyResults = new ArrayList<ProductSearchResultDTO>();
         for (final ProductSearchResultDTO result : results) {
             copyResults.add(result.copy());
         }
-        return new ProductSearchResultPageDTOImpl(copyResults, first, pageSize, totalHits, sortField, sortDesc);
+        return new ProductSearchResultPageDTOImpl(copyResults, first, pageSize, totalHits, sortField, sortDesc, nextCursor);
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity;
+
+/**
+ * Named counter that is used to allocate blocks of sequence numbers (e.g. order numbers)
+ * to cluster nodes.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 16:30
+ */
+public interface SequenceCounter extends Identifiable {
+
+    /**
+     * Get pk value.
+     *
+     * @return pk value.
+     */
+    long getSequenceCounterId();
+
+    /**
+     * Set pk value.
+     *
+     * @param sequenceCounterId pk value.
+     */
+    void setSequenceCounterId(long sequenceCounterId);
+
+    /**
+     * Unique counter code.
+     *
+     * @return code
+     */
+    String getCode();
+
+    /**
+     * Unique counter code.
+     *
+     * @param code code
+     */
+    void setCode(String code);
+
+    /**
+     * Last allocated value.
+     *
+     * @return last allocated value
+     */
+    long getCounter();
+
+    /**
+     * Last allocated value.
+     *
+     * @param counter last allocated value
+     */
+    void setCounter(long counter);
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity;
+
+import java.util.Date;
+
+/**
+ * Inventory change event (outbox record) that is written in the same transaction as
+ * the {@link SkuWarehouse} modification. Consumers (e.g. full text index on each storefront
+ * node) read these events in order to propagate changes without scanning inventory.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 14:05
+ */
+public interface SkuWarehouseChange extends Identifiable {
+
+    /**
+     * Get pk value.
+     *
+     * @return pk value.
+     */
+    long getSkuWarehouseChangeId();
+
+    /**
+     * Set pk value.
+     *
+     * @param skuWarehouseChangeId pk value.
+     */
+    void setSkuWarehouseChangeId(long skuWarehouseChangeId);
+
+    /**
+     * SKU code for which inventory had changed.
+     *
+     * @return SKU code
+     */
+    String getSkuCode();
+
+    /**
+     * SKU code for which inventory had changed.
+     *
+     * @param skuCode SKU code
+     */
+    void setSkuCode(String skuCode);
+
+    /**
+     * Time when change occurred.
+     *
+     * @return time of change
+     */
+    Date getCreatedTimestamp();
+
+    /**
+     * Time when change occurred.
+     *
+     * @param createdTimestamp time of change
+     */
+    void setCreatedTimestamp(Date createdTimestamp);
+
+}
@@ -18,6 +18,7 @@ package org.yes.cart.search.dao;
 
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.SearchAfterPage;
 
 import java.io.Serializable;
 import java.util.List;
@@ -77,6 +78,27 @@ public interface GenericFTS<PK extends Serializable, FTQ> {
                                                  boolean reverse,
                                                  String... fields);
 
+    /**
+     * Get the full text search result page that follows the given cursor ("search after" paging).
+     * Unlike offset paging the cost of retrieving a page does not depend on how deep the page is.
+     *
+     * @param query         lucene search query
+     * @param cursor        opaque cursor from previous page (see {@link SearchAfterPage#getNextCursor()}),
+     *                      null for first page. Cursor that does not match the query is treated as offset
+     * @param maxResults    size of result set
+     * @param sortFieldName optional  sort field name
+     * @param reverse       reverse the search result
+     * @param fields        list of fields for projections
+     *
+     * @return page of found entities
+     */
+    SearchAfterPage fullTextSearchAfter(FTQ query,
+                                        String cursor,
+                                        int maxResults,
+                                        String sortFieldName,
+                                        boolean reverse,
+                                        String... fields);
+
     /**
      * Get the full text search result. The map returned by this method should be a single use only.
      * i.e. DO NOT CACHE this method. There are no benefits to this as final FilterNavigationRecord's are already
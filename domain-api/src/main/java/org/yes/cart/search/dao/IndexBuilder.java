@@ -51,6 +51,14 @@ public interface IndexBuilder<T, PK extends Serializable> {
          */
         long getLastIndexCount();
 
+        /**
+         * Last index count per partition (either in progress or completed). Non partitioned
+         * full reindex reports single partition.
+         *
+         * @return count for each partition
+         */
+        long[] getLastPartitionIndexCount();
+
     }
 
     /**
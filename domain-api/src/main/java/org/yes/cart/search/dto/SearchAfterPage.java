@@ -0,0 +1,59 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Page of full text search projections retrieved using cursor ("search after") paging.
+ *
+ * User: denispavlov
+ * Date: 18/10/2017
+ * Time: 16:05
+ */
+public interface SearchAfterPage extends Serializable {
+
+    /**
+     * Projections for hits on this page.
+     *
+     * @return field values in the same order as requested fields
+     */
+    List<Object[]> getItems();
+
+    /**
+     * Offset for first item.
+     *
+     * @return offset
+     */
+    int getFirst();
+
+    /**
+     * Count of total possible results.
+     *
+     * @return total results count
+     */
+    int getTotalHits();
+
+    /**
+     * Opaque cursor to retrieve next page.
+     *
+     * @return cursor or null if this is the last page
+     */
+    String getNextCursor();
+
+}
@@ -19,7 +19,9 @@ package org.yes.cart.service.domain;
 import org.yes.cart.domain.entity.SeoImage;
 import org.yes.cart.service.media.MediaFileNameStrategy;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 /**
  * User: Igor Azarny iazarny@yahoo.com
@@ -73,6 +75,20 @@ public interface ImageService extends GenericService<SeoImage> {
     byte[] resizeImage(String original, String resized, String width, String height, boolean cropToFit);
 
 
+    /**
+     * Resolve file that already holds image in requested size, so that it can be streamed
+     * to client directly without loading it into memory.
+     *
+     * @param original path to original image
+     * @param resized  path to resized image (or null if original is requested)
+     *
+     * @return file to stream or null if image needs to be resized first (i.e. resized
+     *         image does not exist or is older than original) or if image storage is not
+     *         file system based
+     */
+    File resolveImageFile(String original, String resized);
+
+
     /**
      * Resize given file to requested width and height
      *
@@ -108,6 +124,13 @@ public interface ImageService extends GenericService<SeoImage> {
      */
     boolean isSizeAllowed(String width, String height);
 
+    /**
+     * Get all sizes allowed for resizing.
+     *
+     * @return sizes in width x height format, for example 50x60
+     */
+    List<String> getAllowedSizes();
+
     /**
      * Get the image name strategy.
      *
@@ -255,6 +255,23 @@ public interface ProductService extends GenericService<Product> {
                                                                 String sortFieldName,
                                                                 boolean reverse);
 
+    /**
+     * Get the all products , that match the given query using cursor paging. Cost of retrieving
+     * a page does not depend on how deep the page is, which makes this suitable for deep paging.
+     *
+     * @param navigationContext navigation context
+     * @param cursor            cursor from previous page (see {@link ProductSearchResultPageDTO#getNextCursor()}), null for first page
+     * @param maxResults        quantity results to return
+     * @param sortFieldName     sort field name
+     * @param reverse           reverse the search result if true
+     * @return list of products
+     */
+    ProductSearchResultPageDTO getProductSearchResultDTOByCursor(NavigationContext navigationContext,
+                                                                 String cursor,
+                                                                 int maxResults,
+                                                                 String sortFieldName,
+                                                                 boolean reverse);
+
     /**
      * Create filter navigation records counts.
      *
@@ -3,6 +3,7 @@ package org.yes.cart.service.domain;
 import org.yes.cart.shoppingcart.ShoppingCart;
 
 import java.math.BigDecimal;
+import java.util.Map;
 
 /**
  * Calculator allows to perform complex calculation that are usually done in cart calculation
@@ -61,4 +62,18 @@ public interface ShoppingCartCalculator {
                               String skuCode,
                               BigDecimal minimalPrice);
 
+    /**
+     * Calculate price models for a number of SKU in one pass. This is equivalent to invoking
+     * {@link #calculatePrice(ShoppingCart, String, BigDecimal)} for each SKU, however calculation context
+     * (customer, taxes configuration, promotion context) is resolved only once for all SKU, which is
+     * the preferred way of calculating prices for listings.
+     *
+     * @param currentCart current cart (to provide additional data such as location)
+     * @param minimalPrices SKU code to price determined by price service
+     *
+     * @return price models by SKU code (in the same order as minimal prices)
+     */
+    Map<String, PriceModel> calculatePrices(ShoppingCart currentCart,
+                                            Map<String, BigDecimal> minimalPrices);
+
 }
@@ -166,4 +166,23 @@ public interface SkuWarehouseService extends GenericService<SkuWarehouse> {
      */
     List<String> findProductSkuForWhichInventoryChangedAfter(Date lastUpdate);
 
+    /**
+     * Find SKU codes for which inventory change events were recorded since given date. Each SKU code
+     * is returned only once irrespective of how many changes were made to its inventory.
+     *
+     * @param lastUpdate time of the change event (inclusive), null for all retained events
+     *
+     * @return list of SKU codes
+     */
+    List<String> findProductSkuForWhichInventoryChangeEventsAfter(Date lastUpdate);
+
+    /**
+     * Remove inventory change events that are older than given date.
+     *
+     * @param before time of the change event (exclusive)
+     *
+     * @return number of removed events
+     */
+    int removeInventoryChangeEventsBefore(Date before);
+
 }
@@ -16,6 +16,7 @@
 
 package org.yes.cart.service.dto;
 
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.dto.InventoryDTO;
 import org.yes.cart.domain.dto.WarehouseDTO;
 import org.yes.cart.exception.UnableToCreateInstanceException;
@@ -60,6 +61,18 @@ public interface DtoInventoryService {
      */
     List<InventoryDTO> findBy(long warehouseId, String filter, int page, int pageSize) throws UnmappedInterfaceException, UnableToCreateInstanceException;
 
+    /**
+     * Inventory by filter ordered by SKU code, quantity and id. Records are loaded while iterator
+     * is consumed, so this method must be called within transaction and iterator must be closed
+     * by the caller.
+     *
+     * @param warehouseId warehouse id
+     * @param filter criteria
+     *
+     * @return inventory
+     */
+    ResultsIterator<InventoryDTO> findByIterator(long warehouseId, String filter);
+
     /**
      * Create or update inventory object.
      *
@@ -23,7 +23,10 @@ package org.yes.cart.service.order;
  */
 public interface OrderEventHandler {
 
-    Object syncMonitor = new Object();
+    /**
+     * Monitors for order transitions, use {@code synchronized (syncMonitor.forEvent(orderEvent))}.
+     */
+    OrderEventSyncMonitor syncMonitor = new OrderEventSyncMonitor(1024);
 
     /**
      * Event handler.
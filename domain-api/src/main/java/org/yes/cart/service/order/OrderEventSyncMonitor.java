@@ -0,0 +1,89 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.order;
+
+import org.yes.cart.domain.entity.CustomerOrder;
+import org.yes.cart.domain.entity.CustomerOrderDelivery;
+
+/**
+ * Striped monitors for order state transitions. Transitions of the same order (including all its
+ * deliveries) always use the same monitor, so they are serialised, whereas transitions of unrelated
+ * orders use different monitors (unless they collide on the same stripe) and can proceed in parallel.
+ * This is important since transitions include inventory reservation and payment gateway round trips.
+ * <p/>
+ * Monitors are JVM wide. Concurrent modification of the same order on different nodes is guarded
+ * by optimistic locking (version) of the order entities.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:20
+ */
+public final class OrderEventSyncMonitor {
+
+    private final Object[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of stripes (rounded up to power of two)
+     */
+    public OrderEventSyncMonitor(final int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.stripes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Object();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get monitor for order event.
+     *
+     * @param orderEvent order event
+     *
+     * @return monitor to synchronise on
+     */
+    public Object forEvent(final OrderEvent orderEvent) {
+        CustomerOrder order = orderEvent.getCustomerOrder();
+        if (order == null) {
+            final CustomerOrderDelivery delivery = orderEvent.getCustomerOrderDelivery();
+            if (delivery != null) {
+                order = delivery.getCustomerOrder();
+            }
+        }
+        return forOrder(order != null ? order.getOrdernum() : null);
+    }
+
+    /**
+     * Get monitor for order number.
+     *
+     * @param ordernum order number
+     *
+     * @return monitor to synchronise on
+     */
+    public Object forOrder(final String ordernum) {
+        if (ordernum == null) {
+            return stripes[0];
+        }
+        final int hash = ordernum.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.service.order;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.After;
+import org.junit.Test;
+import org.yes.cart.domain.entity.CustomerOrder;
+import org.yes.cart.domain.entity.CustomerOrderDelivery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulates order transitions on 8 threads. Unrelated orders must all be inside their monitors at
+ * the same time, while events of the same order must never overlap.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:45
+ */
+public class OrderEventSyncMonitorTest {
+
+    private static final int THREADS = 8;
+
+    private final Mockery context = new JUnit4Mockery();
+
+    @After
+    public void tearDown() throws Exception {
+        context.assertIsSatisfied();
+    }
+
+    @Test
+    public void testForEvent() throws Exception {
+
+        final OrderEventSyncMonitor monitor = new OrderEventSyncMonitor(16);
+
+        final OrderEvent orderEvent = context.mock(OrderEvent.class, "orderEvent");
+        final OrderEvent deliveryEvent = context.mock(OrderEvent.class, "deliveryEvent");
+        final OrderEvent emptyEvent = context.mock(OrderEvent.class, "emptyEvent");
+        final CustomerOrder order = context.mock(CustomerOrder.class, "order");
+        final CustomerOrderDelivery delivery = context.mock(CustomerOrderDelivery.class, "delivery");
+
+        context.checking(new Expectations() {{
+            allowing(orderEvent).getCustomerOrder(); will(returnValue(order));
+            allowing(deliveryEvent).getCustomerOrder(); will(returnValue(null));
+            allowing(deliveryEvent).getCustomerOrderDelivery(); will(returnValue(delivery));
+            allowing(delivery).getCustomerOrder(); will(returnValue(order));
+            allowing(emptyEvent).getCustomerOrder(); will(returnValue(null));
+            allowing(emptyEvent).getCustomerOrderDelivery(); will(returnValue(null));
+            allowing(order).getOrdernum(); will(returnValue("161018-1"));
+        }});
+
+        assertSame(monitor.forOrder("161018-1"), monitor.forEvent(orderEvent));
+        assertSame(monitor.forOrder("161018-1"), monitor.forEvent(deliveryEvent));
+        assertSame(monitor.forOrder(null), monitor.forEvent(emptyEvent));
+
+    }
+
+    @Test
+    public void testUnrelatedOrdersProceedInParallel() throws Exception {
+
+        final OrderEventSyncMonitor monitor = new OrderEventSyncMonitor(1024);
+
+        final String[] orders = new String[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            orders[i] = "161018-" + (1000 + i);
+            for (int j = 0; j < i; j++) {
+                assertNotSame("Test orders must not share stripe", monitor.forOrder(orders[j]), monitor.forOrder(orders[i]));
+            }
+        }
+
+        // barrier only opens if all threads are inside their monitors at the same time
+        final CyclicBarrier allInside = new CyclicBarrier(THREADS);
+
+        final List<Throwable> failures = runTransitions(monitor, orders, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                allInside.await(10, TimeUnit.SECONDS);
+                return null;
+            }
+        });
+
+        assertTrue("Unrelated orders must not wait for each other: " + failures, failures.isEmpty());
+
+    }
+
+    @Test
+    public void testSameOrderIsSerialised() throws Exception {
+
+        final OrderEventSyncMonitor monitor = new OrderEventSyncMonitor(1024);
+
+        final String[] orders = new String[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            orders[i] = "161018-1000";
+        }
+
+        final AtomicInteger inside = new AtomicInteger(0);
+        final AtomicBoolean overlapped = new AtomicBoolean(false);
+
+        final List<Throwable> failures = runTransitions(monitor, orders, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                if (inside.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                Thread.sleep(10L); // give other threads chance to enter if monitor does not serialise
+                inside.decrementAndGet();
+                return null;
+            }
+        });
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertFalse("Events of the same order must be serialised", overlapped.get());
+
+    }
+
+    private List<Throwable> runTransitions(final OrderEventSyncMonitor monitor,
+                                           final String[] orders,
+                                           final Callable<Void> transition) throws Exception {
+
+        final ExecutorService executor = Executors.newFixedThreadPool(orders.length);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(orders.length);
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        for (final String ordernum : orders) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        synchronized (monitor.forOrder(ordernum)) {
+                            transition.call();
+                        }
+                    } catch (Throwable exp) {
+                        failures.add(exp);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+
+        executor.shutdown();
+
+        return failures;
+
+    }
+
+}
@@ -31,3 +31,63 @@
 
 alter table TPRODUCTTYPE add column DISPLAYNAME longtext;
 -- alter table TPRODUCTTYPE add column DISPLAYNAME varchar(4000);
+
+--
+-- Background pre-generation of resized image variants
+--
+
+INSERT INTO TATTRIBUTE (ATTRIBUTE_ID, GUID, CODE, MANDATORY, VAL, NAME, DESCRIPTION, ETYPE_ID, ATTRIBUTEGROUP_ID, STORE, SEARCH, SEARCHPRIMARY, NAV)
+  VALUES (  11216,  'JOB_IMAGEVARIANTS_PAUSE', 'JOB_IMAGEVARIANTS_PAUSE',  0,  NULL,  'Job\\Image Variants Pre-generation: pause',
+    'Pause pre-generation of resized image variants in local image vault',  1008, 1000, 0, 0, 0, 0);
+
+--
+-- Event driven inventory to index propagation
+--
+
+create table TSKUWAREHOUSECHANGE (
+    SKUWAREHOUSECHANGE_ID bigint not null auto_increment,
+    SKU_CODE varchar(255) not null,
+    CREATED_TIMESTAMP datetime not null,
+    primary key (SKUWAREHOUSECHANGE_ID)
+) comment='Inventory change events (outbox) for propagation of inventory changes to index' ;
+
+--    create  table TSKUWAREHOUSECHANGE (
+--        SKUWAREHOUSECHANGE_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+--        SKU_CODE varchar(255) not null,
+--        CREATED_TIMESTAMP timestamp not null,
+--        primary key (SKUWAREHOUSECHANGE_ID)
+--    );
+
+create index SKUWAREHOUSECHANGE_CREATED on TSKUWAREHOUSECHANGE (CREATED_TIMESTAMP);
+
+DELETE FROM TSYSTEMATTRVALUE WHERE CODE = 'JOB_PRODINVUP_DELTA';
+DELETE FROM TATTRIBUTE WHERE CODE = 'JOB_PRODINVUP_DELTA';
+DELETE FROM TSYSTEMATTRVALUE WHERE CODE = 'JOB_PRODINVUP_FULL';
+DELETE FROM TATTRIBUTE WHERE CODE = 'JOB_PRODINVUP_FULL';
+DELETE FROM TSYSTEMATTRVALUE WHERE CODE = 'JOB_PRODINVUP_DELTA_S';
+DELETE FROM TATTRIBUTE WHERE CODE = 'JOB_PRODINVUP_DELTA_S';
+
+INSERT INTO TATTRIBUTE (ATTRIBUTE_ID, GUID, CODE, MANDATORY, VAL, NAME, DESCRIPTION, ETYPE_ID, ATTRIBUTEGROUP_ID, STORE, SEARCH, SEARCHPRIMARY, NAV)
+  VALUES (  11217,  'JOB_PRODINVUP_RETENTION_H', 'JOB_PRODINVUP_RETENTION_H',  0,  NULL,  'Job\\Inventory Change Detection: change events retention in hours',
+    'Number of hours inventory change events are kept for propagation to index. Default is 24',  1006, 1000, 0, 0, 0, 0);
+
+--
+-- Cluster safe order number generator
+--
+
+create table TSEQUENCECOUNTER (
+    SEQUENCECOUNTER_ID bigint not null auto_increment,
+    CODE varchar(64) not null,
+    COUNTER bigint not null,
+    primary key (SEQUENCECOUNTER_ID)
+) comment='Named counters for allocation of sequence number blocks to cluster nodes' ;
+
+--    create  table TSEQUENCECOUNTER (
+--        SEQUENCECOUNTER_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+--        CODE varchar(64) not null,
+--        COUNTER bigint not null,
+--        primary key (SEQUENCECOUNTER_ID)
+--    );
+
+alter table TSEQUENCECOUNTER add constraint SEQUENCECOUNTER_CODE unique (CODE);
+
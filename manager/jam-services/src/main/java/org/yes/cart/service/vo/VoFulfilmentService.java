@@ -16,6 +16,7 @@
 
 package org.yes.cart.service.vo;
 
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.vo.*;
 
 import java.util.List;
@@ -120,6 +121,18 @@ public interface VoFulfilmentService {
      */
     List<VoInventory> getFilteredInventory(long centreId, String filter, int max) throws Exception;
 
+    /**
+     * Get all inventory for given fulfilment centre ordered by SKU code, quantity and id.
+     * Must be called within transaction, iterator must be closed by the caller.
+     *
+     * @param centreId centre pk
+     * @param filter filter
+     * @return results
+     *
+     * @throws Exception
+     */
+    ResultsIterator<VoInventory> getFilteredInventoryIterator(long centreId, String filter) throws Exception;
+
     /**
      * Get inventory by id.
      *
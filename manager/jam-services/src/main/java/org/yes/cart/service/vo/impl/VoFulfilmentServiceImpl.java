@@ -18,6 +18,7 @@ package org.yes.cart.service.vo.impl;
 
 import org.apache.commons.collections.MapUtils;
 import org.springframework.security.access.AccessDeniedException;
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.dto.InventoryDTO;
 import org.yes.cart.domain.dto.ShopDTO;
 import org.yes.cart.domain.dto.WarehouseDTO;
@@ -261,6 +262,43 @@ public class VoFulfilmentServiceImpl implements VoFulfilmentService {
 
     }
 
+    @Override
+    public ResultsIterator<VoInventory> getFilteredInventoryIterator(final long centreId, final String filter) throws Exception {
+
+        if (federationFacade.isManageable(centreId, WarehouseDTO.class)) {
+
+            final ResultsIterator<InventoryDTO> dtos = dtoInventoryService.findByIterator(centreId, filter);
+            final VoAssemblySupport.VoAssembler<VoInventory, InventoryDTO> asm = voAssemblySupport.with(VoInventory.class, InventoryDTO.class);
+
+            return new ResultsIterator<VoInventory>() {
+
+                @Override
+                public boolean hasNext() {
+                    return dtos.hasNext();
+                }
+
+                @Override
+                public VoInventory next() {
+                    return asm.assembleVo(new VoInventory(), dtos.next());
+                }
+
+                @Override
+                public void remove() {
+                    dtos.remove();
+                }
+
+                @Override
+                public void close() {
+                    dtos.close();
+                }
+            };
+
+        } else {
+            throw new AccessDeniedException("Access is denied");
+        }
+
+    }
+
     @Override
     public VoInventory getInventoryById(final long id) throws Exception {
 
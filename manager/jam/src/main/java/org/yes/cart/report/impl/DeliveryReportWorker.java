@@ -93,9 +93,9 @@ public class DeliveryReportWorker implements ReportWorker {
     /**
      * {@inheritDoc}
      */
-    public Map<String, Object> getEnhancedParameterValues(final List<Object> result, final Map<String, Object> currentSelection) {
-        if (CollectionUtils.isNotEmpty(result)) {
-            final long shopId = ((CustomerOrder) ((Pair) result.get(0)).getFirst()).getShop().getShopId();
+    public Map<String, Object> getEnhancedParameterValues(final Object result, final Map<String, Object> currentSelection) {
+        if (result instanceof List && CollectionUtils.isNotEmpty((List) result)) {
+            final long shopId = ((CustomerOrder) ((Pair) ((List) result).get(0)).getFirst()).getShop().getShopId();
             final Shop shop = shopService.getById(shopId);
             if (shop != null) {
                 final Map<String, Object> enhanced = new HashMap<String, Object>(currentSelection);
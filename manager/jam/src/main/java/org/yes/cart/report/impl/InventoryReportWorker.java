@@ -18,7 +18,6 @@ package org.yes.cart.report.impl;
 
 import org.apache.commons.lang.math.NumberUtils;
 import org.yes.cart.domain.vo.VoFulfilmentCentre;
-import org.yes.cart.domain.vo.VoInventory;
 import org.yes.cart.report.ReportPair;
 import org.yes.cart.report.ReportWorker;
 import org.yes.cart.service.vo.VoFulfilmentService;
@@ -59,30 +58,18 @@ public class InventoryReportWorker implements ReportWorker {
     }
 
     /**
+     * Inventory is scrolled (ordered by SKU code, quantity and id in the database) while the
+     * report is generated, so warehouses of any size do not need to fit in memory.
+     *
      * {@inheritDoc}
      */
-    public List<Object> getResult(final String lang, final Map<String, Object> currentSelection) {
+    public Object getResult(final String lang, final Map<String, Object> currentSelection) {
         final String warehouse = (String) currentSelection.get("warehouse");
         final String skuCode = (String) currentSelection.get("skuCode");
         final long warehouseId = NumberUtils.toLong(warehouse);
         if (warehouseId > 0L) {
             try {
-                final List<VoInventory> result = fulfilmentService.getFilteredInventory(warehouseId, skuCode, Integer.MAX_VALUE);
-                Collections.sort(result, new Comparator<VoInventory>() {
-                    @Override
-                    public int compare(final VoInventory i1, final VoInventory i2) {
-                        int comp = i1.getSkuCode().compareTo(i2.getSkuCode());
-                        if (comp == 0) {
-                            comp = i1.getQuantity().compareTo(i2.getQuantity());
-                            if (comp == 0) {
-                                return Long.compare(i1.getSkuWarehouseId(), i2.getSkuWarehouseId());
-                            }
-                        }
-                        return comp;
-                    }
-                });
-
-                return (List) result;
+                return fulfilmentService.getFilteredInventoryIterator(warehouseId, skuCode);
             } catch (Exception e) {
                 // do nothing
             }
@@ -93,7 +80,7 @@ public class InventoryReportWorker implements ReportWorker {
     /**
      * {@inheritDoc}
      */
-    public Map<String, Object> getEnhancedParameterValues(final List<Object> result, final Map<String, Object> currentSelection) {
+    public Map<String, Object> getEnhancedParameterValues(final Object result, final Map<String, Object> currentSelection) {
         return new HashMap<String, Object>(currentSelection);
     }
 
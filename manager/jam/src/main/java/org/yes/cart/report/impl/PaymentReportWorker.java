@@ -83,7 +83,7 @@ public class PaymentReportWorker implements ReportWorker {
     /**
      * {@inheritDoc}
      */
-    public Map<String, Object> getEnhancedParameterValues(final List<Object> result, final Map<String, Object> currentSelection) {
+    public Map<String, Object> getEnhancedParameterValues(final Object result, final Map<String, Object> currentSelection) {
         return new HashMap<String, Object>(currentSelection);
     }
 }
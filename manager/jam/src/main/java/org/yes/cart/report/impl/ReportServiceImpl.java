@@ -19,6 +19,7 @@ package org.yes.cart.report.impl;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.Predicate;
 import org.xml.sax.SAXException;
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.misc.MutablePair;
 import org.yes.cart.domain.vo.VoReportDescriptor;
 import org.yes.cart.domain.vo.VoReportParameter;
@@ -188,21 +189,31 @@ public class ReportServiceImpl implements ReportService {
                                  final OutputStream reportStream,
                                  final Map<String, Object> currentSelection) throws Exception {
 
-        final List<Object> rez = getQueryResult(lang, reportId, currentSelection);
+        final Object rez = getQueryResult(lang, reportId, currentSelection);
+        if (rez instanceof ResultsIterator) {
+            final PeekingResultsIterator rows = new PeekingResultsIterator((ResultsIterator<Object>) rez);
+            try {
+                final Map<String, Object> enhancedSelection = getEnhancedParameterValues(reportId, rows, currentSelection);
+                return !rows.isEmpty() && createReport(lang, reportId, reportStream, rows, enhancedSelection);
+            } finally {
+                rows.close(); // generator closes it after parsing, but report may fail before that
+            }
+        }
         final Map<String, Object> enhancedSelection = getEnhancedParameterValues(reportId, rez, currentSelection);
-        return createReport(lang, reportId, reportStream, rez, enhancedSelection);
+        return (rez instanceof Collection && CollectionUtils.isNotEmpty((Collection) rez))
+                && createReport(lang, reportId, reportStream, rez, enhancedSelection);
 
     }
 
     private boolean createReport(final String lang,
                                  final String reportId,
                                  final OutputStream reportStream,
-                                 final List<Object> rez,
+                                 final Object rez,
                                  final Map<String, Object> currentSelection) throws SAXException, IOException {
 
         final ReportDescriptor descriptor = getReportDescriptorbyId(reportId);
 
-        if (CollectionUtils.isNotEmpty(rez)) {
+        if (rez != null) {
 
             this.reportGenerator.generateReport(descriptor, currentSelection, rez, lang, reportStream);
             return true;
@@ -213,15 +224,15 @@ public class ReportServiceImpl implements ReportService {
     }
 
     /**
-     * Get query result as object list.
+     * Get query result as object list or results iterator.
      *
      * @param lang language
      * @param reportId reportId
      * @param currentSelection parameters.
      *
-     * @return list of objects.
+     * @return list of objects or {@link ResultsIterator}.
      */
-    List<Object> getQueryResult(final String lang, final String reportId, final Map<String, Object> currentSelection) {
+    Object getQueryResult(final String lang, final String reportId, final Map<String, Object> currentSelection) {
 
         if (reportWorkers.containsKey(reportId)) {
             return reportWorkers.get(reportId).getResult(lang, currentSelection);
@@ -239,7 +250,7 @@ public class ReportServiceImpl implements ReportService {
      *
      * @return enhanced parameters
      */
-    Map<String, Object> getEnhancedParameterValues(final String reportId, final List<Object> result, final Map<String, Object> currentSelection) {
+    Map<String, Object> getEnhancedParameterValues(final String reportId, final Object result, final Map<String, Object> currentSelection) {
 
         if (reportWorkers.containsKey(reportId)) {
             return reportWorkers.get(reportId).getEnhancedParameterValues(result, currentSelection);
@@ -252,5 +263,61 @@ public class ReportServiceImpl implements ReportService {
 
     }
 
+    /**
+     * Reads first row ahead, so that empty reports are skipped without consuming the results.
+     */
+    private static class PeekingResultsIterator implements ResultsIterator<Object> {
+
+        private final ResultsIterator<Object> results;
+        private Object first;
+        private boolean firstPending;
+        private boolean closed;
+
+        private PeekingResultsIterator(final ResultsIterator<Object> results) {
+            this.results = results;
+            if (results.hasNext()) {
+                this.first = results.next();
+                this.firstPending = true;
+            }
+        }
+
+        private boolean isEmpty() {
+            return !firstPending;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            return firstPending || results.hasNext();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object next() {
+            if (firstPending) {
+                final Object next = first;
+                first = null;
+                firstPending = false;
+                return next;
+            }
+            return results.next();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove() {
+            results.remove();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                results.close();
+            }
+        }
+    }
+
 
 }
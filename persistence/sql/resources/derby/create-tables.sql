@@ -1014,6 +1014,20 @@
         primary key (SKUWAREHOUSE_ID)
     );
 
+    create  table TSKUWAREHOUSECHANGE (
+        SKUWAREHOUSECHANGE_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+        SKU_CODE varchar(255) not null,
+        CREATED_TIMESTAMP timestamp not null,
+        primary key (SKUWAREHOUSECHANGE_ID)
+    );
+
+    create  table TSEQUENCECOUNTER (
+        SEQUENCECOUNTER_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
+        CODE varchar(64) not null,
+        COUNTER bigint not null,
+        primary key (SEQUENCECOUNTER_ID)
+    );
+
 
     create  table TSTATE (
         STATE_ID bigint not null GENERATED BY DEFAULT AS IDENTITY,
@@ -1593,6 +1607,11 @@
 
     create index SKUWAREHOUSE_SKUCODE on TSKUWAREHOUSE (SKU_CODE);
 
+    create index SKUWAREHOUSECHANGE_CREATED on TSKUWAREHOUSECHANGE (CREATED_TIMESTAMP);
+
+    alter table TSEQUENCECOUNTER
+        add constraint SEQUENCECOUNTER_CODE unique (CODE);
+
     alter table TSYSTEMATTRVALUE
         add constraint FK_AV_SYSTEM_SYSTEMID
         foreign key (SYSTEM_ID) 
@@ -979,6 +979,20 @@
         primary key (SKUWAREHOUSE_ID)
     ) comment='Real quantity of sku at each warehouse' ;
 
+    create table TSKUWAREHOUSECHANGE (
+        SKUWAREHOUSECHANGE_ID bigint not null auto_increment,
+        SKU_CODE varchar(255) not null,
+        CREATED_TIMESTAMP datetime not null,
+        primary key (SKUWAREHOUSECHANGE_ID)
+    ) comment='Inventory change events (outbox) for propagation of inventory changes to index' ;
+
+    create table TSEQUENCECOUNTER (
+        SEQUENCECOUNTER_ID bigint not null auto_increment,
+        CODE varchar(64) not null,
+        COUNTER bigint not null,
+        primary key (SEQUENCECOUNTER_ID)
+    ) comment='Named counters for allocation of sequence number blocks to cluster nodes' ;
+
     create table TSTATE (
         STATE_ID bigint not null auto_increment,
         VERSION bigint not null default 0,
@@ -1608,6 +1622,11 @@
 
     create index SKUWAREHOUSE_SKUCODE on TSKUWAREHOUSE (SKU_CODE);
 
+    create index SKUWAREHOUSECHANGE_CREATED on TSKUWAREHOUSECHANGE (CREATED_TIMESTAMP);
+
+    alter table TSEQUENCECOUNTER
+        add constraint SEQUENCECOUNTER_CODE unique (CODE);
+
     alter table TSYSTEMATTRVALUE 
         add index FK_AV_SYSTEM_SYSTEMID (SYSTEM_ID),
         add constraint FK_AV_SYSTEM_SYSTEMID
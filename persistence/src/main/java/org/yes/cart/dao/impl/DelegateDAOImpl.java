@@ -22,6 +22,7 @@ import org.yes.cart.dao.CriteriaTuner;
 import org.yes.cart.dao.EntityFactory;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.ResultsIterator;
+import org.yes.cart.domain.misc.Pair;
 
 import java.io.Serializable;
 import java.util.List;
@@ -70,6 +71,13 @@ public class DelegateDAOImpl<T, PK extends Serializable> implements GenericDAO<T
         return delegate.findById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public T findById(final PK id, final String fetchProfile) {
+        return delegate.findById(id, fetchProfile);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -84,6 +92,20 @@ public class DelegateDAOImpl<T, PK extends Serializable> implements GenericDAO<T
         return delegate.findAllIterator();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Pair<PK, PK> findPrimaryKeyRange() {
+        return delegate.findPrimaryKeyRange();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findAllIterator(final PK fromId, final PK toId) {
+        return delegate.findAllIterator(fromId, toId);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -231,6 +253,13 @@ public class DelegateDAOImpl<T, PK extends Serializable> implements GenericDAO<T
         return delegate.findByCriteria(firstResult, maxResults, criterion, order);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findByCriteriaIterator(final Criterion[] criterion, final Order[] order) {
+        return delegate.findByCriteriaIterator(criterion, order);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -245,6 +274,13 @@ public class DelegateDAOImpl<T, PK extends Serializable> implements GenericDAO<T
         return delegate.findByCriteria(criteriaTuner, criterion);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<T> findByCriteria(final String fetchProfile, final CriteriaTuner criteriaTuner, final Criterion... criterion) {
+        return delegate.findByCriteria(fetchProfile, criteriaTuner, criterion);
+    }
+
     /**
      * {@inheritDoc}
      */
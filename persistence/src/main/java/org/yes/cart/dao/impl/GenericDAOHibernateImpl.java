@@ -20,6 +20,8 @@ import org.hibernate.*;
 import org.hibernate.criterion.Criterion;
 import org.hibernate.criterion.Example;
 import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
 import org.hibernate.criterion.RowCountProjection;
 import org.hibernate.proxy.HibernateProxy;
 import org.slf4j.Logger;
@@ -30,6 +32,7 @@ import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.entity.Identifiable;
 import org.yes.cart.domain.entity.Product;
+import org.yes.cart.domain.misc.Pair;
 
 import java.io.Serializable;
 import java.util.Collection;
@@ -120,6 +123,34 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
         return entity;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public T findById(final PK id, final String fetchProfile) {
+        final Session session = sessionFactory.getCurrentSession();
+        final boolean enabled = enableFetchProfile(session, fetchProfile);
+        try {
+            return (T) session.get(getPersistentClass(), id);
+        } finally {
+            disableFetchProfile(session, fetchProfile, enabled);
+        }
+    }
+
+    private boolean enableFetchProfile(final Session session, final String fetchProfile) {
+        if (session.isFetchProfileEnabled(fetchProfile)) {
+            return false; // enabled by caller, so leave it as is
+        }
+        session.enableFetchProfile(fetchProfile);
+        return true;
+    }
+
+    private void disableFetchProfile(final Session session, final String fetchProfile, final boolean enabled) {
+        if (enabled) {
+            session.disableFetchProfile(fetchProfile);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -365,6 +396,33 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
         return new ResultsIteratorImpl<T>(results);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public Pair<PK, PK> findPrimaryKeyRange() {
+        final String pk = getPrimaryKeyPropertyName();
+        final Criteria crit = sessionFactory.getCurrentSession().createCriteria(getPersistentClass());
+        crit.setProjection(Projections.projectionList()
+                .add(Projections.min(pk))
+                .add(Projections.max(pk)));
+        final Object[] range = (Object[]) crit.uniqueResult();
+        if (range == null || range[0] == null || range[1] == null) {
+            return null;
+        }
+        return new Pair<PK, PK>((PK) range[0], (PK) range[1]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findAllIterator(final PK fromId, final PK toId) {
+        final Criteria crit = sessionFactory.getCurrentSession().createCriteria(getPersistentClass());
+        crit.add(Restrictions.between(getPrimaryKeyPropertyName(), fromId, toId));
+        final ScrollableResults results = crit.scroll(ScrollMode.FORWARD_ONLY);
+        return new ResultsIteratorImpl<T>(results);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -460,6 +518,20 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
         return crit.list();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findByCriteriaIterator(final Criterion[] criterion, final Order[] order) {
+        Criteria crit = sessionFactory.getCurrentSession().createCriteria(getPersistentClass());
+        for (Criterion c : criterion) {
+            crit.add(c);
+        }
+        for (Order o : order) {
+            crit.addOrder(o);
+        }
+        return new ResultsIteratorImpl<T>(crit.scroll(ScrollMode.FORWARD_ONLY));
+    }
+
     @Override
     public int findCountByCriteria(final Criterion... criterion) {
         Criteria crit = sessionFactory.getCurrentSession().createCriteria(getPersistentClass());
@@ -493,6 +565,27 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> findByCriteria(final String fetchProfile, final CriteriaTuner criteriaTuner, final Criterion... criterion) {
+        final Session session = sessionFactory.getCurrentSession();
+        final boolean enabled = enableFetchProfile(session, fetchProfile);
+        try {
+            Criteria crit = session.createCriteria(getPersistentClass());
+            for (Criterion c : criterion) {
+                crit.add(c);
+            }
+            if (criteriaTuner != null) {
+                criteriaTuner.tune(crit);
+            }
+            return crit.list();
+        } finally {
+            disableFetchProfile(session, fetchProfile, enabled);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -583,6 +676,10 @@ public class GenericDAOHibernateImpl<T, PK extends Serializable> implements Gene
         return persistentClass;
     }
 
+    private String getPrimaryKeyPropertyName() {
+        return sessionFactory.getClassMetadata(getPersistentClass()).getIdentifierPropertyName();
+    }
+
     /**
      * {@inheritDoc}
      */
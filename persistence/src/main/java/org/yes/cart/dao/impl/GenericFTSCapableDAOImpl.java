@@ -24,6 +24,7 @@ import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.GenericFTS;
 import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.SearchAfterPage;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -88,6 +89,13 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericDAO.findById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public T findById(final PK id, final String fetchProfile) {
+        return genericDAO.findById(id, fetchProfile);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -102,6 +110,20 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericDAO.findAllIterator();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Pair<PK, PK> findPrimaryKeyRange() {
+        return genericDAO.findPrimaryKeyRange();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findAllIterator(final PK fromId, final PK toId) {
+        return genericDAO.findAllIterator(fromId, toId);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -249,6 +271,13 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericDAO.findByCriteria(firstResult, maxResults, criterion, order);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public ResultsIterator<T> findByCriteriaIterator(final Criterion[] criterion, final Order[] order) {
+        return genericDAO.findByCriteriaIterator(criterion, order);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -263,6 +292,13 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericDAO.findByCriteria(criteriaTuner, criterion);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<T> findByCriteria(final String fetchProfile, final CriteriaTuner criteriaTuner, final Criterion... criterion) {
+        return genericDAO.findByCriteria(fetchProfile, criteriaTuner, criterion);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -451,6 +487,13 @@ public class GenericFTSCapableDAOImpl<T, PK extends Serializable>
         return genericFTS.fullTextSearch(query, firstResult, maxResults, sortFieldName, reverse, fields);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public SearchAfterPage fullTextSearchAfter(final org.apache.lucene.search.Query query, final String cursor, final int maxResults, final String sortFieldName, final boolean reverse, final String... fields) {
+        return genericFTS.fullTextSearchAfter(query, cursor, maxResults, sortFieldName, reverse, fields);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity.impl;
+
+import org.yes.cart.domain.entity.SequenceCounter;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 16:32
+ */
+public class SequenceCounterEntity implements SequenceCounter, java.io.Serializable {
+
+    private long sequenceCounterId;
+
+    private String code;
+    private long counter;
+
+    public SequenceCounterEntity() {
+    }
+
+    public long getSequenceCounterId() {
+        return sequenceCounterId;
+    }
+
+    public void setSequenceCounterId(final long sequenceCounterId) {
+        this.sequenceCounterId = sequenceCounterId;
+    }
+
+    public long getId() {
+        return this.sequenceCounterId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(final String code) {
+        this.code = code;
+    }
+
+    public long getCounter() {
+        return counter;
+    }
+
+    public void setCounter(final long counter) {
+        this.counter = counter;
+    }
+
+    @Override
+    public String toString() {
+        return "SequenceCounterEntity{" +
+                "sequenceCounterId=" + sequenceCounterId +
+                ", code='" + code + '\'' +
+                ", counter=" + counter +
+                '}';
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.domain.entity.impl;
+
+import org.yes.cart.domain.entity.SkuWarehouseChange;
+
+import java.util.Date;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 14:08
+ */
+public class SkuWarehouseChangeEntity implements SkuWarehouseChange, java.io.Serializable {
+
+    private long skuWarehouseChangeId;
+
+    private String skuCode;
+    private Date createdTimestamp;
+
+    public SkuWarehouseChangeEntity() {
+    }
+
+    public long getSkuWarehouseChangeId() {
+        return skuWarehouseChangeId;
+    }
+
+    public void setSkuWarehouseChangeId(final long skuWarehouseChangeId) {
+        this.skuWarehouseChangeId = skuWarehouseChangeId;
+    }
+
+    public long getId() {
+        return this.skuWarehouseChangeId;
+    }
+
+    public String getSkuCode() {
+        return skuCode;
+    }
+
+    public void setSkuCode(final String skuCode) {
+        this.skuCode = skuCode;
+    }
+
+    public Date getCreatedTimestamp() {
+        return createdTimestamp;
+    }
+
+    public void setCreatedTimestamp(final Date createdTimestamp) {
+        this.createdTimestamp = createdTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "SkuWarehouseChangeEntity{" +
+                "skuWarehouseChangeId=" + skuWarehouseChangeId +
+                ", skuCode='" + skuCode + '\'' +
+                ", createdTimestamp=" + createdTimestamp +
+                '}';
+    }
+}
@@ -7,10 +7,14 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionTemplate;
 import org.yes.cart.dao.GenericDAO;
 import org.yes.cart.dao.ResultsIterator;
+import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.LuceneDocumentAdapter;
 import org.yes.cart.search.dao.LuceneIndexProvider;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * User: denispavlov
@@ -42,6 +46,36 @@ public class IndexBuilderLuceneHibernateTxAwareImpl<T, PK extends Serializable>
         return genericDao.findAllIterator();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected List<Pair<PK, PK>> findAllPartitions(final int partitions) {
+        final Pair<PK, PK> range = genericDao.findPrimaryKeyRange();
+        if (range == null) {
+            return Collections.emptyList();
+        }
+        if (partitions <= 1 || !(range.getFirst() instanceof Long)) {
+            return Collections.singletonList(range);
+        }
+        final long min = (Long) range.getFirst();
+        final long max = (Long) range.getSecond();
+        final long step = Math.max(1L, (max - min + partitions) / partitions);
+        final List<Pair<PK, PK>> ranges = new ArrayList<Pair<PK, PK>>(partitions);
+        long from = min;
+        while (from <= max) {
+            final long to = Math.min(max, from + step - 1L);
+            ranges.add(new Pair<PK, PK>((PK) Long.valueOf(from), (PK) Long.valueOf(to)));
+            from = to + 1L;
+        }
+        return ranges;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ResultsIterator<T> findAllIterator(final Pair<PK, PK> partition) {
+        return genericDao.findAllIterator(partition.getFirst(), partition.getSecond());
+    }
+
     /** {@inheritDoc} */
     @Override
     protected T unproxyEntity(final T entity) {
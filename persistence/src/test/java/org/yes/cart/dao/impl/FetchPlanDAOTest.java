@@ -0,0 +1,228 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.dao.impl;
+
+import org.dbunit.dataset.xml.FlatXmlDataSetBuilder;
+import org.dbunit.operation.DatabaseOperation;
+import org.hibernate.Criteria;
+import org.hibernate.SessionFactory;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.yes.cart.dao.CriteriaTuner;
+import org.yes.cart.dao.FetchProfiles;
+import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.dao.constants.DaoServiceBeanKeys;
+import org.yes.cart.domain.entity.Carrier;
+import org.yes.cart.domain.entity.CustomerOrder;
+import org.yes.cart.domain.entity.CustomerOrderDelivery;
+import org.yes.cart.domain.entity.Product;
+import org.yes.cart.domain.entity.ProductSku;
+import org.yes.cart.domain.entity.Shop;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifies number of SQL statements issued for typical use cases, so that changes
+ * to fetch plans in hibernate mapping do not reintroduce N+1 selects.
+ * <p/>
+ * For reference, without batch-size and subselect fetching the same use cases issued
+ * 165 (product listing), 51 (shop listing) and 30 (order listing) statements.
+ *
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 15:02
+ */
+public class FetchPlanDAOTest extends AbstractTestDAO {
+
+    private GenericDAO<Product, Long> productDao;
+    private GenericDAO<Shop, Long> shopDao;
+    private GenericDAO<Carrier, Long> carrierDao;
+    private GenericDAO<CustomerOrder, Long> customerOrderDao;
+    private SessionFactory sessionFactory;
+    private Statistics statistics;
+
+    @Before
+    public void setUp()  {
+        productDao = (GenericDAO<Product, Long>) ctx().getBean(DaoServiceBeanKeys.PRODUCT_DAO);
+        shopDao = (GenericDAO<Shop, Long>) ctx().getBean(DaoServiceBeanKeys.SHOP_DAO);
+        carrierDao = (GenericDAO<Carrier, Long>) ctx().getBean("carrierDao");
+        customerOrderDao = (GenericDAO<CustomerOrder, Long>) ctx().getBean(DaoServiceBeanKeys.CUSTOMER_ORDER_DAO);
+        sessionFactory = (SessionFactory) ctx().getBean("sessionFactory");
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        super.setUp();
+    }
+
+    private void loadOrders() throws Exception {
+        DatabaseOperation.REFRESH.execute(getConnection(), new FlatXmlDataSetBuilder()
+                .build(getClass().getClassLoader().getResourceAsStream("initialdata_orders.xml")));
+    }
+
+    private long countStatements(final TransactionCallback<Object> useCase) {
+        sessionFactory.getCache().evictEntityRegions();
+        sessionFactory.getCache().evictCollectionRegions();
+        sessionFactory.getCache().evictQueryRegions();
+        statistics.clear();
+        getTxReadOnly().execute(useCase);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void touch(final Product product) {
+        for (final ProductSku sku : product.getSku()) {
+            sku.getAttributes().size();
+        }
+        product.getAttributes().size();
+        product.getBrand().getName();
+        product.getProducttype().getName();
+    }
+
+    private void touch(final CustomerOrder order) {
+        order.getShop().getName();
+        order.getOrderDetail().size();
+        for (final CustomerOrderDelivery delivery : order.getDelivery()) {
+            delivery.getDetail().size();
+            delivery.getCarrierSla().getName();
+        }
+    }
+
+    @Test
+    public void testProductListing() throws Exception {
+
+        assertEquals(14, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final List<Product> products = productDao.findAll();
+                for (final Product product : products) {
+                    touch(product);
+                }
+                return products;
+            }
+        }));
+
+    }
+
+    @Test
+    public void testProductDetail() throws Exception {
+
+        assertEquals(6, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final Product product = productDao.findById(10000L);
+                touch(product);
+                return product;
+            }
+        }));
+
+        assertEquals(3, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final Product product = productDao.findById(10000L, FetchProfiles.PRODUCT_DETAIL);
+                touch(product);
+                return product;
+            }
+        }));
+
+    }
+
+    @Test
+    public void testShop() throws Exception {
+
+        assertEquals(6, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                return shopDao.findAll();
+            }
+        }));
+
+        assertEquals(6, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                return shopDao.findById(10L);
+            }
+        }));
+
+        assertEquals(2, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                return carrierDao.findAll();
+            }
+        }));
+
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+
+        loadOrders();
+
+        assertEquals(14, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final List<CustomerOrder> orders = customerOrderDao.findAll();
+                assertEquals(5, orders.size());
+                for (final CustomerOrder order : orders) {
+                    touch(order);
+                }
+                return orders;
+            }
+        }));
+
+        assertEquals(13, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final List<CustomerOrder> orders = customerOrderDao.findByCriteria(FetchProfiles.ORDER_EXPORT, null);
+                assertEquals(5, orders.size());
+                for (final CustomerOrder order : orders) {
+                    touch(order);
+                }
+                return orders;
+            }
+        }));
+
+        assertEquals(14, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final CustomerOrder order = customerOrderDao.findById(1001L);
+                touch(order);
+                return order;
+            }
+        }));
+
+        assertEquals(12, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final CustomerOrder order = customerOrderDao.findById(1001L, FetchProfiles.ORDER_DETAIL);
+                assertEquals(1, order.getDelivery().size());
+                touch(order);
+                return order;
+            }
+        }));
+
+        assertEquals(12, countStatements(new TransactionCallback<Object>() {
+            public Object doInTransaction(final TransactionStatus status) {
+                final List<CustomerOrder> orders = customerOrderDao.findByCriteria(FetchProfiles.ORDER_DETAIL, new CriteriaTuner() {
+                    public void tune(final Criteria crit) {
+                        crit.setResultTransformer(Criteria.DISTINCT_ROOT_ENTITY);
+                    }
+                }, Restrictions.eq("ordernum", "FP-1"));
+                assertEquals(1, orders.size());
+                final CustomerOrder order = orders.get(0);
+                assertEquals(1, order.getDelivery().size());
+                touch(order);
+                return order;
+            }
+        }));
+
+    }
+
+}
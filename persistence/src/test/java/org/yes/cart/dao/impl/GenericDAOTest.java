@@ -16,6 +16,8 @@
 
 package org.yes.cart.dao.impl;
 
+import org.hibernate.criterion.Criterion;
+import org.hibernate.criterion.Order;
 import org.hibernate.criterion.Restrictions;
 import org.junit.Before;
 import org.junit.Test;
@@ -23,11 +25,16 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 import org.yes.cart.dao.EntityFactory;
 import org.yes.cart.dao.GenericDAO;
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.dao.constants.DaoServiceBeanKeys;
 import org.yes.cart.domain.entity.Brand;
+import org.yes.cart.domain.misc.Pair;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 /**
  * User: Igor Azarny iazarny@yahoo.com
@@ -105,4 +112,75 @@ public class GenericDAOTest extends AbstractTestDAO {
 
 
     }
+
+    @Test
+    public void testFindAllIteratorByPrimaryKeyRange() {
+
+        getTx().execute(new TransactionCallbackWithoutResult() {
+            public void doInTransactionWithoutResult(TransactionStatus status) {
+
+                final Pair<Long, Long> range = brandDao.findPrimaryKeyRange();
+                assertNotNull(range);
+                assertTrue(range.getFirst() <= range.getSecond());
+
+                final int all = brandDao.findAll().size();
+
+                final long mid = range.getFirst() + (range.getSecond() - range.getFirst()) / 2;
+                int count = 0;
+                for (final Pair<Long, Long> partition : Arrays.asList(
+                        new Pair<Long, Long>(range.getFirst(), mid),
+                        new Pair<Long, Long>(mid + 1, range.getSecond()))) {
+                    final ResultsIterator<Brand> it = brandDao.findAllIterator(partition.getFirst(), partition.getSecond());
+                    try {
+                        while (it.hasNext()) {
+                            final Brand brand = it.next();
+                            assertTrue(brand.getBrandId() >= partition.getFirst());
+                            assertTrue(brand.getBrandId() <= partition.getSecond());
+                            count++;
+                        }
+                    } finally {
+                        it.close();
+                    }
+                }
+                assertEquals(all, count);
+
+                status.setRollbackOnly();
+
+            }
+        });
+
+    }
+
+    @Test
+    public void testFindByCriteriaIteratorOrdered() {
+
+        getTx().execute(new TransactionCallbackWithoutResult() {
+            public void doInTransactionWithoutResult(TransactionStatus status) {
+
+                final List<Brand> expected = brandDao.findByCriteria(0, Integer.MAX_VALUE,
+                        new Criterion[] { Restrictions.gt("brandId", 0L) }, new Order[] { Order.desc("name"), Order.asc("brandId") });
+                assertFalse(expected.isEmpty());
+
+                final List<Long> scrolled = new ArrayList<Long>();
+                final ResultsIterator<Brand> it = brandDao.findByCriteriaIterator(
+                        new Criterion[] { Restrictions.gt("brandId", 0L) }, new Order[] { Order.desc("name"), Order.asc("brandId") });
+                try {
+                    while (it.hasNext()) {
+                        scrolled.add(it.next().getBrandId());
+                    }
+                } finally {
+                    it.close();
+                }
+
+                assertEquals(expected.size(), scrolled.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(Long.valueOf(expected.get(i).getBrandId()), scrolled.get(i));
+                }
+
+                status.setRollbackOnly();
+
+            }
+        });
+
+    }
 }
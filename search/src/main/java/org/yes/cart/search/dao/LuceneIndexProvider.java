@@ -60,6 +60,23 @@ public interface LuceneIndexProvider {
      */
     IndexWriter provideIndexWriter();
 
+    /**
+     * Writer for incremental updates of given index. Unlike {@link #provideIndexWriter()} writer
+     * acquired by this method is guaranteed to remain open until {@link #releaseIndexWriter(IndexWriter)}
+     * is called, so {@link #completeRebuild()} waits for all acquired writers to be released before
+     * retiring the old index. Writer must be released by the same thread.
+     *
+     * @return writer
+     */
+    IndexWriter acquireIndexWriter();
+
+    /**
+     * Release writer acquired by {@link #acquireIndexWriter()}.
+     *
+     * @param writer writer
+     */
+    void releaseIndexWriter(IndexWriter writer);
+
     /**
      * Refreshing the index is necessary do that readers can "see" the most up
      * to date version of index. If refresh is not called the readers only see
@@ -111,5 +128,36 @@ public interface LuceneIndexProvider {
      */
     void refreshIfNecessary();
 
+    /**
+     * Notify provider that index writer was changed by incremental update. Depending on configuration
+     * this either makes changes visible immediately (same as {@link #refreshIfNecessary()}) or
+     * defers refresh and commit to background near real time process.
+     *
+     * @param generation sequence number returned by the last index writer operation
+     */
+    void indexUpdated(long generation);
+
+    /**
+     * Writer for build aside index. Build aside index is a fresh empty index that is not
+     * visible to readers until {@link #completeRebuild()} is called. First call to this method
+     * starts the rebuild, subsequent calls return the same writer until rebuild is completed
+     * or aborted.
+     *
+     * @return writer for build aside index
+     */
+    IndexWriter provideRebuildIndexWriter();
+
+    /**
+     * Commit build aside index and atomically switch all readers and writers to it. Swap
+     * waits for writers acquired by {@link #acquireIndexWriter()} to be released. Old
+     * index is retired once all in-flight searchers are released.
+     */
+    void completeRebuild();
+
+    /**
+     * Discard build aside index. Live index remains unchanged.
+     */
+    void abortRebuild();
+
 
 }
@@ -152,7 +152,9 @@ public class LuceneDocumentAdapterUtils {
     public static void addObjectField(final Document document, final String name, final Object object) {
         if (object != null) {
             try {
-                document.add(new StringField(name, MAPPER.writeValueAsString(object), Field.Store.YES));
+                final String serialized = MAPPER.writeValueAsString(object);
+                document.add(new StringField(name, serialized, Field.Store.YES));
+                addProjectionField(document, name, serialized);
             } catch (Exception exp) {
                 LOGFTQ.error("Unable to serialise the object into field: " + name + ", object: " + object, exp);
             }
@@ -179,14 +181,33 @@ public class LuceneDocumentAdapterUtils {
             // document.add(new SortedNumericDocValuesField(FIELD_PK, NumberUtils.toLong(value)));
 
             /*
-                Stored string is required for projections i.e. document.get('_PK')
+                Stored string is required for document.get('_PK'), projections use doc values
              */
             document.add(new StringField(FIELD_PK, value, Field.Store.YES));
+            addProjectionField(document, FIELD_PK, value);
 
             /*
                 Additional field to save type of the object
              */
             document.add(new StringField(FIELD_CLASS, clazz.getName(), Field.Store.YES));
+            addProjectionField(document, FIELD_CLASS, clazz.getName());
+        }
+    }
+
+    /**
+     * Adds a projection field (binary doc values).
+     *
+     * Projections (i.e. search with fields) read columnar doc values for hits, which avoids
+     * decompressing stored fields block for every hit. Field with the same name must not be
+     * used for other doc values (e.g. sorting or facets).
+     *
+     * @param document document
+     * @param name     field name
+     * @param value    value
+     */
+    public static void addProjectionField(final Document document, final String name, final String value) {
+        if (value != null) {
+            document.add(new BinaryDocValuesField(name, new BytesRef(value)));
         }
     }
 
@@ -386,11 +407,11 @@ public class LuceneDocumentAdapterUtils {
 
 
     /**
-     * Adds a string field with time long value
+     * Adds a numeric sort field with time long value
      *
-     * To be able to sort field has to be of type Binary or Sorted, so need to
-     * declare a separate field for this as SortedDocValuesField. This is not
-     * tokenized and also sorting is stored in index.
+     * Numeric doc values are sorted as longs (see SortField.Type.LONG), which is
+     * considerably cheaper than comparing string values. This is not tokenized
+     * and also sorting is stored in index.
      *
      * Note that multivalue fields cannot be sorted.
      *
@@ -405,31 +426,31 @@ public class LuceneDocumentAdapterUtils {
                                     final boolean negativeNull) {
 
         final long datetime = value != null ? value.getTime() : (negativeNull ? Long.MIN_VALUE : Long.MAX_VALUE);
-        document.add(new SortedDocValuesField(name, new BytesRef(String.valueOf(datetime))));
+        document.add(new NumericDocValuesField(name, datetime));
 
     }
 
     /**
-     * Adds a string field with long value
+     * Adds a numeric sort field with long value
      *
-     * To be able to sort field has to be of type Binary or Sorted, so need to
-     * declare a separate field for this as SortedDocValuesField. This is not
-     * tokenized and also sorting is stored in index.
+     * Numeric doc values are sorted as longs (see SortField.Type.LONG), which is
+     * considerably cheaper than comparing string values. This is not tokenized
+     * and also sorting is stored in index.
      *
      * Note that multivalue fields cannot be sorted.
      *
      * @param document      document
      * @param name          field name
      * @param positiveValue value
-     * @param zeroNull true if null values are to be filled with 0, false if to be filled with 9's
+     * @param zeroNull true if null values are to be filled with 0, false if to be filled with {@link Long#MAX_VALUE}
      */
     public static void addSortField(final Document document,
                                     final String name,
                                     final Long positiveValue,
                                     final boolean zeroNull) {
 
-        final String notNull = positiveValue != null ? StringUtils.leftPad(positiveValue.toString(), 10, '0') : (zeroNull ? "0000000000" : "9999999999");
-        document.add(new SortedDocValuesField(name, new BytesRef(notNull)));
+        final long notNull = positiveValue != null ? positiveValue : (zeroNull ? 0L : Long.MAX_VALUE);
+        document.add(new NumericDocValuesField(name, notNull));
 
     }
 
@@ -650,16 +650,16 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
             if (result.getAvailability() == Product.AVAILABILITY_ALWAYS) {
                 // Always = -5% boost (stocked items must be first)
                 addStoredField(document, PRODUCT_SHOP_INSTOCK_FIELD + "_boost", 0.95f);
-                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), "095");
+                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), 95L, false);
                 addNumericField(document, PRODUCT_SHOP_INSTOCK_FLAG_FIELD + "1", shop, false);
-                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), "1");
+                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), 1L, false);
             } else if (result.getAvailability() == Product.AVAILABILITY_PREORDER &&
                     DomainApiUtils.isObjectAvailableNow(true, result.getAvailablefrom(), null, now)) {
                 // Preorder is 1.25f = 25% boost
                 addStoredField(document, PRODUCT_SHOP_INSTOCK_FIELD + "_boost", 1.25f);
-                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), "125");
+                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), 125L, false);
                 addNumericField(document, PRODUCT_SHOP_INSTOCK_FLAG_FIELD + "1", shop, false);
-                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), "1");
+                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), 1L, false);
             } else { // Standard stock
                 final Map<String, BigDecimal> qty = result.getQtyOnWarehouse(shop);
                 boolean hasStock = false;
@@ -671,9 +671,9 @@ public class ProductLuceneDocumentAdapter implements LuceneDocumentAdapter<Produ
                 }
                 // Standard + Backorder in stock = no boost, out of stock = -10% boost
                 addStoredField(document, PRODUCT_SHOP_INSTOCK_FIELD + "_boost", hasStock ? 1.0f : 0.9f);
-                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), hasStock ? "100" : "090");
+                addSortField(document, PRODUCT_AVAILABILITY_SORT_FIELD + shop.toString(), hasStock ? 100L : 90L, false);
                 addNumericField(document, PRODUCT_SHOP_INSTOCK_FLAG_FIELD + (hasStock ? "1" : "0"), shop, false);
-                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), hasStock ? "1" : "0");
+                addSortField(document, PRODUCT_SHOP_INSTOCK_FLAG_SORT_FIELD + shop.toString(), hasStock ? 1L : 0L, false);
             }
         }
 
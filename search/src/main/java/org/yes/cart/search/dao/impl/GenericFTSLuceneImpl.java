@@ -23,18 +23,27 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.facet.*;
 import org.apache.lucene.facet.range.LongRange;
 import org.apache.lucene.facet.range.LongRangeFacetCounts;
-import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.*;
+import org.apache.lucene.util.Bits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yes.cart.constants.Constants;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.search.dao.GenericFTS;
 import org.yes.cart.search.dao.LuceneIndexProvider;
+import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.SearchAfterPage;
+import org.yes.cart.search.dto.impl.SearchAfterPageImpl;
 import org.yes.cart.util.log.Markers;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -48,12 +57,18 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
     private static final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
 
-    private static final Set<String> PKS = Collections.singleton("_PK");
+    private static final String[] PKS = new String[] { LuceneDocumentAdapterUtils.FIELD_PK };
 
     private static final int MAX_FACETS = 100;
 
     private LuceneIndexProvider luceneIndexProvider;
 
+    /*
+     * Facet states and query results are only valid for the reader they were computed on, so cache
+     * is per index reader (i.e. until refresh opens a new reader).
+     */
+    private volatile IndexReaderCache readerCache = new IndexReaderCache(0);
+
     /**
      * {@inheritDoc}
      */
@@ -64,18 +79,28 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
         final List<Long> pks = new ArrayList<Long>();
 
+        final IndexReaderCache cache = this.readerCache;
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
+            final Object key = Arrays.asList("pks", query);
+            final List<Long> cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                LOGFTQ.debug("Cached result is {} query {}", cached, query);
+                return new ArrayList<Long>(cached);
+            }
+
             final TopDocs topDocs = searcher.search(query, Integer.MAX_VALUE);
             if (topDocs.totalHits > 0) {
+                for (final Object[] values : loadFields(searcher, topDocs.scoreDocs, 0, topDocs.scoreDocs.length, PKS)) {
+                    pks.add(Long.valueOf((String) values[0]));
+                }
                 for (final ScoreDoc hit : topDocs.scoreDocs) {
-                    final Document doc = searcher.doc(hit.doc, PKS);
-                    pks.add(Long.valueOf(doc.get("_PK")));
                     logExplanation(searcher, query, null, hit.doc);
                 }
             } else {
                 logExplanation(searcher, query, null, 0);
             }
+            cache.putResult(searcher.getIndexReader(), key, new ArrayList<Long>(pks));
         } catch (Exception exp) {
             LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
         } finally {
@@ -97,26 +122,30 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
         final List<Long> pks = new ArrayList<Long>();
 
+        final IndexReaderCache cache = this.readerCache;
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
-            final TopDocs topDocs;
-            Sort sort = null;
-            if (StringUtils.isNotBlank(sortFieldName)) {
-                sort = new Sort(new SortField(sortFieldName, SortField.Type.STRING_VAL, reverse));
-                topDocs = searcher.search(query, firstResult + maxResults, sort);
-            } else {
-                topDocs = searcher.search(query, firstResult + maxResults);
+            final Object key = Arrays.asList("page", query, firstResult, maxResults, sortFieldName, reverse);
+            final List<Long> cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                LOGFTQ.debug("Cached result is {} query {}", cached, query);
+                return new ArrayList<Long>(cached);
             }
-            if (topDocs.totalHits > 0) {
-                for (int i = firstResult; i < firstResult + maxResults; i++) {
-                    final ScoreDoc hit = topDocs.scoreDocs[i];
-                    final Document doc = searcher.doc(hit.doc, PKS);
-                    pks.add(Long.valueOf(doc.get("_PK")));
-                    logExplanation(searcher, query, sort, hit.doc);
+
+            final Sort sort = createSort(cache, searcher, sortFieldName, reverse);
+            final TopDocs topDocs = searcher.search(query, firstResult + maxResults, sort);
+            if (topDocs.scoreDocs.length > firstResult) {
+                final int lastResult = Math.min(firstResult + maxResults, topDocs.scoreDocs.length);
+                for (final Object[] values : loadFields(searcher, topDocs.scoreDocs, firstResult, lastResult, PKS)) {
+                    pks.add(Long.valueOf((String) values[0]));
+                }
+                for (int i = firstResult; i < lastResult; i++) {
+                    logExplanation(searcher, query, sort, topDocs.scoreDocs[i].doc);
                 }
             } else {
                 logExplanation(searcher, query, null, 0);
             }
+            cache.putResult(searcher.getIndexReader(), key, new ArrayList<Long>(pks));
         } catch (Exception exp) {
             LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
         } finally {
@@ -128,6 +157,22 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         return pks;
     }
 
+    /*
+     * Ties are broken by _PK rather than doc id, since doc ids change on merges and reopens
+     * and differ between cluster nodes, which would make pages skip or repeat hits. Offset and
+     * search after paging use the same sort, so that both page through hits in the same order.
+     * Indexes written without _PK doc values fall back to doc id order until they are rebuilt.
+     */
+    private Sort createSort(final IndexReaderCache cache, final IndexSearcher searcher, final String sortFieldName, final boolean reverse) {
+        final IndexReader reader = searcher.getIndexReader();
+        final SortField sortField = StringUtils.isNotBlank(sortFieldName) ? cache.getSortField(reader, sortFieldName, reverse) : SortField.FIELD_SCORE;
+        final SortField tieBreak = cache.getTieBreakField(reader, LuceneDocumentAdapterUtils.FIELD_PK);
+        if (tieBreak == null) {
+            return new Sort(sortField);
+        }
+        return new Sort(sortField, tieBreak);
+    }
+
     private static final Pair<List<Object[]>, Integer> EMPTY = new Pair<List<Object[]>, Integer>(Collections.EMPTY_LIST, 0);
 
     /**
@@ -141,38 +186,34 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         Pair<List<Object[]>, Integer> result = EMPTY;
         int lastResult = maxResults < 0 ? Integer.MAX_VALUE : firstResult + maxResults;
 
+        final IndexReaderCache cache = this.readerCache;
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
-            final Set<String> retrieve = new HashSet<String>(Arrays.asList(fields));
-            final TopDocs topDocs;
-            Sort sort = null;
-            if (StringUtils.isNotBlank(sortFieldName)) {
-                sort = new Sort(new SortField(sortFieldName, SortField.Type.STRING_VAL, reverse));
-                topDocs = searcher.search(query, lastResult, sort);
-            } else {
-                topDocs = searcher.search(query, lastResult);
+            final Object key = Arrays.asList("fields", query, firstResult, maxResults, sortFieldName, reverse, Arrays.asList(fields));
+            final Pair<List<Object[]>, Integer> cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                LOGFTQ.debug("Cached result is {} query {}", cached, query);
+                return new Pair<List<Object[]>, Integer>(new ArrayList<Object[]>(cached.getFirst()), cached.getSecond());
             }
+
+            final Sort sort = createSort(cache, searcher, sortFieldName, reverse);
+            final TopDocs topDocs = searcher.search(query, lastResult, sort);
             if (topDocs.totalHits > firstResult) {
 
                 lastResult = lastResult > topDocs.totalHits ? topDocs.totalHits : lastResult;
 
-                final List<Object[]> resItems = new ArrayList<Object[]>(lastResult - firstResult);
+                final List<Object[]> resItems = loadFields(searcher, topDocs.scoreDocs, firstResult, lastResult, fields);
 
                 for (int i = firstResult; i < lastResult; i++) {
-                    final ScoreDoc hit = topDocs.scoreDocs[i];
-                    final Document doc = searcher.doc(hit.doc, retrieve);
-                    final Object[] values = new Object[fields.length];
-                    for (int ii = 0; ii < fields.length; ii++) {
-                        values[ii] = doc.get(fields[ii]);
-                    }
-                    resItems.add(values);
-                    logExplanation(searcher, query, sort, hit.doc);
+                    logExplanation(searcher, query, sort, topDocs.scoreDocs[i].doc);
                 }
 
+                cache.putResult(searcher.getIndexReader(), key, new Pair<List<Object[]>, Integer>(new ArrayList<Object[]>(resItems), topDocs.totalHits));
                 return new Pair<List<Object[]>, Integer>(resItems, topDocs.totalHits);
             } else {
                 logExplanation(searcher, query, null, 0);
             }
+            cache.putResult(searcher.getIndexReader(), key, EMPTY);
         } catch (Exception exp) {
             LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
         } finally {
@@ -184,6 +225,140 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchAfterPage fullTextSearchAfter(final Query query, final String cursor, final int maxResults, final String sortFieldName, final boolean reverse, final String... fields) {
+
+        LOGFTQ.debug("Run search after query {}, cursor {}", query, cursor);
+
+        final String fingerprint = LuceneSearchCursor.fingerprint(query, sortFieldName, reverse);
+        final Pair<Integer, Object[]> position = LuceneSearchCursor.decode(cursor, fingerprint);
+        final int firstResult = position != null ? position.getFirst() : 0;
+        final Object[] afterValues = position != null ? position.getSecond() : null;
+
+        SearchAfterPage result = new SearchAfterPageImpl(Collections.<Object[]>emptyList(), firstResult, 0, null);
+
+        if (maxResults < 1) {
+            return result;
+        }
+
+        final IndexReaderCache cache = this.readerCache;
+        IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
+        try {
+            final Object key = Arrays.asList("after", query, cursor, maxResults, sortFieldName, reverse, Arrays.asList(fields));
+            final SearchAfterPage cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                LOGFTQ.debug("Cached result is {} query {}", cached, query);
+                return new SearchAfterPageImpl(new ArrayList<Object[]>(cached.getItems()), cached.getFirst(), cached.getTotalHits(), cached.getNextCursor());
+            }
+
+            final Sort sort = createSort(cache, searcher, sortFieldName, reverse);
+
+            final TopDocs topDocs;
+            final int from;
+            if (afterValues != null && afterValues.length == sort.getSort().length) {
+                // Only collect one page after the last hit, regardless of how deep the page is. Last doc
+                // makes hits with exactly the same sort values (i.e. the last hit itself) to be skipped
+                final FieldDoc after = new FieldDoc(searcher.getIndexReader().maxDoc() - 1, Float.NaN, afterValues);
+                topDocs = searcher.searchAfter(after, query, maxResults, sort);
+                from = 0;
+            } else {
+                // First page or cursor that does not match this query, fallback to offset paging
+                topDocs = searcher.search(query, firstResult + maxResults, sort);
+                from = Math.min(firstResult, topDocs.scoreDocs.length);
+            }
+
+            final List<Object[]> resItems = loadFields(searcher, topDocs.scoreDocs, from, topDocs.scoreDocs.length, fields);
+            for (int i = from; i < topDocs.scoreDocs.length; i++) {
+                logExplanation(searcher, query, sort, topDocs.scoreDocs[i].doc);
+            }
+
+            final int next = firstResult + resItems.size();
+            final String nextCursor = !resItems.isEmpty() && next < topDocs.totalHits ?
+                    LuceneSearchCursor.encode(fingerprint, next, (FieldDoc) topDocs.scoreDocs[topDocs.scoreDocs.length - 1]) : null;
+
+            result = new SearchAfterPageImpl(resItems, firstResult, topDocs.totalHits, nextCursor);
+            cache.putResult(searcher.getIndexReader(), key, new SearchAfterPageImpl(new ArrayList<Object[]>(resItems), firstResult, topDocs.totalHits, nextCursor));
+
+        } catch (Exception exp) {
+            LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
+        } finally {
+            this.luceneIndexProvider.releaseIndexReader(searcher);
+        }
+
+        LOGFTQ.debug("Result is {} query {}", result, query);
+
+        return result;
+    }
+
+    /*
+     * Loads field values for hits in range [from, to). Values are read from projection doc values
+     * (see LuceneDocumentAdapterUtils.addProjectionField()), which avoids decompressing a stored
+     * fields block per hit. Hits are visited in doc id order so that each segment is read forward
+     * only. Stored fields are used as fallback for documents indexed without projection doc values.
+     */
+    private List<Object[]> loadFields(final IndexSearcher searcher,
+                                      final ScoreDoc[] hits,
+                                      final int from,
+                                      final int to,
+                                      final String[] fields) throws IOException {
+
+        final Integer[] order = new Integer[to - from];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = from + i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer hit1, final Integer hit2) {
+                return Integer.compare(hits[hit1].doc, hits[hit2].doc);
+            }
+        });
+
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        final Object[][] values = new Object[order.length][];
+
+        LeafReaderContext leaf = null;
+        final BinaryDocValues[] docValues = new BinaryDocValues[fields.length];
+        final Bits[] docsWithField = new Bits[fields.length];
+        Set<String> retrieve = null;
+
+        for (final int hit : order) {
+
+            final int doc = hits[hit].doc;
+            if (leaf == null || doc >= leaf.docBase + leaf.reader().maxDoc()) {
+                leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+                for (int ii = 0; ii < fields.length; ii++) {
+                    docValues[ii] = leaf.reader().getBinaryDocValues(fields[ii]);
+                    docsWithField[ii] = docValues[ii] != null ? leaf.reader().getDocsWithField(fields[ii]) : null;
+                }
+            }
+
+            final int leafDoc = doc - leaf.docBase;
+            final Object[] hitValues = new Object[fields.length];
+            Document stored = null;
+            for (int ii = 0; ii < fields.length; ii++) {
+                if (docsWithField[ii] != null && docsWithField[ii].get(leafDoc)) {
+                    hitValues[ii] = docValues[ii].get(leafDoc).utf8ToString();
+                } else {
+                    if (stored == null) {
+                        if (retrieve == null) {
+                            retrieve = new HashSet<String>(Arrays.asList(fields));
+                        }
+                        stored = searcher.doc(doc, retrieve);
+                    }
+                    hitValues[ii] = stored.get(fields[ii]);
+                }
+            }
+            values[hit - from] = hitValues;
+
+        }
+
+        return new ArrayList<Object[]>(Arrays.asList(values));
+
+    }
+
     private void logExplanation(final IndexSearcher searcher, final Query query, final Sort sort, final int doc) throws Exception {
         if (LOGFTQ.isTraceEnabled()) {
 
@@ -221,11 +396,21 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
         final FacetsCollector fc = new FacetsCollector();
 
+        final IndexReaderCache cache = this.readerCache;
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
         try {
 
+            final Object key = Arrays.asList("facets", query, facetingRequest);
+            final Map<String, List<Pair<String, Integer>>> cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                LOGFTQ.debug("Cached result is {} query {}", cached, query);
+                return copyFacets(cached);
+            }
+
             FacetsCollector.search(searcher, query, 0, fc);
 
+            boolean complete = true;
+
             for (final FilteredNavigationRecordRequest request : facetingRequest) {
 
                 try {
@@ -233,8 +418,6 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
                     final List<Pair<String, Integer>> values = new ArrayList<Pair<String, Integer>>();
                     result.put(request.getFacetName(), values);
 
-                    final FacetsConfig facetsConfig = new FacetsConfig();
-                    facetsConfig.setIndexFieldName(request.getField(), request.getField());
                     final boolean range = request.isRangeValue();
 
                     Facets facets = null;
@@ -256,7 +439,7 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
                     } else {
 
-                        facets = new SortedSetDocValuesFacetCounts(new DefaultSortedSetDocValuesReaderState(searcher.getIndexReader(), request.getField()), fc);
+                        facets = new SortedSetDocValuesFacetCounts(getFacetState(searcher.getIndexReader(), request.getField()), fc);
 
                     }
 
@@ -274,10 +457,15 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
                     }
                 } catch (Exception exp) {
+                    complete = false;
                     LOG.error(Markers.alert(), "Failed to create facet for request " + request + ", caused: " + exp.getMessage(), exp);
                 }
             }
 
+            if (complete) {
+                cache.putResult(searcher.getIndexReader(), key, copyFacets(result));
+            }
+
         } catch (Exception exp) {
             LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
         } finally {
@@ -289,6 +477,18 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
         return result;
     }
 
+    private Map<String, List<Pair<String, Integer>>> copyFacets(final Map<String, List<Pair<String, Integer>>> facets) {
+        final Map<String, List<Pair<String, Integer>>> copy = new LinkedHashMap<String, List<Pair<String, Integer>>>();
+        for (final Map.Entry<String, List<Pair<String, Integer>>> facet : facets.entrySet()) {
+            copy.put(facet.getKey(), new ArrayList<Pair<String, Integer>>(facet.getValue()));
+        }
+        return copy;
+    }
+
+    SortedSetDocValuesReaderState getFacetState(final IndexReader reader, final String field) throws IOException {
+        return this.readerCache.getFacetState(reader, field);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -299,10 +499,18 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
 
         int count = 0;
 
+        final IndexReaderCache cache = this.readerCache;
         IndexSearcher searcher = this.luceneIndexProvider.provideIndexReader();
 
         try {
-            count = searcher.count(query);
+            final Object key = Arrays.asList("count", query);
+            final Integer cached = cache.getResult(searcher.getIndexReader(), key);
+            if (cached != null) {
+                count = cached;
+            } else {
+                count = searcher.count(query);
+                cache.putResult(searcher.getIndexReader(), key, count);
+            }
         } catch (Exception exp) {
             LOG.error("Failed to run query " + query + ", caused: " + exp.getMessage(), exp);
         } finally {
@@ -315,6 +523,15 @@ public class GenericFTSLuceneImpl implements GenericFTS<Long, org.apache.lucene.
     }
 
 
+    /**
+     * Spring IoC.
+     *
+     * @param queryCacheSize max number of query results cached per index reader (0 to disable)
+     */
+    public void setQueryCacheSize(final int queryCacheSize) {
+        this.readerCache = new IndexReaderCache(queryCacheSize);
+    }
+
     /**
      * Spring IoC.
      *
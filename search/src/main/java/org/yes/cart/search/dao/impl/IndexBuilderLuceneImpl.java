@@ -33,9 +33,13 @@ import org.yes.cart.search.dao.LuceneDocumentAdapter;
 import org.yes.cart.search.dao.LuceneIndexProvider;
 import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * User: denispavlov
@@ -92,32 +96,48 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         }
 
         final String name = indexProvider.getName();
-        final IndexWriter iw = indexProvider.provideIndexWriter();
+        final IndexWriter iw = indexProvider.acquireIndexWriter();
+        final IndexWriter rebuild = this.rebuildIndexWriter;
+        // Changes during build aside full reindex must also go to the new index, otherwise they are lost after the swap
+        final IndexWriter[] writers = rebuild != null && rebuild != iw ? new IndexWriter[] { iw, rebuild } : new IndexWriter[] { iw };
+        long generation = -1L;
         try {
 
-            iw.deleteDocuments(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(primaryKey)));
-            LOGFTQ.trace("Removing {} document _PK:{}", name, primaryKey);
+            for (final IndexWriter writer : writers) {
 
-            if (!remove) {
-                final FacetsConfig facetsConfig = new FacetsConfig();
-                for (final Document document : documents.getSecond()) {
-                    for (final IndexableField ixf : document) {
-                        if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
-                            SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
-                            facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
-                            facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
+                final long deleteSeq = writer.deleteDocuments(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(primaryKey)));
+                if (writer == iw) {
+                    generation = deleteSeq;
+                }
+                LOGFTQ.trace("Removing {} document _PK:{}", name, primaryKey);
+
+                if (!remove) {
+                    final FacetsConfig facetsConfig = new FacetsConfig();
+                    for (final Document document : documents.getSecond()) {
+                        for (final IndexableField ixf : document) {
+                            if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
+                                SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
+                                facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
+                                facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
+                            }
+                        }
+                        final long addSeq = writer.addDocument(facetsConfig.build(document));
+                        if (writer == iw) {
+                            generation = addSeq;
                         }
                     }
-                    iw.addDocument(facetsConfig.build(document));
+                    LOGFTQ.trace("Updating {} document _PK:{}", name, primaryKey);
                 }
-                LOGFTQ.trace("Updating {} document _PK:{}", name, primaryKey);
+
             }
 
-            // Refresh ensures we use an updated index
-            indexProvider.refreshIfNecessary();
+            // Refresh ensures we use an updated index (may be deferred in near real time mode)
+            indexProvider.indexUpdated(generation);
 
         } catch (Exception exp) {
             LOGFTQ.error("Unable to remove " + name + " document with _PK:" + primaryKey, exp);
+        } finally {
+            indexProvider.releaseIndexWriter(iw);
         }
 
     }
@@ -136,7 +156,13 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
 
     private final AtomicInteger asyncRunningState = new AtomicInteger(IDLE);
     private final AtomicLong currentIndexingCount = new AtomicLong(0);
+    private volatile AtomicLongArray currentPartitionIndexingCount = new AtomicLongArray(1);
 
+    private int partitions = 1;
+    private TaskExecutor partitionExecutor;
+
+    private boolean buildAside = false;
+    private volatile IndexWriter rebuildIndexWriter;
 
 
     /**
@@ -144,13 +170,52 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
      */
     public FTIndexState getFullTextIndexState() {
 
+        final AtomicLongArray partitionCounts = currentPartitionIndexingCount;
+        final long[] counts = new long[partitionCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = partitionCounts.get(i);
+        }
+
         return new FTIndexStateImpl(
                 asyncRunningState.get() == RUNNING,
                 asyncRunningState.get() == COMPLETED,
-                currentIndexingCount.get()
+                currentIndexingCount.get(),
+                counts
         );
     }
 
+    /**
+     * Number of partitions to split primary key range into during full reindex. Each partition
+     * is processed by a separate worker thread provided by {@link #setPartitionExecutor(TaskExecutor)}.
+     * Values less or equal to 1 mean that full reindex runs on a single thread.
+     *
+     * @param partitions number of partitions
+     */
+    public void setPartitions(final int partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * Executor that will perform partition indexing jobs during full reindex. Must have at least
+     * as many threads as there are partitions, otherwise partitions will be processed sequentially.
+     *
+     * @param partitionExecutor partition executor
+     */
+    public void setPartitionExecutor(final TaskExecutor partitionExecutor) {
+        this.partitionExecutor = partitionExecutor;
+    }
+
+    /**
+     * Build aside mode for full reindex. In this mode full reindex is written into a fresh index
+     * (see {@link LuceneIndexProvider#provideRebuildIndexWriter()}) which replaces live index only
+     * once it is complete, so that searches never see partially rebuilt index.
+     *
+     * @param buildAside true to enable build aside full reindex
+     */
+    public void setBuildAside(final boolean buildAside) {
+        this.buildAside = buildAside;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -194,6 +259,24 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
      */
     protected abstract ResultsIterator<T> findAllIterator();
 
+    /**
+     * Extension hook for persistence layer.
+     *
+     * @param partitions maximum number of partitions
+     *
+     * @return non overlapping primary key ranges (inclusive) that cover all entities, empty list if there are no entities
+     */
+    protected abstract List<Pair<PK, PK>> findAllPartitions(int partitions);
+
+    /**
+     * Extension hook for persistence layer.
+     *
+     * @param partition primary key range (inclusive)
+     *
+     * @return scroll through results within partition
+     */
+    protected abstract ResultsIterator<T> findAllIterator(Pair<PK, PK> partition);
+
     /**
      * Extension hook for persistence layer.
      *
@@ -218,6 +301,9 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
     protected abstract void endTx(Object tx);
 
     private Runnable createIndexingRunnable(final boolean async, final int batchSize) {
+        if (this.partitions > 1 && this.partitionExecutor != null) {
+            return createPartitionedIndexingRunnable(async, batchSize);
+        }
         return new Runnable() {
             @Override
             public void run() {
@@ -229,6 +315,7 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
                 try {
 
                     currentIndexingCount.set(0);
+                    currentPartitionIndexingCount = new AtomicLongArray(1);
 
                     final String name = indexProvider.getName();
 
@@ -241,7 +328,7 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
                     }
 
                     final long indexTime = System.currentTimeMillis();
-                    final IndexWriter iw = indexProvider.provideIndexWriter();
+                    final IndexWriter iw = startFullReindex();
                     final FacetsConfig facetsConfig = new FacetsConfig();
 
                     final ResultsIterator<T> all = findAllIterator();
@@ -250,71 +337,38 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
 
                         while (all.hasNext()) {
 
-                            final T entity = unproxyEntity(all.next());
-
-                            final Pair<PK, Document[]> documents = documentAdapter.toDocument(entity);
-                            boolean remove = documents == null || documents.getSecond() == null || documents.getSecond().length == 0;
-
-                            if (!remove) {
-
-                                LOGFTQ.trace("Updating {} document _PK:{}", name, documents.getFirst());
-
-                                for (final Document document : documents.getSecond()) {
-                                    try {
-                                        LuceneDocumentAdapterUtils.addNumericField(document, LuceneDocumentAdapterUtils.FIELD_INDEXTIME, indexTime, false);
-                                        for (final IndexableField ixf : document) {
-                                            if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
-                                                SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
-                                                facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
-                                                facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
-                                            }
-                                        }
-                                        iw.updateDocument(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(documents.getFirst())), facetsConfig.build(document));
-                                    } catch (Exception sde) {
-                                        LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", new Object[] { name, documents.getFirst(), sde.getMessage() });
-                                    }
-                                }
-                            } else {
-
-                                LOGFTQ.trace("Removing {} document _PK:{}", name, documents.getFirst());
-
-                                try {
-                                    deleted += iw.deleteDocuments(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(documents.getFirst())));
-                                } catch (Exception sde) {
-                                    LOGFTQ.error("Removing {} document _PK:{} failed ... cause: {}", new Object[] { name, documents.getFirst(), sde.getMessage() });
-                                }
-                            }
+                            deleted += indexEntity(name, iw, facetsConfig, unproxyEntity(all.next()), indexTime);
 
                             index++;
 
                             if (index % batchSize == 0) {
-                                // TODO: may need to revisit this in favour of iw.flush()
-                                iw.commit();  //apply changes to indexes
-                                indexProvider.refreshIfNecessary(); // make changes visible
+                                if (!buildAside) {
+                                    // TODO: may need to revisit this in favour of iw.flush()
+                                    iw.commit();  //apply changes to indexes
+                                    indexProvider.refreshIfNecessary(); // make changes visible
+                                }
                                 endBatch(tx);
                                 if (log.isInfoEnabled()) {
                                     log.info("Indexed {} items of {} class", index, indexProvider.getName());
                                 }
                             }
                             currentIndexingCount.compareAndSet(index - 1, index);
+                            currentPartitionIndexingCount.set(0, index);
                         }
 
-                        // Remove unindexed values
-                        deleted += iw.deleteDocuments(LongPoint.newRangeQuery(LuceneDocumentAdapterUtils.FIELD_INDEXTIME, 0, indexTime - 1));
-
                     } finally {
                         all.close();
                     }
 
-                    iw.commit();  //apply changes to indexes
-                    indexProvider.refreshIfNecessary(); // make changes visible
+                    deleted += completeFullReindex(iw, indexTime);
                     endBatch(tx);
                     if (log.isInfoEnabled()) {
                         log.info("Indexed +{}/-{} items of {} class", new Object[] { index, deleted, indexProvider.getName() });
                     }
-                    iw.forceMerge(1, true); // optimise the index
+                    optimiseFullReindex(iw);
                 } catch (Exception exp) {
                     LOGFTQ.error("Error during indexing", exp);
+                    abortFullReindex();
                 } finally {
                     asyncRunningState.set(COMPLETED);
                     if (async) {
@@ -330,16 +384,235 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         };
     }
 
+    private Runnable createPartitionedIndexingRunnable(final boolean async, final int batchSize) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                final Logger log = LOGFTQ;
+
+                try {
+
+                    currentIndexingCount.set(0);
+
+                    final String name = indexProvider.getName();
+
+                    final List<Pair<PK, PK>> ranges;
+                    final Object tx = async ? startTx() : null;
+                    try {
+                        ranges = findAllPartitions(partitions);
+                    } finally {
+                        if (async) {
+                            endTx(tx);
+                        }
+                    }
+
+                    currentPartitionIndexingCount = new AtomicLongArray(Math.max(1, ranges.size()));
+
+                    if (log.isInfoEnabled()) {
+                        log.info("Full reindex for {} class using {} partitions", name, ranges.size());
+                    }
+
+                    final long indexTime = System.currentTimeMillis();
+                    final IndexWriter iw = startFullReindex();
+
+                    final CountDownLatch done = new CountDownLatch(ranges.size());
+                    final AtomicLong deleted = new AtomicLong(0L);
+                    final AtomicInteger failed = new AtomicInteger(0);
+
+                    for (int i = 0; i < ranges.size(); i++) {
+                        partitionExecutor.execute(createPartitionRunnable(
+                                name, iw, indexTime, batchSize, i, ranges.get(i), deleted, failed, done));
+                    }
+
+                    done.await();
+
+                    // Remove unindexed values (only if all partitions succeeded, otherwise we remove valid documents)
+                    if (failed.get() == 0) {
+                        deleted.addAndGet(completeFullReindex(iw, indexTime));
+                    } else if (buildAside) {
+                        log.warn("Full reindex for {} class had {} failed partitions, discarding rebuilt index", name, failed.get());
+                        abortFullReindex();
+                        return;
+                    } else {
+                        log.warn("Full reindex for {} class had {} failed partitions, stale documents are not removed", name, failed.get());
+                        iw.commit();  //apply changes to indexes
+                        indexProvider.refreshIfNecessary(); // make changes visible
+                    }
+
+                    if (log.isInfoEnabled()) {
+                        log.info("Indexed +{}/-{} items of {} class", new Object[] { currentIndexingCount.get(), deleted.get(), name });
+                    }
+                    optimiseFullReindex(iw);
+                } catch (Exception exp) {
+                    LOGFTQ.error("Error during indexing", exp);
+                    abortFullReindex();
+                } finally {
+                    asyncRunningState.set(COMPLETED);
+                    if (log.isInfoEnabled()) {
+                        log.info("Full reindex for {} class ... COMPLETED", indexProvider.getName());
+                    }
+                }
+            }
+        };
+    }
+
+    private Runnable createPartitionRunnable(final String name,
+                                             final IndexWriter iw,
+                                             final long indexTime,
+                                             final int batchSize,
+                                             final int partition,
+                                             final Pair<PK, PK> range,
+                                             final AtomicLong deleted,
+                                             final AtomicInteger failed,
+                                             final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                long index = 0;
+                final Logger log = LOGFTQ;
+
+                Object tx = null;
+                try {
+
+                    if (log.isInfoEnabled()) {
+                        log.info("Full reindex for {} class partition {} [{}..{}]", new Object[] { name, partition, range.getFirst(), range.getSecond() });
+                    }
+
+                    tx = startTx(); // partitions run in own threads, so each needs own TX and session
+
+                    final FacetsConfig facetsConfig = new FacetsConfig();
+
+                    final ResultsIterator<T> all = findAllIterator(range);
+
+                    try {
+
+                        while (all.hasNext()) {
+
+                            deleted.addAndGet(indexEntity(name, iw, facetsConfig, unproxyEntity(all.next()), indexTime));
+
+                            index++;
+
+                            if (index % batchSize == 0) {
+                                endBatch(tx);
+                                if (log.isInfoEnabled()) {
+                                    log.info("Indexed {} items of {} class partition {}", new Object[] { index, name, partition });
+                                }
+                            }
+                            currentIndexingCount.incrementAndGet();
+                            currentPartitionIndexingCount.set(partition, index);
+                        }
+
+                    } finally {
+                        all.close();
+                    }
+
+                    endBatch(tx);
+
+                } catch (Exception exp) {
+                    failed.incrementAndGet();
+                    LOGFTQ.error("Error during indexing partition " + partition, exp);
+                } finally {
+                    try {
+                        if (tx != null) {
+                            endTx(tx);
+                        }
+                    } catch (Exception exp) { }
+                    done.countDown();
+                    if (log.isInfoEnabled()) {
+                        log.info("Full reindex for {} class partition {} ... COMPLETED ({} items)", new Object[] { name, partition, index });
+                    }
+                }
+            }
+        };
+    }
+
+    private IndexWriter startFullReindex() {
+        if (buildAside) {
+            return rebuildIndexWriter = indexProvider.provideRebuildIndexWriter();
+        }
+        return indexProvider.provideIndexWriter();
+    }
+
+    private long completeFullReindex(final IndexWriter iw, final long indexTime) throws IOException {
+        if (buildAside) {
+            // Rebuilt index only contains current documents, so we only need to swap
+            indexProvider.completeRebuild();
+            rebuildIndexWriter = null;
+            return 0L;
+        }
+        // Remove unindexed values
+        final long deleted = iw.deleteDocuments(LongPoint.newRangeQuery(LuceneDocumentAdapterUtils.FIELD_INDEXTIME, 0, indexTime - 1));
+        iw.commit();  //apply changes to indexes
+        indexProvider.refreshIfNecessary(); // make changes visible
+        return deleted;
+    }
+
+    private void optimiseFullReindex(final IndexWriter iw) throws IOException {
+        if (!buildAside) {
+            iw.forceMerge(1, true); // optimise the index
+        }
+    }
+
+    private void abortFullReindex() {
+        if (buildAside) {
+            rebuildIndexWriter = null;
+            indexProvider.abortRebuild();
+        }
+    }
+
+    private long indexEntity(final String name,
+                             final IndexWriter iw,
+                             final FacetsConfig facetsConfig,
+                             final T entity,
+                             final long indexTime) {
+
+        final Pair<PK, Document[]> documents = documentAdapter.toDocument(entity);
+        boolean remove = documents == null || documents.getSecond() == null || documents.getSecond().length == 0;
+
+        if (!remove) {
+
+            LOGFTQ.trace("Updating {} document _PK:{}", name, documents.getFirst());
+
+            for (final Document document : documents.getSecond()) {
+                try {
+                    LuceneDocumentAdapterUtils.addNumericField(document, LuceneDocumentAdapterUtils.FIELD_INDEXTIME, indexTime, false);
+                    for (final IndexableField ixf : document) {
+                        if (ixf.fieldType() == SortedSetDocValuesFacetField.TYPE) {
+                            SortedSetDocValuesFacetField facetField = (SortedSetDocValuesFacetField) ixf;
+                            facetsConfig.setIndexFieldName(facetField.dim, facetField.dim);
+                            facetsConfig.setMultiValued(facetField.dim, true); // TODO: revisit this but for now all fields assumed to have multivalue
+                        }
+                    }
+                    iw.updateDocument(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(documents.getFirst())), facetsConfig.build(document));
+                } catch (Exception sde) {
+                    LOGFTQ.error("Updating {} document _PK:{} failed ... cause: {}", new Object[] { name, documents.getFirst(), sde.getMessage() });
+                }
+            }
+        } else {
+
+            LOGFTQ.trace("Removing {} document _PK:{}", name, documents.getFirst());
+
+            try {
+                return iw.deleteDocuments(new Term(LuceneDocumentAdapterUtils.FIELD_PK, String.valueOf(documents.getFirst())));
+            } catch (Exception sde) {
+                LOGFTQ.error("Removing {} document _PK:{} failed ... cause: {}", new Object[] { name, documents.getFirst(), sde.getMessage() });
+            }
+        }
+        return 0L;
+    }
+
     static class FTIndexStateImpl implements FTIndexState {
 
         private boolean fullTextSearchReindexInProgress = false;
         private boolean fullTextSearchReindexCompleted = false;
         private long lastIndexCount = 0;
+        private long[] lastPartitionIndexCount = new long[0];
 
-        public FTIndexStateImpl(final boolean fullTextSearchReindexInProgress, final boolean fullTextSearchReindexCompleted, final long lastIndexCount) {
+        public FTIndexStateImpl(final boolean fullTextSearchReindexInProgress, final boolean fullTextSearchReindexCompleted, final long lastIndexCount, final long[] lastPartitionIndexCount) {
             this.fullTextSearchReindexInProgress = fullTextSearchReindexInProgress;
             this.fullTextSearchReindexCompleted = fullTextSearchReindexCompleted;
             this.lastIndexCount = lastIndexCount;
+            this.lastPartitionIndexCount = lastPartitionIndexCount;
         }
 
         @Override
@@ -356,6 +629,11 @@ public abstract class IndexBuilderLuceneImpl<T, PK extends Serializable> impleme
         public long getLastIndexCount() {
             return lastIndexCount;
         }
+
+        @Override
+        public long[] getLastPartitionIndexCount() {
+            return lastPartitionIndexCount;
+        }
     }
 
 }
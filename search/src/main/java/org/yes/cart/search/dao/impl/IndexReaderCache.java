@@ -0,0 +1,244 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.lucene.facet.sortedset.DefaultSortedSetDocValuesReaderState;
+import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of data derived from specific index reader. Entries are only valid for the reader
+ * they were computed on, so all entries are discarded once reader is closed (i.e. once refresh
+ * opens a new reader and all searchers on the old one are released).
+ *
+ * User: denispavlov
+ * Date: 18/10/2017
+ * Time: 10:12
+ */
+class IndexReaderCache {
+
+    private final ConcurrentMap<IndexReader, ReaderEntry> entries = new ConcurrentHashMap<IndexReader, ReaderEntry>();
+
+    private final int maxResults;
+
+    /**
+     * @param maxResults max number of query results cached per reader (0 disables result caching)
+     */
+    IndexReaderCache(final int maxResults) {
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * @return true if query results are cached
+     */
+    boolean isResultCacheEnabled() {
+        return maxResults > 0;
+    }
+
+    /**
+     * Get sorted set doc values facet state. State is expensive to build (scans all ordinals), so
+     * it is created once per reader and field.
+     *
+     * @param reader reader
+     * @param field  facet field
+     *
+     * @return facet state
+     *
+     * @throws IOException if state cannot be created
+     */
+    SortedSetDocValuesReaderState getFacetState(final IndexReader reader, final String field) throws IOException {
+
+        final ConcurrentMap<String, SortedSetDocValuesReaderState> readerStates = getEntry(reader).facetStates;
+
+        SortedSetDocValuesReaderState state = readerStates.get(field);
+        if (state == null) {
+            // Concurrent requests may both create state, which is harmless as state is immutable
+            state = new DefaultSortedSetDocValuesReaderState(reader, field);
+            final SortedSetDocValuesReaderState existing = readerStates.putIfAbsent(field, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+
+    }
+
+    /**
+     * Get typed sort field. Sort type is resolved from the doc values type the field is indexed
+     * with, so that numeric fields are compared as longs and sorted fields by ordinals rather than
+     * by string values. Resolved types are kept per reader and field.
+     *
+     * @param reader  reader
+     * @param field   sort field
+     * @param reverse reverse flag
+     *
+     * @return sort field
+     */
+    SortField getSortField(final IndexReader reader, final String field, final boolean reverse) {
+
+        final ConcurrentMap<String, DocValuesType> readerSortTypes = getEntry(reader).sortTypes;
+
+        DocValuesType type = readerSortTypes.get(field);
+        if (type == null) {
+            type = DocValuesType.NONE;
+            for (final LeafReaderContext leaf : reader.leaves()) {
+                final FieldInfo info = leaf.reader().getFieldInfos().fieldInfo(field);
+                if (info != null && info.getDocValuesType() != DocValuesType.NONE) {
+                    type = info.getDocValuesType();
+                    break;
+                }
+            }
+            readerSortTypes.putIfAbsent(field, type);
+        }
+
+        switch (type) {
+            case NUMERIC:
+                return new SortField(field, SortField.Type.LONG, reverse);
+            case SORTED_NUMERIC:
+                return new SortedNumericSortField(field, SortField.Type.LONG, reverse);
+            case SORTED:
+                return new SortField(field, SortField.Type.STRING, reverse);
+            case SORTED_SET:
+                return new SortedSetSortField(field, reverse);
+            default:
+                // Binary doc values or no values at all (i.e. field does not exist in this index)
+                return new SortField(field, SortField.Type.STRING_VAL, reverse);
+        }
+
+    }
+
+    /**
+     * Get tie break sort field, which gives hits with equal sort values a stable order. Field
+     * can only be used if every segment has doc values for it, as segments written by older
+     * versions (without doc values) fail the whole search. Result is kept per reader and field.
+     *
+     * @param reader reader
+     * @param field  tie break field (binary or sorted doc values)
+     *
+     * @return sort field or null if some segments have no doc values for this field
+     */
+    SortField getTieBreakField(final IndexReader reader, final String field) {
+
+        final ConcurrentMap<String, Boolean> readerTieBreaks = getEntry(reader).tieBreaks;
+
+        Boolean usable = readerTieBreaks.get(field);
+        if (usable == null) {
+            usable = Boolean.TRUE;
+            for (final LeafReaderContext leaf : reader.leaves()) {
+                final FieldInfo info = leaf.reader().getFieldInfos().fieldInfo(field);
+                if (info != null && info.getDocValuesType() == DocValuesType.NONE) {
+                    usable = Boolean.FALSE;
+                    break;
+                }
+            }
+            readerTieBreaks.putIfAbsent(field, usable);
+        }
+
+        return usable ? new SortField(field, SortField.Type.STRING_VAL) : null;
+
+    }
+
+    /**
+     * Get cached query result.
+     *
+     * @param reader reader
+     * @param key    query key
+     * @param <T>    result type
+     *
+     * @return result or null if not cached
+     */
+    @SuppressWarnings("unchecked")
+    <T> T getResult(final IndexReader reader, final Object key) {
+        if (!isResultCacheEnabled()) {
+            return null;
+        }
+        final Map<Object, Object> results = getEntry(reader).results;
+        synchronized (results) {
+            return (T) results.get(key);
+        }
+    }
+
+    /**
+     * Cache query result.
+     *
+     * @param reader reader
+     * @param key    query key
+     * @param result result (must not be modified after it is cached)
+     */
+    void putResult(final IndexReader reader, final Object key, final Object result) {
+        if (isResultCacheEnabled()) {
+            final Map<Object, Object> results = getEntry(reader).results;
+            synchronized (results) {
+                results.put(key, result);
+            }
+        }
+    }
+
+    private ReaderEntry getEntry(final IndexReader reader) {
+
+        ReaderEntry entry = entries.get(reader);
+        if (entry == null) {
+            final ReaderEntry newEntry = new ReaderEntry(maxResults);
+            entry = entries.putIfAbsent(reader, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+                reader.addReaderClosedListener(new IndexReader.ReaderClosedListener() {
+                    @Override
+                    public void onClose(final IndexReader closed) throws IOException {
+                        entries.remove(closed);
+                    }
+                });
+            }
+        }
+        return entry;
+
+    }
+
+    private static class ReaderEntry {
+
+        private final ConcurrentMap<String, SortedSetDocValuesReaderState> facetStates =
+                new ConcurrentHashMap<String, SortedSetDocValuesReaderState>();
+
+        private final ConcurrentMap<String, DocValuesType> sortTypes =
+                new ConcurrentHashMap<String, DocValuesType>();
+
+        private final ConcurrentMap<String, Boolean> tieBreaks =
+                new ConcurrentHashMap<String, Boolean>();
+
+        private final Map<Object, Object> results;
+
+        private ReaderEntry(final int maxResults) {
+            this.results = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Object, Object> eldest) {
+                    return size() > maxResults;
+                }
+            };
+        }
+    }
+
+}
@@ -19,8 +19,10 @@ package org.yes.cart.search.dao.impl;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.facet.taxonomy.SearcherTaxonomyManager;
 import org.apache.lucene.facet.taxonomy.directory.DirectoryTaxonomyWriter;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.*;
@@ -32,8 +34,17 @@ import org.yes.cart.search.dao.LuceneIndexProvider;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * In Memory implementation of Lucene index provider.
@@ -50,17 +61,46 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
 
     private final Logger LOGFTQ = LoggerFactory.getLogger("FTQ");
 
-    private Directory index = null;
-    private SearcherManager indexReaderManager;
-    private IndexWriter indexWriter;
+    static final String INDEX_SLOT_BLUE = "index";
+    static final String INDEX_SLOT_GREEN = "index-green";
+    static final String INDEX_SLOT_ACTIVE = "index.active";
+
+    private volatile Directory index = null;
+    private volatile SearcherManager indexReaderManager;
+    private volatile IndexWriter indexWriter;
+    private String indexSlot = INDEX_SLOT_BLUE;
+
+    private final Object rebuildLock = new Object();
+    // read lock is held by incremental updates while they use writer, write lock is held during swap
+    private final ReadWriteLock writerLock = new ReentrantReadWriteLock();
+    private Directory rebuildIndex = null;
+    private IndexWriter rebuildIndexWriter;
+    private String rebuildIndexSlot;
 
     private Directory facets = null;
-    private SearcherTaxonomyManager facetsReaderManager;
+    private volatile SearcherTaxonomyManager facetsReaderManager;
     private DirectoryTaxonomyWriter facetsWriter;
 
     private final String name;
     private final String uri;
 
+    private boolean nearRealTime = false;
+    private double nearRealTimeMaxStaleSec = 1.0d;
+    private double nearRealTimeMinStaleSec = 0.1d;
+    private long nearRealTimeCommitIntervalMs = 60000L;
+    private int nearRealTimeCommitThreshold = 1000;
+
+    private ControlledRealTimeReopenThread<IndexSearcher> indexReopenThread;
+    private ControlledRealTimeReopenThread<SearcherTaxonomyManager.SearcherAndTaxonomy> facetsReopenThread;
+    private ScheduledExecutorService commitScheduler;
+    private final AtomicLong uncommitted = new AtomicLong(0L);
+    private final Runnable commitTask = new Runnable() {
+        @Override
+        public void run() {
+            commitIfNecessary();
+        }
+    };
+
     public LuceneIndexProviderImpl(final String name, final String uri) {
         this.name = name;
         this.uri = uri;
@@ -79,11 +119,19 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
      */
     @Override
     public IndexSearcher provideIndexReader() {
-        try {
-            return indexReaderManager.acquire();
-        } catch (IOException e) {
-            LOGFTQ.error("Unable to acquire index reader " + name + ", cause: " + e.getMessage());
-            throw new RuntimeException(e);
+        while (true) {
+            final SearcherManager manager = indexReaderManager;
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                if (manager == indexReaderManager) {
+                    throw e;
+                }
+                // index was swapped by completeRebuild(), retry with new manager
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to acquire index reader " + name + ", cause: " + e.getMessage());
+                throw new RuntimeException(e);
+            }
         }
     }
 
@@ -106,10 +154,8 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
     @Override
     public IndexWriter provideIndexWriter() {
         if (indexWriter == null) {
-            final IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
-            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
             try {
-                return indexWriter = new IndexWriter(index, config);
+                return indexWriter = createIndexWriter(index, IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
             } catch (IOException e) {
                 LOGFTQ.error("Unable to acquire index writer " + name + ", cause: " + e.getMessage());
                 throw new RuntimeException(e);
@@ -118,6 +164,34 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         return indexWriter;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexWriter acquireIndexWriter() {
+        writerLock.readLock().lock();
+        try {
+            return provideIndexWriter();
+        } catch (RuntimeException e) {
+            writerLock.readLock().unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void releaseIndexWriter(final IndexWriter writer) {
+        writerLock.readLock().unlock();
+    }
+
+    private IndexWriter createIndexWriter(final Directory directory, final IndexWriterConfig.OpenMode mode) throws IOException {
+        final IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setOpenMode(mode);
+        return new IndexWriter(directory, config);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -136,11 +210,19 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
      */
     @Override
     public SearcherTaxonomyManager.SearcherAndTaxonomy provideFacetsReader() {
-        try {
-            return facetsReaderManager.acquire();
-        } catch (IOException e) {
-            LOGFTQ.error("Unable to acquire facets reader " + name + ", cause: " + e.getMessage());
-            throw new RuntimeException(e);
+        while (true) {
+            final SearcherTaxonomyManager manager = facetsReaderManager;
+            try {
+                return manager.acquire();
+            } catch (AlreadyClosedException e) {
+                if (manager == facetsReaderManager) {
+                    throw e;
+                }
+                // index was swapped by completeRebuild(), retry with new manager
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to acquire facets reader " + name + ", cause: " + e.getMessage());
+                throw new RuntimeException(e);
+            }
         }
     }
 
@@ -194,13 +276,277 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         this.refreshFacetsIfNecessary();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void indexUpdated(final long generation) {
+        if (!nearRealTime) {
+            this.refreshIfNecessary();
+        } else if (uncommitted.incrementAndGet() >= nearRealTimeCommitThreshold) {
+            commitScheduler.execute(commitTask);
+        }
+    }
+
+    private void commitIfNecessary() {
+        final long pending = uncommitted.getAndSet(0L);
+        if (pending > 0L) {
+            final IndexWriter writer = acquireIndexWriter();
+            try {
+                writer.commit();
+                LOGFTQ.debug("Committed {} changes to {}", pending, name);
+            } catch (Exception e) {
+                uncommitted.addAndGet(pending);
+                LOGFTQ.error("Unable to commit index " + name + ", cause: " + e.getMessage());
+            } finally {
+                releaseIndexWriter(writer);
+            }
+        }
+    }
+
+    private void startNearRealTime() {
+        if (nearRealTime) {
+            indexReopenThread = new ControlledRealTimeReopenThread<IndexSearcher>(
+                    indexWriter, indexReaderManager, nearRealTimeMaxStaleSec, nearRealTimeMinStaleSec);
+            indexReopenThread.setName("FTQ-NRT-" + name + "-index");
+            indexReopenThread.setDaemon(true);
+            indexReopenThread.start();
+            facetsReopenThread = new ControlledRealTimeReopenThread<SearcherTaxonomyManager.SearcherAndTaxonomy>(
+                    indexWriter, facetsReaderManager, nearRealTimeMaxStaleSec, nearRealTimeMinStaleSec);
+            facetsReopenThread.setName("FTQ-NRT-" + name + "-facets");
+            facetsReopenThread.setDaemon(true);
+            facetsReopenThread.start();
+        }
+    }
+
+    private void stopNearRealTime() {
+        if (indexReopenThread != null) {
+            indexReopenThread.close();
+            indexReopenThread = null;
+        }
+        if (facetsReopenThread != null) {
+            facetsReopenThread.close();
+            facetsReopenThread = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexWriter provideRebuildIndexWriter() {
+        synchronized (rebuildLock) {
+            if (rebuildIndexWriter == null) {
+                final String slot = INDEX_SLOT_BLUE.equals(indexSlot) ? INDEX_SLOT_GREEN : INDEX_SLOT_BLUE;
+                LOGFTQ.info("Starting rebuild of {} in {}", name, slot);
+                Directory directory = null;
+                try {
+                    directory = getInstance(getIndexUri(slot));
+                    rebuildIndexWriter = createIndexWriter(directory, IndexWriterConfig.OpenMode.CREATE);
+                    rebuildIndex = directory;
+                    rebuildIndexSlot = slot;
+                } catch (Exception e) {
+                    LOGFTQ.error("Unable to acquire rebuild index writer " + name + ", cause: " + e.getMessage());
+                    closeQuietly(directory);
+                    throw new RuntimeException(e);
+                }
+            }
+            return rebuildIndexWriter;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void completeRebuild() {
+        synchronized (rebuildLock) {
+            if (rebuildIndexWriter == null) {
+                return;
+            }
+            final SearcherManager newIndexReaderManager;
+            final SearcherTaxonomyManager newFacetsReaderManager;
+            try {
+                rebuildIndexWriter.commit();
+                newIndexReaderManager = new SearcherManager(rebuildIndexWriter, null);
+                newFacetsReaderManager = new SearcherTaxonomyManager(rebuildIndexWriter, null, facetsWriter);
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to complete rebuild of " + name + ", cause: " + e.getMessage());
+                abortRebuild();
+                return;
+            }
+
+            final Directory oldIndex;
+            final IndexWriter oldIndexWriter;
+            final SearcherManager oldIndexReaderManager;
+            final SearcherTaxonomyManager oldFacetsReaderManager;
+
+            // Swap once in-flight incremental updates have finished with old writer
+            writerLock.writeLock().lock();
+            try {
+                oldIndex = index;
+                oldIndexWriter = indexWriter;
+                oldIndexReaderManager = indexReaderManager;
+                oldFacetsReaderManager = facetsReaderManager;
+
+                stopNearRealTime();
+                index = rebuildIndex;
+                indexWriter = rebuildIndexWriter;
+                indexReaderManager = newIndexReaderManager;
+                facetsReaderManager = newFacetsReaderManager;
+                indexSlot = rebuildIndexSlot;
+                writeActiveSlot(indexSlot);
+                uncommitted.set(0L); // all changes in old index are discarded, new index is fully committed
+                startNearRealTime();
+            } finally {
+                writerLock.writeLock().unlock();
+            }
+
+            rebuildIndex = null;
+            rebuildIndexWriter = null;
+            rebuildIndexSlot = null;
+
+            LOGFTQ.info("Switched {} to {}", name, indexSlot);
+
+            retire(oldIndex, oldIndexWriter, oldIndexReaderManager, oldFacetsReaderManager);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void abortRebuild() {
+        synchronized (rebuildLock) {
+            if (rebuildIndexWriter == null) {
+                return;
+            }
+            LOGFTQ.info("Aborting rebuild of {} in {}", name, rebuildIndexSlot);
+            try {
+                rebuildIndexWriter.rollback();
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to rollback rebuild index writer " + name + ", cause: " + e.getMessage());
+            }
+            closeQuietly(rebuildIndex);
+            rebuildIndex = null;
+            rebuildIndexWriter = null;
+            rebuildIndexSlot = null;
+        }
+    }
+
+    /*
+     * Old readers may still be in use by in-flight searches, so we close managers (which only release
+     * their own reference) and close the directory once the last reader on it is closed.
+     */
+    private void retire(final Directory oldIndex,
+                        final IndexWriter oldIndexWriter,
+                        final SearcherManager oldIndexReaderManager,
+                        final SearcherTaxonomyManager oldFacetsReaderManager) {
+
+        IndexSearcher last = null;
+        try {
+            last = oldIndexReaderManager.acquire();
+            last.getIndexReader().addReaderClosedListener(new IndexReader.ReaderClosedListener() {
+                @Override
+                public void onClose(final IndexReader reader) throws IOException {
+                    LOGFTQ.info("Closing retired directory for {}", name);
+                    closeQuietly(oldIndex);
+                }
+            });
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to acquire retired index reader " + name + ", cause: " + e.getMessage());
+        }
+        try {
+            oldIndexReaderManager.close();
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to release retired index searchers " + name + ", cause: " + e.getMessage());
+        }
+        try {
+            oldFacetsReaderManager.close();
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to release retired facet searchers " + name + ", cause: " + e.getMessage());
+        }
+        try {
+            if (oldIndexWriter != null) {
+                oldIndexWriter.close();
+            }
+        } catch (IOException e) {
+            LOGFTQ.error("Unable to release retired index writer " + name + ", cause: " + e.getMessage());
+        }
+        if (last != null) {
+            try {
+                oldIndexReaderManager.release(last);
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to release retired index reader " + name + ", cause: " + e.getMessage());
+            }
+        } else {
+            closeQuietly(oldIndex);
+        }
+    }
+
+    private void closeQuietly(final Directory directory) {
+        if (directory != null) {
+            try {
+                directory.close();
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to release index directory " + name + ", cause: " + e.getMessage());
+            }
+        }
+    }
+
+    private String getIndexUri(final String slot) {
+        return uri + File.separatorChar + name + File.separatorChar + slot;
+    }
+
+    /*
+     * Active slot is only persisted for file system directories, RAM directories always start with blue.
+     */
+    private Path getActiveSlotPath() {
+        if (uri == null || uri.startsWith("ram")) {
+            return null;
+        }
+        final int protocol = uri.indexOf("://");
+        if (protocol == -1) {
+            return null;
+        }
+        return Paths.get(uri.substring(protocol + 3), name, INDEX_SLOT_ACTIVE);
+    }
+
+    private String readActiveSlot() {
+        final Path path = getActiveSlotPath();
+        if (path != null && Files.exists(path)) {
+            try {
+                final String slot = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+                if (INDEX_SLOT_GREEN.equals(slot)) {
+                    return INDEX_SLOT_GREEN;
+                }
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to read active index slot " + name + ", cause: " + e.getMessage());
+            }
+        }
+        return INDEX_SLOT_BLUE;
+    }
+
+    private void writeActiveSlot(final String slot) {
+        final Path path = getActiveSlotPath();
+        if (path != null) {
+            try {
+                Files.createDirectories(path.getParent());
+                Files.write(path, slot.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                LOGFTQ.error("Unable to write active index slot " + name + ", cause: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void afterPropertiesSet() throws Exception {
 
-        index = getInstance(uri + File.separatorChar + name + File.separatorChar + "index");
+        indexSlot = readActiveSlot();
+        index = getInstance(getIndexUri(indexSlot));
         provideIndexWriter();
         indexReaderManager = new SearcherManager(indexWriter, null);
 
@@ -208,6 +554,71 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
         provideFacetsWriter();
         facetsReaderManager = new SearcherTaxonomyManager(indexWriter, null, facetsWriter);
 
+        if (nearRealTime) {
+            LOGFTQ.info("Starting near real time refresh for {} with max stale {}s", name, nearRealTimeMaxStaleSec);
+            startNearRealTime();
+            commitScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "FTQ-NRT-" + name + "-commit");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            commitScheduler.scheduleWithFixedDelay(commitTask,
+                    nearRealTimeCommitIntervalMs, nearRealTimeCommitIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+    }
+
+    /**
+     * Enable near real time mode. In this mode incremental updates (see {@link #indexUpdated(long)})
+     * do not refresh readers synchronously. Instead readers are reopened by background thread
+     * within configured staleness and index is committed on timer or once number of changes
+     * reaches threshold.
+     *
+     * @param nearRealTime true to enable near real time mode
+     */
+    public void setNearRealTime(final boolean nearRealTime) {
+        this.nearRealTime = nearRealTime;
+    }
+
+    /**
+     * Max time (in seconds) before incremental changes become visible to searchers in near real time mode.
+     *
+     * @param nearRealTimeMaxStaleSec max stale time
+     */
+    public void setNearRealTimeMaxStaleSec(final double nearRealTimeMaxStaleSec) {
+        this.nearRealTimeMaxStaleSec = nearRealTimeMaxStaleSec;
+    }
+
+    /**
+     * Min time (in seconds) between reopens when searchers are waiting for specific generation in
+     * near real time mode.
+     *
+     * @param nearRealTimeMinStaleSec min stale time
+     */
+    public void setNearRealTimeMinStaleSec(final double nearRealTimeMinStaleSec) {
+        this.nearRealTimeMinStaleSec = nearRealTimeMinStaleSec;
+    }
+
+    /**
+     * Commit interval in near real time mode.
+     *
+     * @param nearRealTimeCommitIntervalMs commit interval in milliseconds
+     */
+    public void setNearRealTimeCommitIntervalMs(final long nearRealTimeCommitIntervalMs) {
+        this.nearRealTimeCommitIntervalMs = nearRealTimeCommitIntervalMs;
+    }
+
+    /**
+     * Number of incremental changes that trigger commit before commit interval elapses in near
+     * real time mode.
+     *
+     * @param nearRealTimeCommitThreshold number of changes
+     */
+    public void setNearRealTimeCommitThreshold(final int nearRealTimeCommitThreshold) {
+        this.nearRealTimeCommitThreshold = nearRealTimeCommitThreshold;
     }
 
     Directory getInstance(final String uri) throws Exception {
@@ -245,6 +656,12 @@ public class LuceneIndexProviderImpl implements LuceneIndexProvider, Initializin
     public void destroy() throws Exception {
 
         LOGFTQ.info("Closing directory for {}", name);
+        abortRebuild();
+        stopNearRealTime();
+        if (commitScheduler != null) {
+            commitScheduler.shutdownNow();
+            commitIfNecessary(); // flush pending changes synchronously
+        }
         try {
             indexReaderManager.close();
         } catch (IOException e) {
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dao.impl;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.StringUtils;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
+import org.yes.cart.domain.misc.Pair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Opaque cursor for "search after" paging. Cursor encodes offset of the next page and sort values
+ * of the last hit on the current page together with fingerprint of query and sort it was created for.
+ * Sort always ends with _PK (see {@link GenericFTSLuceneImpl#fullTextSearchAfter}), so the position
+ * does not depend on Lucene doc id, which changes after merges and reopens and differs between nodes.
+ *
+ * Cursor is only a hint: if it does not match the query (e.g. different sort requested) the
+ * offset is used for normal offset paging.
+ *
+ * User: denispavlov
+ * Date: 18/10/2017
+ * Time: 16:20
+ */
+final class LuceneSearchCursor {
+
+    private static final String VERSION = "2";
+    private static final char SEPARATOR = ';';
+
+    private LuceneSearchCursor() {
+        // no instance
+    }
+
+    /**
+     * Fingerprint of the query and sort. This has to be stable across JVM's (i.e. cannot rely on
+     * {@link Query#hashCode()}) as cursor may be used on different cluster node or after restart.
+     *
+     * @param query         query
+     * @param sortFieldName sort field
+     * @param reverse       reverse flag
+     *
+     * @return fingerprint
+     */
+    static String fingerprint(final Query query, final String sortFieldName, final boolean reverse) {
+        return Integer.toHexString((query + "|" + sortFieldName + "|" + reverse).hashCode());
+    }
+
+    /**
+     * Create cursor for next page.
+     *
+     * @param fingerprint query fingerprint
+     * @param offset      offset of next page
+     * @param last        last hit on current page
+     *
+     * @return cursor
+     */
+    static String encode(final String fingerprint, final int offset, final FieldDoc last) {
+
+        final StringBuilder cursor = new StringBuilder(VERSION);
+        cursor.append(SEPARATOR).append(fingerprint)
+              .append(SEPARATOR).append(offset);
+
+        for (final Object value : last.fields) {
+            cursor.append(SEPARATOR);
+            if (value == null) {
+                cursor.append('N');
+            } else if (value instanceof Long) {
+                cursor.append('L').append(value);
+            } else if (value instanceof Integer) {
+                cursor.append('I').append(value);
+            } else if (value instanceof Double) {
+                cursor.append('D').append(Double.doubleToLongBits((Double) value));
+            } else if (value instanceof Float) {
+                cursor.append('F').append(Float.floatToIntBits((Float) value));
+            } else if (value instanceof BytesRef) {
+                final BytesRef bytes = (BytesRef) value;
+                cursor.append('B').append(Base64.encodeBase64URLSafeString(
+                        Arrays.copyOfRange(bytes.bytes, bytes.offset, bytes.offset + bytes.length)));
+            } else {
+                // unsupported sort value, offset paging will be used
+                return Base64.encodeBase64URLSafeString(
+                        (VERSION + SEPARATOR + SEPARATOR + offset).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        return Base64.encodeBase64URLSafeString(cursor.toString().getBytes(StandardCharsets.UTF_8));
+
+    }
+
+    /**
+     * Read cursor.
+     *
+     * @param cursor      cursor
+     * @param fingerprint query fingerprint
+     *
+     * @return offset and sort values of last hit (null if cursor does not match the fingerprint), or null if cursor is blank or invalid
+     */
+    static Pair<Integer, Object[]> decode(final String cursor, final String fingerprint) {
+
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+
+        try {
+
+            final String[] parts = StringUtils.splitPreserveAllTokens(
+                    new String(Base64.decodeBase64(cursor), StandardCharsets.UTF_8), SEPARATOR);
+
+            if (parts.length < 3) {
+                return null;
+            }
+
+            final int offset = Integer.parseInt(parts[2]);
+            if (offset < 0) {
+                return null;
+            }
+
+            if (parts.length < 4 || !VERSION.equals(parts[0]) || !fingerprint.equals(parts[1])) {
+                // other version (e.g. doc id based cursor issued before upgrade) or other query
+                return new Pair<Integer, Object[]>(offset, null);
+            }
+
+            final Object[] values = new Object[parts.length - 3];
+            for (int i = 0; i < values.length; i++) {
+                final String value = parts[i + 3];
+                final String encoded = value.substring(1);
+                switch (value.charAt(0)) {
+                    case 'N': values[i] = null; break;
+                    case 'L': values[i] = Long.valueOf(encoded); break;
+                    case 'I': values[i] = Integer.valueOf(encoded); break;
+                    case 'D': values[i] = Double.longBitsToDouble(Long.parseLong(encoded)); break;
+                    case 'F': values[i] = Float.intBitsToFloat(Integer.parseInt(encoded)); break;
+                    case 'B': values[i] = new BytesRef(Base64.decodeBase64(encoded)); break;
+                    default: return new Pair<Integer, Object[]>(offset, null);
+                }
+            }
+            return new Pair<Integer, Object[]>(offset, values);
+
+        } catch (Exception exp) {
+            return null;
+        }
+
+    }
+
+}
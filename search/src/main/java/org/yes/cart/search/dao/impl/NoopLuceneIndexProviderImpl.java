@@ -49,6 +49,16 @@ public class NoopLuceneIndexProviderImpl implements LuceneIndexProvider {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public IndexWriter acquireIndexWriter() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void releaseIndexWriter(final IndexWriter writer) {
+
+    }
+
     @Override
     public void refreshIndexIfNecessary() {
 
@@ -78,4 +88,24 @@ public class NoopLuceneIndexProviderImpl implements LuceneIndexProvider {
     public void refreshIfNecessary() {
 
     }
+
+    @Override
+    public void indexUpdated(final long generation) {
+
+    }
+
+    @Override
+    public IndexWriter provideRebuildIndexWriter() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void completeRebuild() {
+
+    }
+
+    @Override
+    public void abortRebuild() {
+
+    }
 }
@@ -127,6 +127,32 @@ public class FilteredNavigationRecordRequestImpl implements FilteredNavigationRe
         return rangeValues;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        final FilteredNavigationRecordRequestImpl that = (FilteredNavigationRecordRequestImpl) o;
+
+        if (multiValue != that.multiValue) return false;
+        if (facetName != null ? !facetName.equals(that.facetName) : that.facetName != null) return false;
+        if (field != null ? !field.equals(that.field) : that.field != null) return false;
+        if (rangeValues != null ? !rangeValues.equals(that.rangeValues) : that.rangeValues != null) return false;
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int result = facetName != null ? facetName.hashCode() : 0;
+        result = 31 * result + (field != null ? field.hashCode() : 0);
+        result = 31 * result + (multiValue ? 1 : 0);
+        result = 31 * result + (rangeValues != null ? rangeValues.hashCode() : 0);
+        return result;
+    }
+
     @Override
     public String toString() {
         return "FilteredNavigationRecordRequestImpl{" +
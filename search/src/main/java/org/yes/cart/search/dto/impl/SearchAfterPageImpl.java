@@ -0,0 +1,74 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package org.yes.cart.search.dto.impl;
+
+import org.yes.cart.search.dto.SearchAfterPage;
+
+import java.util.List;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2017
+ * Time: 16:09
+ */
+public class SearchAfterPageImpl implements SearchAfterPage {
+
+    private final List<Object[]> items;
+    private final int first;
+    private final int totalHits;
+    private final String nextCursor;
+
+    public SearchAfterPageImpl(final List<Object[]> items,
+                               final int first,
+                               final int totalHits,
+                               final String nextCursor) {
+        this.items = items;
+        this.first = first;
+        this.totalHits = totalHits;
+        this.nextCursor = nextCursor;
+    }
+
+    /** {@inheritDoc} */
+    public List<Object[]> getItems() {
+        return items;
+    }
+
+    /** {@inheritDoc} */
+    public int getFirst() {
+        return first;
+    }
+
+    /** {@inheritDoc} */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /** {@inheritDoc} */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchAfterPageImpl{" +
+                "items=" + items.size() +
+                ", first=" + first +
+                ", totalHits=" + totalHits +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
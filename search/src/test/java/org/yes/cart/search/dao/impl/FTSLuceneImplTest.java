@@ -18,24 +18,34 @@ package org.yes.cart.search.dao.impl;
 
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.misc.Pair;
+import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.dao.LuceneDocumentAdapter;
 import org.yes.cart.search.dao.LuceneIndexProvider;
 import org.yes.cart.search.dao.entity.LuceneDocumentAdapterUtils;
 import org.yes.cart.search.dto.FilteredNavigationRecordRequest;
+import org.yes.cart.search.dto.SearchAfterPage;
 import org.yes.cart.search.dto.impl.FilteredNavigationRecordRequestImpl;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.Assert.*;
 
@@ -83,7 +93,7 @@ public class FTSLuceneImplTest {
 
                 final String fieldName = field.getKey();
                 final Object values = field.getValue();
-                final List<String> strValues = values instanceof String ? Collections.singletonList(values) : (List) values;
+                final List<String> strValues = values instanceof String ? Collections.singletonList((String) values) : (List) values;
                 final boolean multi = strValues.size() > 1;
                 final boolean numeric = this.numeric.contains(fieldName);
 
@@ -193,7 +203,42 @@ public class FTSLuceneImplTest {
         @Override
         protected ResultsIterator<Map<String, Object>> findAllIterator() {
 
-            final Iterator<Map<String, Object>> it = this.docs.iterator();
+            return iterator(this.docs);
+        }
+
+        @Override
+        protected List<Pair<Long, Long>> findAllPartitions(final int partitions) {
+
+            final List<Long> pks = new ArrayList<Long>();
+            for (final Map<String, Object> doc : this.docs) {
+                pks.add(NumberUtils.toLong((String) doc.get(LuceneDocumentAdapterUtils.FIELD_PK)));
+            }
+            Collections.sort(pks);
+
+            final List<Pair<Long, Long>> ranges = new ArrayList<Pair<Long, Long>>();
+            final int size = (pks.size() + partitions - 1) / partitions;
+            for (int i = 0; i < pks.size(); i += size) {
+                ranges.add(new Pair<Long, Long>(pks.get(i), pks.get(Math.min(pks.size(), i + size) - 1)));
+            }
+            return ranges;
+        }
+
+        @Override
+        protected ResultsIterator<Map<String, Object>> findAllIterator(final Pair<Long, Long> partition) {
+
+            final List<Map<String, Object>> range = new ArrayList<Map<String, Object>>();
+            for (final Map<String, Object> doc : this.docs) {
+                final long pk = NumberUtils.toLong((String) doc.get(LuceneDocumentAdapterUtils.FIELD_PK));
+                if (pk >= partition.getFirst() && pk <= partition.getSecond()) {
+                    range.add(doc);
+                }
+            }
+            return iterator(range);
+        }
+
+        private ResultsIterator<Map<String, Object>> iterator(final List<Map<String, Object>> docs) {
+
+            final Iterator<Map<String, Object>> it = docs.iterator();
 
             return new ResultsIterator<Map<String, Object>>() {
                 @Override
@@ -365,6 +410,445 @@ public class FTSLuceneImplTest {
 
     }
 
+    @Test
+    public void testFullTextSearchTypedSort() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (final String pk : new String[] { "12345678901", "9999999998", "100000" }) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", pk);
+            doc.put("name", "item " + pk);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            final IndexReaderCache cache = new IndexReaderCache(0);
+            assertEquals(SortField.Type.LONG, cache.getSortField(searcher.getIndexReader(), "_PK_sort", false).getType());
+            assertEquals(SortField.Type.STRING, cache.getSortField(searcher.getIndexReader(), "name_sort", false).getType());
+            assertEquals(SortField.Type.STRING_VAL, cache.getSortField(searcher.getIndexReader(), "unknown_sort", false).getType());
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+        // Numeric values are compared as longs regardless of number of digits
+        assertEquals(Arrays.asList(100000L, 9999999998L, 12345678901L),
+                genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 3, "_PK_sort", false));
+        assertEquals(Arrays.asList(12345678901L, 9999999998L, 100000L),
+                genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 3, "_PK_sort", true));
+        assertEquals(Arrays.asList(100000L, 12345678901L, 9999999998L),
+                genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 3, "name_sort", false));
+
+    }
+
+    @Test
+    public void testFullTextSearchAfter() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + (char) ('a' + (i % 5)));
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        for (final String sort : new String[] { "_PK_sort", "name_sort", null }) {
+            for (final boolean reverse : new boolean[] { false, true }) {
+
+                final List<Object> offsetPaging = new ArrayList<Object>();
+                for (final Object[] item : genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 25, sort, reverse, "_PK").getFirst()) {
+                    offsetPaging.add(item[0]);
+                }
+                assertEquals(25, offsetPaging.size());
+
+                // search after breaks ties by _PK, so order of equal hits may differ from offset paging
+                final List<Object> expected = new ArrayList<Object>();
+                for (final Object[] item : genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 25, sort, reverse, "_PK").getItems()) {
+                    expected.add(item[0]);
+                }
+                assertEquals(new HashSet<Object>(offsetPaging), new HashSet<Object>(expected));
+                if ("_PK_sort".equals(sort)) {
+                    assertEquals(offsetPaging, expected);
+                }
+
+                final List<Object> actual = new ArrayList<Object>();
+                String cursor = null;
+                int pages = 0;
+                do {
+                    final SearchAfterPage page = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), cursor, 10, sort, reverse, "_PK");
+                    assertEquals(pages * 10, page.getFirst());
+                    assertEquals(25, page.getTotalHits());
+                    for (final Object[] item : page.getItems()) {
+                        actual.add(item[0]);
+                    }
+                    cursor = page.getNextCursor();
+                    pages++;
+                } while (cursor != null);
+
+                assertEquals(3, pages);
+                assertEquals("Sort " + sort + ", reverse " + reverse, expected, actual);
+
+            }
+        }
+
+        final SearchAfterPage first = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 10, "_PK_sort", false, "_PK");
+        assertNotNull(first.getNextCursor());
+
+        // Cursor for different sort is used as offset
+        final SearchAfterPage other = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), first.getNextCursor(), 10, "_PK_sort", true, "_PK");
+        assertEquals(10, other.getFirst());
+        assertEquals("100014", other.getItems().get(0)[0]);
+
+        // Invalid cursor is first page
+        final SearchAfterPage invalid = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), "not a cursor", 10, "_PK_sort", false, "_PK");
+        assertEquals(0, invalid.getFirst());
+        assertEquals("100000", invalid.getItems().get(0)[0]);
+
+    }
+
+    @Test
+    public void testFullTextSearchAfterReindexed() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + (char) ('a' + (i % 2)));
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 1);
+
+        final List<Object> actual = new ArrayList<Object>();
+        final SearchAfterPage first = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 10, "name_sort", false, "_PK");
+        for (final Object[] item : first.getItems()) {
+            actual.add(item[0]);
+        }
+
+        // Reindex in reverse order, so that all doc ids change (e.g. merge, other cluster node)
+        final List<Map<String, String>> reversed = new ArrayList<Map<String, String>>(docs);
+        Collections.reverse(reversed);
+        indexBuilderLucene.setDocs((List) reversed);
+        indexBuilderLucene.fullTextSearchReindex(false, 1);
+
+        String cursor = first.getNextCursor();
+        while (cursor != null) {
+            final SearchAfterPage page = genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), cursor, 10, "name_sort", false, "_PK");
+            for (final Object[] item : page.getItems()) {
+                actual.add(item[0]);
+            }
+            cursor = page.getNextCursor();
+        }
+
+        final List<Object> expected = new ArrayList<Object>();
+        for (final Object[] item : genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 25, "name_sort", false, "_PK").getItems()) {
+            expected.add(item[0]);
+        }
+
+        assertEquals(25, new HashSet<Object>(actual).size());
+        assertEquals(expected, actual);
+
+    }
+
+    @Test
+    public void testFullTextSearchOffsetAndAfterSameOrder() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + (char) ('a' + (i % 2)));
+            docs.add(doc);
+        }
+        // Reverse order, so that doc id order differs from _PK order for ties
+        Collections.reverse(docs);
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 1);
+
+        // First page by cursor, next pages by offset (e.g. storefront jumping to page 2)
+        final List<Object> mixed = new ArrayList<Object>();
+        for (final Object[] item : genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 10, "name_sort", false, "_PK").getItems()) {
+            mixed.add(item[0]);
+        }
+        for (int first = 10; first < 25; first += 10) {
+            for (final Object[] item : genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), first, 10, "name_sort", false, "_PK").getFirst()) {
+                mixed.add(item[0]);
+            }
+        }
+
+        final List<Object> expected = new ArrayList<Object>();
+        for (final Object[] item : genericFTSLucene.fullTextSearchAfter(new MatchAllDocsQuery(), null, 25, "name_sort", false, "_PK").getItems()) {
+            expected.add(item[0]);
+        }
+
+        assertEquals(25, new HashSet<Object>(mixed).size());
+        assertEquals(expected, mixed);
+        assertEquals("100000", expected.get(0));
+        assertEquals("100002", expected.get(1));
+
+        // Relevance ties are broken by _PK as well
+        final List<Object> byScore = new ArrayList<Object>();
+        for (final Object[] item : genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 3, null, false, "_PK").getFirst()) {
+            byScore.add(item[0]);
+        }
+        assertEquals(Arrays.<Object>asList("100000", "100001", "100002"), byScore);
+
+    }
+
+    @Test
+    public void testFullTextSearchProjectionDocValues() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 5; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + i);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        // Document indexed without projection doc values (e.g. index created by older version)
+        final Document legacy = new Document();
+        legacy.add(new StringField("_PK", "100005", Field.Store.YES));
+        legacy.add(new StringField("_CLASS", Object.class.getName(), Field.Store.YES));
+        legacy.add(new NumericDocValuesField("_PK_sort", 100005L));
+        provider.indexUpdated(provider.provideIndexWriter().addDocument(legacy));
+
+        final Pair<List<Object[]>, Integer> rez = genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 2, 10, "_PK_sort", true, "_PK", "_CLASS");
+        assertEquals(Integer.valueOf(6), rez.getSecond());
+        final List<Object[]> vals = rez.getFirst();
+        assertEquals(4, vals.size());
+        // Order of hits is preserved even though values are loaded in doc id order
+        assertEquals("100003", vals.get(0)[0]);
+        assertEquals("100002", vals.get(1)[0]);
+        assertEquals("100001", vals.get(2)[0]);
+        assertEquals("100000", vals.get(3)[0]);
+        assertEquals(Object.class.getName(), vals.get(3)[1]);
+
+        final Pair<List<Object[]>, Integer> legacyRez = genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 1, "_PK_sort", true, "_PK", "_CLASS");
+        assertEquals("100005", legacyRez.getFirst().get(0)[0]);
+        assertEquals(Object.class.getName(), legacyRez.getFirst().get(0)[1]);
+
+        assertEquals(Arrays.asList(100005L, 100004L), genericFTSLucene.fullTextSearch(new MatchAllDocsQuery(), 0, 2, "_PK_sort", true));
+
+    }
+
+    @Test
+    public void testFullTextSearchPartitioned() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 25; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + i);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.setPartitions(4);
+        indexBuilderLucene.setPartitionExecutor(new SimpleAsyncTaskExecutor());
+
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        final IndexBuilder.FTIndexState state = indexBuilderLucene.getFullTextIndexState();
+        assertTrue(state.isFullTextSearchReindexCompleted());
+        assertEquals(25L, state.getLastIndexCount());
+        assertEquals(4, state.getLastPartitionIndexCount().length);
+        long total = 0L;
+        for (final long count : state.getLastPartitionIndexCount()) {
+            assertTrue(count > 0L);
+            total += count;
+        }
+        assertEquals(25L, total);
+
+        assertEquals(25, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+        final List<Long> pks = genericFTSLucene.fullTextSearch(new MatchAllDocsQuery());
+        assertEquals(25, pks.size());
+        for (int i = 0; i < 25; i++) {
+            assertTrue(pks.contains(100000L + i));
+        }
+
+        // Stale documents are removed after all partitions complete
+        indexBuilderLucene.setDocs((List) docs.subList(0, 10));
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        assertEquals(10, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+        assertEquals(10L, indexBuilderLucene.getFullTextIndexState().getLastIndexCount());
+
+    }
+
+    @Test
+    public void testFullTextSearchBuildAside() throws Exception {
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 10; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + i);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        assertEquals(10, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+
+        // In-flight searcher must survive the swap
+        final IndexSearcher inflight = provider.provideIndexReader();
+        assertEquals(10, inflight.count(new MatchAllDocsQuery()));
+
+        indexBuilderLucene.setBuildAside(true);
+        indexBuilderLucene.setDocs((List) docs.subList(0, 5));
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        assertEquals(5, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+        assertEquals(10, inflight.count(new MatchAllDocsQuery()));
+        provider.releaseIndexReader(inflight);
+
+        // Incremental updates go to new index
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(100007L);
+        assertEquals(6, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+
+        // Swap back to original slot
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+        assertEquals(10, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+
+    }
+
+    @Test
+    public void testFullTextSearchBuildAsideWaitsForWriters() throws Exception {
+
+        final ExecutorService updater = Executors.newSingleThreadExecutor();
+        final ExecutorService rebuilder = Executors.newSingleThreadExecutor();
+        try {
+
+            final CountDownLatch release = new CountDownLatch(1);
+
+            // incremental update holds live writer
+            final IndexWriter live = updater.submit(new Callable<IndexWriter>() {
+                @Override
+                public IndexWriter call() throws Exception {
+                    return provider.acquireIndexWriter();
+                }
+            }).get();
+
+            final IndexWriter rebuild = provider.provideRebuildIndexWriter();
+            final Document rebuilt = new Document();
+            rebuilt.add(new StringField("_PK", "200000", Field.Store.YES));
+            rebuild.addDocument(rebuilt);
+
+            final Future<?> swap = rebuilder.submit(new Runnable() {
+                @Override
+                public void run() {
+                    provider.completeRebuild();
+                }
+            });
+
+            Thread.sleep(200L);
+            assertFalse("Swap must wait for in-flight writers", swap.isDone());
+
+            final Future<Long> update = updater.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    try {
+                        final Document doc = new Document();
+                        doc.add(new StringField("_PK", "200001", Field.Store.YES));
+                        return live.addDocument(doc); // must not throw AlreadyClosedException
+                    } finally {
+                        provider.releaseIndexWriter(live);
+                    }
+                }
+            });
+            assertTrue(update.get(5, TimeUnit.SECONDS) >= 0L);
+
+            swap.get(5, TimeUnit.SECONDS);
+            assertEquals(1, genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery()));
+            assertNotSame(live, provider.provideIndexWriter());
+
+        } finally {
+            updater.shutdownNow();
+            rebuilder.shutdownNow();
+        }
+
+    }
+
+    @Test
+    public void testFullTextSearchNearRealTime() throws Exception {
+
+        provider.destroy();
+        provider = new LuceneIndexProviderImpl("test", "ram");
+        provider.setNearRealTime(true);
+        provider.setNearRealTimeMaxStaleSec(0.05d);
+        provider.setNearRealTimeMinStaleSec(0.01d);
+        provider.setNearRealTimeCommitThreshold(2);
+        provider.afterPropertiesSet();
+        genericFTSLucene.setLuceneIndexProvider(provider);
+        indexBuilderLucene = new MapIndexBuilderLucene(documentAdapter, provider);
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 5; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + i);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs);
+
+        for (int i = 0; i < 5; i++) {
+            indexBuilderLucene.fullTextSearchReindex(100000L + i);
+        }
+
+        // Changes become visible within max staleness without explicit refresh
+        int count = 0;
+        for (int attempt = 0; attempt < 100 && count < 5; attempt++) {
+            Thread.sleep(20L);
+            count = genericFTSLucene.fullTextSearchCount(new MatchAllDocsQuery());
+        }
+        assertEquals(5, count);
+
+    }
+
+    @Test
+    public void testFullTextSearchQueryCache() throws Exception {
+
+        genericFTSLucene.setQueryCacheSize(10);
+
+        final List<Map<String, String>> docs = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < 5; i++) {
+            final Map<String, String> doc = new HashMap<String, String>();
+            doc.put("_PK", String.valueOf(100000 + i));
+            doc.put("name", "item " + i);
+            docs.add(doc);
+        }
+        indexBuilderLucene.setDocs((List) docs.subList(0, 3));
+        indexBuilderLucene.fullTextSearchReindex(false, 2);
+
+        final List<Long> first = genericFTSLucene.fullTextSearch(new TermQuery(new Term("name", "item")), 0, 2, "_PK_sort", false);
+        assertEquals(Arrays.asList(100000L, 100001L), first);
+        assertEquals(3, genericFTSLucene.fullTextSearchCount(new TermQuery(new Term("name", "item"))));
+
+        // Cached results are copies, so callers cannot corrupt cache
+        first.clear();
+        assertEquals(Arrays.asList(100000L, 100001L),
+                genericFTSLucene.fullTextSearch(new TermQuery(new Term("name", "item")), 0, 2, "_PK_sort", false));
+        assertEquals(Arrays.asList(100001L, 100002L),
+                genericFTSLucene.fullTextSearch(new TermQuery(new Term("name", "item")), 1, 2, "_PK_sort", false));
+
+        // Refresh opens new reader, which invalidates results
+        indexBuilderLucene.setDocs((List) docs);
+        indexBuilderLucene.fullTextSearchReindex(100003L);
+        indexBuilderLucene.fullTextSearchReindex(100004L);
+
+        assertEquals(5, genericFTSLucene.fullTextSearchCount(new TermQuery(new Term("name", "item"))));
+        assertEquals(Arrays.asList(100004L, 100003L),
+                genericFTSLucene.fullTextSearch(new TermQuery(new Term("name", "item")), 0, 2, "_PK_sort", true));
+
+    }
+
     @Test
     public void testFullTextSearchNavigation() throws Exception {
 
@@ -485,6 +969,21 @@ public class FTSLuceneImplTest {
         checkFacetValue(facets, "other desc", 3);
         checkFacetValue(facets, "desc", 2);
 
+        // Facet state is cached per reader and rebuilt after refresh
+        final IndexSearcher searcher = provider.provideIndexReader();
+        try {
+            assertSame(genericFTSLucene.getFacetState(searcher.getIndexReader(), "name_facet"),
+                    genericFTSLucene.getFacetState(searcher.getIndexReader(), "name_facet"));
+        } finally {
+            provider.releaseIndexReader(searcher);
+        }
+
+        indexBuilderLucene.fullTextSearchReindex(111114L, true);
+
+        rez = genericFTSLucene.fullTextSearchNavigation(new MatchAllDocsQuery(), fr);
+        facets = rez.get("Names");
+        assertEquals(3, facets.size());
+        checkFacetValue(facets, "element", 3);
 
     }
 
@@ -41,6 +41,7 @@ public class SearchRO implements Serializable {
 
     private int pageNumber;
     private int pageSize;
+    private String pageCursor;
 
     private String sortField;
     private boolean sortDescending;
@@ -82,6 +83,15 @@ public class SearchRO implements Serializable {
         this.pageSize = pageSize;
     }
 
+    @XmlElement(name = "page-cursor")
+    public String getPageCursor() {
+        return pageCursor;
+    }
+
+    public void setPageCursor(final String pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
     @XmlElement(name = "sort-field")
     public String getSortField() {
         return sortField;
@@ -39,6 +39,7 @@ public class SearchResultRO implements Serializable {
     private SearchRO search;
 
     private int totalResults;
+    private String nextPageCursor;
 
     private String productImageWidth;
     private String productImageHeight;
@@ -70,6 +71,15 @@ public class SearchResultRO implements Serializable {
         this.totalResults = totalResults;
     }
 
+    @XmlElement(name = "next-page-cursor")
+    public String getNextPageCursor() {
+        return nextPageCursor;
+    }
+
+    public void setNextPageCursor(final String nextPageCursor) {
+        this.nextPageCursor = nextPageCursor;
+    }
+
     @XmlElement(name = "product-image-width")
     public String getProductImageWidth() {
         return productImageWidth;
@@ -144,6 +144,10 @@ public class SearchController {
      * <p>
      * Note that if category is not specified and/or includeNavigation is false no filtered navigation will be generated in response. This is useful for simple searches such as "search suggest".
      * <p>
+     * For deep paging (e.g. crawling all pages of a category) specify "pageCursor" with value of "nextPageCursor" from previous
+     * result instead of "pageNumber". Cursor is opaque, "nextPageCursor" is null on the last page. If cursor is used with
+     * different search parameters or sorting it falls back to offset of the page it was created for.
+     * <p>
      * <h3>Output</h3><p>
      * <table border="1">
      *     <tr><td>JSON object SearchResultRO</td><td>
@@ -706,32 +710,50 @@ public class SearchController {
                                        final SearchResultRO result,
                                        final ShoppingCart cart) {
 
-        ProductSearchResultPageDTO products = productServiceFacade.getListProducts(
-                context, result.getSearch().getPageNumber() * result.getSearch().getPageSize(), result.getSearch().getPageSize(),
-                result.getSearch().getSortField(), result.getSearch().getSortDescending());
+        final ProductSearchResultPageDTO products;
+        if (StringUtils.isNotBlank(result.getSearch().getPageCursor())) {
+            products = productServiceFacade.getListProductsByCursor(
+                    context, result.getSearch().getPageCursor(), result.getSearch().getPageSize(),
+                    result.getSearch().getSortField(), result.getSearch().getSortDescending());
+            if (result.getSearch().getPageSize() > 0) {
+                result.getSearch().setPageNumber(products.getFirst() / result.getSearch().getPageSize());
+            }
+        } else {
+            products = productServiceFacade.getListProducts(
+                    context, result.getSearch().getPageNumber() * result.getSearch().getPageSize(), result.getSearch().getPageSize(),
+                    result.getSearch().getSortField(), result.getSearch().getSortDescending());
+        }
 
         result.setTotalResults(products.getTotalHits());
+        result.setNextPageCursor(products.getNextCursor());
 
         final List<ProductSearchResultRO> ros = new ArrayList<ProductSearchResultRO>();
         if (CollectionUtils.isNotEmpty(products.getResults())) {
 
             final Pair<String, Boolean> symbol = currencySymbolService.getCurrencySymbol(cart.getCurrencyCode());
 
+            final List<ProductAvailabilityModel> skuPams = new ArrayList<ProductAvailabilityModel>(products.getResults().size());
+            final List<String> skuCodes = new ArrayList<String>(products.getResults().size());
             for (final ProductSearchResultDTO hit : products.getResults()) {
-
                 final ProductAvailabilityModel skuPam = productServiceFacade.getProductAvailability(hit, context.getShopId());
+                skuPams.add(skuPam);
+                skuCodes.add(skuPam.getFirstAvailableSkuCode());
+            }
+
+            // price whole page in one go
+            final Map<String, ProductPriceModel> prices = productServiceFacade.getSkuPricesBatch(cart, skuCodes, BigDecimal.ONE);
+
+            for (int i = 0; i < skuPams.size(); i++) {
+
+                final ProductSearchResultDTO hit = products.getResults().get(i);
+                final ProductAvailabilityModel skuPam = skuPams.get(i);
 
                 final ProductSearchResultRO ro = mappingMixin.map(hit, ProductSearchResultRO.class, ProductSearchResultDTO.class);
 
                 final ProductAvailabilityModelRO amRo = mappingMixin.map(skuPam, ProductAvailabilityModelRO.class, ProductAvailabilityModel.class);
                 ro.setProductAvailabilityModel(amRo);
 
-                final ProductPriceModel price = productServiceFacade.getSkuPrice(
-                        cart,
-                        null,
-                        skuPam.getFirstAvailableSkuCode(),
-                        BigDecimal.ONE
-                );
+                final ProductPriceModel price = prices.get(skuPam.getFirstAvailableSkuCode());
 
                 final SkuPriceRO priceRo = mappingMixin.map(price, SkuPriceRO.class, ProductPriceModel.class);
                 priceRo.setSymbol(symbol.getFirst());
@@ -39,6 +39,8 @@ import org.yes.cart.web.support.constants.StorefrontServiceSpringKeys;
 import org.yes.cart.web.support.constants.WebParametersKeys;
 import org.yes.cart.web.support.service.ProductServiceFacade;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -138,6 +140,16 @@ public class ProductsCentralView extends AbstractCentralView {
 
         final boolean hasResults = products.getTotalHits() > 0L;
 
+        if (hasResults && products.getResults() != null) {
+            // price whole page in one go, product views get their prices from request cache
+            final long browsingShopId = getCurrentCustomerShopId();
+            final List<String> skuCodes = new ArrayList<String>(products.getResults().size());
+            for (final ProductSearchResultDTO product : products.getResults()) {
+                skuCodes.add(productServiceFacade.getProductAvailability(product, browsingShopId).getDefaultSkuCode());
+            }
+            productServiceFacade.getSkuPricesBatch(getCurrentCart(), skuCodes, BigDecimal.ONE);
+        }
+
         final SortableProductDataProvider dataProvider = new SortableProductDataProvider(products);
 
         final GridView<ProductSearchResultDTO> productDataView = new GridView<ProductSearchResultDTO>(PRODUCT_LIST, dataProvider) {
@@ -22,24 +22,27 @@ import com.thoughtworks.xstream.converters.MarshallingContext;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.StreamException;
 import com.thoughtworks.xstream.io.xml.DomDriver;
+import com.thoughtworks.xstream.io.xml.SaxWriter;
 import org.hibernate.collection.internal.AbstractPersistentCollection;
 import org.hibernate.collection.internal.PersistentBag;
 import org.hibernate.collection.internal.PersistentList;
 import org.hibernate.collection.internal.PersistentSet;
+import org.xml.sax.*;
+import org.yes.cart.dao.ResultsIterator;
 import org.yes.cart.domain.entity.impl.*;
 import org.yes.cart.domain.misc.Pair;
 import org.yes.cart.payment.persistence.entity.impl.CustomerOrderPaymentEntity;
 
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.Writer;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.util.*;
 
 /**
  *
@@ -167,4 +170,122 @@ public class ReportObjectStreamFactory {
         
     }
 
+    /**
+     * Get source that streams SAX events for given objects directly into the consumer (e.g. XSLT).
+     * Objects are serialized one at a time as the consumer parses the source, so no intermediate
+     * XML document is held in memory. If objects are provided by {@link ResultsIterator} it is
+     * closed once parsing is finished.
+     *
+     * @param objects objects to serialize
+     *
+     * @return source with the same structure as {@link #getObjectOutputStream(Writer)} output
+     */
+    public static Source getObjectStreamSource(final Iterator<?> objects) {
+
+        return new SAXSource(new ObjectStreamXmlReader(objects), new InputSource());
+
+    }
+
+    /**
+     * XML reader that marshals objects from iterator via XStream into {@link SaxWriter}.
+     */
+    private static class ObjectStreamXmlReader implements XMLReader {
+
+        private final Iterator<?> objects;
+        private final SaxWriter saxWriter = new SaxWriter(true);
+
+        private ObjectStreamXmlReader(final Iterator<?> objects) {
+            this.objects = objects;
+        }
+
+        /** {@inheritDoc} */
+        public void parse(final InputSource input) throws IOException, SAXException {
+
+            try {
+
+                final ObjectOutputStream os = X_STREAM.createObjectOutputStream(saxWriter, ROOT_NODE);
+                while (objects.hasNext()) {
+                    os.writeObject(objects.next());
+                }
+                os.close();
+
+            } catch (StreamException sexp) {
+                if (sexp.getCause() instanceof SAXException) {
+                    throw (SAXException) sexp.getCause();
+                }
+                throw new SAXException(sexp);
+            } finally {
+                if (objects instanceof ResultsIterator) {
+                    ((ResultsIterator) objects).close();
+                }
+            }
+
+        }
+
+        /** {@inheritDoc} */
+        public void parse(final String systemId) throws IOException, SAXException {
+            parse(new InputSource(systemId));
+        }
+
+        /** {@inheritDoc} */
+        public boolean getFeature(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return saxWriter.getFeature(name);
+        }
+
+        /** {@inheritDoc} */
+        public void setFeature(final String name, final boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+            saxWriter.setFeature(name, value);
+        }
+
+        /** {@inheritDoc} */
+        public Object getProperty(final String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return saxWriter.getProperty(name);
+        }
+
+        /** {@inheritDoc} */
+        public void setProperty(final String name, final Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+            saxWriter.setProperty(name, value);
+        }
+
+        /** {@inheritDoc} */
+        public void setEntityResolver(final EntityResolver resolver) {
+            saxWriter.setEntityResolver(resolver);
+        }
+
+        /** {@inheritDoc} */
+        public EntityResolver getEntityResolver() {
+            return saxWriter.getEntityResolver();
+        }
+
+        /** {@inheritDoc} */
+        public void setDTDHandler(final DTDHandler handler) {
+            saxWriter.setDTDHandler(handler);
+        }
+
+        /** {@inheritDoc} */
+        public DTDHandler getDTDHandler() {
+            return saxWriter.getDTDHandler();
+        }
+
+        /** {@inheritDoc} */
+        public void setContentHandler(final ContentHandler handler) {
+            saxWriter.setContentHandler(handler);
+        }
+
+        /** {@inheritDoc} */
+        public ContentHandler getContentHandler() {
+            return saxWriter.getContentHandler();
+        }
+
+        /** {@inheritDoc} */
+        public void setErrorHandler(final ErrorHandler handler) {
+            saxWriter.setErrorHandler(handler);
+        }
+
+        /** {@inheritDoc} */
+        public ErrorHandler getErrorHandler() {
+            return saxWriter.getErrorHandler();
+        }
+    }
+
 }
@@ -29,6 +29,7 @@ import java.io.*;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -53,6 +54,8 @@ public class WebReportGeneratorImpl extends AbstractThemeAwareFopReportGenerator
     protected Source convertToSource(final ReportDescriptor descriptor, final Map<String, Object> parameters, final Object data, final String lang) {
         if (data instanceof Collection) {
             return getXml((Collection) data);
+        } else if (data instanceof Iterator) {
+            return getXml((Iterator) data);
         } else if (data != null) {
             return getXml(Collections.singletonList(data));
         }
@@ -61,7 +64,7 @@ public class WebReportGeneratorImpl extends AbstractThemeAwareFopReportGenerator
 
 
     /**
-     * Write into given file name xml result.
+     * Create streaming xml source for objects.
      *
      * @param rez list of objects.
      *
@@ -69,6 +72,36 @@ public class WebReportGeneratorImpl extends AbstractThemeAwareFopReportGenerator
      */
     Source getXml(final Collection<Object> rez) {
 
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Report XML ==================================\n\n" + getXmlString(rez));
+        }
+
+        return getXml(rez.iterator());
+    }
+
+    /**
+     * Create streaming xml source for objects. Objects are serialized as SAX events while
+     * the report is transformed, so objects can be loaded lazily (e.g. {@link org.yes.cart.dao.ResultsIterator}).
+     *
+     * @param rez objects iterator.
+     *
+     * @return xml as source
+     */
+    Source getXml(final Iterator<Object> rez) {
+
+        return ReportObjectStreamFactory.getObjectStreamSource(rez);
+
+    }
+
+    /**
+     * Serialize objects into xml string (for debug purposes).
+     *
+     * @param rez list of objects.
+     *
+     * @return xml
+     */
+    private String getXmlString(final Collection<Object> rez) {
+
         final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
         ObjectOutputStream os = null;
 
@@ -94,11 +127,7 @@ public class WebReportGeneratorImpl extends AbstractThemeAwareFopReportGenerator
 
         }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Report XML ==================================\n\n" + new String(bytesOut.toByteArray(), Charset.forName("UTF-8")));
-        }
-
-        return new StreamSource(new ByteArrayInputStream(bytesOut.toByteArray()));
+        return new String(bytesOut.toByteArray(), Charset.forName("UTF-8"));
     }
 
 }
@@ -25,6 +25,7 @@ import org.yes.cart.service.domain.SystemService;
 import org.yes.cart.service.theme.ThemeService;
 import org.yes.cart.shoppingcart.ShoppingCart;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -50,6 +51,7 @@ public class ApplicationDirector implements ApplicationContextAware {
     private static ThreadLocal<List<String>> currentThemeChainThreadLocal = new ThreadLocal<List<String>>();
     private static ThreadLocal<ShoppingCart> shoppingCartThreadLocal = new ThreadLocal<ShoppingCart>();
     private static ThreadLocal<String> shopperIPAddressThreadLocal = new ThreadLocal<String>();
+    private static ThreadLocal<Map<String, Object>> requestCacheThreadLocal = new ThreadLocal<Map<String, Object>>();
 
     private static final Map<String, List<String>> chainCache = new ConcurrentHashMap<String, List<String>>();
 
@@ -204,6 +206,24 @@ public class ApplicationDirector implements ApplicationContextAware {
         shoppingCartThreadLocal.set(shoppingCart);
     }
 
+    /**
+     * Start request scoped cache, which is used to memoize computed values that are requested
+     * several times during request processing (e.g. listing prices). Cache is discarded by
+     * {@link #clear()}.
+     */
+    public static void startRequestCache() {
+        requestCacheThreadLocal.set(new HashMap<String, Object>());
+    }
+
+    /**
+     * Get request scoped cache.
+     *
+     * @return cache for current request or null if request cache is not started for this thread
+     */
+    public static Map<String, Object> getRequestCache() {
+        return requestCacheThreadLocal.get();
+    }
+
     /**
      * Clear thread locals at the end of the request
      */
@@ -213,6 +233,7 @@ public class ApplicationDirector implements ApplicationContextAware {
         shoppingCartThreadLocal.set(null);
         shopperIPAddressThreadLocal.set(null);
         currentThemeChainThreadLocal.set(null);
+        requestCacheThreadLocal.set(null);
     }
 
 
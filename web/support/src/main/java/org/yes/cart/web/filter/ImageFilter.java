@@ -31,9 +31,12 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Calendar;
-import java.util.Date;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * ImageServlet responsible for get product or brand images
@@ -47,8 +50,10 @@ import java.util.Date;
  * resized
  * repository_folder/widthxheight/c/code/seo_name_code_[a-z]
  * <p/>
- * No need to use nio, becuse images will be cached
- * on apache or ngnix
+ * Images that are already resized are streamed directly from file (using container
+ * sendfile support if available, or {@link FileChannel#transferTo} otherwise) with
+ * strong ETag (based on file size and last modified), Content-Length and single byte
+ * range support. Only resize misses are served from memory.
  * <p/>
  * User: Igor Azarny iazarny@yahoo.com
  * Date: 2011-May-17
@@ -66,6 +71,23 @@ public class ImageFilter extends AbstractFilter implements Filter {
 
     private static final String LAST_MODIFIED = "Last-Modified";
 
+    private static final String IF_RANGE = "If-Range";
+
+    private static final String RANGE = "Range";
+
+    private static final String ACCEPT_RANGES = "Accept-Ranges";
+
+    private static final String CONTENT_RANGE = "Content-Range";
+
+    private static final String CACHE_CONTROL = "Cache-Control";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    static final long[] UNSATISFIABLE = new long[0];
+
     private final MimetypesFileTypeMap fileTypeMap;
 
     private final ImageService imageService;
@@ -112,77 +134,243 @@ public class ImageFilter extends AbstractFilter implements Filter {
     public void handleRequestInternal(final HttpServletRequest httpServletRequest,
                                       final HttpServletResponse httpServletResponse) throws ServletException, IOException {
 
-        final String previousToken = httpServletRequest.getHeader(IF_NONE_MATCH);
-        final String currentToken = getETagValue(httpServletRequest);
+        final String requestPath = HttpUtil.decodeUtf8UriParam(httpServletRequest.getRequestURI());           // RequestURI  -> /yes-shop/imagevault/product/image.png
+        final String contextPath = httpServletRequest.getContextPath();                                       // ContextPath -> /yes-shop
+        final String servletPath = requestPath.substring(contextPath.length());                               // ServletPath ->          /imagevault/product/image.png
 
-        httpServletResponse.setHeader(ETAG, currentToken);
+        final String width = httpServletRequest.getParameter(Constants.WIDTH);
+        final String height = httpServletRequest.getParameter(Constants.HEIGHT);
 
-        final Date modifiedDate = new Date(httpServletRequest.getDateHeader(IF_MODIFIED_SINCE));
-        final Calendar calendar = Calendar.getInstance();
-        final Date now = calendar.getTime();
 
-        calendar.setTime(modifiedDate);
-        calendar.add(Calendar.MINUTE, getEtagExpiration());
-        if (currentToken.equals(previousToken) && (now.getTime() < calendar.getTime().getTime())) {
-            httpServletResponse.sendError(HttpServletResponse.SC_NOT_MODIFIED);
-            // use the same date we sent when we created the ETag the first time through
-            httpServletResponse.setHeader(LAST_MODIFIED, httpServletRequest.getHeader(IF_MODIFIED_SINCE));
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("ETag the same, will return 304");
-            }
-        } else {
-
-            final String requestPath = HttpUtil.decodeUtf8UriParam(httpServletRequest.getRequestURI());           // RequestURI  -> /yes-shop/imagevault/product/image.png
-            final String contextPath = httpServletRequest.getContextPath();                                       // ContextPath -> /yes-shop
-            final String servletPath = requestPath.substring(contextPath.length());                               // ServletPath ->          /imagevault/product/image.png
+        final MediaFileNameStrategy mediaFileNameStrategy = imageService.getImageNameStrategy(servletPath);
 
-            httpServletResponse.setDateHeader(LAST_MODIFIED, (new Date()).getTime());
+        String code = mediaFileNameStrategy.resolveObjectCode(servletPath);  //optional product or sku code
+        String locale = mediaFileNameStrategy.resolveLocale(servletPath);  //optional locale
+        String originalFileName = mediaFileNameStrategy.resolveFileName(servletPath);  //here file name with prefix
 
-            final String width = httpServletRequest.getParameter(Constants.WIDTH);
-            final String height = httpServletRequest.getParameter(Constants.HEIGHT);
+        final String imageRealPathPrefix = getImageRepositoryRoot();
 
+        String absolutePathToOriginal =
+                        imageRealPathPrefix +
+                        mediaFileNameStrategy.resolveRelativeInternalFileNamePath(originalFileName, code, locale); //path to not resized image
 
-            final MediaFileNameStrategy mediaFileNameStrategy = imageService.getImageNameStrategy(servletPath);
-
-            String code = mediaFileNameStrategy.resolveObjectCode(servletPath);  //optional product or sku code
-            String locale = mediaFileNameStrategy.resolveLocale(servletPath);  //optional locale
-            String originalFileName = mediaFileNameStrategy.resolveFileName(servletPath);  //here file name with prefix
 
-            final String imageRealPathPrefix = getImageRepositoryRoot();
+        final boolean origFileExists = imageService.isImageInRepository(originalFileName, code, mediaFileNameStrategy.getUrlPath(), imageRealPathPrefix);
 
-            String absolutePathToOriginal =
-                            imageRealPathPrefix +
+        if (!origFileExists) {
+            code = Constants.NO_IMAGE;
+            originalFileName = mediaFileNameStrategy.resolveFileName(code);  //here file name with prefix
+            absolutePathToOriginal =
+                    imageRealPathPrefix +
                             mediaFileNameStrategy.resolveRelativeInternalFileNamePath(originalFileName, code, locale); //path to not resized image
+        }
 
 
-            final boolean origFileExists = imageService.isImageInRepository(originalFileName, code, mediaFileNameStrategy.getUrlPath(), imageRealPathPrefix);
+        String absolutePathToResized = null;
+        if (width != null && height != null && imageService.isSizeAllowed(width, height)) {
+            absolutePathToResized =
+                    imageRealPathPrefix +
+                            mediaFileNameStrategy.resolveRelativeInternalFileNamePath(originalFileName, code, locale, width, height);
+        }
 
-            if (!origFileExists) {
-                code = Constants.NO_IMAGE;
-                originalFileName = mediaFileNameStrategy.resolveFileName(code);  //here file name with prefix
-                absolutePathToOriginal =
-                        imageRealPathPrefix +
-                                mediaFileNameStrategy.resolveRelativeInternalFileNamePath(originalFileName, code, locale); //path to not resized image
-            }
+        httpServletResponse.setContentType(getContentType(originalFileName));
+        httpServletResponse.setHeader(CACHE_CONTROL, "public, max-age=" + (getEtagExpiration() * 60));
 
+        final File file = imageService.resolveImageFile(absolutePathToOriginal, absolutePathToResized);
+        if (file != null) {
 
-            String absolutePathToResized = null;
-            if (width != null && height != null && imageService.isSizeAllowed(width, height)) {
-                absolutePathToResized =
-                        imageRealPathPrefix +
-                                mediaFileNameStrategy.resolveRelativeInternalFileNamePath(originalFileName, code, locale, width, height);
-            }
+            sendFile(httpServletRequest, httpServletResponse, file);
+
+        } else {
 
+            // resize miss, this is the only case we need to hold image in memory
             final byte[] imageFile = getImageFile(absolutePathToOriginal, absolutePathToResized, width, height);
             if (imageFile != null && imageFile.length > 0) {
+                final File resized = imageService.resolveImageFile(absolutePathToOriginal, absolutePathToResized);
+                if (resized != null) {
+                    httpServletResponse.setHeader(ETAG, getETagValue(resized));
+                    httpServletResponse.setDateHeader(LAST_MODIFIED, resized.lastModified());
+                }
+                httpServletResponse.setContentLength(imageFile.length);
                 httpServletResponse.getOutputStream().write(imageFile);
                 httpServletResponse.flushBuffer();
             } else {
                 httpServletResponse.sendError(HttpServletResponse.SC_NOT_FOUND);
             }
+
         }
     }
 
+    /**
+     * Stream given file to client honouring conditional (If-None-Match, If-Modified-Since)
+     * and single range requests.
+     *
+     * @param httpServletRequest  request
+     * @param httpServletResponse response
+     * @param file                file to send
+     *
+     * @throws IOException in case of IO errors
+     */
+    void sendFile(final HttpServletRequest httpServletRequest,
+                  final HttpServletResponse httpServletResponse,
+                  final File file) throws IOException {
+
+        final long length = file.length();
+        final long lastModified = file.lastModified();
+        final String currentToken = getETagValue(file);
+
+        httpServletResponse.setHeader(ETAG, currentToken);
+        httpServletResponse.setDateHeader(LAST_MODIFIED, lastModified);
+        httpServletResponse.setHeader(ACCEPT_RANGES, "bytes");
+
+        if (isNotModified(httpServletRequest, currentToken, lastModified)) {
+            httpServletResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("ETag the same, will return 304");
+            }
+            return;
+        }
+
+        long start = 0L;
+        long count = length;
+
+        final String ifRange = httpServletRequest.getHeader(IF_RANGE);
+        if (ifRange == null || ifRange.equals(currentToken)) {
+            final long[] range = parseRange(httpServletRequest.getHeader(RANGE), length);
+            if (range == UNSATISFIABLE) {
+                httpServletResponse.setHeader(CONTENT_RANGE, "bytes */" + length);
+                httpServletResponse.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            } else if (range != null) {
+                start = range[0];
+                count = range[1] - range[0] + 1;
+                httpServletResponse.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                httpServletResponse.setHeader(CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            }
+        }
+
+        if (count < Integer.MAX_VALUE) {
+            httpServletResponse.setContentLength((int) count);
+        } else {
+            httpServletResponse.setHeader("Content-Length", String.valueOf(count));
+        }
+
+        if (Boolean.TRUE.equals(httpServletRequest.getAttribute(SENDFILE_SUPPORT))) {
+            // container will write file directly to socket once we return
+            httpServletRequest.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            httpServletRequest.setAttribute(SENDFILE_START, start);
+            httpServletRequest.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            final FileChannel channel = fis.getChannel();
+            final WritableByteChannel out = Channels.newChannel(httpServletResponse.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0L) {
+                final long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0L) {
+                    break; // file was truncated while we were sending it
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } finally {
+            fis.close();
+        }
+        httpServletResponse.flushBuffer();
+
+    }
+
+    /**
+     * Check conditional headers. If-None-Match takes precedence over If-Modified-Since (RFC 7232).
+     *
+     * @param httpServletRequest request
+     * @param currentToken       current ETag
+     * @param lastModified       file last modified
+     *
+     * @return true if client copy is up to date
+     */
+    boolean isNotModified(final HttpServletRequest httpServletRequest, final String currentToken, final long lastModified) {
+
+        final String previousToken = httpServletRequest.getHeader(IF_NONE_MATCH);
+        if (previousToken != null) {
+            if ("*".equals(previousToken.trim())) {
+                return true;
+            }
+            for (final String token : previousToken.split(",")) {
+                final String candidate = token.trim();
+                if (candidate.equals(currentToken) || candidate.equals("W/" + currentToken)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        final long modifiedSince;
+        try {
+            modifiedSince = httpServletRequest.getDateHeader(IF_MODIFIED_SINCE);
+        } catch (IllegalArgumentException iae) {
+            return false; // invalid date format
+        }
+        // HTTP dates have second precision
+        return modifiedSince != -1L && lastModified / 1000L <= modifiedSince / 1000L;
+
+    }
+
+    /**
+     * Parse single byte range header value. Multiple ranges are not supported, in which case
+     * full content is sent as allowed by RFC 7233.
+     *
+     * @param range  Range header value
+     * @param length content length
+     *
+     * @return null if whole content should be sent, {@link #UNSATISFIABLE} if range cannot be
+     *         satisfied, or two element array with first and last (inclusive) byte positions
+     */
+    static long[] parseRange(final String range, final long length) {
+
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') != -1) {
+            return null;
+        }
+
+        final String spec = range.substring(6).trim();
+        final int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+
+        try {
+            final String first = spec.substring(0, dash).trim();
+            final String last = spec.substring(dash + 1).trim();
+            final long start, end;
+            if (first.length() == 0) {
+                // suffix range: last N bytes
+                if (last.length() == 0) {
+                    return null;
+                }
+                final long suffix = Long.parseLong(last);
+                if (suffix <= 0L) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0L, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            }
+            if (start >= length || start > end) {
+                return UNSATISFIABLE;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException nfe) {
+            return null; // syntactically invalid range is ignored
+        }
+
+    }
+
     private String getImageRepositoryRoot() {
 
         return systemService.getImageRepositoryDirectory();
@@ -190,18 +378,19 @@ public class ImageFilter extends AbstractFilter implements Filter {
     }
 
     /**
-     * Get the etag value for requested image. Atm implemented as hash code.
+     * Get the strong etag value for image file, which is derived from file size and last
+     * modified timestamp. Resized images are regenerated whenever original changes, so
+     * this always reflects the content sent.
      *
-     * @param httpServletRequest request
+     * @param file image file
      * @return etag value.
      */
-    private String getETagValue(final HttpServletRequest httpServletRequest) {
+    String getETagValue(final File file) {
         final StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append('"');
-        stringBuilder.append(httpServletRequest.getParameter(Constants.WIDTH));
-        stringBuilder.append('x');
-        stringBuilder.append(httpServletRequest.getParameter(Constants.HEIGHT));
-        stringBuilder.append(httpServletRequest.getServletPath().hashCode());
+        stringBuilder.append(Long.toHexString(file.length()));
+        stringBuilder.append('-');
+        stringBuilder.append(Long.toHexString(file.lastModified()));
         stringBuilder.append('"');
         return stringBuilder.toString();
     }
@@ -20,6 +20,7 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ServletContextAware;
+import org.yes.cart.cache.CacheDependencies;
 import org.yes.cart.domain.entity.Shop;
 import org.yes.cart.service.domain.ShopService;
 import org.yes.cart.service.domain.SystemService;
@@ -69,6 +70,8 @@ public class ShopResolverFilter extends AbstractFilter implements Filter, Servle
     public ServletRequest doBefore(final ServletRequest servletRequest,
                                    final ServletResponse servletResponse) throws IOException, ServletException {
 
+        CacheDependencies.clear(); // previous request on this thread may have failed before doAfter()
+
         final String serverDomainName = servletRequest.getServerName().toLowerCase();
 
         final Shop shop = shopService.getShopByDomainName(serverDomainName);
@@ -92,6 +95,7 @@ public class ShopResolverFilter extends AbstractFilter implements Filter, Servle
         ApplicationDirector.setCurrentDomain(serverDomainName);
         ApplicationDirector.setCurrentShop(shop);
         ApplicationDirector.setShopperIPAddress(getRemoteIpAddr(servletRequest));
+        ApplicationDirector.startRequestCache();
         ShopCodeContext.setShopCode(shop.getCode());
         ShopCodeContext.setShopId(shop.getShopId());
 
@@ -138,6 +142,7 @@ public class ShopResolverFilter extends AbstractFilter implements Filter, Servle
 
         ApplicationDirector.clear();
         ShopCodeContext.clear();
+        CacheDependencies.clear();
 
     }
 
@@ -30,6 +30,7 @@ import org.yes.cart.cluster.service.WarmUpService;
 import org.yes.cart.constants.AttributeNamesKeys;
 import org.yes.cart.dao.GenericFTSCapableDAO;
 import org.yes.cart.domain.entity.Product;
+import org.yes.cart.domain.entity.ProductSku;
 import org.yes.cart.search.dao.IndexBuilder;
 import org.yes.cart.search.query.impl.AsIsAnalyzer;
 import org.yes.cart.service.domain.ProductService;
@@ -39,6 +40,7 @@ import org.yes.cart.web.service.ws.BackdoorService;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -77,6 +79,15 @@ public class BackdoorServiceImpl implements BackdoorService {
 
     }
 
+    /*
+     * Once specific products are reindexed only entries related to these entities are flushed.
+     */
+    private void flushCache(final String entityName, final Collection<Long> pks) {
+
+        productIndexCaches.flushBundleCaches(entityName, pks);
+
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -171,15 +182,22 @@ public class BackdoorServiceImpl implements BackdoorService {
     public void reindexProduct(final long productPk) {
         if (!isLuceneIndexDisabled()) {
             productService.reindexProduct(productPk);
+            flushCache("ProductEntity", Collections.singletonList(productPk));
         }
     }
 
     /**
      * {@inheritDoc}
      */
-    public void reindexProductSku(final long productPk) {
+    public void reindexProductSku(final long skuPk) {
         if (!isLuceneIndexDisabled()) {
-            productService.reindexProductSku(productPk);
+            productService.reindexProductSku(skuPk);
+            flushCache("ProductSkuEntity", Collections.singletonList(skuPk));
+            // SKU entry is flushed above, so we resolve owning product from fresh SKU
+            final ProductSku sku = productService.getSkuById(skuPk);
+            if (sku != null && sku.getProduct() != null) {
+                flushCache("ProductEntity", Collections.singletonList(sku.getProduct().getProductId()));
+            }
         }
     }
 
@@ -197,9 +215,12 @@ public class BackdoorServiceImpl implements BackdoorService {
      */
     public void reindexProducts(final long[] productPks) {
         if (!isLuceneIndexDisabled()) {
+            final List<Long> pks = new ArrayList<Long>(productPks.length);
             for (long pk : productPks) {
                 productService.reindexProduct(pk);
+                pks.add(pk);
             }
+            flushCache("ProductEntity", pks);
         }
     }
 
@@ -26,6 +26,7 @@ import org.yes.cart.shoppingcart.ShoppingCart;
 import org.yes.cart.domain.entity.ProductPriceModel;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -215,6 +216,24 @@ public interface ProductServiceFacade {
                                                String sortFieldName,
                                                boolean descendingSort);
 
+    /**
+     * Get the all products, that match the given query using cursor paging. Use this for deep paging
+     * (e.g. crawlers) as cost of a page does not depend on the page offset.
+     *
+     * @param context        navigation context
+     * @param cursor         opaque cursor from previous page (see {@link ProductSearchResultPageDTO#getNextCursor()}),
+     *                       null for first page
+     * @param maxResults     quantity results to return
+     * @param sortFieldName  sort field name (specify null for no sorting)
+     * @param descendingSort sort the search result in reverse if true
+     * @return list of products
+     */
+    ProductSearchResultPageDTO getListProductsByCursor(NavigationContext context,
+                                                       String cursor,
+                                                       int maxResults,
+                                                       String sortFieldName,
+                                                       boolean descendingSort);
+
     /**
      * Get product availability.
      *
@@ -325,6 +344,23 @@ public interface ProductServiceFacade {
      */
     ProductPriceModel getSkuPrice(ShoppingCart cart, Long productId, String skuCode, BigDecimal quantity);
 
+    /**
+     * Get currently active SKU prices (or blank objects) with respect to current shop tax display settings
+     * for a number of SKU at once (e.g. listing pages).
+     *
+     * Each model is the same as {@link #getSkuPrice(ShoppingCart, Long, String, BigDecimal)} with no product
+     * id, however taxes for all SKU are calculated in one pass. Models are memoized for the duration of the
+     * current request, so subsequent {@link #getSkuPrice(ShoppingCart, Long, String, BigDecimal)} calls for
+     * these SKU do not recalculate prices.
+     *
+     * @param cart      current cart
+     * @param skuCodes  SKU codes
+     * @param quantity  quantity tier
+     *
+     * @return active SKU prices (or blank objects) by SKU code
+     */
+    Map<String, ProductPriceModel> getSkuPricesBatch(ShoppingCart cart, Collection<String> skuCodes, BigDecimal quantity);
+
     /**
      * Get price model (or blank object) with respect to current shop tax display settings.
      *
@@ -48,6 +48,8 @@ import java.util.*;
  */
 public class ProductServiceFacadeImpl implements ProductServiceFacade {
 
+    static final String SKU_PRICE_CACHE_PREFIX = "yc-sku-price:";
+
     private final ProductService productService;
     private final ProductSkuService productSkuService;
     private final ProductAssociationService productAssociationService;
@@ -276,6 +278,29 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                 context, firstResult, maxResults, sortFieldName, descendingSort
         ).copy(); // MUST BE COPY for each search as we are setting relevant SKU list
 
+        populateSkus(context, result);
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ProductSearchResultPageDTO getListProductsByCursor(final NavigationContext context,
+                                                              final String cursor,
+                                                              final int maxResults,
+                                                              final String sortFieldName,
+                                                              final boolean descendingSort) {
+
+        final ProductSearchResultPageDTO result = productService.getProductSearchResultDTOByCursor(
+                context, cursor, maxResults, sortFieldName, descendingSort
+        ).copy(); // MUST BE COPY for each search as we are setting relevant SKU list
+
+        populateSkus(context, result);
+        return result;
+    }
+
+    private void populateSkus(final NavigationContext context, final ProductSearchResultPageDTO result) {
+
         if (!result.getResults().isEmpty()) {
 
             final NavigationContext skuContext = searchQueryFactory.getSkuSnowBallQuery(context, result.getResults());
@@ -297,7 +322,6 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                 product.setSkus(skuMap.get(product.getId()));
             }
         }
-        return result;
 
     }
 
@@ -394,21 +418,89 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                                            final String sku,
                                            final BigDecimal qty) {
 
+        return resolveMinimalPrice(cart, productId, sku, qty, determinePricingPolicy(cart));
+
+    }
+
+    /**
+     * Resolve minimal price using given pricing policy.
+     *
+     * @param cart      cart
+     * @param productId productId (in case no specific sku is selected)
+     * @param sku       sku to resolve price for
+     * @param qty       quantity
+     * @param policy    pricing policy for this cart
+     *
+     * @return resolved SKU price
+     *
+     * @see #resolveMinimalPrice(ShoppingCart, Long, String, BigDecimal)
+     */
+    protected SkuPrice resolveMinimalPrice(final ShoppingCart cart,
+                                           final Long productId,
+                                           final String sku,
+                                           final BigDecimal qty,
+                                           final PricingPolicyProvider.PricingPolicy policy) {
+
         final long customerShopId = cart.getShoppingContext().getCustomerShopId();
         final long masterShopId = cart.getShoppingContext().getShopId();
         // Fallback only if we have a B2B non-strict mode
         final Long fallbackShopId = masterShopId == customerShopId || shopService.getById(customerShopId).isB2BStrictPriceActive() ? null : masterShopId;
-        final String shopCode = cart.getShoppingContext().getShopCode();
         final String currency = cart.getCurrencyCode();
 
-        // Policy is setup on master
-        final PricingPolicyProvider.PricingPolicy policy = pricingPolicyProvider.determinePricingPolicy(
-                shopCode, currency, cart.getCustomerEmail(),
+        return priceResolver.getMinimalPrice(productId, sku, customerShopId, fallbackShopId, currency, qty, false, policy.getID());
+
+    }
+
+    /**
+     * Pricing policy is setup on master.
+     *
+     * @param cart      cart
+     *
+     * @return pricing policy for this cart
+     */
+    protected PricingPolicyProvider.PricingPolicy determinePricingPolicy(final ShoppingCart cart) {
+
+        return pricingPolicyProvider.determinePricingPolicy(
+                cart.getShoppingContext().getShopCode(), cart.getCurrencyCode(), cart.getCustomerEmail(),
                 cart.getShoppingContext().getCountryCode(),
                 cart.getShoppingContext().getStateCode()
         );
 
-        return priceResolver.getMinimalPrice(productId, sku, customerShopId, fallbackShopId, currency, qty, false, policy.getID());
+    }
+
+    /**
+     * Key for memoizing price models in request cache. Key includes all parameters that affect the price model
+     * (shop, currency, pricing policy, customer, location and tax display options).
+     *
+     * @param cart      cart
+     * @param policy    pricing policy for this cart
+     * @param productId product id (optional)
+     * @param skuCode   SKU code (optional)
+     * @param quantity  quantity tier
+     *
+     * @return cache key
+     */
+    String getSkuPriceCacheKey(final ShoppingCart cart,
+                               final PricingPolicyProvider.PricingPolicy policy,
+                               final Long productId,
+                               final String skuCode,
+                               final BigDecimal quantity) {
+
+        final ShoppingContext ctx = cart.getShoppingContext();
+        final boolean showTax = ctx.isTaxInfoEnabled();
+
+        return new StringBuilder(SKU_PRICE_CACHE_PREFIX)
+                .append(ctx.getCustomerShopId()).append('|')
+                .append(cart.getCurrencyCode()).append('|')
+                .append(policy.getID()).append('|')
+                .append(cart.getCustomerEmail()).append('|')
+                .append(ctx.getCountryCode()).append('|')
+                .append(ctx.getStateCode()).append('|')
+                .append(showTax).append(showTax && ctx.isTaxInfoUseNet()).append(showTax && ctx.isTaxInfoShowAmount()).append('|')
+                .append(productId).append('|')
+                .append(skuCode).append('|')
+                .append(quantity != null ? quantity.stripTrailingZeros().toPlainString() : null)
+                .toString();
 
     }
 
@@ -543,11 +635,24 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
         final String currency = cart.getCurrencyCode();
 
         if (!cart.getShoppingContext().isHidePrices()) {
-            final SkuPrice resolved = resolveMinimalPrice(cart, productId, skuCode, quantity);
 
+            final PricingPolicyProvider.PricingPolicy policy = determinePricingPolicy(cart);
+
+            final Map<String, Object> requestCache = ApplicationDirector.getRequestCache();
+            final String cacheKey = requestCache != null ? getSkuPriceCacheKey(cart, policy, productId, skuCode, quantity) : null;
+            if (cacheKey != null) {
+                final ProductPriceModel cached = (ProductPriceModel) requestCache.get(cacheKey);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+
+            final SkuPrice resolved = resolveMinimalPrice(cart, productId, skuCode, quantity, policy);
+
+            final ProductPriceModel model;
             if (resolved != null) {
 
-                return getSkuPrice(
+                model = getSkuPrice(
                         cart,
                         resolved.getSkuCode(),
                         resolved.getQuantity(),
@@ -555,11 +660,106 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                         resolved.getSalePriceForCalculation()
                 );
 
+            } else {
+
+                model = getNullProductPriceModel(currency);
+
             }
+
+            if (cacheKey != null) {
+                requestCache.put(cacheKey, model);
+            }
+            return model;
+
         }
         return getNullProductPriceModel(currency);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String, ProductPriceModel> getSkuPricesBatch(final ShoppingCart cart,
+                                                            final Collection<String> skuCodes,
+                                                            final BigDecimal quantity) {
+
+        final String currency = cart.getCurrencyCode();
+
+        final Map<String, ProductPriceModel> models = new LinkedHashMap<String, ProductPriceModel>(skuCodes.size() * 2);
+
+        if (cart.getShoppingContext().isHidePrices()) {
+            for (final String skuCode : skuCodes) {
+                models.put(skuCode, getNullProductPriceModel(currency));
+            }
+            return models;
+        }
+
+        final PricingPolicyProvider.PricingPolicy policy = determinePricingPolicy(cart);
+        final boolean showTax = cart.getShoppingContext().isTaxInfoEnabled();
+
+        final Map<String, Object> requestCache = ApplicationDirector.getRequestCache();
+        final Map<String, SkuPrice> resolvedPrices = new LinkedHashMap<String, SkuPrice>(skuCodes.size() * 2);
+        final Map<String, BigDecimal> taxablePrices = new LinkedHashMap<String, BigDecimal>(skuCodes.size() * 2);
+
+        for (final String skuCode : skuCodes) {
+
+            if (models.containsKey(skuCode)) {
+                continue; // duplicate
+            }
+
+            if (requestCache != null) {
+                final ProductPriceModel cached = (ProductPriceModel) requestCache.get(getSkuPriceCacheKey(cart, policy, null, skuCode, quantity));
+                if (cached != null) {
+                    models.put(skuCode, cached);
+                    continue;
+                }
+            }
+
+            final SkuPrice resolved = resolveMinimalPrice(cart, null, skuCode, quantity, policy);
+            if (resolved != null) {
+                models.put(skuCode, null); // keep the order, model is calculated below
+                resolvedPrices.put(skuCode, resolved);
+                if (showTax) {
+                    // if sale price exists use it as primary target as this one will be shown
+                    final BigDecimal target = resolved.getSalePriceForCalculation() != null ?
+                            resolved.getSalePriceForCalculation() : resolved.getRegularPrice();
+                    if (target != null) {
+                        taxablePrices.put(resolved.getSkuCode(), target);
+                    }
+                }
+            } else {
+                models.put(skuCode, getNullProductPriceModel(currency));
+            }
+
+        }
+
+        final Map<String, ShoppingCartCalculator.PriceModel> taxModels = taxablePrices.isEmpty() ?
+                Collections.<String, ShoppingCartCalculator.PriceModel>emptyMap() :
+                shoppingCartCalculator.calculatePrices(cart, taxablePrices);
+
+        for (final Map.Entry<String, SkuPrice> resolved : resolvedPrices.entrySet()) {
+
+            final SkuPrice price = resolved.getValue();
+
+            models.put(resolved.getKey(), createSkuPriceModel(
+                    cart,
+                    price.getSkuCode(),
+                    price.getQuantity(),
+                    price.getRegularPrice(),
+                    price.getSalePriceForCalculation(),
+                    taxModels.get(price.getSkuCode())
+            ));
+
+        }
+
+        if (requestCache != null) {
+            for (final Map.Entry<String, ProductPriceModel> model : models.entrySet()) {
+                requestCache.put(getSkuPriceCacheKey(cart, policy, null, model.getKey(), quantity), model.getValue());
+            }
+        }
+
+        return models;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -575,6 +775,43 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
             return getNullProductPriceModel(currency);
         }
 
+        ShoppingCartCalculator.PriceModel taxModel = null;
+        if (cart.getShoppingContext().isTaxInfoEnabled()) {
+            if (salePrice != null) {
+                // if sale price exists use it as primary target as this one will be shown
+                taxModel = shoppingCartCalculator.calculatePrice(cart, ref, salePrice);
+            } else if (listPrice != null) {
+                // use list price to calculate taxes
+                taxModel = shoppingCartCalculator.calculatePrice(cart, ref, listPrice);
+            }
+        }
+
+        return createSkuPriceModel(cart, ref, quantity, listPrice, salePrice, taxModel);
+
+    }
+
+    /**
+     * Create price model with respect to current shop tax display settings.
+     *
+     * @param cart      current cart
+     * @param ref       reference (selected SKU, shipping or label)
+     * @param quantity  quantity tier
+     * @param listPrice base list price
+     * @param salePrice base sale price
+     * @param taxModel  price model calculated for sale price (or list price if there is no sale price),
+     *                  null if tax info is disabled
+     *
+     * @return price
+     */
+    protected ProductPriceModel createSkuPriceModel(final ShoppingCart cart,
+                                                    final String ref,
+                                                    final BigDecimal quantity,
+                                                    final BigDecimal listPrice,
+                                                    final BigDecimal salePrice,
+                                                    final ShoppingCartCalculator.PriceModel taxModel) {
+
+        final String currency = cart.getCurrencyCode();
+
         final boolean showTax = cart.getShoppingContext().isTaxInfoEnabled();
         final boolean showTaxNet = showTax && cart.getShoppingContext().isTaxInfoUseNet();
         final boolean showTaxAmount = showTax && cart.getShoppingContext().isTaxInfoShowAmount();
@@ -582,22 +819,20 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
         final BigDecimal sale = salePrice;
         final BigDecimal list = listPrice;
 
-        if (showTax) {
+        if (showTax && taxModel != null) {
             // prices with tax
             if (sale != null) {
-                // if sale price exists use it as primary target as this one will be shown
-                ShoppingCartCalculator.PriceModel saleModel = shoppingCartCalculator.calculatePrice(cart, ref, sale);
 
                 final BigDecimal saleAdjusted, listAdjusted;
 
                 if (showTaxNet) {
-                    saleAdjusted = saleModel.getNetPrice();
+                    saleAdjusted = taxModel.getNetPrice();
                     // recalculate list price so that discounts are correct
-                    listAdjusted = list != null ? MoneyUtils.getMoney(list, saleModel.getTaxRate(), !saleModel.isTaxExclusive()).getNet() : null;
+                    listAdjusted = list != null ? MoneyUtils.getMoney(list, taxModel.getTaxRate(), !taxModel.isTaxExclusive()).getNet() : null;
                 } else {
-                    saleAdjusted = saleModel.getGrossPrice();
+                    saleAdjusted = taxModel.getGrossPrice();
                     // recalculate list price so that discounts are correct
-                    listAdjusted = list != null ? MoneyUtils.getMoney(list, saleModel.getTaxRate(), !saleModel.isTaxExclusive()).getGross() : null;
+                    listAdjusted = list != null ? MoneyUtils.getMoney(list, taxModel.getTaxRate(), !taxModel.isTaxExclusive()).getGross() : null;
                 }
 
                 return new ProductPriceModelImpl(
@@ -606,17 +841,15 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                         quantity,
                         listAdjusted, saleAdjusted,
                         showTax, showTaxNet, showTaxAmount,
-                        saleModel.getTaxCode(),
-                        saleModel.getTaxRate(),
-                        saleModel.isTaxExclusive(),
-                        saleModel.getTaxAmount()
+                        taxModel.getTaxCode(),
+                        taxModel.getTaxRate(),
+                        taxModel.isTaxExclusive(),
+                        taxModel.getTaxAmount()
                 );
 
             } else if (list != null) {
-                // use list price to calculate taxes
-                ShoppingCartCalculator.PriceModel listModel = shoppingCartCalculator.calculatePrice(cart, ref, list);
 
-                final BigDecimal listAdjusted = showTaxNet ? listModel.getNetPrice() : listModel.getGrossPrice();
+                final BigDecimal listAdjusted = showTaxNet ? taxModel.getNetPrice() : taxModel.getGrossPrice();
 
                 return new ProductPriceModelImpl(
                         ref,
@@ -624,10 +857,10 @@ public class ProductServiceFacadeImpl implements ProductServiceFacade {
                         quantity,
                         listAdjusted, null,
                         showTax, showTaxNet, showTaxAmount,
-                        listModel.getTaxCode(),
-                        listModel.getTaxRate(),
-                        listModel.isTaxExclusive(),
-                        listModel.getTaxAmount()
+                        taxModel.getTaxCode(),
+                        taxModel.getTaxRate(),
+                        taxModel.isTaxExclusive(),
+                        taxModel.getTaxAmount()
                 );
 
             }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.report.impl;
+
+import org.junit.Test;
+import org.yes.cart.dao.ResultsIterator;
+import org.yes.cart.domain.misc.Pair;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 19:05
+ */
+public class ReportObjectStreamFactoryTest {
+
+    @Test
+    public void testGetObjectStreamSource() throws Exception {
+
+        final List<Object> data = Arrays.<Object>asList(new Pair<String, String>("a", "1"), new Pair<String, String>("b", "2"));
+
+        final StringWriter expected = new StringWriter();
+        final ObjectOutputStream os = ReportObjectStreamFactory.getObjectOutputStream(expected);
+        for (final Object obj : data) {
+            os.writeObject(obj);
+        }
+        os.close();
+
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        final StringWriter xml = new StringWriter();
+
+        transformer.transform(ReportObjectStreamFactory.getObjectStreamSource(data.iterator()), new StreamResult(xml));
+
+        assertEquals(expected.toString().replaceAll(">\\s+<", "><"), xml.toString());
+        assertEquals("<yes-report>" +
+                        "<pair><first class=\"string\">a</first><second class=\"string\">1</second></pair>" +
+                        "<pair><first class=\"string\">b</first><second class=\"string\">2</second></pair>" +
+                     "</yes-report>", xml.toString());
+
+    }
+
+    @Test
+    public void testGetObjectStreamSourceResultsIterator() throws Exception {
+
+        final int rows = 100000;
+        final long[] counters = new long[] { 0L, 0L, 0L }; // rows read, bytes written, closed
+
+        final ResultsIterator<Object> iterator = new ResultsIterator<Object>() {
+
+            @Override
+            public boolean hasNext() {
+                return counters[0] < rows;
+            }
+
+            @Override
+            public Object next() {
+                counters[0]++;
+                return new Pair<String, Long>("SKU-" + counters[0], counters[0]);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("read only");
+            }
+
+            @Override
+            public void close() {
+                counters[2]++;
+            }
+        };
+
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+
+        transformer.transform(ReportObjectStreamFactory.getObjectStreamSource(iterator), new StreamResult(new OutputStream() {
+            @Override
+            public void write(final int b) {
+                counters[1]++;
+            }
+        }));
+
+        assertEquals(rows, counters[0]);
+        assertTrue(counters[1] > rows * 50L);
+        assertEquals(1L, counters[2]);
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2009 Denys Pavlov, Igor Azarnyi
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package org.yes.cart.web.filter;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.integration.junit4.JUnit4Mockery;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * User: denispavlov
+ * Date: 18/10/2016
+ * Time: 17:40
+ */
+public class ImageFilterTest {
+
+    private final Mockery context = new JUnit4Mockery();
+
+    @Test
+    public void testParseRange() throws Exception {
+
+        assertNull(ImageFilter.parseRange(null, 100L));
+        assertNull(ImageFilter.parseRange("items=0-10", 100L));
+        assertNull(ImageFilter.parseRange("bytes=0-10,20-30", 100L));
+        assertNull(ImageFilter.parseRange("bytes=a-b", 100L));
+
+        assertArrayEquals(new long[] { 0L, 10L }, ImageFilter.parseRange("bytes=0-10", 100L));
+        assertArrayEquals(new long[] { 50L, 99L }, ImageFilter.parseRange("bytes=50-", 100L));
+        assertArrayEquals(new long[] { 50L, 99L }, ImageFilter.parseRange("bytes=50-1000", 100L));
+        assertArrayEquals(new long[] { 90L, 99L }, ImageFilter.parseRange("bytes=-10", 100L));
+        assertArrayEquals(new long[] { 0L, 99L }, ImageFilter.parseRange("bytes=-1000", 100L));
+
+        assertSame(ImageFilter.UNSATISFIABLE, ImageFilter.parseRange("bytes=100-", 100L));
+        assertSame(ImageFilter.UNSATISFIABLE, ImageFilter.parseRange("bytes=20-10", 100L));
+        assertSame(ImageFilter.UNSATISFIABLE, ImageFilter.parseRange("bytes=-0", 100L));
+
+    }
+
+    @Test
+    public void testIsNotModified() throws Exception {
+
+        final ImageFilter filter = new ImageFilter(null, null);
+
+        final HttpServletRequest etagMatch = context.mock(HttpServletRequest.class, "etagMatch");
+        final HttpServletRequest etagMismatch = context.mock(HttpServletRequest.class, "etagMismatch");
+        final HttpServletRequest modifiedSince = context.mock(HttpServletRequest.class, "modifiedSince");
+        final HttpServletRequest noHeaders = context.mock(HttpServletRequest.class, "noHeaders");
+
+        context.checking(new Expectations() {{
+            allowing(etagMatch).getHeader("If-None-Match"); will(returnValue("\"1\", \"a-b\""));
+            allowing(etagMismatch).getHeader("If-None-Match"); will(returnValue("\"1\""));
+            allowing(modifiedSince).getHeader("If-None-Match"); will(returnValue(null));
+            allowing(modifiedSince).getDateHeader("If-Modified-Since"); will(returnValue(2000L));
+            allowing(noHeaders).getHeader("If-None-Match"); will(returnValue(null));
+            allowing(noHeaders).getDateHeader("If-Modified-Since"); will(returnValue(-1L));
+        }});
+
+        assertTrue(filter.isNotModified(etagMatch, "\"a-b\"", 1000L));
+        assertFalse(filter.isNotModified(etagMismatch, "\"a-b\"", 1000L));
+        assertTrue(filter.isNotModified(modifiedSince, "\"a-b\"", 2999L));
+        assertFalse(filter.isNotModified(modifiedSince, "\"a-b\"", 3000L));
+        assertFalse(filter.isNotModified(noHeaders, "\"a-b\"", 1000L));
+
+    }
+
+    @Test
+    public void testGetETagValue() throws Exception {
+
+        final ImageFilter filter = new ImageFilter(null, null);
+
+        final File file = File.createTempFile("imagefilter", ".png");
+        file.deleteOnExit();
+        assertTrue(file.setLastModified(1000000L));
+
+        assertEquals("\"0-f4240\"", filter.getETagValue(file));
+
+    }
+
+}
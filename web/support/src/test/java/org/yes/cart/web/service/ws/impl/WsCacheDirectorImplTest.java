@@ -62,7 +62,7 @@ public class WsCacheDirectorImplTest {
 
         Set<Pair<String,String>> caches = cacheDirector.resolveCacheNames(CacheDirector.EntityOperation.CREATE, "AttributeEntity");
 
-        assertEquals(15, caches.size());
+        assertEquals(17, caches.size());
 
         assertTrue(caches.contains(new Pair("attributeService-availableAttributesByProductTypeId", "all")));
         assertTrue(caches.contains(new Pair("attributeService-availableImageAttributesByGroupCode", "all")));
@@ -79,6 +79,8 @@ public class WsCacheDirectorImplTest {
         assertTrue(caches.contains(new Pair("attributeService-attributeNamesByCodes", "all")));
         assertTrue(caches.contains(new Pair("breadCrumbBuilder-breadCrumbs", "all")));
         assertTrue(caches.contains(new Pair("filteredNavigationSupport-attributeFilteredNavigationRecords", "all")));
+        assertTrue(caches.contains(new Pair("org.yes.cart.domain.entity.impl.AttributeEntity", "entity")));
+        assertTrue(caches.contains(new Pair("query.attribute", "all")));
 
         caches = cacheDirector.resolveCacheNames(CacheDirector.EntityOperation.CREATE, "unknownEntity");
         assertNull(caches);
@@ -27,12 +27,14 @@ import org.yes.cart.service.domain.PromotionService;
 import org.yes.cart.service.domain.ShopService;
 import org.yes.cart.service.domain.ShoppingCartCalculator;
 import org.yes.cart.shoppingcart.*;
+import org.yes.cart.web.application.ApplicationDirector;
 import org.yes.cart.web.support.service.ProductServiceFacade;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.junit.Assert.*;
@@ -972,6 +974,123 @@ public class ProductServiceFacadeImplTest {
 
     }
 
+    @Test
+    public void testGetSkuPricesBatchWithTaxExclInfoGrossMemoized() throws Exception {
+
+        final PriceResolver priceResolver = context.mock(PriceResolver.class, "priceResolver");
+        final PricingPolicyProvider pricingPolicyProvider = context.mock(PricingPolicyProvider.class, "pricingPolicyProvider");
+        final ShoppingCartCalculator calculator = context.mock(ShoppingCartCalculator.class, "calculator");
+
+        final ShoppingCart cart = context.mock(ShoppingCart.class, "cart");
+        final ShoppingContext cartCtx = context.mock(ShoppingContext.class, "cartCtx");
+        final PricingPolicyProvider.PricingPolicy policy = context.mock(PricingPolicyProvider.PricingPolicy.class, "policy");
+
+        final SkuPrice skuPriceABC = context.mock(SkuPrice.class, "skuPriceABC");
+        final SkuPrice skuPriceDEF = context.mock(SkuPrice.class, "skuPriceDEF");
+
+        final ShoppingCartCalculator.PriceModel priceModelABC = context.mock(ShoppingCartCalculator.PriceModel.class, "priceModelABC");
+        final ShoppingCartCalculator.PriceModel priceModelDEF = context.mock(ShoppingCartCalculator.PriceModel.class, "priceModelDEF");
+
+        final Map<String, BigDecimal> taxable = new LinkedHashMap<String, BigDecimal>();
+        taxable.put("ABC", new BigDecimal("80.00"));
+        taxable.put("DEF", new BigDecimal("50.00"));
+
+        final Map<String, ShoppingCartCalculator.PriceModel> taxModels = new LinkedHashMap<String, ShoppingCartCalculator.PriceModel>();
+        taxModels.put("ABC", priceModelABC);
+        taxModels.put("DEF", priceModelDEF);
+
+        context.checking(new Expectations() {{
+            allowing(cart).getShoppingContext(); will(returnValue(cartCtx));
+            allowing(cartCtx).isHidePrices(); will(returnValue(false));
+            allowing(cartCtx).getShopId(); will(returnValue(234L));
+            allowing(cartCtx).getCustomerShopId(); will(returnValue(234L));
+            allowing(cartCtx).getShopCode(); will(returnValue("SHOP10"));
+            allowing(cartCtx).getCountryCode(); will(returnValue("GB"));
+            allowing(cartCtx).getStateCode(); will(returnValue("GB-LON"));
+            allowing(cart).getCustomerEmail(); will(returnValue("bob@doe.com"));
+            allowing(cart).getCurrencyCode(); will(returnValue("EUR"));
+            allowing(pricingPolicyProvider).determinePricingPolicy("SHOP10", "EUR", "bob@doe.com", "GB", "GB-LON"); will(returnValue(policy));
+            allowing(policy).getID(); will(returnValue("P1"));
+            oneOf(priceResolver).getMinimalPrice(null, "ABC", 234L, null, "EUR", BigDecimal.ONE, false, "P1"); will(returnValue(skuPriceABC));
+            allowing(skuPriceABC).getSkuCode(); will(returnValue("ABC"));
+            allowing(skuPriceABC).getQuantity(); will(returnValue(BigDecimal.ONE));
+            allowing(skuPriceABC).getRegularPrice(); will(returnValue(new BigDecimal("100.00")));
+            allowing(skuPriceABC).getSalePriceForCalculation(); will(returnValue(new BigDecimal("80.00")));
+            oneOf(priceResolver).getMinimalPrice(null, "DEF", 234L, null, "EUR", BigDecimal.ONE, false, "P1"); will(returnValue(skuPriceDEF));
+            allowing(skuPriceDEF).getSkuCode(); will(returnValue("DEF"));
+            allowing(skuPriceDEF).getQuantity(); will(returnValue(BigDecimal.ONE));
+            allowing(skuPriceDEF).getRegularPrice(); will(returnValue(new BigDecimal("50.00")));
+            allowing(skuPriceDEF).getSalePriceForCalculation(); will(returnValue(null));
+            oneOf(priceResolver).getMinimalPrice(null, "XYZ", 234L, null, "EUR", BigDecimal.ONE, false, "P1"); will(returnValue(null));
+            allowing(cartCtx).isTaxInfoEnabled(); will(returnValue(true));
+            allowing(cartCtx).isTaxInfoUseNet(); will(returnValue(false));
+            allowing(cartCtx).isTaxInfoShowAmount(); will(returnValue(true));
+            oneOf(calculator).calculatePrices(cart, taxable); will(returnValue(taxModels));
+            allowing(priceModelABC).getGrossPrice(); will(returnValue(new BigDecimal("96.00")));
+            allowing(priceModelABC).getTaxCode(); will(returnValue("GROSS"));
+            allowing(priceModelABC).getTaxRate(); will(returnValue(new BigDecimal("20.00")));
+            allowing(priceModelABC).isTaxExclusive(); will(returnValue(true));
+            allowing(priceModelABC).getTaxAmount(); will(returnValue(new BigDecimal("16.00")));
+            allowing(priceModelDEF).getGrossPrice(); will(returnValue(new BigDecimal("60.00")));
+            allowing(priceModelDEF).getTaxCode(); will(returnValue("GROSS"));
+            allowing(priceModelDEF).getTaxRate(); will(returnValue(new BigDecimal("20.00")));
+            allowing(priceModelDEF).isTaxExclusive(); will(returnValue(true));
+            allowing(priceModelDEF).getTaxAmount(); will(returnValue(new BigDecimal("10.00")));
+        }});
+
+        final ProductServiceFacade facade = new ProductServiceFacadeImpl(null, null, null, null, null, null, pricingPolicyProvider, priceResolver, calculator, null, null, null, null);
+
+        try {
+
+            ApplicationDirector.startRequestCache();
+
+            final Map<String, ProductPriceModel> models = facade.getSkuPricesBatch(cart, Arrays.asList("ABC", "XYZ", "DEF", "ABC"), BigDecimal.ONE);
+
+            assertNotNull(models);
+            assertEquals(Arrays.asList("ABC", "XYZ", "DEF"), Arrays.asList(models.keySet().toArray()));
+
+            final ProductPriceModel modelABC = models.get("ABC");
+
+            assertEquals("ABC", modelABC.getRef());
+            assertEquals("EUR", modelABC.getCurrency());
+            assertEquals("1", modelABC.getQuantity().toPlainString());
+            assertEquals("120.00", modelABC.getRegularPrice().toPlainString());
+            assertEquals("96.00", modelABC.getSalePrice().toPlainString());
+            assertTrue(modelABC.isTaxInfoEnabled());
+            assertFalse(modelABC.isTaxInfoUseNet());
+            assertTrue(modelABC.isTaxInfoShowAmount());
+            assertEquals("GROSS", modelABC.getPriceTaxCode());
+            assertEquals("20.00", modelABC.getPriceTaxRate().toPlainString());
+            assertTrue(modelABC.isPriceTaxExclusive());
+            assertEquals("16.00", modelABC.getPriceTax().toPlainString());
+
+            final ProductPriceModel modelXYZ = models.get("XYZ");
+
+            assertNull(modelXYZ.getRef());
+            assertEquals("EUR", modelXYZ.getCurrency());
+            assertNull(modelXYZ.getRegularPrice());
+            assertNull(modelXYZ.getSalePrice());
+
+            final ProductPriceModel modelDEF = models.get("DEF");
+
+            assertEquals("DEF", modelDEF.getRef());
+            assertEquals("60.00", modelDEF.getRegularPrice().toPlainString());
+            assertNull(modelDEF.getSalePrice());
+            assertEquals("10.00", modelDEF.getPriceTax().toPlainString());
+
+            // memoized for this request, so no further price resolution or calculation
+            assertSame(modelABC, facade.getSkuPrice(cart, null, "ABC", BigDecimal.ONE));
+            assertSame(modelXYZ, facade.getSkuPrice(cart, null, "XYZ", BigDecimal.ONE));
+            assertSame(modelDEF, facade.getSkuPricesBatch(cart, Collections.singletonList("DEF"), BigDecimal.ONE).get("DEF"));
+
+        } finally {
+            ApplicationDirector.clear();
+        }
+
+        context.assertIsSatisfied();
+
+    }
+
     @Test
     public void testGetSkuPriceSearchAndProductDetailsPriceListAndSaleWithTaxExclInfoNet() throws Exception {
 